@@ -75,7 +75,8 @@ CREATE TABLE item_tags (
 DROP TABLE IF EXISTS `images`;
 CREATE TABLE images (
   id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
-  url VARCHAR(500) NOT NULL COMMENT '图片访问URL'
+  url VARCHAR(500) NOT NULL COMMENT '图片访问URL',
+  embed_failed TINYINT(1) NOT NULL DEFAULT 0 COMMENT '图片是否无法生成向量（文件缺失、无法解码或被模型拒绝）：0-否，1-是'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片表';
 
 -- ----------------------
@@ -105,6 +106,37 @@ CREATE TABLE user_collect (
   CONSTRAINT fk_collect_item FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户物品收藏关联表';
 
+-- ----------------------
+-- 向量索引发件箱表（与物品写操作同事务写入，由后台任务异步同步到向量库）
+-- ----------------------
+DROP TABLE IF EXISTS `vector_outbox`;
+CREATE TABLE vector_outbox (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+  item_id BIGINT NOT NULL COMMENT '物品ID',
+  operation VARCHAR(16) NOT NULL COMMENT '操作类型：ADD-新增，UPDATE-更新，REMOVE-删除，REINDEX-按全部图片重新嵌入',
+  image_url VARCHAR(512) COMMENT '新增时参与多模态嵌入的图片URL',
+  status TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0-待处理，1-处理中，2-失败（超过最大重试次数）',
+  attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  next_attempt_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最早可处理时间',
+  last_error VARCHAR(512) COMMENT '最近一次失败原因',
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='向量索引发件箱表';
+
+-- ----------------------
+-- 物品匹配候选表（挂失与招领之间的相似物品，每对物品双向各存一行，物品向量同步后增量维护）
+-- ----------------------
+DROP TABLE IF EXISTS `item_match`;
+CREATE TABLE item_match (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+  item_id BIGINT NOT NULL COMMENT '物品ID',
+  candidate_id BIGINT NOT NULL COMMENT '类型相反的候选物品ID',
+  score DOUBLE NOT NULL COMMENT '向量相似度',
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  UNIQUE KEY uk_item_match_pair (item_id, candidate_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='物品匹配候选表';
+
 -- ----------------------
 -- 索引补充
 -- ----------------------
@@ -116,6 +148,9 @@ CREATE INDEX idx_item_tags_tag_item ON item_tags(tag_id, item_id);
 CREATE INDEX idx_item_images_item_id ON item_images(item_id);
 CREATE INDEX idx_item_images_image_id ON item_images(image_id);
 CREATE INDEX idx_users_email ON users(email);
+CREATE INDEX idx_vector_outbox_status_next ON vector_outbox(status, next_attempt_at);
+CREATE INDEX idx_item_match_item_score ON item_match(item_id, score);
+CREATE INDEX idx_item_match_candidate_id ON item_match(candidate_id);
 
 /*!40111 SET SQL_NOTES=@OLD_SQL_NOTES */;
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -50,5 +50,7 @@ public class Constants {
         public static final String REFRESH_TOKEN = PREFIX + "auth:refresh:";
         /** 刷新 Token 通过邮箱 Key 示例：lost_and_found:auth:refresh:by_email:test@xx.com */
         public static final String REFRESH_TOKEN_BY_EMAIL = PREFIX + "auth:refresh:by_email:";
+        /** 嵌入向量缓存 Key 示例：lost_and_found:embedding:{sha256(模型名+规范化文本)} */
+        public static final String EMBEDDING_CACHE = PREFIX + "embedding:";
     }
 }
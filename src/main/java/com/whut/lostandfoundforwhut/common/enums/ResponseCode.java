@@ -41,6 +41,7 @@ public enum ResponseCode {
     ITEM_NOT_FOUND("ITEM_001", "物品不存在"),
     ITEM_STATUS_INVALID("ITEM_002", "物品状态无效"),
     ITEM_CLAIM_CONFLICT("ITEM_003", "物品认领冲突"),
+    ITEM_DUPLICATE("ITEM_004", "物品重复发布"),
     ;
 
     private String code;
@@ -0,0 +1,23 @@
+package com.whut.lostandfoundforwhut.common.enums.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量发件箱操作类型
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public enum VectorOutboxOperation {
+    ADD("ADD", "新增"),
+    UPDATE("UPDATE", "更新"),
+    REMOVE("REMOVE", "删除"),
+    REINDEX("REINDEX", "按全部图片重新嵌入");
+
+    private String code;
+    private String desc;
+}
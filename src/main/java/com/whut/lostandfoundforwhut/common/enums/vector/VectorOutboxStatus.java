@@ -0,0 +1,22 @@
+package com.whut.lostandfoundforwhut.common.enums.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量发件箱记录状态（处理成功的记录直接删除）
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public enum VectorOutboxStatus {
+    PENDING(0, "待处理"),
+    PROCESSING(1, "处理中"),
+    FAILED(2, "失败");
+
+    private Integer code;
+    private String desc;
+}
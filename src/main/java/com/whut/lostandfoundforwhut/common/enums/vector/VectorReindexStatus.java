@@ -0,0 +1,23 @@
+package com.whut.lostandfoundforwhut.common.enums.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/17
+ * @description 向量索引全量重建任务状态
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public enum VectorReindexStatus {
+    IDLE("IDLE", "未运行"),
+    RUNNING("RUNNING", "运行中"),
+    COMPLETED("COMPLETED", "已完成"),
+    FAILED("FAILED", "失败");
+
+    private String code;
+    private String desc;
+}
@@ -0,0 +1,91 @@
+package com.whut.lostandfoundforwhut.common.utils.dedup;
+
+import com.whut.lostandfoundforwhut.common.utils.search.TextTokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 64 位 SimHash 文本指纹：特征与关键词索引使用同一分词器（字母数字串、单字、相邻双字），
+ * 按词频加权投票，近似文本的指纹只相差少数几位，汉明距离即可衡量相似程度，不依赖任何外部模型
+ */
+public final class SimHash {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 计算文本指纹
+     * @param text 文本
+     * @return 指纹及参与计算的特征数（文本为空时特征数为 0）
+     */
+    public static Signature of(String text) {
+        List<String> tokens = TextTokenizer.tokenize(text);
+        Map<String, Integer> termFrequency = new HashMap<>(tokens.size() * 2);
+        for (String token : tokens) {
+            termFrequency.merge(token, 1, Integer::sum);
+        }
+        double[] votes = new double[Long.SIZE];
+        for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
+            long hash = hash(entry.getKey());
+            double weight = 1 + Math.log(entry.getValue());
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += ((hash >>> bit) & 1L) == 1L ? weight : -weight;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return new Signature(fingerprint, termFrequency.size());
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 两个指纹的汉明距离
+     * @param a 指纹
+     * @param b 指纹
+     * @return 不同的位数
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a 64 位按 UTF-8 字节计算后再做一次 splitmix64 末端混合，保证不同 JVM 与重启后结果一致且各位分布均匀
+     */
+    static long hash(String feature) {
+        long h = FNV_OFFSET;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 文本指纹
+     * @param fingerprint 64 位指纹
+     * @param features 去重后的特征数，特征过少时指纹区分度低
+     */
+    public record Signature(long fingerprint, int features) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.whut.lostandfoundforwhut.common.utils.dedup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description SimHash 分段查找表：64 位指纹切成 maxDistance + 1 段，按鸽巢原理汉明距离不超过 maxDistance 的两个指纹
+ * 至少有一段完全相同，查找只需对每段做一次哈希表命中再校验候选，不扫描全部指纹
+ * 查找表按归属（如用户 + 物品类型）隔离，不同归属的指纹互不匹配
+ * @param <O> 归属键类型（需实现 equals/hashCode）
+ */
+public class SimHashIndex<O> {
+    private final int maxDistance;
+    private final int[] bandShift;
+    private final long[] bandMask;
+    private final Map<Bucket<O>, Set<Long>> buckets = new HashMap<>();
+    private final Map<Long, Entry<O>> entries = new HashMap<>();
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 构造索引
+     * @param maxDistance 支持查找的最大汉明距离（0~63）
+     */
+    public SimHashIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance >= Long.SIZE) {
+            throw new IllegalArgumentException("最大汉明距离需在 0~63 之间：" + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        int bands = maxDistance + 1;
+        this.bandShift = new int[bands];
+        this.bandMask = new long[bands];
+        int shift = 0;
+        for (int band = 0; band < bands; band++) {
+            // 位数不能整除时前面的段多分一位
+            int width = Long.SIZE / bands + (band < Long.SIZE % bands ? 1 : 0);
+            bandShift[band] = shift;
+            bandMask[band] = width == Long.SIZE ? -1L : (1L << width) - 1;
+            shift += width;
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 查找同一归属下与指纹足够相近的条目；没有时写入该条目（同ID已存在则替换），查找与写入原子完成
+     * @param owner 归属
+     * @param id 条目ID
+     * @param fingerprint 指纹
+     * @param distance 判为重复的最大汉明距离（不超过构造时的 maxDistance）
+     * @return 距离最近的重复条目ID；没有时返回 null 并已写入
+     */
+    public synchronized Long findOrAdd(O owner, long id, long fingerprint, int distance) {
+        List<Long> duplicates = find(owner, fingerprint, distance, id);
+        if (!duplicates.isEmpty()) {
+            return duplicates.get(0);
+        }
+        put(owner, id, fingerprint);
+        return null;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 查找同一归属下与指纹足够相近的条目
+     * @param owner 归属
+     * @param fingerprint 指纹
+     * @param distance 最大汉明距离（不超过构造时的 maxDistance）
+     * @return 按距离升序排列的条目ID
+     */
+    public synchronized List<Long> find(O owner, long fingerprint, int distance) {
+        return find(owner, fingerprint, distance, null);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 写入条目，同ID已存在时替换其归属和指纹
+     * @param owner 归属
+     * @param id 条目ID
+     * @param fingerprint 指纹
+     */
+    public synchronized void put(O owner, long id, long fingerprint) {
+        remove(id);
+        for (int band = 0; band < bandShift.length; band++) {
+            buckets.computeIfAbsent(bucket(owner, band, fingerprint), key -> new HashSet<>()).add(id);
+        }
+        entries.put(id, new Entry<>(owner, fingerprint));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 删除条目
+     * @param id 条目ID
+     * @return 是否存在
+     */
+    public synchronized boolean remove(long id) {
+        Entry<O> entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        for (int band = 0; band < bandShift.length; band++) {
+            Bucket<O> key = bucket(entry.owner(), band, entry.fingerprint());
+            Set<Long> ids = buckets.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        entries.clear();
+    }
+
+    private List<Long> find(O owner, long fingerprint, int distance, Long excludeId) {
+        if (distance > maxDistance) {
+            throw new IllegalArgumentException("查找距离超过索引支持的最大汉明距离：" + maxDistance);
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bandShift.length; band++) {
+            Set<Long> ids = buckets.get(bucket(owner, band, fingerprint));
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        }
+        List<long[]> matches = new ArrayList<>();
+        for (Long candidate : candidates) {
+            if (candidate.equals(excludeId)) {
+                continue;
+            }
+            int d = SimHash.distance(entries.get(candidate).fingerprint(), fingerprint);
+            if (d <= distance) {
+                matches.add(new long[] { candidate, d });
+            }
+        }
+        matches.sort((a, b) -> a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[0], b[0]));
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (long[] match : matches) {
+            ids.add(match[0]);
+        }
+        return ids;
+    }
+
+    private Bucket<O> bucket(O owner, int band, long fingerprint) {
+        return new Bucket<>(owner, band, (fingerprint >>> bandShift[band]) & bandMask[band]);
+    }
+
+    private record Bucket<O>(O owner, int band, long value) {
+    }
+
+    private record Entry<O>(O owner, long fingerprint) {
+    }
+}
@@ -0,0 +1,254 @@
+package com.whut.lostandfoundforwhut.common.utils.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 多模态嵌入前的图片预处理：按模型可用分辨率下采样解码、缩放后重新编码为 JPEG，
+ * 并通过流式 Base64 编码器直接写入线程复用的缓冲区，避免全分辨率像素与多份完整 Base64 字符串的分配
+ */
+public final class ImageDownscaler {
+    /** 线程复用缓冲区超过该容量时用后丢弃，避免个别大图让每个线程长期占用大数组 */
+    private static final int MAX_RETAINED_BUFFER = 8 * 1024 * 1024;
+    private static final int READ_CHUNK = 8192;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private ImageDownscaler() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 读取图片，长边缩放到 maxSide 以内后编码为 JPEG 并转为 Base64；
+     * 无法解码的格式（如未安装插件的 webp）原样编码
+     * @param in 图片输入流（不会被关闭）
+     * @param maxSide 长边像素上限
+     * @param quality JPEG 质量（0~1）
+     * @param maxSourceBytes 原图字节数上限，超过时抛出异常
+     * @return 编码结果
+     * @throws IOException 读取失败或原图过大
+     */
+    public static EncodedImage encode(InputStream in, int maxSide, float quality, int maxSourceBytes)
+            throws IOException {
+        Buffers buffers = BUFFERS.get();
+        try {
+            ReusableByteArrayOutputStream source = buffers.source;
+            source.reset();
+            copy(in, source, maxSourceBytes);
+
+            ReusableByteArrayOutputStream output = buffers.output;
+            output.reset();
+            BufferedImage image = decode(source.buffer(), source.size(), maxSide);
+            if (image == null) {
+                try (OutputStream base64 = Base64.getEncoder().wrap(output)) {
+                    base64.write(source.buffer(), 0, source.size());
+                }
+                return new EncodedImage(null, -1, -1, source.size(), output.toLatin1String());
+            }
+
+            BufferedImage fitted = fitToRgb(image, maxSide);
+            writeJpeg(fitted, quality, output);
+            return new EncodedImage("jpeg", fitted.getWidth(), fitted.getHeight(), source.size(),
+                    output.toLatin1String());
+        } finally {
+            buffers.trim();
+        }
+    }
+
+    /**
+     * 解码时按整数倍下采样，超大图片不会分配全分辨率像素
+     *
+     * @return 解码结果，格式不受支持时返回 null
+     */
+    private static BufferedImage decode(byte[] data, int length, int maxSide) throws IOException {
+        try (ImageInputStream input = new ByteArrayImageInputStream(data, length)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longSide / Math.max(1, maxSide));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 缩放到长边不超过 maxSide 并转为 3 字节 BGR（JPEG 编码器原生格式，INT_RGB 会在编码时整图再转换一次；
+     * JPEG 不支持透明通道，透明区域填充白色）
+     */
+    private static BufferedImage fitToRgb(BufferedImage image, int maxSide) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        if (scale == 1.0 && image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * JPEG 编码结果经 Base64 编码器直接写入输出缓冲区，不产生中间的字节数组
+     */
+    private static void writeJpeg(BufferedImage image, float quality, OutputStream output) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (OutputStream base64 = Base64.getEncoder().wrap(output);
+                ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(base64)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void copy(InputStream in, ReusableByteArrayOutputStream target, int maxBytes) throws IOException {
+        byte[] chunk = new byte[READ_CHUNK];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (target.size() + read > maxBytes) {
+                throw new IOException("图片超过大小上限：" + maxBytes + " 字节");
+            }
+            target.write(chunk, 0, read);
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 图片编码结果
+     * @param format 重新编码的格式，原样编码时为 null
+     * @param width 编码后的宽度，原样编码时为 -1
+     * @param height 编码后的高度，原样编码时为 -1
+     * @param sourceBytes 原图字节数
+     * @param base64 Base64 数据（不含 data URI 前缀）
+     */
+    public record EncodedImage(String format, int width, int height, int sourceBytes, String base64) {
+    }
+
+    private static final class Buffers {
+        private ReusableByteArrayOutputStream source = new ReusableByteArrayOutputStream();
+        private ReusableByteArrayOutputStream output = new ReusableByteArrayOutputStream();
+
+        private void trim() {
+            if (source.capacity() > MAX_RETAINED_BUFFER) {
+                source = new ReusableByteArrayOutputStream();
+            }
+            if (output.capacity() > MAX_RETAINED_BUFFER) {
+                output = new ReusableByteArrayOutputStream();
+            }
+        }
+    }
+
+    /**
+     * 直接读取内存数组的图片输入流，不像 MemoryCacheImageInputStream 那样再复制一份缓存
+     */
+    private static final class ByteArrayImageInputStream extends ImageInputStreamImpl {
+        private final byte[] data;
+        private final int length;
+
+        private ByteArrayImageInputStream(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (streamPos >= length) {
+                return -1;
+            }
+            return data[(int) streamPos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (len == 0) {
+                return 0;
+            }
+            if (streamPos >= length) {
+                return -1;
+            }
+            int count = (int) Math.min(len, length - streamPos);
+            System.arraycopy(data, (int) streamPos, b, off, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+    }
+
+    /**
+     * 可直接访问内部数组的输出流，reset 后复用已分配的容量
+     */
+    private static final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        private ReusableByteArrayOutputStream() {
+            super(64 * 1024);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        /**
+         * Base64 只含 ASCII 字符，按 Latin-1 构造字符串只需一次拷贝且使用紧凑存储
+         */
+        private String toLatin1String() {
+            return new String(buf, 0, count, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
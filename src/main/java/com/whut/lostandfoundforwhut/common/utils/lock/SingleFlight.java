@@ -0,0 +1,140 @@
+package com.whut.lostandfoundforwhut.common.utils.lock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 本地请求合并（single-flight）：同一 Key 同时只有一个任务在执行，并发的相同请求共享其结果，
+ * 热点查询的并发请求只产生一次上游调用
+ * 每个调用方拿到独立的 Future，取消只代表该调用方放弃等待；所有调用方都放弃后才中断执行中的任务。
+ * 任务完成前先从在途表中摘除，完成之后到达的请求会重新执行，不会拿到旧结果
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 执行或加入同一 Key 的在途任务
+     * @param key 请求 Key（需实现 equals / hashCode）
+     * @param task 任务，仅在没有在途任务时提交
+     * @param executor 执行任务的线程池
+     * @return 本调用方的结果 Future，取消时不影响其他调用方
+     * @throws RejectedExecutionException 线程池拒绝了新任务（已加入的调用方同样以该异常结束）
+     */
+    public CompletableFuture<V> execute(K key, Callable<V> task, ExecutorService executor) {
+        while (true) {
+            Flight flight = inFlight.get(key);
+            if (flight != null) {
+                if (flight.join()) {
+                    coalesced.increment();
+                    return flight.view();
+                }
+                // 所有调用方都已放弃，任务正在取消，换成新任务
+                inFlight.remove(key, flight);
+                continue;
+            }
+            Flight created = new Flight(key);
+            if (inFlight.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            created.start(task, executor);
+            executed.increment();
+            return created.view();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 统计信息
+     * @return 在途任务数、实际执行数、合并数与放弃后取消的任务数
+     */
+    public Map<String, Object> stats() {
+        long executedCount = executed.sum();
+        long coalescedCount = coalesced.sum();
+        long total = executedCount + coalescedCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("executed", executedCount);
+        stats.put("coalesced", coalescedCount);
+        stats.put("abandoned", abandoned.sum());
+        stats.put("coalesceRate", total == 0 ? 0.0 : (double) coalescedCount / total);
+        return stats;
+    }
+
+    private final class Flight {
+        private final K key;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        /** 仍在等待的调用方数，降到 0 后不再接受加入 */
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile Future<?> task;
+
+        private Flight(K key) {
+            this.key = key;
+        }
+
+        private void start(Callable<V> callable, ExecutorService executor) {
+            try {
+                task = executor.submit(() -> {
+                    try {
+                        V value = callable.call();
+                        inFlight.remove(key, this);
+                        result.complete(value);
+                    } catch (Throwable e) {
+                        inFlight.remove(key, this);
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, this);
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private boolean join() {
+            return waiters.getAndUpdate(count -> count > 0 ? count + 1 : count) > 0;
+        }
+
+        private CompletableFuture<V> view() {
+            CompletableFuture<V> view = result.copy();
+            view.whenComplete((value, error) -> {
+                if (view.isCancelled()) {
+                    leave();
+                }
+            });
+            return view;
+        }
+
+        private void leave() {
+            if (waiters.decrementAndGet() > 0) {
+                return;
+            }
+            inFlight.remove(key, this);
+            // 先结束结果再中断：任务可能尚未开始执行，取消后不会再完成结果
+            if (result.completeExceptionally(new CancellationException("所有调用方都已放弃等待"))) {
+                abandoned.increment();
+            }
+            Future<?> running = task;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description 进程内倒排索引，使用 BM25 打分，支持按文档增量写入/覆盖/删除（线程安全）
+ */
+public class Bm25Index {
+    private final float k1;
+    private final float b;
+
+    /** 词 -> (文档ID -> 词频) */
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Document> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 使用常用参数 k1=1.2，b=0.75 构造索引
+     */
+    public Bm25Index() {
+        this(1.2f, 0.75f);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 构造索引
+     * @param k1 词频饱和参数
+     * @param b 文档长度归一化参数
+     */
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 写入或覆盖文档
+     * @param docId 文档ID
+     * @param text 文档文本
+     */
+    public void put(String docId, String text) {
+        List<String> tokens = TextTokenizer.tokenize(text);
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokens) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            if (tokens.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(docId, entry.getValue());
+            }
+            documents.put(docId, new Document(termFreqs.keySet(), tokens.size()));
+            totalLength += tokens.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 删除文档
+     * @param docId 文档ID
+     * @return 是否删除了存在的文档
+     */
+    public boolean remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 查询 BM25 得分最高的 k 个文档
+     * @param query 查询文本
+     * @param k 返回数量
+     * @return 按得分降序排列的结果
+     */
+    public List<SearchResult> search(String query, int k) {
+        return search(query, k, null);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 带过滤条件查询 BM25 得分最高的 k 个文档，不满足条件的文档不参与排名
+     * @param query 查询文本
+     * @param k 返回数量
+     * @param filter 文档ID过滤条件（为 null 时不过滤）
+     * @return 按得分降序排列的结果
+     */
+    public List<SearchResult> search(String query, int k, Predicate<String> filter) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (terms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            float avgLength = (float) totalLength / docCount;
+            Map<String, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                int df = posting.size();
+                float idf = (float) Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<String, Integer> entry : posting.entrySet()) {
+                    if (filter != null && !filter.test(entry.getKey())) {
+                        continue;
+                    }
+                    int tf = entry.getValue();
+                    int length = documents.get(entry.getKey()).length();
+                    float score = idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * length / avgLength));
+                    scores.merge(entry.getKey(), score, Float::sum);
+                }
+            }
+
+            PriorityQueue<SearchResult> top = new PriorityQueue<>(k + 1, Comparator.comparingDouble(SearchResult::score));
+            for (Map.Entry<String, Float> entry : scores.entrySet()) {
+                if (top.size() < k) {
+                    top.add(new SearchResult(entry.getKey(), entry.getValue()));
+                } else if (entry.getValue() > top.peek().score()) {
+                    top.poll();
+                    top.add(new SearchResult(entry.getKey(), entry.getValue()));
+                }
+            }
+            List<SearchResult> results = new ArrayList<>(top);
+            results.sort(Comparator.comparingDouble(SearchResult::score).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 文档数量
+     * @return 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeInternal(String docId) {
+        Document document = documents.remove(docId);
+        if (document == null) {
+            return false;
+        }
+        for (String term : document.terms()) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(docId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length();
+        return true;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 查询结果
+     * @param id 文档ID
+     * @param score BM25 得分
+     */
+    public record SearchResult(String id, float score) {
+    }
+
+    private record Document(Set<String> terms, int length) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description 多路召回结果融合工具
+ */
+public class RankFusion {
+    /** RRF 常用平滑常数 */
+    public static final int DEFAULT_RRF_K = 60;
+
+    private RankFusion() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 倒数排名融合（RRF）：score(d) = Σ 1 / (k + rank)，只依赖名次，不需要对各路得分做归一化
+     * @param rankings 各路召回的有序ID列表（可为空列表）
+     * @param k 平滑常数
+     * @param limit 返回数量
+     * @return 融合后按得分降序的ID列表，同分时保持先出现者在前
+     */
+    public static List<String> reciprocalRank(List<List<String>> rankings, int k, int limit) {
+        Map<String, Double> scores = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        for (List<String> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                String id = ranking.get(rank);
+                if (!scores.containsKey(id)) {
+                    order.add(id);
+                }
+                scores.merge(id, 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        // List.sort 是稳定排序，同分保持首次出现的顺序
+        order.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        return order.size() > limit ? new ArrayList<>(order.subList(0, limit)) : order;
+    }
+}
@@ -0,0 +1,281 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.cache.EmbeddingCache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 检索结果短时缓存：查询（规范化文本 + 返回数量 + 过滤条件）-> 排好序的物品ID列表，
+ * 命中时一次哈希查找即可返回，跳过嵌入与近邻检索
+ * 维护物品ID -> 缓存条目的反向索引，物品变更时只失效包含该物品的条目；写入时也只检查结果中的物品
+ * 在检索期间是否失效过，其他物品的变更不影响写入，写入频繁时仍能缓存；
+ * 新物品进入结果不做追踪，由较短的过期时间兜底
+ */
+public class SearchResultCache {
+    /** 缓存已满时清理过期条目的最小间隔，避免每次写入都全表扫描 */
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** 失效记录的分片数，物品ID按取模落入分片，内存固定；分片冲突只会多丢弃少量写入 */
+    private static final int INVALIDATION_STRIPES = 4096;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    /** 物品ID -> 结果中包含该物品的缓存条目，集合只在 compute 内修改 */
+    private final ConcurrentHashMap<Long, Set<Entry>> entriesByItem = new ConcurrentHashMap<>();
+    /** 每次失效递增的序号，检索开始前的取值即失效戳 */
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    /** 分片 -> 最近一次失效的序号，写入时只与结果中物品所在分片比较 */
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(INVALIDATION_STRIPES);
+    /** 最近一次清空的序号，早于它开始的检索结果全部丢弃 */
+    private final AtomicLong clearedAt = new AtomicLong();
+    private final AtomicLong lastPurgeNanos = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造缓存
+     * @param ttlMillis 条目过期时间（毫秒）
+     * @param maxEntries 条目数上限，满时不再缓存新结果
+     */
+    public SearchResultCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::nanoTime);
+    }
+
+    SearchResultCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMillis, 1));
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.clock = clock;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造缓存 Key，查询文本按嵌入缓存相同的规则规范化
+     * @param query 查询文本
+     * @param maxResults 返回数量
+     * @param filter 过滤条件（可为空，空过滤与 null 视为相同）
+     * @return 缓存 Key
+     */
+    public static Key key(String query, int maxResults, VectorFilter filter) {
+        return new Key(EmbeddingCache.normalize(query), maxResults,
+                filter == null || filter.isEmpty() ? null : filter);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 查询缓存
+     * @param key 缓存 Key
+     * @return 物品ID列表（不可修改），未命中或已过期时返回 null
+     */
+    public List<Long> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAt >= 0) {
+            if (entries.remove(key, entry)) {
+                unlink(entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.itemIds;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 检索开始前获取失效戳，写入结果时传回
+     * @return 当前失效戳
+     */
+    public long stamp() {
+        return invalidationSequence.get();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 写入检索结果；结果中的物品在检索期间失效过时丢弃，避免把变更前的结果写回缓存
+     * @param key 缓存 Key
+     * @param itemIds 排好序的物品ID
+     * @param stamp 检索开始前 {@link #stamp()} 的返回值
+     */
+    public void put(Key key, List<Long> itemIds, long stamp) {
+        if (invalidatedSince(itemIds, stamp)) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                rejected.increment();
+                return;
+            }
+        }
+        Entry entry = new Entry(key, List.copyOf(itemIds), clock.getAsLong() + ttlNanos);
+        // 先建反向索引再发布条目，失效方先记录失效序号再摘反向索引，二者交错时至少一方会移除该条目
+        for (Long itemId : entry.itemIds) {
+            entriesByItem.compute(itemId, (id, set) -> {
+                Set<Entry> target = set == null ? new HashSet<>() : set;
+                target.add(entry);
+                return target;
+            });
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        if (invalidatedSince(entry.itemIds, stamp) && entries.remove(key, entry)) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 物品变更或下架时失效结果中包含该物品的全部条目
+     * @param itemId 物品ID
+     */
+    public void invalidateItem(Long itemId) {
+        long sequence = invalidationSequence.incrementAndGet();
+        invalidatedAt.accumulateAndGet(stripe(itemId), sequence, Math::max);
+        Set<Entry> affected = entriesByItem.remove(itemId);
+        if (affected == null) {
+            return;
+        }
+        for (Entry entry : affected) {
+            if (entries.remove(entry.key, entry)) {
+                invalidated.increment();
+                unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 清空缓存（如向量索引整体重建后）
+     */
+    public void clear() {
+        long sequence = invalidationSequence.incrementAndGet();
+        clearedAt.accumulateAndGet(sequence, Math::max);
+        entries.clear();
+        entriesByItem.clear();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 获取缓存统计
+     * @return 命中/未命中/失效等计数
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMillis", TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("invalidated", invalidated.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    /**
+     * 失效戳之后是否清空过缓存，或结果中有物品（所在分片）失效过
+     */
+    private boolean invalidatedSince(List<Long> itemIds, long stamp) {
+        if (clearedAt.get() > stamp) {
+            return true;
+        }
+        for (Long itemId : itemIds) {
+            if (invalidatedAt.get(stripe(itemId)) > stamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), INVALIDATION_STRIPES);
+    }
+
+    private void purgeExpired() {
+        long now = clock.getAsLong();
+        long last = lastPurgeNanos.get();
+        if (last != Long.MIN_VALUE && now - last < PURGE_INTERVAL_NANOS) {
+            return;
+        }
+        if (!lastPurgeNanos.compareAndSet(last, now)) {
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            if (now - entry.expiresAt >= 0 && entries.remove(entry.key, entry)) {
+                unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * 从反向索引中摘除条目，只摘除该条目本身，同 Key 的新条目不受影响
+     */
+    private void unlink(Entry entry) {
+        for (Long itemId : entry.itemIds) {
+            entriesByItem.computeIfPresent(itemId, (id, set) -> {
+                set.remove(entry);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 缓存 Key
+     * @param query 规范化后的查询文本
+     * @param maxResults 返回数量
+     * @param filter 过滤条件（无条件时为 null）
+     */
+    public record Key(String query, int maxResults, VectorFilter filter) {
+    }
+
+    /**
+     * 缓存条目，按对象身份比较，便于区分同一 Key 先后写入的条目
+     */
+    private static final class Entry {
+        private final Key key;
+        private final List<Long> itemIds;
+        private final long expiresAt;
+
+        private Entry(Key key, List<Long> itemIds, long expiresAt) {
+            this.key = key;
+            this.itemIds = itemIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
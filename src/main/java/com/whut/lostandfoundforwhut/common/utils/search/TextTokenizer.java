@@ -0,0 +1,69 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description 轻量分词器（无词典）：字母数字连续串整体作为一个词（卡号、楼栋号、品牌名），
+ * 汉字串切分为单字和相邻双字
+ */
+public class TextTokenizer {
+    private TextTokenizer() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 分词（全角转半角、转小写后切分）
+     * @param text 原始文本
+     * @return 词列表（保留重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        List<Integer> han = new ArrayList<>();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN) {
+                flushWord(word, tokens);
+                han.add(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushHan(han, tokens);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushHan(han, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushHan(han, tokens);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushHan(List<Integer> han, List<String> tokens) {
+        for (int j = 0; j < han.size(); j++) {
+            tokens.add(new String(Character.toChars(han.get(j))));
+            if (j + 1 < han.size()) {
+                tokens.add(new String(Character.toChars(han.get(j))) + new String(Character.toChars(han.get(j + 1))));
+            }
+        }
+        han.clear();
+    }
+}
@@ -0,0 +1,128 @@
+package com.whut.lostandfoundforwhut.common.utils.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 物品多向量的条目ID约定：文本向量沿用 item_{id}，每张图片一个向量 item_{id}#img_{槽位}，
+ * 同一物品的全部向量共享物品键 item_{id}；图片槽位数固定，删除物品时无需查询即可列出全部可能的ID
+ */
+public final class ItemVectorIds {
+    /** 物品键前缀 */
+    public static final String ITEM_PREFIX = "item_";
+    /** 每个物品最多保留的图片向量数 */
+    public static final int MAX_IMAGES = 9;
+    private static final String IMAGE_SEPARATOR = "#img_";
+
+    private ItemVectorIds() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 物品键（同时也是文本向量的ID）
+     * @param itemId 物品ID
+     * @return 物品键
+     */
+    public static String itemKey(Long itemId) {
+        return ITEM_PREFIX + itemId;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 图片向量ID
+     * @param itemId 物品ID
+     * @param slot 图片槽位（0 ~ MAX_IMAGES-1）
+     * @return 条目ID
+     */
+    public static String imageId(Long itemId, int slot) {
+        if (slot < 0 || slot >= MAX_IMAGES) {
+            throw new IllegalArgumentException("图片槽位超出范围：" + slot);
+        }
+        return itemKey(itemId) + IMAGE_SEPARATOR + slot;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 物品全部图片槽位的向量ID
+     * @param itemId 物品ID
+     * @param fromSlot 起始槽位（含）
+     * @return 条目ID列表
+     */
+    public static List<String> imageIds(Long itemId, int fromSlot) {
+        List<String> ids = new ArrayList<>(MAX_IMAGES);
+        for (int slot = Math.max(fromSlot, 0); slot < MAX_IMAGES; slot++) {
+            ids.add(imageId(itemId, slot));
+        }
+        return ids;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 物品全部可能的向量ID（文本 + 所有图片槽位）
+     * @param itemId 物品ID
+     * @return 条目ID列表
+     */
+    public static List<String> allIds(Long itemId) {
+        List<String> ids = new ArrayList<>(MAX_IMAGES + 1);
+        ids.add(itemKey(itemId));
+        ids.addAll(imageIds(itemId, 0));
+        return ids;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 由向量ID得到所属物品键，非图片向量原样返回
+     * @param vectorId 条目ID
+     * @return 物品键
+     */
+    public static String toItemKey(String vectorId) {
+        int separator = vectorId.indexOf(IMAGE_SEPARATOR);
+        return separator < 0 ? vectorId : vectorId.substring(0, separator);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 由向量ID解析图片槽位
+     * @param vectorId 条目ID
+     * @return 图片槽位，文本向量或无法解析时返回 -1
+     */
+    public static int imageSlot(String vectorId) {
+        int separator = vectorId.indexOf(IMAGE_SEPARATOR);
+        if (separator < 0) {
+            return -1;
+        }
+        try {
+            int slot = Integer.parseInt(vectorId.substring(separator + IMAGE_SEPARATOR.length()));
+            return slot >= 0 && slot < MAX_IMAGES ? slot : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 由向量ID解析物品ID
+     * @param vectorId 条目ID（物品键或图片向量ID）
+     * @return 物品ID，非物品条目返回 null
+     */
+    public static Long toItemId(String vectorId) {
+        String itemKey = toItemKey(vectorId);
+        if (!itemKey.startsWith(ITEM_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(itemKey.substring(ITEM_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
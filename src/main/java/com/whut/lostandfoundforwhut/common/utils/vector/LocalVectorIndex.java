@@ -0,0 +1,95 @@
+package com.whut.lostandfoundforwhut.common.utils.vector;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * @author DXR
+ * @date 2026/02/14
+ * @description 进程内向量索引接口（余弦相似度），由 VectorServiceImpl 按 app.vector-store.backend 选择实现
+ */
+public interface LocalVectorIndex {
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 插入或覆盖向量，维度与首条向量不一致时抛出 IllegalArgumentException
+     * @param id 条目ID
+     * @param vector 向量
+     */
+    void add(String id, float[] vector);
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 删除向量
+     * @param id 条目ID
+     * @return 是否删除了存在的条目
+     */
+    boolean remove(String id);
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 查询与 query 最相近的 k 个条目
+     * @param query 查询向量
+     * @param k 返回数量
+     * @return 按相似度降序排列的结果
+     */
+    default List<SearchResult> search(float[] query, int k) {
+        return search(query, k, null);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 带过滤条件查询：过滤在索引内部执行，满足条件的条目足够时一定返回 k 个
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param filter 条目ID过滤条件（为 null 时不过滤）
+     * @return 按相似度降序排列的结果
+     */
+    List<SearchResult> search(float[] query, int k, Predicate<String> filter);
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 判断是否包含指定条目
+     * @param id 条目ID
+     * @return 是否存在
+     */
+    boolean contains(String id);
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 有效条目数量
+     * @return 条目数量
+     */
+    int size();
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 清空索引
+     */
+    void clear();
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 向量维度，索引为空时为 -1
+     * @return 维度
+     */
+    int getDimension();
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 查询结果
+     * @param id 条目ID
+     * @param score 余弦相似度
+     */
+    record SearchResult(String id, float score) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.whut.lostandfoundforwhut.common.utils.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/16
+ * @description 向量检索元数据过滤条件（各条件之间为与关系，标签为任一命中），
+ * 进程内索引在图遍历/扫描时逐条判断，Chroma 后端转换为 where 子句下推
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VectorFilter {
+    private Integer type;
+    private Integer status;
+    /** 命中任一标签即可 */
+    private List<Long> tagIds;
+    /** 创建时间下界（含） */
+    private LocalDateTime startTime;
+    /** 创建时间上界（含） */
+    private LocalDateTime endTime;
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 是否没有任何条件
+     * @return 是否为空过滤
+     */
+    public boolean isEmpty() {
+        return type == null && status == null && (tagIds == null || tagIds.isEmpty())
+                && startTime == null && endTime == null;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 判断元数据是否满足条件，没有元数据的条目不满足任何非空过滤
+     * @param metadata 元数据
+     * @return 是否满足
+     */
+    public boolean matches(VectorMetadata metadata) {
+        if (isEmpty()) {
+            return true;
+        }
+        if (metadata == null) {
+            return false;
+        }
+        if (type != null && !type.equals(metadata.type())) {
+            return false;
+        }
+        if (status != null && !status.equals(metadata.status())) {
+            return false;
+        }
+        if (tagIds != null && !tagIds.isEmpty() && tagIds.stream().noneMatch(metadata.tagIds()::contains)) {
+            return false;
+        }
+        Long from = VectorMetadata.epochSeconds(startTime);
+        Long to = VectorMetadata.epochSeconds(endTime);
+        if (from != null || to != null) {
+            Long createdAt = metadata.createdAt();
+            if (createdAt == null || (from != null && createdAt < from) || (to != null && createdAt > to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 转换为 Chroma where 子句
+     * @return where 子句，无条件时返回 null
+     */
+    public Map<String, Object> toChromaWhere() {
+        List<Map<String, Object>> clauses = new ArrayList<>();
+        if (type != null) {
+            clauses.add(Map.of(VectorMetadata.KEY_TYPE, Map.of("$eq", type)));
+        }
+        if (status != null) {
+            clauses.add(Map.of(VectorMetadata.KEY_STATUS, Map.of("$eq", status)));
+        }
+        if (startTime != null) {
+            clauses.add(Map.of(VectorMetadata.KEY_CREATED_AT, Map.of("$gte", VectorMetadata.epochSeconds(startTime))));
+        }
+        if (endTime != null) {
+            clauses.add(Map.of(VectorMetadata.KEY_CREATED_AT, Map.of("$lte", VectorMetadata.epochSeconds(endTime))));
+        }
+        if (tagIds != null && !tagIds.isEmpty()) {
+            List<Map<String, Object>> tagClauses = new ArrayList<>();
+            for (Long tagId : tagIds) {
+                tagClauses.add(Map.of(VectorMetadata.TAG_KEY_PREFIX + tagId, Map.of("$eq", true)));
+            }
+            clauses.add(tagClauses.size() == 1 ? tagClauses.get(0) : Map.of("$or", tagClauses));
+        }
+        if (clauses.isEmpty()) {
+            return null;
+        }
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        Map<String, Object> where = new HashMap<>();
+        where.put("$and", clauses);
+        return where;
+    }
+}
@@ -0,0 +1,108 @@
+package com.whut.lostandfoundforwhut.common.utils.vector;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author DXR
+ * @date 2026/02/16
+ * @description 随向量一起存储的物品元数据，用于在向量检索内部做过滤
+ * Chroma 元数据只支持标量值，标签以 tag_{id}=true 的布尔字段展开存储
+ * @param type 物品类型
+ * @param status 物品状态
+ * @param createdAt 创建时间（epoch 秒）
+ * @param tagIds 标签ID集合
+ */
+public record VectorMetadata(Integer type, Integer status, Long createdAt, Set<Long> tagIds) {
+    static final String KEY_TYPE = "type";
+    static final String KEY_STATUS = "status";
+    static final String KEY_CREATED_AT = "created_at";
+    static final String TAG_KEY_PREFIX = "tag_";
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 从物品实体构造元数据
+     * @param item 物品实体
+     * @param tagIds 标签ID集合（可为空）
+     * @return 元数据
+     */
+    public static VectorMetadata of(Item item, Collection<Long> tagIds) {
+        return new VectorMetadata(item.getType(), item.getStatus(), epochSeconds(item.getCreatedAt()),
+                tagIds == null ? Set.of() : Set.copyOf(tagIds));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 转为 Chroma 元数据
+     * @return 元数据键值
+     */
+    public Map<String, Object> toChroma() {
+        Map<String, Object> metadata = new HashMap<>();
+        if (type != null) {
+            metadata.put(KEY_TYPE, type);
+        }
+        if (status != null) {
+            metadata.put(KEY_STATUS, status);
+        }
+        if (createdAt != null) {
+            metadata.put(KEY_CREATED_AT, createdAt);
+        }
+        for (Long tagId : tagIds) {
+            metadata.put(TAG_KEY_PREFIX + tagId, true);
+        }
+        return metadata;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 从 Chroma 元数据还原
+     * @param metadata 元数据键值（可为空）
+     * @return 元数据，输入为空时返回 null
+     */
+    public static VectorMetadata fromChroma(Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        Set<Long> tagIds = new HashSet<>();
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            if (entry.getKey().startsWith(TAG_KEY_PREFIX) && Boolean.TRUE.equals(entry.getValue())) {
+                try {
+                    tagIds.add(Long.parseLong(entry.getKey().substring(TAG_KEY_PREFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // 非标签字段
+                }
+            }
+        }
+        return new VectorMetadata(toInteger(metadata.get(KEY_TYPE)), toInteger(metadata.get(KEY_STATUS)),
+                toLong(metadata.get(KEY_CREATED_AT)), tagIds);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 本地时间转 epoch 秒（系统时区）
+     * @param time 本地时间（可为空）
+     * @return epoch 秒
+     */
+    public static Long epochSeconds(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static Integer toInteger(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.cache;
+
+import com.whut.lostandfoundforwhut.common.constant.Constants;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author DXR
+ * @date 2026/02/12
+ * @description 嵌入向量两级缓存：进程内 LRU + Redis（向量以 float32 小端二进制存储）
+ * 缓存 Key 为 SHA-256(模型名 + 规范化文本)，同一文本在不同模型下互不干扰
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+    @Resource(name = "byteRedisTemplate")
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    @Value("${app.vector-store.embedding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.vector-store.embedding.cache.local-max-size:2000}")
+    private int localMaxSize;
+
+    @Value("${app.vector-store.embedding.cache.redis-ttl-hours:168}")
+    private long redisTtlHours;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    private final LinkedHashMap<String, float[]> local = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            if (size() > localMaxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * @author DXR
+     * @date 2026/02/12
+     * @description 批量查询缓存：先查本地 LRU，未命中的再用一次 MGET 查 Redis
+     * @param model 模型名称
+     * @param texts 文本列表
+     * @return 与 texts 一一对应的向量，未命中的位置为 null
+     */
+    public List<float[]> getAll(String model, List<String> texts) {
+        List<float[]> results = new ArrayList<>(texts.size());
+        if (!enabled) {
+            for (int i = 0; i < texts.size(); i++) {
+                results.add(null);
+            }
+            return results;
+        }
+
+        List<String> redisKeys = new ArrayList<>();
+        List<Integer> redisPositions = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = cacheKey(model, texts.get(i));
+            float[] vector;
+            synchronized (local) {
+                vector = local.get(key);
+            }
+            results.add(vector);
+            if (vector != null) {
+                localHits.increment();
+            } else {
+                redisKeys.add(key);
+                redisPositions.add(i);
+            }
+        }
+        if (redisKeys.isEmpty()) {
+            return results;
+        }
+
+        List<byte[]> values = null;
+        try {
+            values = byteRedisTemplate.opsForValue().multiGet(redisKeys);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("读取Redis嵌入缓存失败，按未命中处理：{}", e.getMessage());
+        }
+        for (int j = 0; j < redisKeys.size(); j++) {
+            byte[] bytes = values == null || j >= values.size() ? null : values.get(j);
+            if (bytes == null || bytes.length == 0 || bytes.length % Float.BYTES != 0) {
+                misses.increment();
+                continue;
+            }
+            float[] vector = decode(bytes);
+            results.set(redisPositions.get(j), vector);
+            redisHits.increment();
+            synchronized (local) {
+                local.put(redisKeys.get(j), vector);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/12
+     * @description 写入缓存（本地 + Redis），只应写入模型真实返回的向量
+     * @param model 模型名称
+     * @param text 文本
+     * @param vector 向量
+     */
+    public void put(String model, String text, float[] vector) {
+        if (!enabled || vector == null || vector.length == 0) {
+            return;
+        }
+        String key = cacheKey(model, text);
+        synchronized (local) {
+            local.put(key, vector);
+        }
+        try {
+            byteRedisTemplate.opsForValue().set(key, encode(vector), Duration.ofHours(redisTtlHours));
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("写入Redis嵌入缓存失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/12
+     * @description 获取缓存统计
+     * @return 命中/未命中/淘汰等计数
+     */
+    public Map<String, Object> stats() {
+        long localHitCount = localHits.sum();
+        long redisHitCount = redisHits.sum();
+        long missCount = misses.sum();
+        long total = localHitCount + redisHitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("localSize", localSize());
+        stats.put("localMaxSize", localMaxSize);
+        stats.put("localHits", localHitCount);
+        stats.put("redisHits", redisHitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("redisErrors", redisErrors.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (localHitCount + redisHitCount) / total);
+        return stats;
+    }
+
+    private int localSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/12
+     * @description 规范化文本：全角转半角、合并空白、转小写
+     * @param text 原始文本
+     * @return 规范化后的文本
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String cacheKey(String model, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+            return Constants.RedisKey.EMBEDDING_CACHE + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
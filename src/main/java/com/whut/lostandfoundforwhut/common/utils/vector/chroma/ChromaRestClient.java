@@ -0,0 +1,331 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.chroma;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/10
+ * @description ChromaDB REST API（v1）轻量客户端，补充 langchain4j 未暴露的分页读取等能力
+ */
+public class ChromaRestClient {
+    private final RestClient restClient;
+    private volatile String collectionName;
+    private volatile String collectionId;
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 构造客户端
+     * @param baseUrl Chroma 服务地址，例如 http://127.0.0.1:8000
+     * @param collectionName 集合名称
+     * @param connectTimeout 连接超时
+     * @param readTimeout 读取超时，Chroma 无响应时请求按超时失败，不会一直占用调用线程
+     */
+    public ChromaRestClient(String baseUrl, String collectionName, Duration connectTimeout, Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.collectionName = collectionName;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 获取或创建集合，返回集合ID
+     * @return 集合ID
+     */
+    public String getOrCreateCollection() {
+        String id = collectionId;
+        if (id != null) {
+            return id;
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("name", collectionName);
+        body.put("metadata", Map.of("hnsw:space", "cosine"));
+        body.put("get_or_create", true);
+        CollectionResponse response = restClient.post()
+                .uri("/api/v1/collections")
+                .body(body)
+                .retrieve()
+                .body(CollectionResponse.class);
+        if (response == null || response.id() == null) {
+            throw new IllegalStateException("获取Chroma集合失败：" + collectionName);
+        }
+        collectionId = response.id();
+        return collectionId;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 分页读取集合中的条目及其向量、元数据
+     * @param offset 偏移量
+     * @param limit 每页数量
+     * @return 当前页数据
+     */
+    public Page get(int offset, int limit) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("offset", offset);
+        body.put("limit", limit);
+        body.put("include", List.of("embeddings", "metadatas"));
+        GetResponse response = restClient.post()
+                .uri("/api/v1/collections/{id}/get", getOrCreateCollection())
+                .body(body)
+                .retrieve()
+                .body(GetResponse.class);
+        if (response == null || response.ids() == null) {
+            return new Page(List.of(), List.of(), List.of());
+        }
+        List<float[]> vectors = new ArrayList<>(response.ids().size());
+        List<Map<String, Object>> metadatas = new ArrayList<>(response.ids().size());
+        List<List<Double>> embeddings = response.embeddings();
+        for (int i = 0; i < response.ids().size(); i++) {
+            vectors.add(embeddings == null ? null : toArray(embeddings.get(i)));
+            metadatas.add(response.metadatas() == null ? null : response.metadatas().get(i));
+        }
+        return new Page(response.ids(), vectors, metadatas);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 分页读取集合中的条目ID，不返回向量与元数据
+     * @param offset 偏移量
+     * @param limit 每页数量
+     * @return 当前页的条目ID
+     */
+    public List<String> getIds(int offset, int limit) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("offset", offset);
+        body.put("limit", limit);
+        body.put("include", List.of());
+        GetResponse response = restClient.post()
+                .uri("/api/v1/collections/{id}/get", getOrCreateCollection())
+                .body(body)
+                .retrieve()
+                .body(GetResponse.class);
+        return response == null || response.ids() == null ? List.of() : response.ids();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/11
+     * @description 批量写入（ID已存在则覆盖），一次请求完成
+     * @param ids 条目ID列表
+     * @param vectors 与 ids 一一对应的向量
+     */
+    public void upsert(List<String> ids, List<float[]> vectors) {
+        upsert(ids, vectors, null);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 批量写入向量及元数据（ID已存在则覆盖），一次请求完成
+     * @param ids 条目ID列表
+     * @param vectors 与 ids 一一对应的向量
+     * @param metadatas 与 ids 一一对应的元数据（为 null 时不写元数据）
+     */
+    public void upsert(List<String> ids, List<float[]> vectors, List<Map<String, Object>> metadatas) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("ids", ids);
+        body.put("embeddings", vectors);
+        if (metadatas != null) {
+            body.put("metadatas", metadatas);
+        }
+        restClient.post()
+                .uri("/api/v1/collections/{id}/upsert", getOrCreateCollection())
+                .body(body)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 只更新已存在条目的元数据（Chroma 忽略不存在的ID），一次请求完成
+     * @param ids 条目ID列表
+     * @param metadatas 与 ids 一一对应的元数据
+     */
+    public void update(List<String> ids, List<Map<String, Object>> metadatas) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        restClient.post()
+                .uri("/api/v1/collections/{id}/update", getOrCreateCollection())
+                .body(Map.of("ids", ids, "metadatas", metadatas))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 向量检索，where 子句在 Chroma 内部与近邻搜索一起执行
+     * @param vector 查询向量
+     * @param limit 返回数量
+     * @param where 元数据过滤条件（为 null 时不过滤）
+     * @return 按距离升序排列的结果
+     */
+    public List<Match> query(float[] vector, int limit, Map<String, Object> where) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("query_embeddings", List.of(vector));
+        body.put("n_results", limit);
+        body.put("include", List.of("distances"));
+        if (where != null && !where.isEmpty()) {
+            body.put("where", where);
+        }
+        QueryResponse response = restClient.post()
+                .uri("/api/v1/collections/{id}/query", getOrCreateCollection())
+                .body(body)
+                .retrieve()
+                .body(QueryResponse.class);
+        if (response == null || response.ids() == null || response.ids().isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = response.ids().get(0);
+        List<Double> distances = response.distances() == null || response.distances().isEmpty()
+                ? null
+                : response.distances().get(0);
+        List<Match> matches = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            matches.add(new Match(ids.get(i), distances == null ? Double.NaN : distances.get(i)));
+        }
+        return matches;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/13
+     * @description 按ID批量删除，ID不存在时忽略
+     * @param ids 条目ID列表
+     */
+    public void delete(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        restClient.post()
+                .uri("/api/v1/collections/{id}/delete", getOrCreateCollection())
+                .body(Map.of("ids", ids))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 获取集合条目数（Chroma 原生计数接口）
+     * @return 条目数
+     */
+    public int count() {
+        Integer count = restClient.get()
+                .uri("/api/v1/collections/{id}/count", getOrCreateCollection())
+                .retrieve()
+                .body(Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/17
+     * @description 删除整个集合，集合不存在时忽略；之后的读写会按原名称重新创建集合
+     */
+    public void deleteCollection() {
+        try {
+            restClient.delete()
+                    .uri("/api/v1/collections/{name}", collectionName)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException.NotFound e) {
+            // 集合不存在
+        } catch (HttpServerErrorException e) {
+            // 部分 Chroma 版本对不存在的集合返回 500
+            if (!e.getResponseBodyAsString().contains("does not exist")) {
+                throw e;
+            }
+        }
+        collectionId = null;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/17
+     * @description 重命名集合，集合ID不变，已缓存ID的读写不受影响
+     * @param newName 新名称
+     */
+    public void rename(String newName) {
+        restClient.put()
+                .uri("/api/v1/collections/{id}", getOrCreateCollection())
+                .body(Map.of("new_name", newName))
+                .retrieve()
+                .toBodilessEntity();
+        collectionName = newName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    private static float[] toArray(List<Double> values) {
+        if (values == null) {
+            return null;
+        }
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i).floatValue();
+        }
+        return array;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 分页读取结果
+     * @param ids 条目ID列表
+     * @param vectors 与 ids 一一对应的向量
+     * @param metadatas 与 ids 一一对应的元数据（可能为 null）
+     */
+    public record Page(List<String> ids, List<float[]> vectors, List<Map<String, Object>> metadatas) {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/16
+     * @description 检索结果
+     * @param id 条目ID
+     * @param distance 距离（余弦空间下为 1 - 相似度）
+     */
+    public record Match(String id, double distance) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record CollectionResponse(String id, String name) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GetResponse(List<String> ids, List<List<Double>> embeddings, List<Map<String, Object>> metadatas) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record QueryResponse(List<List<String>> ids, List<List<Double>> distances) {
+    }
+}
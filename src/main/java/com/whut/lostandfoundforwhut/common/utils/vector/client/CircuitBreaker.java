@@ -0,0 +1,154 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import java.util.function.LongSupplier;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 基于计数滑动窗口的熔断器：最近 windowSize 次调用中失败率达到阈值时熔断，
+ * 熔断期间直接拒绝；熔断时长过后放行一次试探调用，成功则恢复，失败则继续熔断
+ */
+public class CircuitBreaker {
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier clock;
+    /** 最近调用结果的环形缓冲，true 表示失败 */
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private boolean trialInFlight;
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造熔断器
+     * @param windowSize 滑动窗口大小（最近调用次数）
+     * @param minimumCalls 窗口内至少有多少次调用才计算失败率
+     * @param failureRateThreshold 触发熔断的失败率（0~1）
+     * @param openDurationMillis 熔断持续时间（毫秒）
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMillis) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMillis,
+            LongSupplier clock) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 判断是否放行本次调用；放行后必须调用 onSuccess、onFailure 或 onIgnored 之一
+     * @return 是否放行
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAtMillis < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 记录一次成功调用
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 记录一次失败调用（异常或超时）
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 放行后未实际发起调用（如被舱壁或限流拒绝），不计入结果，只释放试探名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = clock.getAsLong();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
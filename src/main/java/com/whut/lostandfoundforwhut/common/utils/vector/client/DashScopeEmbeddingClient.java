@@ -0,0 +1,249 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import com.alibaba.dashscope.embeddings.MultiModalEmbedding;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingParam;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResult;
+import com.alibaba.dashscope.embeddings.TextEmbedding;
+import com.alibaba.dashscope.embeddings.TextEmbeddingParam;
+import com.alibaba.dashscope.embeddings.TextEmbeddingResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description DashScope 嵌入调用的隔离层：调用在专用线程池中执行，调用方只等待到截止时间；
+ * 依次经过熔断器、并发舱壁（信号量）和令牌桶限流，任一环节拒绝或调用失败都抛出
+ * EmbeddingUnavailableException，由调用方降级（写入进入本地队列、检索只用关键词召回），避免 DashScope 变慢时占满 Tomcat 线程
+ */
+@Slf4j
+@Component
+public class DashScopeEmbeddingClient {
+    /** 同时进行中的 DashScope 调用上限（超时未返回的调用仍占用名额，直到真正结束） */
+    @Value("${app.vector-store.embedding.client.max-concurrent:8}")
+    private int maxConcurrent;
+
+    /** 等待舱壁名额或限流令牌的最长时间（毫秒） */
+    @Value("${app.vector-store.embedding.client.acquire-timeout-ms:200}")
+    private long acquireTimeoutMs;
+
+    /** 每秒最多发出的请求数 */
+    @Value("${app.vector-store.embedding.client.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    /** 令牌桶容量（允许的突发请求数） */
+    @Value("${app.vector-store.embedding.client.burst:10}")
+    private int burst;
+
+    /** 文本嵌入单次调用截止时间（毫秒） */
+    @Value("${app.vector-store.embedding.client.text-timeout-ms:5000}")
+    private long textTimeoutMs;
+
+    /** 多模态嵌入单次调用截止时间（毫秒），图片上传较慢，单独配置 */
+    @Value("${app.vector-store.embedding.client.multimodal-timeout-ms:15000}")
+    private long multimodalTimeoutMs;
+
+    @Value("${app.vector-store.embedding.client.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${app.vector-store.embedding.client.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${app.vector-store.embedding.client.breaker.failure-rate-threshold:0.5}")
+    private double breakerFailureRateThreshold;
+
+    @Value("${app.vector-store.embedding.client.breaker.open-duration-ms:30000}")
+    private long breakerOpenDurationMs;
+
+    private Semaphore bulkhead;
+    private TokenBucket rateLimiter;
+    private CircuitBreaker circuitBreaker;
+    private ExecutorService executor;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejectedCircuitOpen = new LongAdder();
+    private final LongAdder rejectedBulkhead = new LongAdder();
+    private final LongAdder rejectedRateLimit = new LongAdder();
+    private final LongAdder successLatencyMillis = new LongAdder();
+    private final LongAccumulator maxLatencyMillis = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        rateLimiter = new TokenBucket(requestsPerSecond, burst);
+        circuitBreaker = new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRateThreshold,
+                breakerOpenDurationMs);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), runnable -> {
+            Thread thread = new Thread(runnable, "dashscope-embedding-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 调用文本嵌入接口
+     * @param param 请求参数
+     * @return 接口返回结果
+     * @throws EmbeddingUnavailableException 被拒绝、超时或调用失败
+     */
+    public TextEmbeddingResult embedText(TextEmbeddingParam param) {
+        return execute("text", textTimeoutMs, () -> new TextEmbedding().call(param));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 调用多模态嵌入接口
+     * @param param 请求参数
+     * @return 接口返回结果
+     * @throws EmbeddingUnavailableException 被拒绝、超时或调用失败
+     */
+    public MultiModalEmbeddingResult embedMultimodal(MultiModalEmbeddingParam param) {
+        return execute("multimodal", multimodalTimeoutMs, () -> new MultiModalEmbedding().call(param));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 在熔断、舱壁、限流保护下执行一次调用，调用方最多等待 timeoutMs
+     * @param operation 操作名称（用于日志）
+     * @param timeoutMs 截止时间（毫秒，含排队等待）
+     * @param call 实际调用
+     * @return 调用结果
+     * @throws EmbeddingUnavailableException 被拒绝、超时或调用失败
+     */
+    <T> T execute(String operation, long timeoutMs, Callable<T> call) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        calls.increment();
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCircuitOpen.increment();
+            throw new EmbeddingUnavailableException("DashScope 熔断中，跳过 " + operation + " 嵌入调用");
+        }
+
+        boolean submitted = false;
+        try {
+            long waitMs = Math.min(acquireTimeoutMs, remainingMillis(deadline));
+            if (!bulkhead.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                rejectedBulkhead.increment();
+                throw new EmbeddingUnavailableException("DashScope 并发调用已满（" + maxConcurrent + "），跳过 "
+                        + operation + " 嵌入调用");
+            }
+            Future<T> future;
+            try {
+                waitMs = Math.min(acquireTimeoutMs, remainingMillis(deadline));
+                if (!rateLimiter.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                    rejectedRateLimit.increment();
+                    throw new EmbeddingUnavailableException("DashScope 请求速率超过 " + requestsPerSecond + "/s，跳过 "
+                            + operation + " 嵌入调用");
+                }
+                // 名额在调用真正结束时才释放，超时放弃等待的调用仍计入并发
+                future = executor.submit(() -> {
+                    try {
+                        return call.call();
+                    } finally {
+                        bulkhead.release();
+                    }
+                });
+            } catch (InterruptedException | RuntimeException e) {
+                bulkhead.release();
+                throw e;
+            }
+            submitted = true;
+            return await(operation, future, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingUnavailableException("等待 DashScope " + operation + " 嵌入调用时被中断", e);
+        } catch (RejectedExecutionException e) {
+            throw new EmbeddingUnavailableException("DashScope 嵌入线程池已关闭", e);
+        } finally {
+            if (!submitted) {
+                circuitBreaker.onIgnored();
+            }
+        }
+    }
+
+    private <T> T await(String operation, Future<T> future, long deadline) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            T result = future.get(Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            successes.increment();
+            successLatencyMillis.add(latency);
+            maxLatencyMillis.accumulate(latency);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            circuitBreaker.onFailure();
+            throw new EmbeddingUnavailableException("DashScope " + operation + " 嵌入调用超时", e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            circuitBreaker.onFailure();
+            throw new EmbeddingUnavailableException("DashScope " + operation + " 嵌入调用失败："
+                    + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.onIgnored();
+            throw e;
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 调用统计：熔断状态、在途调用数、成功/失败/超时与各类拒绝计数、平均与最大耗时
+     * @return 统计信息
+     */
+    public Map<String, Object> stats() {
+        long successCount = successes.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("circuitState", circuitBreaker.getState().name());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", maxConcurrent - bulkhead.availablePermits());
+        stats.put("requestsPerSecond", requestsPerSecond);
+        stats.put("calls", calls.sum());
+        stats.put("successes", successCount);
+        stats.put("failures", failures.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("rejectedCircuitOpen", rejectedCircuitOpen.sum());
+        stats.put("rejectedBulkhead", rejectedBulkhead.sum());
+        stats.put("rejectedRateLimit", rejectedRateLimit.sum());
+        stats.put("avgLatencyMs", successCount == 0 ? 0.0 : (double) successLatencyMillis.sum() / successCount);
+        stats.put("maxLatencyMs", maxLatencyMillis.get());
+        return stats;
+    }
+}
@@ -0,0 +1,64 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingOutput;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResult;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResultItem;
+
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description DashScope 嵌入结果解码：按 SDK 类型直接取值写入 float[]，
+ * 不做反射查找，也不经过中间集合
+ */
+public final class EmbeddingDecoder {
+    private EmbeddingDecoder() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 将 SDK 返回的数值列表转为 float[]，只分配结果数组
+     * @param values 向量分量（SDK 反序列化得到的 List&lt;Double&gt;）
+     * @return 向量，列表为空或含 null 分量时返回 null
+     */
+    public static float[] toFloatArray(List<? extends Number> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            Number value = values.get(i);
+            if (value == null) {
+                return null;
+            }
+            vector[i] = value.floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 取多模态嵌入结果中的第一个向量
+     * @param result SDK 返回结果
+     * @return 向量，结果为空时返回 null
+     */
+    public static float[] decodeMultimodal(MultiModalEmbeddingResult result) {
+        if (result == null) {
+            return null;
+        }
+        MultiModalEmbeddingOutput output = result.getOutput();
+        if (output == null || output.getEmbeddings() == null) {
+            return null;
+        }
+        for (MultiModalEmbeddingResultItem item : output.getEmbeddings()) {
+            float[] vector = item == null ? null : toFloatArray(item.getEmbedding());
+            if (vector != null) {
+                return vector;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 嵌入服务当前不可用（熔断、限流、舱壁已满、超时或调用失败），调用方应降级处理
+ */
+public class EmbeddingUnavailableException extends RuntimeException {
+    public EmbeddingUnavailableException(String message) {
+        super(message);
+    }
+
+    public EmbeddingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,80 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 令牌桶限流：按固定速率补充令牌，允许不超过容量的突发；
+ * 令牌不足时可在限定时间内预占后续令牌并等待
+ */
+public class TokenBucket {
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造令牌桶，初始为满桶
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity 桶容量（允许的突发请求数）
+     */
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int capacity, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("令牌补充速率必须大于 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.nanoClock = nanoClock;
+        this.tokens = this.capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 获取一个令牌，需要等待的时长超过 maxWait 时立即返回 false（不占用令牌）
+     * @param maxWait 最长等待时间
+     * @param unit 时间单位
+     * @return 是否获取成功
+     * @throws InterruptedException 等待期间被中断
+     */
+    public boolean tryAcquire(long maxWait, TimeUnit unit) throws InterruptedException {
+        long waitNanos = reserve(unit.toNanos(maxWait));
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * 预占一个令牌，返回需要等待的纳秒数；超过 maxWaitNanos 时返回 -1 且不预占
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        // 令牌数允许为负，后续请求需要等待更久，保证整体速率不超过上限
+        tokens -= 1;
+        return waitNanos;
+    }
+}
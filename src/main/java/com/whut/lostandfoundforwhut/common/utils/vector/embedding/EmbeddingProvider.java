@@ -0,0 +1,64 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.embedding;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 嵌入向量生成器：文档与查询分开生成，便于实现只在查询侧加权的模型
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 生成器名称
+     * @return 名称
+     */
+    String name();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 向量维度
+     * @return 维度
+     */
+    int dimension();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 生成待入库文档的嵌入向量
+     * @param text 文档文本
+     * @return 嵌入向量（长度为 dimension）
+     */
+    float[] embed(String text);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 生成查询文本的嵌入向量，默认与文档相同
+     * @param text 查询文本
+     * @return 嵌入向量（长度为 dimension）
+     */
+    default float[] embedQuery(String text) {
+        return embed(text);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 登记入库文档，供需要语料统计的模型使用；同一文档ID重复登记时替换其旧统计，默认忽略
+     * @param documentId 文档ID（向量条目ID）
+     * @param text 文档文本
+     */
+    default void register(String documentId, String text) {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 注销已删除的文档，扣除其统计，默认忽略
+     * @param documentId 文档ID（向量条目ID）
+     */
+    default void unregister(String documentId) {
+    }
+}
@@ -0,0 +1,217 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.embedding;
+
+import com.whut.lostandfoundforwhut.common.utils.search.TextTokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 离线嵌入：字母数字串与汉字单字、相邻双字作为特征（复用关键词检索的分词），
+ * 带符号的特征哈希映射到固定维度，词频取 1 + ln(tf) 后 L2 归一化
+ * IDF 只在查询侧加权：文档向量只含词频，入库后不随语料变化；文档频率按文档ID登记（按哈希桶统计），
+ * 同一文档重新登记时先扣除旧统计，删除时注销，编辑、重试与重放不会重复计数；生成向量本身不改变统计。
+ * 统计只在内存中，重启后由调用方按数据库重新登记。查询时按当前统计加权，点积即 TF-IDF 相似度，未登记文档时 IDF 全为 1
+ */
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+    private static final int SEED = 0x9747b28c;
+
+    private final int dimension;
+    private final AtomicIntegerArray documentFrequency;
+    /** 文档ID -> 该文档计入文档频率的哈希桶，重新登记或注销时据此扣除 */
+    private final ConcurrentHashMap<String, int[]> documentBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造生成器
+     * @param dimension 向量维度（需与向量集合一致）
+     */
+    public HashingEmbeddingProvider(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("嵌入维度必须大于 0");
+        }
+        this.dimension = dimension;
+        this.documentFrequency = new AtomicIntegerArray(dimension);
+    }
+
+    @Override
+    public String name() {
+        return "hashing-ngram-" + dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        Map<String, Integer> termFrequency = termFrequency(text);
+        float[] vector = new float[dimension];
+        for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
+            int hash = hash(entry.getKey());
+            vector[bucket(hash)] += sign(hash) * weight(entry.getValue());
+        }
+        return normalize(vector);
+    }
+
+    @Override
+    public void register(String documentId, String text) {
+        int[] buckets = distinctBuckets(text);
+        // 扣除旧统计与计入新统计在同一个 compute 中完成，同一文档的并发登记不会重复计数
+        documentBuckets.compute(documentId, (id, previous) -> {
+            if (previous != null) {
+                release(previous);
+            }
+            if (buckets.length == 0) {
+                return null;
+            }
+            for (int bucket : buckets) {
+                documentFrequency.incrementAndGet(bucket);
+            }
+            return buckets;
+        });
+    }
+
+    @Override
+    public void unregister(String documentId) {
+        documentBuckets.computeIfPresent(documentId, (id, previous) -> {
+            release(previous);
+            return null;
+        });
+    }
+
+    @Override
+    public float[] embedQuery(String text) {
+        Map<String, Integer> termFrequency = termFrequency(text);
+        float[] vector = new float[dimension];
+        double documents = documentBuckets.size();
+        for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
+            int hash = hash(entry.getKey());
+            int bucket = bucket(hash);
+            // 平滑 IDF：ln((1 + N) / (1 + df)) + 1，恒为正
+            double idf = Math.log((1 + documents) / (1 + documentFrequency.get(bucket))) + 1;
+            vector[bucket] += (float) (sign(hash) * weight(entry.getValue()) * idf);
+        }
+        return normalize(vector);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 已登记的文档数（不含没有特征的空文档）
+     * @return 文档数
+     */
+    public long documentCount() {
+        return documentBuckets.size();
+    }
+
+    /**
+     * 文本特征落入的不重复哈希桶
+     */
+    private int[] distinctBuckets(String text) {
+        boolean[] seen = new boolean[dimension];
+        int[] buckets = new int[dimension];
+        int count = 0;
+        for (String feature : termFrequency(text).keySet()) {
+            int bucket = bucket(hash(feature));
+            if (!seen[bucket]) {
+                seen[bucket] = true;
+                buckets[count++] = bucket;
+            }
+        }
+        return Arrays.copyOf(buckets, count);
+    }
+
+    private void release(int[] buckets) {
+        for (int bucket : buckets) {
+            documentFrequency.decrementAndGet(bucket);
+        }
+    }
+
+    private static Map<String, Integer> termFrequency(String text) {
+        List<String> tokens = TextTokenizer.tokenize(text);
+        Map<String, Integer> termFrequency = new HashMap<>(tokens.size() * 2);
+        for (String token : tokens) {
+            termFrequency.merge(token, 1, Integer::sum);
+        }
+        return termFrequency;
+    }
+
+    private static float weight(int termFrequency) {
+        return (float) (1 + Math.log(termFrequency));
+    }
+
+    private int bucket(int hash) {
+        return Math.floorMod(hash, dimension);
+    }
+
+    /**
+     * 符号取哈希的另一组位，冲突到同一桶的特征期望上相互抵消，点积保持无偏
+     */
+    private static float sign(int hash) {
+        return (Integer.rotateLeft(hash, 13) & 1) == 0 ? 1f : -1f;
+    }
+
+    /**
+     * MurmurHash3 x86_32，按 UTF-8 字节计算，保证不同 JVM 与重启后结果一致
+     */
+    static int hash(String feature) {
+        byte[] data = feature.getBytes(StandardCharsets.UTF_8);
+        int h = SEED;
+        int blocks = data.length / 4;
+        for (int i = 0; i < blocks; i++) {
+            int k = (data[i * 4] & 0xff) | (data[i * 4 + 1] & 0xff) << 8
+                    | (data[i * 4 + 2] & 0xff) << 16 | (data[i * 4 + 3] & 0xff) << 24;
+            h ^= mixK(k);
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        int tail = blocks * 4;
+        switch (data.length & 3) {
+            case 3:
+                k ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k ^= data[tail] & 0xff;
+                h ^= mixK(k);
+            default:
+                break;
+        }
+        h ^= data.length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+}
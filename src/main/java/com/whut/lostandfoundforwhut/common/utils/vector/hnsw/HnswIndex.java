@@ -0,0 +1,603 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.hnsw;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.LocalVectorIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * @author DXR
+ * @date 2026/02/10
+ * @description 进程内 HNSW（分层可导航小世界图）近似最近邻索引，使用余弦相似度
+ * 删除和覆盖写先留下墓碑节点；墓碑超过有效条目的一定比例后，把指向墓碑的邻居替换为墓碑的邻居（两跳内）
+ * 重新做启发式选择，墓碑从图中摘除后由 GC 回收，内存和遍历开销不随编辑次数增长
+ */
+public class HnswIndex implements LocalVectorIndex {
+    /** 墓碑数超过有效条目数的该比例时修复图 */
+    private static final double COMPACT_RATIO = 0.2;
+    /** 墓碑少于该数量时不修复，避免小索引频繁修复 */
+    private static final int COMPACT_MIN_TOMBSTONES = 64;
+
+    /** 每个节点在非 0 层的最大邻居数 */
+    private final int m;
+    /** 第 0 层的最大邻居数（论文建议为 2M） */
+    private final int maxM0;
+    /** 构建时的候选队列大小 */
+    private final int efConstruction;
+    /** 查询时的候选队列大小 */
+    private volatile int efSearch;
+    /** 层级生成因子 1/ln(M) */
+    private final double levelMultiplier;
+
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    /** 入口点变更（新节点层级超过当前最高层）时使用的全局锁 */
+    private final ReentrantLock entryLock = new ReentrantLock();
+    private final AtomicInteger deletedCount = new AtomicInteger();
+    /** 仍可能被其他节点引用的墓碑节点 */
+    private final Set<Node> tombstones = ConcurrentHashMap.newKeySet();
+    /** 同一时间只有一个线程修复墓碑 */
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private volatile Node entryPoint;
+    private volatile int dimension = -1;
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 构造 HNSW 索引
+     * @param m 每层最大邻居数（常用 12~48）
+     * @param efConstruction 构建时候选队列大小（越大召回越高、构建越慢）
+     * @param efSearch 查询时候选队列大小（越大召回越高、查询越慢）
+     */
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW 参数 M 不能小于 2");
+        }
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 插入或覆盖向量（线程安全，可并发调用）
+     * @param id 条目ID
+     * @param vector 向量
+     */
+    @Override
+    public void add(String id, float[] vector) {
+        if (id == null || vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("HNSW 插入的ID和向量不能为空");
+        }
+        checkDimension(vector.length);
+
+        Node node = new Node(id, VectorMath.normalize(vector), randomLevel());
+        Node previous = nodes.put(id, node);
+        if (previous != null) {
+            // 覆盖写：旧节点保留在图中作为墓碑，只用于导航，累积到一定数量后修复
+            markDeleted(previous);
+            compactIfNeeded();
+        }
+
+        Node entry = entryPoint;
+        if (entry == null) {
+            entryLock.lock();
+            try {
+                if (entryPoint == null) {
+                    entryPoint = node;
+                    return;
+                }
+            } finally {
+                entryLock.unlock();
+            }
+        }
+
+        // 新节点层级高于当前最高层时，需持有全局锁直至入口点更新完成
+        boolean holdsEntryLock = false;
+        if (node.level > entryPoint.level) {
+            entryLock.lock();
+            holdsEntryLock = true;
+        }
+        try {
+            insert(node);
+        } finally {
+            if (holdsEntryLock) {
+                entryLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 删除向量（软删除：节点仍参与图导航，但不再出现在结果中）
+     * @param id 条目ID
+     * @return 是否删除了存在的条目
+     */
+    @Override
+    public boolean remove(String id) {
+        if (id == null) {
+            return false;
+        }
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        markDeleted(node);
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 查询与 query 最相近的 k 个条目
+     * 过滤条件在第 0 层遍历时判断：不满足条件的节点仍用于导航，但不占用结果队列，
+     * 因此过滤越严格遍历的节点越多，但结果数不会因过滤而减少
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param filter 条目ID过滤条件（为 null 时不过滤）
+     * @return 按相似度降序排列的结果
+     */
+    @Override
+    public List<SearchResult> search(float[] query, int k, Predicate<String> filter) {
+        Node entry = entryPoint;
+        if (entry == null || k <= 0 || nodes.isEmpty()) {
+            return List.of();
+        }
+        checkDimension(query.length);
+        float[] q = VectorMath.normalize(query);
+
+        Node current = entry;
+        float currentDistance = distance(q, current.vector);
+        for (int level = entry.level; level > 0; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Node neighbor : current.neighbors(level)) {
+                    float d = distance(q, neighbor.vector);
+                    if (d < currentDistance) {
+                        currentDistance = d;
+                        current = neighbor;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // 墓碑节点不进入结果，按墓碑占比放大 ef；修复保证墓碑占比不超过 COMPACT_RATIO（小索引除外）
+        int ef = Math.max(efSearch, k);
+        int deleted = deletedCount.get();
+        if (deleted > 0) {
+            ef += (int) Math.ceil(ef * Math.min((double) deleted / Math.max(nodes.size(), 1), 1.0));
+        }
+        Predicate<Node> accept = filter == null
+                ? node -> !node.deleted
+                : node -> !node.deleted && filter.test(node.id);
+        PriorityQueue<Candidate> top = searchLayer(q, current, ef, 0, accept);
+
+        List<Candidate> ordered = new ArrayList<>(top);
+        ordered.sort(Comparator.comparingDouble(c -> c.distance));
+        List<SearchResult> results = new ArrayList<>(Math.min(k, ordered.size()));
+        for (Candidate candidate : ordered) {
+            if (results.size() >= k) {
+                break;
+            }
+            results.add(new SearchResult(candidate.node.id, 1 - candidate.distance));
+        }
+        return results;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 判断是否包含指定条目
+     * @param id 条目ID
+     * @return 是否存在
+     */
+    @Override
+    public boolean contains(String id) {
+        return id != null && nodes.containsKey(id);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 有效条目数量
+     * @return 条目数量
+     */
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 图中墓碑节点数量（覆盖写和删除产生，修复后减少）
+     * @return 墓碑数量
+     */
+    public int deletedSize() {
+        return deletedCount.get();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 修复墓碑：有效节点指向墓碑的邻居替换为墓碑的有效邻居后重新选择，入口点为墓碑时换为最高层的有效节点
+     * 逐个节点加锁修改邻居，不阻塞并发的查询和写入；修复期间并发插入恰好连到的墓碑留到下次修复
+     * @return 从图中摘除的墓碑数量
+     */
+    public int compact() {
+        compactLock.lock();
+        try {
+            List<Node> removed = new ArrayList<>(tombstones);
+            if (removed.isEmpty()) {
+                return 0;
+            }
+            replaceDeletedEntryPoint();
+            for (Node node : nodes.values()) {
+                for (int level = 0; level <= node.level; level++) {
+                    repairNeighbors(node, level);
+                }
+            }
+            // 墓碑自身的邻居保留不动：正在从旧入口点出发的查询仍能导航
+            removed.forEach(tombstones::remove);
+            deletedCount.addAndGet(-removed.size());
+            return removed.size();
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/10
+     * @description 清空索引
+     */
+    @Override
+    public void clear() {
+        entryLock.lock();
+        try {
+            nodes.clear();
+            entryPoint = null;
+            dimension = -1;
+            tombstones.clear();
+            deletedCount.set(0);
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(efSearch, 1);
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    private void insert(Node node) {
+        Node entry = entryPoint;
+        Node current = entry;
+        float currentDistance = distance(node.vector, current.vector);
+
+        // 高于新节点层级的部分只做贪心下降
+        for (int level = entry.level; level > node.level; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Node neighbor : current.neighbors(level)) {
+                    float d = distance(node.vector, neighbor.vector);
+                    if (d < currentDistance) {
+                        currentDistance = d;
+                        current = neighbor;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (int level = Math.min(node.level, entry.level); level >= 0; level--) {
+            // 墓碑只用于导航，不作为新节点的邻居；附近全是墓碑时才连到墓碑，保证新节点可达
+            PriorityQueue<Candidate> candidates = searchLayer(node.vector, current, efConstruction, level,
+                    candidate -> !candidate.deleted);
+            if (candidates.isEmpty()) {
+                candidates = searchLayer(node.vector, current, efConstruction, level, null);
+            }
+            int maxNeighbors = level == 0 ? maxM0 : m;
+            List<Node> selected = selectNeighbors(node.vector, candidates, m);
+            node.setNeighbors(level, selected.toArray(new Node[0]));
+
+            for (Node neighbor : selected) {
+                connect(neighbor, node, level, maxNeighbors);
+            }
+
+            // 下一层从本层最近的候选开始
+            Candidate nearest = null;
+            for (Candidate candidate : candidates) {
+                if (nearest == null || candidate.distance < nearest.distance) {
+                    nearest = candidate;
+                }
+            }
+            if (nearest != null) {
+                current = nearest.node;
+            }
+        }
+
+        if (node.level > entry.level) {
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 在指定层做 best-first 搜索，返回最多 ef 个最近候选（大顶堆）
+     */
+    private PriorityQueue<Candidate> searchLayer(float[] query, Node entry, int ef, int level, Predicate<Node> accept) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        PriorityQueue<Candidate> top = new PriorityQueue<>((a, b) -> Float.compare(b.distance, a.distance));
+
+        Candidate start = new Candidate(entry, distance(query, entry.vector));
+        visited.add(entry);
+        candidates.add(start);
+        if (accept == null || accept.test(entry)) {
+            top.add(start);
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (top.size() >= ef && closest.distance > top.peek().distance) {
+                break;
+            }
+            for (Node neighbor : closest.node.neighbors(level)) {
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float d = distance(query, neighbor.vector);
+                if (top.size() < ef || d < top.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    if (accept == null || accept.test(neighbor)) {
+                        top.add(candidate);
+                        if (top.size() > ef) {
+                            top.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 启发式邻居选择：优先保留彼此分散的近邻，提升图的连通性
+     */
+    private List<Node> selectNeighbors(float[] base, Iterable<Candidate> candidates, int maxNeighbors) {
+        List<Candidate> sorted = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            sorted.add(candidate);
+        }
+        sorted.sort(Comparator.comparingDouble(c -> c.distance));
+
+        List<Node> selected = new ArrayList<>(maxNeighbors);
+        List<Node> pruned = new ArrayList<>();
+        for (Candidate candidate : sorted) {
+            if (selected.size() >= maxNeighbors) {
+                break;
+            }
+            boolean diverse = true;
+            for (Node chosen : selected) {
+                if (distance(candidate.node.vector, chosen.vector) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+            } else {
+                pruned.add(candidate.node);
+            }
+        }
+        // 邻居不足时用被裁剪的候选补齐
+        for (Node node : pruned) {
+            if (selected.size() >= maxNeighbors) {
+                break;
+            }
+            selected.add(node);
+        }
+        return selected;
+    }
+
+    private void connect(Node from, Node to, int level, int maxNeighbors) {
+        if (from == to || from.level < level) {
+            return;
+        }
+        synchronized (from) {
+            Node[] current = from.neighbors[level];
+            for (Node existing : current) {
+                if (existing == to) {
+                    return;
+                }
+            }
+            if (current.length < maxNeighbors) {
+                Node[] expanded = new Node[current.length + 1];
+                System.arraycopy(current, 0, expanded, 0, current.length);
+                expanded[current.length] = to;
+                from.neighbors[level] = expanded;
+                return;
+            }
+            // 邻居已满：在原邻居 + 新节点中重新做启发式选择
+            List<Candidate> candidates = new ArrayList<>(current.length + 1);
+            for (Node existing : current) {
+                candidates.add(new Candidate(existing, distance(from.vector, existing.vector)));
+            }
+            candidates.add(new Candidate(to, distance(from.vector, to.vector)));
+            from.neighbors[level] = selectNeighbors(from.vector, candidates, maxNeighbors).toArray(new Node[0]);
+        }
+    }
+
+    private void markDeleted(Node node) {
+        if (!node.deleted) {
+            node.deleted = true;
+            tombstones.add(node);
+            deletedCount.incrementAndGet();
+        }
+    }
+
+    private void compactIfNeeded() {
+        int deleted = deletedCount.get();
+        if (deleted < COMPACT_MIN_TOMBSTONES || deleted <= nodes.size() * COMPACT_RATIO) {
+            return;
+        }
+        // 已有线程在修复时直接返回，写入不排队等待
+        if (!compactLock.tryLock()) {
+            return;
+        }
+        try {
+            compact();
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    private void replaceDeletedEntryPoint() {
+        entryLock.lock();
+        try {
+            Node entry = entryPoint;
+            if (entry == null || !entry.deleted) {
+                return;
+            }
+            Node highest = null;
+            for (Node node : nodes.values()) {
+                if (!node.deleted && (highest == null || node.level > highest.level)) {
+                    highest = node;
+                }
+            }
+            if (highest != null) {
+                entryPoint = highest;
+            }
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    /**
+     * 把节点在指定层指向墓碑的邻居替换为墓碑在该层的有效邻居，再与其余邻居一起做启发式选择
+     */
+    private void repairNeighbors(Node node, int level) {
+        synchronized (node) {
+            Node[] current = node.neighbors[level];
+            boolean stale = false;
+            for (Node neighbor : current) {
+                if (neighbor.deleted) {
+                    stale = true;
+                    break;
+                }
+            }
+            if (!stale) {
+                return;
+            }
+            Set<Node> pool = new LinkedHashSet<>();
+            for (Node neighbor : current) {
+                if (!neighbor.deleted) {
+                    pool.add(neighbor);
+                    continue;
+                }
+                for (Node next : neighbor.neighbors(level)) {
+                    if (!next.deleted && next != node) {
+                        pool.add(next);
+                    }
+                }
+            }
+            List<Candidate> candidates = new ArrayList<>(pool.size());
+            for (Node candidate : pool) {
+                candidates.add(new Candidate(candidate, distance(node.vector, candidate.vector)));
+            }
+            int maxNeighbors = level == 0 ? maxM0 : m;
+            node.neighbors[level] = selectNeighbors(node.vector, candidates, maxNeighbors).toArray(new Node[0]);
+        }
+    }
+
+    private void checkDimension(int length) {
+        int current = dimension;
+        if (current == -1) {
+            synchronized (this) {
+                if (dimension == -1) {
+                    dimension = length;
+                    return;
+                }
+                current = dimension;
+            }
+        }
+        if (current != length) {
+            throw new IllegalArgumentException("向量维度不匹配，索引维度：" + current + "，输入维度：" + length);
+        }
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(Math.max(r, Double.MIN_VALUE)) * levelMultiplier);
+    }
+
+    /**
+     * 余弦距离（向量已归一化，等价于 1 - 点积）
+     */
+    private static float distance(float[] a, float[] b) {
+        return 1 - VectorMath.dot(a, b);
+    }
+
+    private record Candidate(Node node, float distance) {
+    }
+
+    private static final class Node {
+        private final String id;
+        private final float[] vector;
+        private final int level;
+        private final Node[][] neighbors;
+        private volatile boolean deleted;
+
+        private Node(String id, float[] vector, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.level = level;
+            this.neighbors = new Node[level + 1][];
+            for (int i = 0; i <= level; i++) {
+                neighbors[i] = new Node[0];
+            }
+        }
+
+        private Node[] neighbors(int level) {
+            if (level > this.level) {
+                return new Node[0];
+            }
+            synchronized (this) {
+                return neighbors[level];
+            }
+        }
+
+        private void setNeighbors(int level, Node[] value) {
+            synchronized (this) {
+                neighbors[level] = value;
+            }
+        }
+    }
+}
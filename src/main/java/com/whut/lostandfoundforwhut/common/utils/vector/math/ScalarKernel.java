@@ -0,0 +1,63 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 标量内核：四路独立累加打破加法依赖链，便于 JIT 自动展开
+ */
+final class ScalarKernel implements VectorKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float dotBytes(float[] weights, byte[] codes, int offset) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int length = weights.length;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += weights[i] * codes[offset + i];
+            s1 += weights[i + 1] * codes[offset + i + 1];
+            s2 += weights[i + 2] * codes[offset + i + 2];
+            s3 += weights[i + 3] * codes[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += weights[i] * codes[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public void dotMany(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimension = query.length;
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 基于 jdk.incubator.vector 的 SIMD 内核，使用平台首选宽度（NEON / SSE 为 4 路，AVX2 为 8 路，AVX-512 为 16 路）；
+ * 只能在启动参数含 --add-modules jdk.incubator.vector 时加载，由 VectorMath 通过反射创建
+ */
+final class SimdKernel implements VectorKernel {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    /**
+     * 与 FLOATS 通道数相同的字节向量；字节向量最窄为 64 位，128 位平台（NEON、SSE）上
+     * 一个字节向量含两个浮点向量的通道，分段扩展
+     */
+    private static final VectorSpecies<Byte> BYTES = FLOATS.vectorBitSize() / 4 >= 64
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.vectorBitSize() / 4))
+            : ByteVector.SPECIES_64;
+    /** 每个字节向量扩展出的浮点向量个数 */
+    private static final int PARTS = BYTES.length() / FLOATS.length();
+
+    @Override
+    public String name() {
+        return "simd-" + FLOATS.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc0 = FloatVector.zero(FLOATS);
+        FloatVector acc1 = FloatVector.zero(FLOATS);
+        int lanes = FLOATS.length();
+        int i = 0;
+        int bound = length - length % (lanes * 2);
+        for (; i < bound; i += lanes * 2) {
+            acc0 = FloatVector.fromArray(FLOATS, a, aOffset + i)
+                    .fma(FloatVector.fromArray(FLOATS, b, bOffset + i), acc0);
+            acc1 = FloatVector.fromArray(FLOATS, a, aOffset + i + lanes)
+                    .fma(FloatVector.fromArray(FLOATS, b, bOffset + i + lanes), acc1);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotBytes(float[] weights, byte[] codes, int offset) {
+        FloatVector acc = FloatVector.zero(FLOATS);
+        int length = weights.length;
+        int lanes = FLOATS.length();
+        int i = 0;
+        int bound = BYTES.loopBound(length);
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector code = ByteVector.fromArray(BYTES, codes, offset + i);
+            for (int part = 0; part < PARTS; part++) {
+                FloatVector codeFloats = (FloatVector) code.convertShape(VectorOperators.B2F, FLOATS, part);
+                acc = FloatVector.fromArray(FLOATS, weights, i + part * lanes).fma(codeFloats, acc);
+            }
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += weights[i] * codes[offset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * 每次同时计算四行，查询向量的每个分块只加载一次
+     */
+    @Override
+    public void dotMany(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimension = query.length;
+        int lanes = FLOATS.length();
+        int bound = FLOATS.loopBound(dimension);
+        int row = 0;
+        for (; row + 4 <= rows; row += 4) {
+            int o0 = row * dimension;
+            int o1 = o0 + dimension;
+            int o2 = o1 + dimension;
+            int o3 = o2 + dimension;
+            FloatVector acc0 = FloatVector.zero(FLOATS);
+            FloatVector acc1 = FloatVector.zero(FLOATS);
+            FloatVector acc2 = FloatVector.zero(FLOATS);
+            FloatVector acc3 = FloatVector.zero(FLOATS);
+            int i = 0;
+            for (; i < bound; i += lanes) {
+                FloatVector q = FloatVector.fromArray(FLOATS, query, i);
+                acc0 = q.fma(FloatVector.fromArray(FLOATS, matrix, o0 + i), acc0);
+                acc1 = q.fma(FloatVector.fromArray(FLOATS, matrix, o1 + i), acc1);
+                acc2 = q.fma(FloatVector.fromArray(FLOATS, matrix, o2 + i), acc2);
+                acc3 = q.fma(FloatVector.fromArray(FLOATS, matrix, o3 + i), acc3);
+            }
+            float s0 = acc0.reduceLanes(VectorOperators.ADD);
+            float s1 = acc1.reduceLanes(VectorOperators.ADD);
+            float s2 = acc2.reduceLanes(VectorOperators.ADD);
+            float s3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                s0 += query[i] * matrix[o0 + i];
+                s1 += query[i] * matrix[o1 + i];
+                s2 += query[i] * matrix[o2 + i];
+                s3 += query[i] * matrix[o3 + i];
+            }
+            scores[row] = s0;
+            scores[row + 1] = s1;
+            scores[row + 2] = s2;
+            scores[row + 3] = s3;
+        }
+        for (; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 向量运算内核，由 VectorMath 在启动时选择实现（调用方保证下标范围合法）
+ */
+interface VectorKernel {
+
+    String name();
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * weights 与 codes[offset, offset + weights.length) 的点积，用于 int8 量化码扫描
+     */
+    float dotBytes(float[] weights, byte[] codes, int offset);
+
+    /**
+     * query 与行优先矩阵中 rows 行（每行 query.length 维）的点积，写入 scores[0, rows)
+     */
+    void dotMany(float[] query, float[] matrix, int rows, float[] scores);
+}
@@ -0,0 +1,177 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 本地向量相似度计算入口：类加载时检测 jdk.incubator.vector 模块，
+ * 可用时使用 SIMD 内核，否则（未加 --add-modules 或设置 -Dvector.math.simd=false）使用标量内核
+ */
+@Slf4j
+public final class VectorMath {
+    private static final String SIMD_KERNEL = "com.whut.lostandfoundforwhut.common.utils.vector.math.SimdKernel";
+    private static final VectorKernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 当前使用的内核名称（scalar 或 simd-位宽）
+     * @return 内核名称
+     */
+    public static String implementation() {
+        return KERNEL.name();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 点积
+     * @param a 向量
+     * @param b 向量（维度与 a 相同）
+     * @return 点积
+     */
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("向量维度不一致：" + a.length + " / " + b.length);
+        }
+        return KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 数组片段的点积
+     * @param a 数组
+     * @param aOffset a 的起始下标
+     * @param b 数组
+     * @param bOffset b 的起始下标
+     * @param length 长度
+     * @return 点积
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        checkRange(a.length, aOffset, length);
+        checkRange(b.length, bOffset, length);
+        return KERNEL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 浮点权重与 int8 量化码片段的点积
+     * @param weights 权重
+     * @param codes 量化码数组
+     * @param offset 量化码起始下标
+     * @return 点积
+     */
+    public static float dotBytes(float[] weights, byte[] codes, int offset) {
+        checkRange(codes.length, offset, weights.length);
+        return KERNEL.dotBytes(weights, codes, offset);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 余弦相似度，任一向量为零向量时返回 0
+     * @param a 向量
+     * @param b 向量
+     * @return 余弦相似度
+     */
+    public static float cosine(float[] a, float[] b) {
+        float norms = norm(a) * norm(b);
+        return norms == 0 ? 0 : dot(a, b) / norms;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description L2 范数
+     * @param vector 向量
+     * @return 范数
+     */
+    public static float norm(float[] vector) {
+        return (float) Math.sqrt(KERNEL.dot(vector, 0, vector, 0, vector.length));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 返回归一化后的副本，零向量返回全零数组
+     * @param vector 向量
+     * @return 单位向量
+     */
+    public static float[] normalize(float[] vector) {
+        float[] normalized = new float[vector.length];
+        float norm = norm(vector);
+        if (norm == 0) {
+            return normalized;
+        }
+        float inv = 1 / norm;
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inv;
+        }
+        return normalized;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 一个查询向量对行优先连续存储的多个向量批量求点积
+     * @param query 查询向量
+     * @param matrix 行优先矩阵，每行 query.length 维
+     * @param rows 行数
+     * @param scores 输出，长度不小于 rows
+     */
+    public static void dotMany(float[] query, float[] matrix, int rows, float[] scores) {
+        checkRange(matrix.length, 0, Math.multiplyExact(rows, query.length));
+        checkRange(scores.length, 0, rows);
+        KERNEL.dotMany(query, matrix, rows, scores);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 一个查询向量对多个独立向量批量求点积
+     * @param query 查询向量
+     * @param vectors 向量列表（维度与 query 相同）
+     * @return 与 vectors 一一对应的点积
+     */
+    public static float[] dotMany(float[] query, List<float[]> vectors) {
+        float[] scores = new float[vectors.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = dot(query, vectors.get(i));
+        }
+        return scores;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("下标越界：offset=" + offset + "，length=" + length
+                    + "，数组长度=" + arrayLength);
+        }
+    }
+
+    static VectorKernel loadKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("vector.math.simd", "true"))) {
+            log.info("向量计算使用标量内核（已通过 vector.math.simd=false 关闭 SIMD）");
+            return new ScalarKernel();
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("向量计算使用标量内核（启动参数未包含 --add-modules jdk.incubator.vector）");
+            return new ScalarKernel();
+        }
+        try {
+            VectorKernel kernel = (VectorKernel) Class.forName(SIMD_KERNEL).getDeclaredConstructor().newInstance();
+            log.info("向量计算使用 SIMD 内核：{}", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("加载 SIMD 向量内核失败，使用标量内核", e);
+            return new ScalarKernel();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.projection;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description PCA 投影：从语料样本学习二阶矩矩阵 E[xxᵀ] 的前 dimension 个主方向（不减均值，
+ * 这样投影后的点积直接逼近原始点积，而不是逼近中心化后的协方差），投影为 y = Qx
+ * 使用随机子空间迭代求主方向，不构造 d×d 矩阵：每轮 Z = Xᵀ(XQᵀ) 后正交化，开销 O(样本数 × d × dimension)
+ * 主方向按捕获的能量降序排列，前缀截断后仍是较优的低维子空间
+ */
+public class PcaProjection implements VectorProjection {
+    private static final int DEFAULT_ITERATIONS = 4;
+    /** 每个主方向至少需要的样本数：样本刚够维度数时子空间几乎由样本张成，估计方差过大，不如全维量化 */
+    public static final int MIN_SAMPLES_PER_DIMENSION = 4;
+    private static final long SEED = 42L;
+
+    private final int inputDimension;
+    private final int dimension;
+    /** 主方向，行优先：第 j 行占 [j * inputDimension, (j + 1) * inputDimension) */
+    private final float[] components;
+    /** 样本能量中被投影子空间保留的比例 */
+    private final double explainedEnergy;
+
+    private PcaProjection(int inputDimension, int dimension, float[] components, double explainedEnergy) {
+        this.inputDimension = inputDimension;
+        this.dimension = dimension;
+        this.components = components;
+        this.explainedEnergy = explainedEnergy;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description PCA 投影的生成器：样本数少于目标维度的 MIN_SAMPLES_PER_DIMENSION 倍时子空间估计不可靠，
+     * 返回 null（继续使用全维量化码）
+     * @param dimension 目标维度
+     * @return 生成器
+     */
+    public static Trainer trainer(int dimension) {
+        return (samples, inputDimension) -> inputDimension <= dimension
+                || samples.size() < (long) dimension * MIN_SAMPLES_PER_DIMENSION
+                ? null
+                : fit(samples, dimension, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 从样本学习投影
+     * @param samples 样本向量（维度一致，至少 dimension 个）
+     * @param dimension 目标维度
+     * @param iterations 子空间迭代轮数，谱衰减越慢需要越多轮
+     * @return 投影
+     */
+    public static PcaProjection fit(List<float[]> samples, int dimension, int iterations) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("PCA 样本不能为空");
+        }
+        int inputDimension = samples.get(0).length;
+        if (dimension <= 0 || dimension > inputDimension) {
+            throw new IllegalArgumentException("PCA 维度超出范围：" + dimension + "，输入维度：" + inputDimension);
+        }
+        int n = samples.size();
+        float[] matrix = new float[n * inputDimension];
+        for (int i = 0; i < n; i++) {
+            float[] sample = samples.get(i);
+            if (sample.length != inputDimension) {
+                throw new IllegalArgumentException("PCA 样本维度不一致：" + sample.length + "，期望：" + inputDimension);
+            }
+            System.arraycopy(sample, 0, matrix, i * inputDimension, inputDimension);
+        }
+
+        Random random = new Random(SEED);
+        float[] basis = new float[dimension * inputDimension];
+        for (int i = 0; i < basis.length; i++) {
+            basis[i] = (float) random.nextGaussian();
+        }
+        orthonormalize(basis, dimension, inputDimension, random);
+
+        float[] coordinates = new float[dimension];
+        for (int iteration = 0; iteration < Math.max(1, iterations); iteration++) {
+            float[] next = new float[basis.length];
+            for (int i = 0; i < n; i++) {
+                int rowOffset = i * inputDimension;
+                for (int j = 0; j < dimension; j++) {
+                    coordinates[j] = VectorMath.dot(matrix, rowOffset, basis, j * inputDimension, inputDimension);
+                }
+                for (int j = 0; j < dimension; j++) {
+                    float weight = coordinates[j];
+                    int offset = j * inputDimension;
+                    for (int d = 0; d < inputDimension; d++) {
+                        next[offset + d] += weight * matrix[rowOffset + d];
+                    }
+                }
+            }
+            orthonormalize(next, dimension, inputDimension, random);
+            basis = next;
+        }
+
+        // 按每个方向捕获的样本能量降序排列
+        double[] energy = new double[dimension];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            int rowOffset = i * inputDimension;
+            total += VectorMath.dot(matrix, rowOffset, matrix, rowOffset, inputDimension);
+            for (int j = 0; j < dimension; j++) {
+                double coordinate = VectorMath.dot(matrix, rowOffset, basis, j * inputDimension, inputDimension);
+                energy[j] += coordinate * coordinate;
+            }
+        }
+        Integer[] order = IntStream.range(0, dimension).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(j -> -energy[j]));
+        float[] components = new float[basis.length];
+        double kept = 0;
+        for (int j = 0; j < dimension; j++) {
+            System.arraycopy(basis, order[j] * inputDimension, components, j * inputDimension, inputDimension);
+            kept += energy[order[j]];
+        }
+        return new PcaProjection(inputDimension, dimension, components, total == 0 ? 0 : kept / total);
+    }
+
+    @Override
+    public int inputDimension() {
+        return inputDimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] project(float[] vector) {
+        if (vector.length != inputDimension) {
+            throw new IllegalArgumentException("向量维度不一致，投影输入维度：" + inputDimension + "，传入维度：" + vector.length);
+        }
+        float[] projected = new float[dimension];
+        VectorMath.dotMany(vector, components, dimension, projected);
+        return projected;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 样本能量中被投影子空间保留的比例（0~1），越接近 1 一阶段排序越接近全维排序
+     * @return 比例
+     */
+    public double explainedEnergy() {
+        return explainedEnergy;
+    }
+
+    /**
+     * 修正的 Gram-Schmidt 正交化（做两遍以抵消 float 误差），与前面的行几乎线性相关的行用随机向量替换后重新正交化
+     */
+    private static void orthonormalize(float[] rows, int count, int length, Random random) {
+        for (int j = 0; j < count; j++) {
+            int offset = j * length;
+            for (int attempt = 0; ; attempt++) {
+                float before = (float) Math.sqrt(VectorMath.dot(rows, offset, rows, offset, length));
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int i = 0; i < j; i++) {
+                        float projection = VectorMath.dot(rows, offset, rows, i * length, length);
+                        int other = i * length;
+                        for (int d = 0; d < length; d++) {
+                            rows[offset + d] -= projection * rows[other + d];
+                        }
+                    }
+                }
+                float norm = (float) Math.sqrt(VectorMath.dot(rows, offset, rows, offset, length));
+                if (norm > before * 1e-4f || attempt >= 3) {
+                    float inv = norm == 0 ? 0 : 1 / norm;
+                    for (int d = 0; d < length; d++) {
+                        rows[offset + d] *= inv;
+                    }
+                    break;
+                }
+                for (int d = 0; d < length; d++) {
+                    rows[offset + d] = (float) random.nextGaussian();
+                }
+            }
+        }
+    }
+}
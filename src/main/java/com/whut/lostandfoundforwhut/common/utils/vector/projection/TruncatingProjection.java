@@ -0,0 +1,52 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.projection;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+
+import java.util.Arrays;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description Matryoshka 截断：只保留前 dimension 维并重新归一化，无需训练；
+ * 仅适用于按 Matryoshka 方式训练、信息集中在前缀维度的嵌入模型，其他模型应使用 PcaProjection
+ */
+public class TruncatingProjection implements VectorProjection {
+    private final int inputDimension;
+    private final int dimension;
+
+    public TruncatingProjection(int inputDimension, int dimension) {
+        if (dimension <= 0 || dimension > inputDimension) {
+            throw new IllegalArgumentException("截断维度超出范围：" + dimension + "，输入维度：" + inputDimension);
+        }
+        this.inputDimension = inputDimension;
+        this.dimension = dimension;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 截断投影的生成器，忽略样本
+     * @param dimension 目标维度
+     * @return 生成器
+     */
+    public static Trainer trainer(int dimension) {
+        return (samples, inputDimension) -> inputDimension > dimension
+                ? new TruncatingProjection(inputDimension, dimension)
+                : null;
+    }
+
+    @Override
+    public int inputDimension() {
+        return inputDimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] project(float[] vector) {
+        return VectorMath.normalize(Arrays.copyOf(vector, dimension));
+    }
+}
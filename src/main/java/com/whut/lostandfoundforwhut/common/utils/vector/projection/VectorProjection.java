@@ -0,0 +1,54 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.projection;
+
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 向量降维投影：把全维向量映射到低维空间，用于一阶段候选扫描，
+ * 低维空间中的点积近似原始点积，候选集再按全维向量精确重排
+ */
+public interface VectorProjection {
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 输入向量维度
+     * @return 维度
+     */
+    int inputDimension();
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 投影后的维度
+     * @return 维度
+     */
+    int dimension();
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 投影单个向量
+     * @param vector 归一化后的全维向量
+     * @return 低维向量
+     */
+    float[] project(float[] vector);
+
+    /**
+     * 根据语料样本生成投影
+     */
+    @FunctionalInterface
+    interface Trainer {
+
+        /**
+         * @author DXR
+         * @date 2026/02/19
+         * @description 生成投影
+         * @param samples 归一化后的全维样本向量
+         * @param inputDimension 输入向量维度
+         * @return 投影；维度已不高于目标维度或样本不足时返回 null，表示不降维
+         */
+        VectorProjection fit(List<float[]> samples, int inputDimension);
+    }
+}
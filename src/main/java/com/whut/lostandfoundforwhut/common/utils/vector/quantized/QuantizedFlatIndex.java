@@ -0,0 +1,567 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.quantized;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.LocalVectorIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+import com.whut.lostandfoundforwhut.common.utils.vector.projection.VectorProjection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * @author DXR
+ * @date 2026/02/14
+ * @description int8 标量量化的暴力扫描索引：内存中只保留每维 1 字节的量化码用于候选扫描，
+ * 全精度向量按槽位写入磁盘文件，只对候选集读取并精确重排
+ * 量化按维度使用 [min, max] 线性映射到 [-128, 127]，条目数每翻一倍按磁盘上的全精度向量重新校准一次，
+ * 校准之间超出范围的分量截断到边界（误差由重排修正）
+ * 校准在写锁之外读取全精度向量、生成新的量化参数与量化码，只在换入时短暂持有写锁，
+ * 校准期间的写入先按旧参数编码，换入时按新参数重新编码
+ * 可选降维投影（PCA / Matryoshka 截断）：量化码保存投影后的低维向量，一阶段扫描量按维度比例下降，
+ * 投影在每次校准时按全精度向量的随机样本重新生成，并以投影后样本的 [min, max] 作为量化范围，投影训练同样在写锁之外进行
+ */
+public class QuantizedFlatIndex implements LocalVectorIndex, Closeable {
+    private static final int LEVELS = 255;
+
+    /** 候选集大小 = k * rerankFactor */
+    private final int rerankFactor;
+    private final Path rawFile;
+    private final FileChannel channel;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** 降维投影生成器，为 null 时不降维 */
+    private final VectorProjection.Trainer projectionTrainer;
+    /** 训练投影的样本数上限 */
+    private final int projectionSampleSize;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    /** 槽位 -> 条目ID，空闲槽位为 null */
+    private String[] ids = new String[16];
+    /** 量化码，槽位 i 占用 [i * codeDimension, (i + 1) * codeDimension) */
+    private byte[] codes = new byte[0];
+    private int slotCount;
+    private int dimension = -1;
+    /** 量化码维度：未降维时等于 dimension */
+    private int codeDimension = -1;
+    /** 当前投影，为 null 表示量化码为全维向量 */
+    private VectorProjection projection;
+    private float[] min;
+    private float[] scale;
+    /** 上次校准时的条目数 */
+    private int calibratedSize;
+    /** 是否有在写锁之外进行的校准 */
+    private boolean calibrating;
+    /** 校准期间写入的槽位，换入新参数时重新编码 */
+    private final BitSet dirtySlots = new BitSet();
+    /** 每次清空递增，清空前开始的校准不再换入 */
+    private long generation;
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 构造索引，全精度向量文件若已存在会被清空（启动时由 Chroma 镜像重建）
+     * @param rawFile 全精度向量文件路径
+     * @param rerankFactor 重排候选倍数（常用 4~10，越大召回越高）
+     */
+    public QuantizedFlatIndex(Path rawFile, int rerankFactor) {
+        this(rawFile, rerankFactor, null, 0);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 构造带降维投影的索引，样本不足以生成投影时（生成器返回 null）先按全维量化
+     * @param rawFile 全精度向量文件路径
+     * @param rerankFactor 重排候选倍数，降维后一阶段排序更粗，通常需要比全维量化更大的倍数
+     * @param projectionTrainer 降维投影生成器（可为 null）
+     * @param projectionSampleSize 训练投影的样本数上限
+     */
+    public QuantizedFlatIndex(Path rawFile, int rerankFactor, VectorProjection.Trainer projectionTrainer,
+            int projectionSampleSize) {
+        this.rerankFactor = Math.max(rerankFactor, 1);
+        this.projectionTrainer = projectionTrainer;
+        this.projectionSampleSize = Math.max(projectionSampleSize, 1);
+        this.rawFile = rawFile;
+        try {
+            if (rawFile.getParent() != null) {
+                Files.createDirectories(rawFile.getParent());
+            }
+            this.channel = FileChannel.open(rawFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开量化索引向量文件失败：" + rawFile, e);
+        }
+    }
+
+    @Override
+    public void add(String id, float[] vector) {
+        if (id == null || vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("量化索引插入的ID和向量不能为空");
+        }
+        float[] normalized = VectorMath.normalize(vector);
+        boolean calibrate = false;
+        lock.writeLock().lock();
+        try {
+            if (dimension == -1) {
+                dimension = vector.length;
+                codeDimension = dimension;
+            } else if (dimension != vector.length) {
+                throw new IllegalArgumentException("向量维度不一致，索引维度：" + dimension + "，传入维度：" + vector.length);
+            }
+            Integer slot = slots.get(id);
+            if (slot == null) {
+                slot = allocateSlot();
+                slots.put(id, slot);
+                ids[slot] = id;
+            }
+            writeRaw(slot, normalized);
+            if (min == null) {
+                // 首个条目：没有量化参数可用，直接校准（只有一条，开销可忽略）
+                recalibrate();
+            } else if (calibrating) {
+                encode(slot, project(normalized));
+                dirtySlots.set(slot);
+            } else {
+                encode(slot, project(normalized));
+                calibrate = slots.size() >= calibratedSize * 2;
+                calibrating = calibrate;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (calibrate) {
+            recalibrateConcurrently();
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (id == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            ids[slot] = null;
+            freeSlots.push(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k, Predicate<String> filter) {
+        lock.readLock().lock();
+        try {
+            if (k <= 0 || slots.isEmpty()) {
+                return List.of();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException("向量维度不一致，索引维度：" + dimension + "，传入维度：" + query.length);
+            }
+            float[] q = VectorMath.normalize(query);
+            float[] projected = project(q);
+
+            // 点积展开：q·x ≈ Σ q[d]·(min[d] + scale[d]·(code + 128))，常数项与逐维系数每次查询只算一次
+            float[] weights = new float[codeDimension];
+            float bias = 0;
+            for (int d = 0; d < codeDimension; d++) {
+                weights[d] = projected[d] * scale[d];
+                bias += projected[d] * (min[d] + 128 * scale[d]);
+            }
+
+            int candidateCount = Math.min(slots.size(), k * rerankFactor);
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>(candidateCount + 1,
+                    Comparator.comparingDouble(Candidate::score));
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] == null || (filter != null && !filter.test(ids[slot]))) {
+                    continue;
+                }
+                float score = bias + dotCodes(weights, slot * codeDimension);
+                if (candidates.size() < candidateCount) {
+                    candidates.add(new Candidate(slot, score));
+                } else if (score > candidates.peek().score()) {
+                    candidates.poll();
+                    candidates.add(new Candidate(slot, score));
+                }
+            }
+
+            // 使用磁盘上的全精度向量对候选集精确重排
+            ByteBuffer buffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            float[] raw = new float[dimension];
+            List<SearchResult> results = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                readRaw(candidate.slot(), buffer, raw);
+                results.add(new SearchResult(ids[candidate.slot()], VectorMath.dot(q, raw)));
+            }
+            results.sort(Comparator.comparingDouble(SearchResult::score).reversed());
+            return results.size() > k ? new ArrayList<>(results.subList(0, k)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        if (id == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return slots.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            freeSlots.clear();
+            ids = new String[16];
+            codes = new byte[0];
+            slotCount = 0;
+            dimension = -1;
+            codeDimension = -1;
+            projection = null;
+            min = null;
+            scale = null;
+            calibratedSize = 0;
+            calibrating = false;
+            dirtySlots.clear();
+            generation++;
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空量化索引向量文件失败：" + rawFile, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 内存中量化码占用的字节数（不含ID映射）
+     * @return 字节数
+     */
+    public long codeBytes() {
+        lock.readLock().lock();
+        try {
+            return codes.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 一阶段扫描使用的量化码维度（未降维时等于向量维度，索引为空时为 -1）
+     * @return 维度
+     */
+    public int codeDimension() {
+        lock.readLock().lock();
+        try {
+            return codeDimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/14
+     * @description 关闭并删除全精度向量文件
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+            Files.deleteIfExists(rawFile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        int slot = slotCount++;
+        if (slot >= ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        if ((long) slotCount * codeDimension > codes.length) {
+            int capacity = Math.max(ids.length, 16);
+            codes = Arrays.copyOf(codes, Math.multiplyExact(capacity, codeDimension));
+        }
+        return slot;
+    }
+
+    /**
+     * 持有写锁时重新校准
+     */
+    private void recalibrate() {
+        apply(buildCalibration(snapshot()));
+    }
+
+    /**
+     * 在写锁之外校准：读锁下记录存活槽位，不持锁读取全精度向量、训练投影并生成新的量化码，写锁下换入
+     */
+    private void recalibrateConcurrently() {
+        Snapshot snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+        Calibration calibration = null;
+        try {
+            calibration = buildCalibration(snapshot);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (snapshot.generation() == generation) {
+                    if (calibration != null) {
+                        apply(calibration);
+                    }
+                    calibrating = false;
+                    dirtySlots.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        int[] live = new int[slots.size()];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != null) {
+                live[count++] = slot;
+            }
+        }
+        return new Snapshot(Arrays.copyOf(live, count), Math.max(ids.length, 16), dimension, generation);
+    }
+
+    /**
+     * 生成快照中全部条目的量化参数与量化码，不访问索引的可变状态：
+     * 配置了降维时随机抽取至多 projectionSampleSize 个条目训练投影，量化范围取投影后样本的 [min, max]；
+     * 否则按全部条目计算每维 [min, max]。之后逐条读取全精度向量（投影后）量化
+     */
+    private Calibration buildCalibration(Snapshot snapshot) {
+        int dim = snapshot.dimension();
+        ByteBuffer buffer = ByteBuffer.allocate(dim * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        float[] raw = new float[dim];
+        VectorProjection newProjection = null;
+        int newCodeDimension = dim;
+        float[] newMin;
+        float[] newMax;
+        if (projectionTrainer != null) {
+            List<float[]> samples = sampleRaw(snapshot, buffer);
+            newProjection = projectionTrainer.fit(samples, dim);
+            if (newProjection != null) {
+                newCodeDimension = newProjection.dimension();
+            }
+            newMin = new float[newCodeDimension];
+            newMax = new float[newCodeDimension];
+            Arrays.fill(newMin, Float.POSITIVE_INFINITY);
+            Arrays.fill(newMax, Float.NEGATIVE_INFINITY);
+            for (float[] sample : samples) {
+                float[] projected = newProjection == null ? sample : newProjection.project(sample);
+                for (int d = 0; d < newCodeDimension; d++) {
+                    newMin[d] = Math.min(newMin[d], projected[d]);
+                    newMax[d] = Math.max(newMax[d], projected[d]);
+                }
+            }
+        } else {
+            newMin = new float[dim];
+            newMax = new float[dim];
+            Arrays.fill(newMin, Float.POSITIVE_INFINITY);
+            Arrays.fill(newMax, Float.NEGATIVE_INFINITY);
+            for (int slot : snapshot.liveSlots()) {
+                readRaw(slot, buffer, raw);
+                for (int d = 0; d < dim; d++) {
+                    newMin[d] = Math.min(newMin[d], raw[d]);
+                    newMax[d] = Math.max(newMax[d], raw[d]);
+                }
+            }
+        }
+        float[] newScale = new float[newCodeDimension];
+        for (int d = 0; d < newCodeDimension; d++) {
+            newScale[d] = (newMax[d] - newMin[d]) / LEVELS;
+        }
+        byte[] newCodes = new byte[Math.multiplyExact(snapshot.capacity(), newCodeDimension)];
+        for (int slot : snapshot.liveSlots()) {
+            readRaw(slot, buffer, raw);
+            float[] vector = newProjection == null ? raw : newProjection.project(raw);
+            encode(newCodes, slot * newCodeDimension, vector, newMin, newScale);
+        }
+        return new Calibration(newProjection, newCodeDimension, newMin, newScale, newCodes,
+                snapshot.liveSlots().length);
+    }
+
+    /**
+     * 换入新的量化参数与量化码（需持有写锁），校准期间写入的槽位按新参数重新编码
+     */
+    private void apply(Calibration calibration) {
+        projection = calibration.projection();
+        codeDimension = calibration.codeDimension();
+        min = calibration.min();
+        scale = calibration.scale();
+        codes = calibration.codes();
+        long required = (long) Math.max(ids.length, 16) * codeDimension;
+        if (codes.length < required) {
+            codes = Arrays.copyOf(codes, Math.toIntExact(required));
+        }
+        if (!dirtySlots.isEmpty()) {
+            ByteBuffer buffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            float[] raw = new float[dimension];
+            for (int slot = dirtySlots.nextSetBit(0); slot >= 0; slot = dirtySlots.nextSetBit(slot + 1)) {
+                if (ids[slot] != null) {
+                    readRaw(slot, buffer, raw);
+                    encode(slot, project(raw));
+                }
+            }
+        }
+        calibratedSize = calibration.size();
+    }
+
+    /**
+     * 从存活槽位中无放回随机抽样（部分 Fisher-Yates 洗牌），只读取被抽中的全精度向量
+     */
+    private List<float[]> sampleRaw(Snapshot snapshot, ByteBuffer buffer) {
+        int[] live = snapshot.liveSlots().clone();
+        int count = live.length;
+        int sampleCount = Math.min(count, projectionSampleSize);
+        Random random = new Random(count);
+        List<float[]> samples = new ArrayList<>(sampleCount);
+        for (int i = 0; i < sampleCount; i++) {
+            int pick = i + random.nextInt(count - i);
+            int slot = live[pick];
+            live[pick] = live[i];
+            live[i] = slot;
+            float[] raw = new float[snapshot.dimension()];
+            readRaw(slot, buffer, raw);
+            samples.add(raw);
+        }
+        return samples;
+    }
+
+    private float[] project(float[] normalized) {
+        return projection == null ? normalized : projection.project(normalized);
+    }
+
+    private void encode(int slot, float[] vector) {
+        encode(codes, slot * codeDimension, vector, min, scale);
+    }
+
+    private static void encode(byte[] target, int offset, float[] vector, float[] min, float[] scale) {
+        for (int d = 0; d < min.length; d++) {
+            float level = scale[d] == 0 ? 0 : (vector[d] - min[d]) / scale[d];
+            int rounded = Math.round(Math.max(0, Math.min(LEVELS, level)));
+            target[offset + d] = (byte) (rounded - 128);
+        }
+    }
+
+    private float dotCodes(float[] weights, int offset) {
+        return VectorMath.dotBytes(weights, codes, offset);
+    }
+
+    private void writeRaw(int slot, float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        long position = (long) slot * dimension * Float.BYTES;
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入量化索引向量文件失败：" + rawFile, e);
+        }
+    }
+
+    /**
+     * 读取槽位的全精度向量，槽位偏移按缓冲区容量（维度 * 4 字节）计算，写锁之外的校准同样可用
+     */
+    private void readRaw(int slot, ByteBuffer buffer, float[] target) {
+        buffer.clear();
+        long position = (long) slot * buffer.capacity();
+        try {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("向量文件长度不足，槽位：" + slot);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取量化索引向量文件失败：" + rawFile, e);
+        }
+        buffer.flip();
+        buffer.asFloatBuffer().get(target);
+    }
+
+    private record Candidate(int slot, float score) {
+    }
+
+    /**
+     * 校准开始时的存活槽位与容量
+     */
+    private record Snapshot(int[] liveSlots, int capacity, int dimension, long generation) {
+    }
+
+    /**
+     * 校准结果：投影为 null 表示全维量化，size 为参与校准的条目数
+     */
+    private record Calibration(VectorProjection projection, int codeDimension, float[] min, float[] scale,
+                               byte[] codes, int size) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import com.whut.lostandfoundforwhut.common.utils.vector.chroma.ChromaRestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 基于 ChromaDB REST API 的向量存储
+ */
+public class ChromaVectorStore implements VectorStore {
+    /** 单次 upsert 的最大条目数，避免请求体过大 */
+    private static final int UPSERT_CHUNK = 1000;
+
+    private final ChromaRestClient client;
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造存储并获取（或创建）集合
+     * @param baseUrl Chroma 服务地址
+     * @param collectionName 集合名称
+     * @param connectTimeout 连接超时
+     * @param readTimeout 读取超时
+     */
+    public ChromaVectorStore(String baseUrl, String collectionName, Duration connectTimeout, Duration readTimeout) {
+        this(new ChromaRestClient(baseUrl, collectionName, connectTimeout, readTimeout));
+    }
+
+    ChromaVectorStore(ChromaRestClient client) {
+        this.client = client;
+        client.getOrCreateCollection();
+    }
+
+    @Override
+    public String name() {
+        return client.getCollectionName();
+    }
+
+    @Override
+    public void upsert(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        List<Map<String, Object>> chromaMetadatas = null;
+        if (metadatas != null) {
+            chromaMetadatas = new ArrayList<>(metadatas.size());
+            for (VectorMetadata metadata : metadatas) {
+                chromaMetadatas.add(metadata == null ? Map.of() : metadata.toChroma());
+            }
+        }
+        for (int from = 0; from < ids.size(); from += UPSERT_CHUNK) {
+            int to = Math.min(from + UPSERT_CHUNK, ids.size());
+            client.upsert(ids.subList(from, to), vectors.subList(from, to),
+                    chromaMetadatas == null ? null : chromaMetadatas.subList(from, to));
+        }
+    }
+
+    @Override
+    public void updateMetadata(List<String> ids, List<VectorMetadata> metadatas) {
+        List<Map<String, Object>> chromaMetadatas = new ArrayList<>(metadatas.size());
+        for (VectorMetadata metadata : metadatas) {
+            chromaMetadatas.add(metadata == null ? Map.of() : metadata.toChroma());
+        }
+        for (int from = 0; from < ids.size(); from += UPSERT_CHUNK) {
+            int to = Math.min(from + UPSERT_CHUNK, ids.size());
+            client.update(ids.subList(from, to), chromaMetadatas.subList(from, to));
+        }
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        client.delete(ids);
+    }
+
+    @Override
+    public List<Match> query(float[] vector, int limit, VectorFilter filter) {
+        boolean filtered = filter != null && !filter.isEmpty();
+        List<ChromaRestClient.Match> matches = client.query(vector, limit, filtered ? filter.toChromaWhere() : null);
+        List<Match> results = new ArrayList<>(matches.size());
+        for (ChromaRestClient.Match match : matches) {
+            // 余弦空间下 distance = 1 - 相似度
+            results.add(new Match(match.id(), 1 - match.distance()));
+        }
+        return results;
+    }
+
+    @Override
+    public int count() {
+        return client.count();
+    }
+
+    @Override
+    public Page scan(int offset, int limit) {
+        ChromaRestClient.Page page = client.get(offset, limit);
+        List<VectorMetadata> metadatas = new ArrayList<>(page.ids().size());
+        for (Map<String, Object> metadata : page.metadatas()) {
+            metadatas.add(VectorMetadata.fromChroma(metadata));
+        }
+        return new Page(page.ids(), page.vectors(), metadatas);
+    }
+
+    @Override
+    public List<String> scanIds(int offset, int limit) {
+        return client.getIds(offset, limit);
+    }
+
+    @Override
+    public void drop() {
+        client.deleteCollection();
+    }
+
+    @Override
+    public void renameTo(String newName) {
+        client.rename(newName);
+    }
+}
@@ -0,0 +1,331 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 本地文件向量存储：追加写日志（每条记录带 CRC32 校验），每批写入后 force 落盘；
+ * 打开时重放日志到内存，读操作全部走内存；进程崩溃留下的不完整尾部记录在打开时截断；
+ * 被覆盖或删除的记录超过一半时整体压缩为快照
+ * 记录格式：[int 长度][int CRC32][载荷]，载荷为 [byte 操作][UTF ID]，写入操作再跟向量与元数据
+ */
+@Slf4j
+public class FileVectorStore implements VectorStore {
+    static final String FILE_SUFFIX = ".vlog";
+    private static final int MAGIC = 0x56534C47;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE = 2;
+    /** 日志记录数低于该值时不压缩 */
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Path directory;
+    private final InMemoryVectorStore memory;
+    private Path file;
+    private FileChannel channel;
+    /** 日志中的记录数（含已被覆盖或删除的） */
+    private long logRecords;
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 打开（或创建）存储文件 directory/name.vlog 并重放日志
+     * @param directory 数据目录
+     * @param name 存储名称
+     */
+    public FileVectorStore(Path directory, String name) {
+        this.directory = directory;
+        this.memory = new InMemoryVectorStore(name);
+        this.file = directory.resolve(name + FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() < HEADER_BYTES) {
+                resetFile();
+            } else {
+                replay();
+            }
+        } catch (IOException e) {
+            closeChannel();
+            throw new UncheckedIOException("打开向量存储文件失败：" + file, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return memory.name();
+    }
+
+    @Override
+    public synchronized void upsert(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                float[] vector = vectors.get(i);
+                if (ids.get(i) == null || vector == null || vector.length == 0) {
+                    throw new IllegalArgumentException("写入的ID和向量不能为空");
+                }
+                LogRecords.append(batch, encodeUpsert(ids.get(i), vector, metadatas == null ? null : metadatas.get(i)));
+            }
+            append(batch, ids.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储文件失败：" + file, e);
+        }
+        memory.upsert(ids, vectors, metadatas);
+        compactIfNeeded();
+    }
+
+    /**
+     * 日志中没有单独的元数据记录，已存在的条目按原向量重新追加一条写入记录
+     */
+    @Override
+    public synchronized void updateMetadata(List<String> ids, List<VectorMetadata> metadatas) {
+        List<String> existingIds = new ArrayList<>(ids.size());
+        List<float[]> vectors = new ArrayList<>(ids.size());
+        List<VectorMetadata> existingMetadatas = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            float[] vector = memory.vector(ids.get(i));
+            if (vector != null) {
+                existingIds.add(ids.get(i));
+                vectors.add(vector);
+                existingMetadatas.add(metadatas.get(i));
+            }
+        }
+        upsert(existingIds, vectors, existingMetadatas);
+    }
+
+    @Override
+    public synchronized void delete(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        int records = 0;
+        try {
+            for (String id : ids) {
+                // 不存在的ID不写删除记录，避免按固定槽位批量删除时产生无用日志
+                if (memory.vector(id) != null) {
+                    LogRecords.append(batch, encodeDelete(id));
+                    records++;
+                }
+            }
+            if (records == 0) {
+                return;
+            }
+            append(batch, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储文件失败：" + file, e);
+        }
+        memory.delete(ids);
+        compactIfNeeded();
+    }
+
+    @Override
+    public List<Match> query(float[] vector, int limit, VectorFilter filter) {
+        return memory.query(vector, limit, filter);
+    }
+
+    @Override
+    public int count() {
+        return memory.count();
+    }
+
+    @Override
+    public Page scan(int offset, int limit) {
+        return memory.scan(offset, limit);
+    }
+
+    @Override
+    public synchronized void drop() {
+        memory.drop();
+        try {
+            resetFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空向量存储文件失败：" + file, e);
+        }
+    }
+
+    /**
+     * 文件原子改名为 newName.vlog，已存在的同名文件被替换；打开的文件通道不受改名影响
+     */
+    @Override
+    public synchronized void renameTo(String newName) {
+        Path target = directory.resolve(newName + FILE_SUFFIX);
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("重命名向量存储文件失败：" + file + " -> " + target, e);
+        }
+        file = target;
+        memory.renameTo(newName);
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 日志中的记录数（含已被覆盖或删除的），用于观察压缩效果
+     * @return 记录数
+     */
+    public synchronized long logRecords() {
+        return logRecords;
+    }
+
+    /**
+     * 校验文件头后重放日志，不完整或损坏的尾部记录被截断
+     */
+    private void replay() throws IOException {
+        long start = System.currentTimeMillis();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // 读满文件头
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("不是有效的向量存储文件：" + file);
+        }
+        logRecords = LogRecords.replay(channel, HEADER_BYTES, file, this::applyRecord);
+        log.info("向量存储文件已加载：{}，条目数：{}，日志记录数：{}，耗时：{}ms",
+                file, memory.count(), logRecords, System.currentTimeMillis() - start);
+    }
+
+    private void applyRecord(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        String id = in.readUTF();
+        if (op == OP_DELETE) {
+            memory.delete(List.of(id));
+            return;
+        }
+        if (op != OP_UPSERT) {
+            throw new IOException("未知的记录类型：" + op);
+        }
+        float[] vector = new float[in.readInt()];
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] = in.readFloat();
+        }
+        memory.put(id, vector, LogRecords.readMetadata(in));
+    }
+
+    /**
+     * 存活条目不足日志记录数一半时，把内存中的存活条目写成新文件并原子替换
+     */
+    private void compactIfNeeded() {
+        int live = memory.count();
+        if (logRecords < COMPACT_MIN_RECORDS || live * 2L > logRecords) {
+            return;
+        }
+        Path temp = directory.resolve(memory.name() + FILE_SUFFIX + ".compact");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            LogRecords.writeFully(out, header());
+            long records = 0;
+            int offset = 0;
+            while (true) {
+                Page page = memory.scan(offset, COMPACT_MIN_RECORDS);
+                ByteArrayOutputStream batch = new ByteArrayOutputStream();
+                for (int i = 0; i < page.ids().size(); i++) {
+                    LogRecords.append(batch, encodeUpsert(page.ids().get(i), page.vectors().get(i),
+                            page.metadatas().get(i)));
+                }
+                LogRecords.writeFully(out, ByteBuffer.wrap(batch.toByteArray()));
+                records += page.ids().size();
+                offset += page.ids().size();
+                if (page.ids().size() < COMPACT_MIN_RECORDS) {
+                    break;
+                }
+            }
+            out.force(true);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long before = logRecords;
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            logRecords = records;
+            log.info("向量存储文件已压缩：{}，日志记录数 {} -> {}", file, before, records);
+        } catch (IOException e) {
+            // 压缩失败不影响数据正确性，原文件仍完整，下次写入时重试
+            log.warn("压缩向量存储文件失败：{}", file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件残留不影响使用
+            }
+        }
+    }
+
+    private void append(ByteArrayOutputStream batch, int records) throws IOException {
+        LogRecords.writeFully(channel, ByteBuffer.wrap(batch.toByteArray()));
+        channel.force(false);
+        logRecords += records;
+    }
+
+    private void resetFile() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        LogRecords.writeFully(channel, header());
+        channel.force(true);
+        logRecords = 0;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭向量存储文件失败：{}", file, e);
+        }
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    private static byte[] encodeUpsert(String id, float[] vector, VectorMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(vector.length * Float.BYTES + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_UPSERT);
+        out.writeUTF(id);
+        out.writeInt(vector.length);
+        for (float value : vector) {
+            out.writeFloat(value);
+        }
+        LogRecords.writeMetadata(out, metadata);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDelete(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(id.length() + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DELETE);
+        out.writeUTF(id);
+        return bytes.toByteArray();
+    }
+}
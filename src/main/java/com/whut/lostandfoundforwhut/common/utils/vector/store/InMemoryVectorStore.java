@@ -0,0 +1,156 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 进程内向量存储：按ID有序的并发映射，检索为暴力扫描（VectorMath 内核），
+ * 适合单元测试、基准测试和小规模单机部署；重启后数据丢失
+ */
+public class InMemoryVectorStore implements VectorStore {
+    private volatile String name;
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 构造空存储
+     * @param name 存储名称
+     */
+    public InMemoryVectorStore(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void upsert(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        for (int i = 0; i < ids.size(); i++) {
+            put(ids.get(i), vectors.get(i), metadatas == null ? null : metadatas.get(i));
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 写入单条（已存在则覆盖）
+     * @param id 条目ID
+     * @param vector 向量
+     * @param metadata 元数据（可为 null）
+     */
+    public void put(String id, float[] vector, VectorMetadata metadata) {
+        if (id == null || vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("写入的ID和向量不能为空");
+        }
+        entries.put(id, new Entry(vector.clone(), VectorMath.normalize(vector), metadata));
+    }
+
+    @Override
+    public void updateMetadata(List<String> ids, List<VectorMetadata> metadatas) {
+        for (int i = 0; i < ids.size(); i++) {
+            VectorMetadata metadata = metadatas.get(i);
+            entries.computeIfPresent(ids.get(i),
+                    (id, entry) -> new Entry(entry.vector(), entry.normalized(), metadata));
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 读取条目的原始向量
+     * @param id 条目ID
+     * @return 向量，不存在时返回 null
+     */
+    public float[] vector(String id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.vector();
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        for (String id : ids) {
+            entries.remove(id);
+        }
+    }
+
+    @Override
+    public List<Match> query(float[] vector, int limit, VectorFilter filter) {
+        if (limit <= 0 || entries.isEmpty()) {
+            return List.of();
+        }
+        boolean filtered = filter != null && !filter.isEmpty();
+        float[] q = VectorMath.normalize(vector);
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Match::score));
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            if (value.normalized().length != q.length || (filtered && !filter.matches(value.metadata()))) {
+                continue;
+            }
+            float score = VectorMath.dot(q, value.normalized());
+            if (top.size() < limit) {
+                top.add(new Match(entry.getKey(), score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Match(entry.getKey(), score));
+            }
+        }
+        List<Match> results = new ArrayList<>(top);
+        results.sort(Comparator.comparingDouble(Match::score).reversed());
+        return results;
+    }
+
+    @Override
+    public int count() {
+        return entries.size();
+    }
+
+    @Override
+    public Page scan(int offset, int limit) {
+        List<String> ids = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        List<VectorMetadata> metadatas = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (iterator.hasNext() && ids.size() < limit) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            ids.add(entry.getKey());
+            vectors.add(entry.getValue().vector());
+            metadatas.add(entry.getValue().metadata());
+        }
+        return new Page(ids, vectors, metadatas);
+    }
+
+    @Override
+    public void drop() {
+        entries.clear();
+    }
+
+    @Override
+    public void renameTo(String newName) {
+        this.name = newName;
+    }
+
+    /**
+     * @param vector 原始向量（用于 scan 原样读出）
+     * @param normalized 归一化向量（用于检索）
+     * @param metadata 元数据
+     */
+    private record Entry(float[] vector, float[] normalized, VectorMetadata metadata) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 本地向量存储共用的追加日志格式：记录为 [int 长度][int CRC32][载荷]，
+ * 重放时遇到长度异常、CRC 不匹配或不完整的尾部记录即截断；另含元数据的紧凑编码
+ */
+@Slf4j
+final class LogRecords {
+    /** 单条记录长度上限，超过视为损坏 */
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private static final int FLAG_TYPE = 1;
+    private static final int FLAG_STATUS = 1 << 1;
+    private static final int FLAG_CREATED_AT = 1 << 2;
+    private static final int FLAG_PRESENT = 1 << 3;
+
+    private LogRecords() {
+    }
+
+    /**
+     * 逐条处理记录的回调
+     */
+    @FunctionalInterface
+    interface PayloadHandler {
+        void accept(DataInputStream payload) throws IOException;
+    }
+
+    /**
+     * 从 start 开始重放日志，损坏的尾部截断后把通道位置移到文件末尾
+     *
+     * @return 完整记录数
+     */
+    static long replay(FileChannel channel, long start, Path file, PayloadHandler handler) throws IOException {
+        long size = channel.size();
+        long validEnd = start;
+        long records = 0;
+        String corruption = null;
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel.position(start)), 1 << 16));
+        byte[] payload = new byte[0];
+        CRC32 crc = new CRC32();
+        while (validEnd < size) {
+            if (size - validEnd < Integer.BYTES * 2) {
+                corruption = "不完整的记录头";
+                break;
+            }
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > size - validEnd - Integer.BYTES * 2) {
+                corruption = "记录长度异常：" + length;
+                break;
+            }
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                corruption = "CRC 校验失败";
+                break;
+            }
+            handler.accept(new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+            records++;
+            validEnd += Integer.BYTES * 2L + length;
+        }
+        if (corruption != null) {
+            log.warn("向量存储文件尾部损坏（{}），截断到 {} 字节（原 {} 字节）：{}", corruption, validEnd, size, file);
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(channel.size());
+        return records;
+    }
+
+    static void append(ByteArrayOutputStream batch, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        DataOutputStream out = new DataOutputStream(batch);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    static void writeMetadata(DataOutputStream out, VectorMetadata metadata) throws IOException {
+        if (metadata == null) {
+            out.writeByte(0);
+            return;
+        }
+        int flags = FLAG_PRESENT;
+        flags |= metadata.type() != null ? FLAG_TYPE : 0;
+        flags |= metadata.status() != null ? FLAG_STATUS : 0;
+        flags |= metadata.createdAt() != null ? FLAG_CREATED_AT : 0;
+        out.writeByte(flags);
+        if (metadata.type() != null) {
+            out.writeInt(metadata.type());
+        }
+        if (metadata.status() != null) {
+            out.writeInt(metadata.status());
+        }
+        if (metadata.createdAt() != null) {
+            out.writeLong(metadata.createdAt());
+        }
+        Set<Long> tagIds = metadata.tagIds() == null ? Set.of() : metadata.tagIds();
+        out.writeInt(tagIds.size());
+        for (Long tagId : tagIds) {
+            out.writeLong(tagId);
+        }
+    }
+
+    static VectorMetadata readMetadata(DataInputStream in) throws IOException {
+        int flags = in.readByte();
+        if ((flags & FLAG_PRESENT) == 0) {
+            return null;
+        }
+        Integer type = (flags & FLAG_TYPE) != 0 ? in.readInt() : null;
+        Integer status = (flags & FLAG_STATUS) != 0 ? in.readInt() : null;
+        Long createdAt = (flags & FLAG_CREATED_AT) != 0 ? in.readLong() : null;
+        int tagCount = in.readInt();
+        if (tagCount < 0) {
+            throw new EOFException("标签数量异常：" + tagCount);
+        }
+        Set<Long> tagIds = new HashSet<>(tagCount * 2);
+        for (int i = 0; i < tagCount; i++) {
+            tagIds.add(in.readLong());
+        }
+        return new VectorMetadata(type, status, createdAt, tagIds);
+    }
+}
@@ -0,0 +1,883 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 内存映射的定长槽位向量存储：向量按固定步长追加写入 vectors-&lt;代&gt;.bin 并通过 FileChannel.map 访问，
+ * 常驻堆外（由操作系统页缓存管理，超过堆甚至物理内存的集合仍可顺序扫描），检索直接在映射区上暴力计算余弦相似度；
+ * ID、槽位和元数据记录在追加日志 ids.log 中（格式同 FileVectorStore，带 CRC 校验），打开时只重放这份小日志，不读取向量
+ * 覆盖和删除只在日志中留下墓碑，旧槽位作废；作废槽位或日志冗余记录过半时在后台线程压缩为新一代文件，
+ * 新日志原子替换旧日志即为提交点，进程在任何时刻崩溃都能打开到某一代完整数据
+ * 向量写入前归一化，scan 读出的是归一化（int8 编码时为反量化）后的向量
+ */
+@Slf4j
+public class MappedVectorStore implements VectorStore {
+    static final String DIR_SUFFIX = ".mvs";
+    private static final String ID_LOG = "ids.log";
+    private static final String VECTOR_FILE_PREFIX = "vectors-";
+    private static final String VECTOR_FILE_SUFFIX = ".bin";
+    private static final int ID_MAGIC = 0x4D564944;
+    private static final int VECTOR_MAGIC = 0x4D564543;
+    private static final int VERSION = 1;
+    /** 日志头：magic、version、向量文件代号 */
+    private static final int ID_HEADER_BYTES = 16;
+    /** 向量文件头：magic、version、维度、编码，补齐到 64 字节使槽位按缓存行对齐 */
+    private static final int VECTOR_HEADER_BYTES = 64;
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_DELETE = 2;
+    /** 单个映射段的目标大小，段数随集合增长 */
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+    /** 槽位或日志记录数低于该值时不压缩 */
+    private static final int COMPACT_MIN_RECORDS = 1024;
+    private static final int COPY_BUFFER_BYTES = 1024 * 1024;
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-store-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 槽位编码：FLOAT32 每维 4 字节；INT8 每个向量按最大绝对值对称量化，槽位为 [float 缩放系数][每维 1 字节]
+     */
+    public enum Encoding {
+        FLOAT32,
+        INT8
+    }
+
+    private final Path directory;
+    private final Encoding configuredEncoding;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private String name;
+    private Path storeDir;
+    private FileChannel idChannel;
+    private FileChannel vectorChannel;
+    private long generation;
+    private Encoding encoding;
+    private int dimension = -1;
+    private int stride;
+    private int slotsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<FloatBuffer> floatViews = new ArrayList<>();
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private String[] idBySlot = new String[16];
+    private VectorMetadata[] metadataBySlot = new VectorMetadata[16];
+    /** 下一个追加槽位，之前的槽位中 idBySlot 为 null 的已作废 */
+    private int nextSlot;
+    /** 日志中的记录数（含已被覆盖或删除的） */
+    private long logRecords;
+    private boolean closed;
+
+    /** 顺序分页读取的游标，避免每页都从头跳过 offset 个条目 */
+    private int scanOffset = -1;
+    private int scanSlot;
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 打开（或创建）存储目录 directory/name.mvs，只重放ID日志并映射向量文件
+     * @param directory 数据目录
+     * @param name 存储名称
+     * @param encoding 新建存储时的槽位编码（已存在的存储沿用文件中的编码）
+     */
+    public MappedVectorStore(Path directory, String name, Encoding encoding) {
+        this.directory = directory;
+        this.name = name;
+        this.configuredEncoding = encoding == null ? Encoding.FLOAT32 : encoding;
+        this.storeDir = directory.resolve(name + DIR_SUFFIX);
+        try {
+            Files.createDirectories(storeDir);
+            Files.deleteIfExists(storeDir.resolve(ID_LOG + ".compact"));
+            idChannel = FileChannel.open(storeDir.resolve(ID_LOG), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (idChannel.size() < ID_HEADER_BYTES) {
+                generation = 0;
+                writeIdHeader(idChannel, generation);
+                openVectorFile(true);
+            } else {
+                load();
+            }
+            deleteStaleVectorFiles();
+        } catch (IOException e) {
+            closeChannels();
+            throw new UncheckedIOException("打开向量存储失败：" + storeDir, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        lock.readLock().lock();
+        try {
+            return name;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 向量先写入新槽位并 force 映射区，再追加ID日志并 force，日志记录只会指向已落盘的向量
+     */
+    @Override
+    public void upsert(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (int i = 0; i < ids.size(); i++) {
+                float[] vector = vectors.get(i);
+                if (ids.get(i) == null || vector == null || vector.length == 0) {
+                    throw new IllegalArgumentException("写入的ID和向量不能为空");
+                }
+                if (dimension != -1 && vector.length != dimension) {
+                    throw new IllegalArgumentException("向量维度不一致，存储维度：" + dimension + "，传入维度：" + vector.length);
+                }
+            }
+            if (dimension == -1) {
+                initDimension(vectors.get(0).length);
+            }
+            int firstSlot = nextSlot;
+            for (int i = 0; i < ids.size(); i++) {
+                writeSlot(firstSlot + i, VectorMath.normalize(vectors.get(i)));
+            }
+            forceSlots(firstSlot, firstSlot + ids.size());
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            for (int i = 0; i < ids.size(); i++) {
+                LogRecords.append(batch, encodeUpsert(ids.get(i), firstSlot + i,
+                        metadatas == null ? null : metadatas.get(i)));
+            }
+            appendLog(batch, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assign(ids.get(i), firstSlot + i, metadatas == null ? null : metadatas.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储失败：" + storeDir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * 只追加指向原槽位的日志记录，不重写向量
+     */
+    @Override
+    public void updateMetadata(List<String> ids, List<VectorMetadata> metadatas) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            int records = 0;
+            for (int i = 0; i < ids.size(); i++) {
+                Integer slot = slotById.get(ids.get(i));
+                if (slot != null) {
+                    LogRecords.append(batch, encodeUpsert(ids.get(i), slot, metadatas.get(i)));
+                    records++;
+                }
+            }
+            if (records == 0) {
+                return;
+            }
+            appendLog(batch, records);
+            for (int i = 0; i < ids.size(); i++) {
+                Integer slot = slotById.get(ids.get(i));
+                if (slot != null) {
+                    metadataBySlot[slot] = metadatas.get(i);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储失败：" + storeDir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            int records = 0;
+            for (String id : ids) {
+                if (slotById.containsKey(id)) {
+                    LogRecords.append(batch, encodeDelete(id));
+                    records++;
+                }
+            }
+            if (records == 0) {
+                return;
+            }
+            appendLog(batch, records);
+            for (String id : ids) {
+                release(id);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量存储失败：" + storeDir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    @Override
+    public List<Match> query(float[] vector, int limit, VectorFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (limit <= 0 || slotById.isEmpty() || vector.length != dimension) {
+                return List.of();
+            }
+            boolean filtered = filter != null && !filter.isEmpty();
+            float[] q = VectorMath.normalize(vector);
+            float[] floats = encoding == Encoding.FLOAT32 ? new float[dimension] : null;
+            byte[] codes = encoding == Encoding.INT8 ? new byte[dimension] : null;
+            PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Match::score));
+            for (int slot = 0; slot < nextSlot; slot++) {
+                String id = idBySlot[slot];
+                if (id == null || (filtered && !filter.matches(metadataBySlot[slot]))) {
+                    continue;
+                }
+                float score = score(slot, q, floats, codes);
+                if (top.size() < limit) {
+                    top.add(new Match(id, score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new Match(id, score));
+                }
+            }
+            List<Match> results = new ArrayList<>(top);
+            results.sort(Comparator.comparingDouble(Match::score).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按槽位顺序分页读出存活条目；连续翻页时从上一页结束的槽位继续
+     */
+    @Override
+    public Page scan(int offset, int limit) {
+        lock.writeLock().lock();
+        try {
+            List<String> ids = new ArrayList<>();
+            List<float[]> vectors = new ArrayList<>();
+            List<VectorMetadata> metadatas = new ArrayList<>();
+            int slot = 0;
+            int skipped = 0;
+            if (offset == scanOffset) {
+                slot = scanSlot;
+                skipped = offset;
+            }
+            for (; slot < nextSlot && ids.size() < limit; slot++) {
+                if (idBySlot[slot] == null) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                ids.add(idBySlot[slot]);
+                vectors.add(readSlot(slot));
+                metadatas.add(metadataBySlot[slot]);
+            }
+            scanOffset = offset + ids.size();
+            scanSlot = slot;
+            return new Page(ids, vectors, metadatas);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 切换到新一代空文件（日志头先指向新代号，再删除旧向量文件）
+     */
+    @Override
+    public void drop() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            Path oldVectorFile = vectorFile(generation);
+            generation++;
+            idChannel.truncate(0);
+            writeIdHeader(idChannel, generation);
+            logRecords = 0;
+            vectorChannel.close();
+            clearSlots();
+            encoding = configuredEncoding;
+            dimension = -1;
+            openVectorFile(true);
+            Files.deleteIfExists(oldVectorFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空向量存储失败：" + storeDir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 整个存储目录原子改名为 newName.mvs，已存在的同名目录先删除；打开的文件通道和映射不受改名影响
+     */
+    @Override
+    public void renameTo(String newName) {
+        lock.writeLock().lock();
+        try {
+            Path target = directory.resolve(newName + DIR_SUFFIX);
+            deleteRecursively(target);
+            Files.move(storeDir, target, StandardCopyOption.ATOMIC_MOVE);
+            storeDir = target;
+            name = newName;
+        } catch (IOException e) {
+            throw new UncheckedIOException("重命名向量存储失败：" + storeDir + " -> " + newName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 映射区在缓冲对象被回收时解除映射
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            closeChannels();
+            segments.clear();
+            floatViews.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 已作废（被覆盖或删除）的槽位数，用于观察压缩效果
+     * @return 槽位数
+     */
+    public int deadSlots() {
+        lock.readLock().lock();
+        try {
+            return nextSlot - slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description ID日志中的记录数（含已被覆盖或删除的）
+     * @return 记录数
+     */
+    public long logRecords() {
+        lock.readLock().lock();
+        try {
+            return logRecords;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 立即压缩：存活槽位按原顺序复制到新一代向量文件，写出只含存活条目的新日志后原子替换
+     * 压缩期间持有写锁，读写等待；压缩失败时旧文件保持完整
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            long newGeneration = generation + 1;
+            Path newVectorFile = vectorFile(newGeneration);
+            Path tempLog = storeDir.resolve(ID_LOG + ".compact");
+            try {
+                int[] newSlotByOld = writeCompactedVectors(newVectorFile);
+                long records = writeCompactedLog(tempLog, newGeneration, newSlotByOld);
+                Files.move(tempLog, storeDir.resolve(ID_LOG), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+
+                // 新日志已生效，切换到新一代文件
+                Path oldVectorFile = vectorFile(generation);
+                int before = nextSlot;
+                closeChannels();
+                generation = newGeneration;
+                idChannel = FileChannel.open(storeDir.resolve(ID_LOG), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                idChannel.position(idChannel.size());
+                logRecords = records;
+                remapSlots(newSlotByOld);
+                openVectorFile(false);
+                mapSlots(nextSlot);
+                Files.deleteIfExists(oldVectorFile);
+                log.info("向量存储已压缩：{}，槽位数 {} -> {}", storeDir, before, nextSlot);
+            } catch (IOException e) {
+                log.warn("压缩向量存储失败：{}", storeDir, e);
+                try {
+                    Files.deleteIfExists(tempLog);
+                    if (generation != newGeneration) {
+                        Files.deleteIfExists(newVectorFile);
+                    }
+                } catch (IOException ignored) {
+                    // 临时文件残留会在下次打开时清理
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long start = System.currentTimeMillis();
+        ByteBuffer header = ByteBuffer.allocate(ID_HEADER_BYTES);
+        while (header.hasRemaining() && idChannel.read(header, header.position()) > 0) {
+            // 读满日志头
+        }
+        header.flip();
+        if (header.getInt() != ID_MAGIC || header.getInt() != VERSION) {
+            throw new IOException("不是有效的向量存储日志：" + storeDir.resolve(ID_LOG));
+        }
+        generation = header.getLong();
+        openVectorFile(false);
+        logRecords = LogRecords.replay(idChannel, ID_HEADER_BYTES, storeDir.resolve(ID_LOG), this::applyRecord);
+
+        // 日志只会指向已落盘的槽位；向量文件异常变短时丢弃越界的条目
+        long available = dimension == -1 ? 0 : (vectorChannel.size() - VECTOR_HEADER_BYTES) / stride;
+        if (nextSlot > available) {
+            log.warn("向量文件短于日志记录的槽位数（{} < {}），丢弃越界条目：{}", available, nextSlot, storeDir);
+            for (int slot = (int) available; slot < nextSlot; slot++) {
+                if (idBySlot[slot] != null) {
+                    release(idBySlot[slot]);
+                }
+            }
+            nextSlot = (int) available;
+        }
+        mapSlots(nextSlot);
+        log.info("向量存储已加载：{}，条目数：{}，槽位数：{}，日志记录数：{}，耗时：{}ms",
+                storeDir, slotById.size(), nextSlot, logRecords, System.currentTimeMillis() - start);
+    }
+
+    private void applyRecord(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        if (op == OP_DELETE) {
+            release(in.readUTF());
+            return;
+        }
+        if (op != OP_UPSERT) {
+            throw new IOException("未知的记录类型：" + op);
+        }
+        int slot = in.readInt();
+        String id = in.readUTF();
+        assign(id, slot, LogRecords.readMetadata(in));
+    }
+
+    /**
+     * 打开当前代的向量文件；新建时写入文件头（维度未知时记为 -1，首次写入时确定）
+     */
+    private void openVectorFile(boolean create) throws IOException {
+        Path file = vectorFile(generation);
+        vectorChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segments.clear();
+        floatViews.clear();
+        if (create || vectorChannel.size() < VECTOR_HEADER_BYTES) {
+            vectorChannel.truncate(0);
+            encoding = configuredEncoding;
+            dimension = -1;
+            writeVectorHeader();
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(VECTOR_HEADER_BYTES);
+        while (header.hasRemaining() && vectorChannel.read(header, header.position()) > 0) {
+            // 读满文件头
+        }
+        header.flip();
+        if (header.getInt() != VECTOR_MAGIC || header.getInt() != VERSION) {
+            throw new IOException("不是有效的向量文件：" + file);
+        }
+        int storedDimension = header.getInt();
+        int storedEncoding = header.getInt();
+        if (storedEncoding < 0 || storedEncoding >= Encoding.values().length) {
+            throw new IOException("未知的向量编码：" + storedEncoding);
+        }
+        encoding = Encoding.values()[storedEncoding];
+        if (encoding != configuredEncoding) {
+            log.warn("向量存储沿用文件中的编码 {}（配置为 {}），重建后生效：{}", encoding, configuredEncoding, storeDir);
+        }
+        dimension = -1;
+        if (storedDimension > 0) {
+            setDimension(storedDimension);
+        }
+    }
+
+    private void initDimension(int newDimension) throws IOException {
+        setDimension(newDimension);
+        writeVectorHeader();
+    }
+
+    private void setDimension(int newDimension) {
+        dimension = newDimension;
+        stride = encoding == Encoding.FLOAT32 ? dimension * Float.BYTES : Float.BYTES + dimension;
+        slotsPerSegment = Math.max(1, SEGMENT_BYTES / stride);
+    }
+
+    private void writeVectorHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(VECTOR_HEADER_BYTES)
+                .putInt(VECTOR_MAGIC).putInt(VERSION).putInt(dimension).putInt(encoding.ordinal());
+        header.position(0);
+        int position = 0;
+        while (header.hasRemaining()) {
+            position += vectorChannel.write(header, position);
+        }
+        vectorChannel.force(true);
+    }
+
+    /**
+     * 取得槽位所在的映射段，必要时映射新段（READ_WRITE 映射会把文件扩展到段末尾）
+     */
+    private MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            long position = VECTOR_HEADER_BYTES + (long) segments.size() * slotsPerSegment * stride;
+            MappedByteBuffer mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE, position,
+                    (long) slotsPerSegment * stride);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(mapped);
+            floatViews.add(encoding == Encoding.FLOAT32 ? mapped.asFloatBuffer() : null);
+        }
+        return segments.get(index);
+    }
+
+    /**
+     * 读路径不映射新段，打开或切换文件后一次映射到所有已用槽位
+     */
+    private void mapSlots(int slots) throws IOException {
+        if (dimension != -1 && slots > 0) {
+            segment((slots - 1) / slotsPerSegment);
+        }
+    }
+
+    private void writeSlot(int slot, float[] normalized) throws IOException {
+        ensureSlotCapacity(slot);
+        ByteBuffer buffer = segment(slot / slotsPerSegment);
+        int offset = (slot % slotsPerSegment) * stride;
+        if (encoding == Encoding.FLOAT32) {
+            for (int d = 0; d < dimension; d++) {
+                buffer.putFloat(offset + d * Float.BYTES, normalized[d]);
+            }
+            return;
+        }
+        float maxAbs = 0;
+        for (float value : normalized) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float scale = maxAbs == 0 ? 0 : maxAbs / 127f;
+        buffer.putFloat(offset, scale);
+        for (int d = 0; d < dimension; d++) {
+            int code = scale == 0 ? 0 : Math.round(normalized[d] / scale);
+            buffer.put(offset + Float.BYTES + d, (byte) Math.max(-127, Math.min(127, code)));
+        }
+    }
+
+    private void forceSlots(int fromSlot, int toSlot) throws IOException {
+        int first = fromSlot / slotsPerSegment;
+        int last = (toSlot - 1) / slotsPerSegment;
+        for (int index = first; index <= last; index++) {
+            int from = index == first ? (fromSlot % slotsPerSegment) * stride : 0;
+            int to = index == last ? ((toSlot - 1) % slotsPerSegment + 1) * stride : slotsPerSegment * stride;
+            segment(index).force(from, to - from);
+        }
+    }
+
+    private float score(int slot, float[] q, float[] floats, byte[] codes) {
+        int segmentIndex = slot / slotsPerSegment;
+        int offset = (slot % slotsPerSegment) * stride;
+        if (encoding == Encoding.FLOAT32) {
+            floatViews.get(segmentIndex).get(offset / Float.BYTES, floats);
+            return VectorMath.dot(q, floats);
+        }
+        ByteBuffer buffer = segments.get(segmentIndex);
+        buffer.get(offset + Float.BYTES, codes);
+        return buffer.getFloat(offset) * VectorMath.dotBytes(q, codes, 0);
+    }
+
+    private float[] readSlot(int slot) {
+        int segmentIndex = slot / slotsPerSegment;
+        int offset = (slot % slotsPerSegment) * stride;
+        float[] vector = new float[dimension];
+        if (encoding == Encoding.FLOAT32) {
+            floatViews.get(segmentIndex).get(offset / Float.BYTES, vector);
+            return vector;
+        }
+        ByteBuffer buffer = segments.get(segmentIndex);
+        float scale = buffer.getFloat(offset);
+        for (int d = 0; d < dimension; d++) {
+            vector[d] = buffer.get(offset + Float.BYTES + d) * scale;
+        }
+        return vector;
+    }
+
+    private void assign(String id, int slot, VectorMetadata metadata) {
+        Integer previous = slotById.put(id, slot);
+        if (previous != null && previous != slot) {
+            idBySlot[previous] = null;
+            metadataBySlot[previous] = null;
+        }
+        ensureSlotCapacity(slot);
+        idBySlot[slot] = id;
+        metadataBySlot[slot] = metadata;
+        nextSlot = Math.max(nextSlot, slot + 1);
+    }
+
+    private void release(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            idBySlot[slot] = null;
+            metadataBySlot[slot] = null;
+        }
+    }
+
+    private void ensureSlotCapacity(int slot) {
+        if (slot >= idBySlot.length) {
+            int capacity = Math.max(slot + 1, idBySlot.length * 2);
+            idBySlot = Arrays.copyOf(idBySlot, capacity);
+            metadataBySlot = Arrays.copyOf(metadataBySlot, capacity);
+        }
+    }
+
+    private void clearSlots() {
+        slotById.clear();
+        idBySlot = new String[16];
+        metadataBySlot = new VectorMetadata[16];
+        nextSlot = 0;
+        scanOffset = -1;
+    }
+
+    private int[] writeCompactedVectors(Path file) throws IOException {
+        int[] newSlotByOld = new int[nextSlot];
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(VECTOR_HEADER_BYTES)
+                    .putInt(VECTOR_MAGIC).putInt(VERSION).putInt(dimension).putInt(encoding.ordinal());
+            header.position(0);
+            LogRecords.writeFully(out, header);
+            int live = 0;
+            if (dimension != -1) {
+                ByteBuffer copy = ByteBuffer.allocate(Math.max(stride, COPY_BUFFER_BYTES / stride * stride));
+                for (int slot = 0; slot < nextSlot; slot++) {
+                    if (idBySlot[slot] == null) {
+                        newSlotByOld[slot] = -1;
+                        continue;
+                    }
+                    ByteBuffer source = segment(slot / slotsPerSegment).duplicate();
+                    int offset = (slot % slotsPerSegment) * stride;
+                    source.limit(offset + stride).position(offset);
+                    if (copy.remaining() < stride) {
+                        copy.flip();
+                        LogRecords.writeFully(out, copy);
+                        copy.clear();
+                    }
+                    copy.put(source);
+                    newSlotByOld[slot] = live++;
+                }
+                copy.flip();
+                LogRecords.writeFully(out, copy);
+            }
+            out.force(true);
+        }
+        return newSlotByOld;
+    }
+
+    private long writeCompactedLog(Path file, long newGeneration, int[] newSlotByOld) throws IOException {
+        long records = 0;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeIdHeader(out, newGeneration);
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (idBySlot[slot] == null) {
+                    continue;
+                }
+                LogRecords.append(batch, encodeUpsert(idBySlot[slot], newSlotByOld[slot], metadataBySlot[slot]));
+                records++;
+                if (batch.size() >= COPY_BUFFER_BYTES) {
+                    LogRecords.writeFully(out, ByteBuffer.wrap(batch.toByteArray()));
+                    batch.reset();
+                }
+            }
+            LogRecords.writeFully(out, ByteBuffer.wrap(batch.toByteArray()));
+            out.force(true);
+        }
+        return records;
+    }
+
+    private void remapSlots(int[] newSlotByOld) {
+        String[] oldIds = idBySlot;
+        VectorMetadata[] oldMetadatas = metadataBySlot;
+        int oldNextSlot = nextSlot;
+        clearSlots();
+        for (int slot = 0; slot < oldNextSlot; slot++) {
+            if (oldIds[slot] != null) {
+                assign(oldIds[slot], newSlotByOld[slot], oldMetadatas[slot]);
+            }
+        }
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        boolean needed;
+        lock.readLock().lock();
+        try {
+            int live = slotById.size();
+            needed = !closed && ((nextSlot >= COMPACT_MIN_RECORDS && (nextSlot - live) * 2L >= nextSlot)
+                    || (logRecords >= COMPACT_MIN_RECORDS && live * 2L <= logRecords));
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (needed && compactionScheduled.compareAndSet(false, true)) {
+            COMPACTOR.execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void appendLog(ByteArrayOutputStream batch, int records) throws IOException {
+        LogRecords.writeFully(idChannel, ByteBuffer.wrap(batch.toByteArray()));
+        idChannel.force(false);
+        logRecords += records;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("向量存储已关闭：" + storeDir);
+        }
+    }
+
+    private Path vectorFile(long fileGeneration) {
+        return storeDir.resolve(VECTOR_FILE_PREFIX + fileGeneration + VECTOR_FILE_SUFFIX);
+    }
+
+    /**
+     * 删除压缩或清空中断后遗留的其他代向量文件
+     */
+    private void deleteStaleVectorFiles() throws IOException {
+        Path current = vectorFile(generation);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDir,
+                VECTOR_FILE_PREFIX + "*" + VECTOR_FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel channel : new FileChannel[] { idChannel, vectorChannel }) {
+            if (channel == null) {
+                continue;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭向量存储文件失败：{}", storeDir, e);
+            }
+        }
+    }
+
+    private static void writeIdHeader(FileChannel channel, long fileGeneration) throws IOException {
+        channel.position(0);
+        LogRecords.writeFully(channel, ByteBuffer.allocate(ID_HEADER_BYTES)
+                .putInt(ID_MAGIC).putInt(VERSION).putLong(fileGeneration).flip());
+        channel.force(true);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+                for (Path child : children) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+
+    private static byte[] encodeUpsert(String id, int slot, VectorMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(id.length() + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_UPSERT);
+        out.writeInt(slot);
+        out.writeUTF(id);
+        LogRecords.writeMetadata(out, metadata);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDelete(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(id.length() + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DELETE);
+        out.writeUTF(id);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 向量存储 SPI：保存向量及元数据的持久层（或内存层），既可单独承担检索，
+ * 也可作为进程内索引（HNSW/量化）的镜像，在启动时分页读出重建索引
+ * 相似度统一为余弦相似度，分数越大越相似
+ */
+public interface VectorStore extends Closeable {
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 存储名称（集合名）
+     * @return 名称
+     */
+    String name();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 批量写入，ID已存在则覆盖
+     * @param ids 条目ID列表（批内不重复）
+     * @param vectors 与 ids 一一对应的向量
+     * @param metadatas 与 ids 一一对应的元数据，为 null 表示不带元数据
+     */
+    void upsert(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 只更新已存在条目的元数据，不改变向量，ID不存在时忽略
+     * @param ids 条目ID列表
+     * @param metadatas 与 ids 一一对应的元数据
+     */
+    void updateMetadata(List<String> ids, List<VectorMetadata> metadatas);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 按ID批量删除，ID不存在时忽略
+     * @param ids 条目ID列表
+     */
+    void delete(List<String> ids);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 近邻检索，过滤条件在存储内部与检索一起执行
+     * @param vector 查询向量
+     * @param limit 返回数量
+     * @param filter 过滤条件（为 null 时不过滤）
+     * @return 按相似度降序排列的结果
+     */
+    List<Match> query(float[] vector, int limit, VectorFilter filter);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 条目数
+     * @return 条目数
+     */
+    int count();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 分页读取全部条目（用于重建进程内索引），读取期间不应有写入
+     * @param offset 偏移量
+     * @param limit 每页数量
+     * @return 当前页数据
+     */
+    Page scan(int offset, int limit);
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 分页读取条目ID，不读取向量（用于与数据库对账），顺序与 scan 一致
+     * @param offset 偏移量
+     * @param limit 每页数量
+     * @return 当前页的条目ID
+     */
+    default List<String> scanIds(int offset, int limit) {
+        return scan(offset, limit).ids();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 删除存储中的全部数据，之后仍可按原名称继续读写
+     */
+    void drop();
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 重命名存储（重建完成后影子存储改为正式名称），同名的旧存储需先 drop
+     * @param newName 新名称
+     */
+    void renameTo(String newName);
+
+    /**
+     * 释放连接、文件句柄等资源，不删除数据
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 检索结果
+     * @param id 条目ID
+     * @param score 余弦相似度
+     */
+    record Match(String id, double score) {
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 分页读取结果
+     * @param ids 条目ID列表
+     * @param vectors 与 ids 一一对应的向量（可能为 null）
+     * @param metadatas 与 ids 一一对应的元数据（可能为 null）
+     */
+    record Page(List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+    }
+}
@@ -0,0 +1,415 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 物品向量写入的本地预写队列：向量存储或嵌入服务不可用时，物品的索引 / 删除操作按顺序追加到本地日志
+ * （记录格式同 FileVectorStore，每条带 CRC32 校验，追加后 force 落盘），恢复后由调用方按顺序分批取出重放并确认；
+ * 入队记录携带重放所需的物品快照，确认记录只写序号；队列清空时截断文件，确认记录占多数时压缩
+ */
+@Slf4j
+public class VectorWriteQueue implements AutoCloseable {
+    private static final int MAGIC = 0x56575141;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final byte OP_INDEX = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_ACK = 3;
+    /** 日志记录数低于该值时不压缩 */
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private static final int FLAG_TYPE = 1;
+    private static final int FLAG_STATUS = 1 << 1;
+    private static final int FLAG_CREATED_AT = 1 << 2;
+    private static final int FLAG_DESCRIPTION = 1 << 3;
+    private static final int FLAG_IMAGE_COUNT = 1 << 4;
+
+    private final Path file;
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private FileChannel channel;
+    /** 日志中的记录数（含已确认的入队记录与确认记录） */
+    private long logRecords;
+    /** 下一条入队记录的序号，单调递增，截断文件后也不回退 */
+    private long nextSequence = 1;
+
+    /**
+     * 一条待重放的写入；item 为 null 表示删除该物品的全部向量
+     *
+     * @param sequence 入队序号
+     * @param itemId   物品ID
+     * @param item     入队时的物品快照（只含 ID、类型、状态、创建时间、描述）
+     * @param imageUrls 需要重新嵌入的图片，为空表示只嵌入文本
+     * @param tagIds   标签ID
+     */
+    public record Entry(long sequence, Long itemId, Item item, List<String> imageUrls, List<Long> tagIds) {
+
+        public boolean isRemove() {
+            return item == null;
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 打开（或创建）队列文件并重放日志，未确认的记录按入队顺序恢复
+     * @param file 队列文件
+     */
+    public VectorWriteQueue(Path file) {
+        this.file = file;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() < HEADER_BYTES) {
+                resetFile();
+            } else {
+                replay();
+            }
+        } catch (IOException e) {
+            closeChannel();
+            throw new UncheckedIOException("打开向量写入队列文件失败：" + file, e);
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 追加一条物品索引写入，落盘后才返回
+     * @param item     物品
+     * @param imageUrls 需要嵌入的图片，为空表示只嵌入文本
+     * @param tagIds   标签ID
+     * @return 入队的记录
+     */
+    public synchronized Entry appendIndex(Item item, List<String> imageUrls, List<Long> tagIds) {
+        Item snapshot = Item.builder()
+                .id(item.getId())
+                .type(item.getType())
+                .status(item.getStatus())
+                .createdAt(item.getCreatedAt())
+                .description(item.getDescription())
+                .imageCount(item.getImageCount())
+                .build();
+        return append(new Entry(nextSequence, item.getId(), snapshot,
+                imageUrls == null ? List.of() : List.copyOf(imageUrls),
+                tagIds == null ? List.of() : List.copyOf(tagIds)));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 追加一条物品向量删除，落盘后才返回
+     * @param itemId 物品ID
+     * @return 入队的记录
+     */
+    public synchronized Entry appendRemove(Long itemId) {
+        return append(new Entry(nextSequence, itemId, null, List.of(), List.of()));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 按入队顺序取出队首的若干条记录，不出队
+     * @param max 最多条数
+     * @return 记录
+     */
+    public synchronized List<Entry> peek(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, pending.size()));
+        Iterator<Entry> iterator = pending.iterator();
+        while (entries.size() < max && iterator.hasNext()) {
+            entries.add(iterator.next());
+        }
+        return entries;
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 确认序号不超过 sequence 的记录已重放；队列清空时截断文件
+     * @param sequence 已重放的最大序号
+     */
+    public synchronized void acknowledge(long sequence) {
+        if (pending.isEmpty() || pending.peekFirst().sequence() > sequence) {
+            return;
+        }
+        while (!pending.isEmpty() && pending.peekFirst().sequence() <= sequence) {
+            pending.pollFirst();
+        }
+        try {
+            if (pending.isEmpty()) {
+                resetFile();
+                return;
+            }
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            LogRecords.append(batch, encodeAck(sequence));
+            append(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量写入队列文件失败：" + file, e);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 未确认的记录数
+     * @return 记录数
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 日志中的记录数（含已确认的），用于观察截断与压缩效果
+     * @return 记录数
+     */
+    public synchronized long logRecords() {
+        return logRecords;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private Entry append(Entry entry) {
+        try {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            LogRecords.append(batch, encodeEntry(entry));
+            append(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入向量写入队列文件失败：" + file, e);
+        }
+        pending.addLast(entry);
+        nextSequence = entry.sequence() + 1;
+        return entry;
+    }
+
+    private void append(ByteArrayOutputStream batch) throws IOException {
+        LogRecords.writeFully(channel, ByteBuffer.wrap(batch.toByteArray()));
+        channel.force(false);
+        logRecords++;
+    }
+
+    /**
+     * 校验文件头后重放日志，不完整或损坏的尾部记录被截断
+     */
+    private void replay() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // 读满文件头
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("不是有效的向量写入队列文件：" + file);
+        }
+        logRecords = LogRecords.replay(channel, HEADER_BYTES, file, this::applyRecord);
+        if (!pending.isEmpty()) {
+            log.info("向量写入队列已加载：{}，待重放记录数：{}", file, pending.size());
+        }
+    }
+
+    private void applyRecord(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        long sequence = in.readLong();
+        if (op == OP_ACK) {
+            while (!pending.isEmpty() && pending.peekFirst().sequence() <= sequence) {
+                pending.pollFirst();
+            }
+            return;
+        }
+        Long itemId = in.readLong();
+        Entry entry;
+        if (op == OP_REMOVE) {
+            entry = new Entry(sequence, itemId, null, List.of(), List.of());
+        } else if (op == OP_INDEX) {
+            int flags = in.readByte();
+            Item item = Item.builder()
+                    .id(itemId)
+                    .type((flags & FLAG_TYPE) != 0 ? in.readInt() : null)
+                    .status((flags & FLAG_STATUS) != 0 ? in.readInt() : null)
+                    .createdAt((flags & FLAG_CREATED_AT) != 0
+                            ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC)
+                            : null)
+                    .description((flags & FLAG_DESCRIPTION) != 0 ? readString(in) : null)
+                    .imageCount((flags & FLAG_IMAGE_COUNT) != 0 ? in.readInt() : null)
+                    .build();
+            int imageCount = in.readInt();
+            if (imageCount < 0) {
+                throw new IOException("图片数量异常：" + imageCount);
+            }
+            List<String> imageUrls = new ArrayList<>(imageCount);
+            for (int i = 0; i < imageCount; i++) {
+                imageUrls.add(readString(in));
+            }
+            int tagCount = in.readInt();
+            if (tagCount < 0) {
+                throw new IOException("标签数量异常：" + tagCount);
+            }
+            List<Long> tagIds = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tagIds.add(in.readLong());
+            }
+            entry = new Entry(sequence, itemId, item, List.copyOf(imageUrls), List.copyOf(tagIds));
+        } else {
+            throw new IOException("未知的记录类型：" + op);
+        }
+        pending.addLast(entry);
+        nextSequence = Math.max(nextSequence, sequence + 1);
+    }
+
+    /**
+     * 确认记录使日志记录数超过未确认记录数两倍时，把未确认记录写成新文件并原子替换
+     */
+    private void compactIfNeeded() {
+        if (logRecords < COMPACT_MIN_RECORDS || pending.size() * 2L > logRecords) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            LogRecords.writeFully(out, header());
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            for (Entry entry : pending) {
+                LogRecords.append(batch, encodeEntry(entry));
+            }
+            LogRecords.writeFully(out, ByteBuffer.wrap(batch.toByteArray()));
+            out.force(true);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long before = logRecords;
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            logRecords = pending.size();
+            log.info("向量写入队列文件已压缩：{}，日志记录数 {} -> {}", file, before, logRecords);
+        } catch (IOException e) {
+            // 压缩失败不影响数据正确性，原文件仍完整，下次确认时重试
+            log.warn("压缩向量写入队列文件失败：{}", file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件残留不影响使用
+            }
+        }
+    }
+
+    private void resetFile() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        LogRecords.writeFully(channel, header());
+        channel.force(true);
+        logRecords = 0;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭向量写入队列文件失败：{}", file, e);
+        }
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    private static byte[] encodeEntry(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(entry.isRemove() ? OP_REMOVE : OP_INDEX);
+        out.writeLong(entry.sequence());
+        out.writeLong(entry.itemId());
+        if (entry.isRemove()) {
+            return bytes.toByteArray();
+        }
+        Item item = entry.item();
+        int flags = 0;
+        flags |= item.getType() != null ? FLAG_TYPE : 0;
+        flags |= item.getStatus() != null ? FLAG_STATUS : 0;
+        flags |= item.getCreatedAt() != null ? FLAG_CREATED_AT : 0;
+        flags |= item.getDescription() != null ? FLAG_DESCRIPTION : 0;
+        flags |= item.getImageCount() != null ? FLAG_IMAGE_COUNT : 0;
+        out.writeByte(flags);
+        if (item.getType() != null) {
+            out.writeInt(item.getType());
+        }
+        if (item.getStatus() != null) {
+            out.writeInt(item.getStatus());
+        }
+        if (item.getCreatedAt() != null) {
+            out.writeLong(item.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(item.getCreatedAt().getNano());
+        }
+        if (item.getDescription() != null) {
+            writeString(out, item.getDescription());
+        }
+        if (item.getImageCount() != null) {
+            out.writeInt(item.getImageCount());
+        }
+        out.writeInt(entry.imageUrls().size());
+        for (String imageUrl : entry.imageUrls()) {
+            writeString(out, imageUrl);
+        }
+        out.writeInt(entry.tagIds().size());
+        for (Long tagId : entry.tagIds()) {
+            out.writeLong(tagId);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeAck(long sequence) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_ACK);
+        out.writeLong(sequence);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 描述可能超过 writeUTF 的 64KB 上限，按 [int 长度][UTF-8 字节] 编码
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("字符串长度异常：" + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,9 @@
 package com.whut.lostandfoundforwhut.config;
 
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.embedding.EmbeddingProvider;
+import com.whut.lostandfoundforwhut.common.utils.vector.embedding.HashingEmbeddingProvider;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
 import com.whut.lostandfoundforwhut.model.dto.TextEmbeddingDTO;
 import com.whut.lostandfoundforwhut.model.entity.Item;
 import com.whut.lostandfoundforwhut.service.IVectorService;
@@ -7,6 +11,7 @@ import com.whut.lostandfoundforwhut.service.impl.VectorServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +29,18 @@ public class VectorConfig {
     @Value("${app.vector-store.enabled:true}")
     private boolean vectorStoreEnabled;
 
+    @Value("${app.vector-store.embedding.local.dimension:1536}")
+    private int localEmbeddingDimension;
+
+    /**
+     * 离线嵌入生成器 Bean
+     * 维度需与向量集合一致（DashScope text-embedding-v1 为 1536 维）
+     */
+    @Bean
+    public EmbeddingProvider localEmbeddingProvider() {
+        return new HashingEmbeddingProvider(localEmbeddingDimension);
+    }
+
     /**
      * 向量数据库服务 Bean
      * 当 app.vector-store.enabled=true 时创建实际的服务实现
@@ -57,18 +74,60 @@ public class VectorConfig {
             // 空实现 - 不做任何操作
         }
 
+        @Override
+        public void addTextsToCollection(List<TextEmbeddingDTO> textEmbeddingDTOs) {
+            // 空实现 - 不做任何操作
+        }
+
         @Override
         public java.util.List<String> searchInCollection(String query, int maxResults) {
             // 返回空列表
             return java.util.Collections.emptyList();
         }
 
+        @Override
+        public java.util.List<String> searchInCollection(String query, int maxResults, VectorFilter filter) {
+            // 返回空列表
+            return java.util.Collections.emptyList();
+        }
+
+        @Override
+        public List<VectorStore.Match> searchScoredInCollection(String query, int maxResults, VectorFilter filter) {
+            // 返回空列表
+            return java.util.Collections.emptyList();
+        }
+
         @Override
         public int getCollectionSize() {
             // 返回 0
             return 0;
         }
 
+        @Override
+        public Map<String, Object> getPartitionStats() {
+            return Map.of();
+        }
+
+        @Override
+        public Map<String, Object> getWriteQueueStats() {
+            return Map.of();
+        }
+
+        @Override
+        public void scanIndexedItems(IndexedVectorConsumer consumer) {
+            throw new IllegalStateException("向量数据库功能未启用");
+        }
+
+        @Override
+        public boolean supportsImageEmbedding() {
+            return false;
+        }
+
+        @Override
+        public Integer partitionTypeOf(Integer itemType) {
+            return null;
+        }
+
         @Override
         public void deleteFromCollection(String id) {
             // 空实现 - 不做任何操作
@@ -99,9 +158,46 @@ public class VectorConfig {
             // 空实现 - 不做任何操作
         }
 
+        @Override
+        public void indexItem(Item item, String imageUrl, List<Long> tagIds) {
+            // 空实现 - 不做任何操作
+        }
+
+        @Override
+        public List<String> indexItemImages(Item item, List<String> imageUrls, List<Long> tagIds) {
+            // 空实现 - 不做任何操作
+            return null;
+        }
+
+        @Override
+        public void deindexItem(Long itemId) {
+            // 空实现 - 不做任何操作
+        }
+
         @Override
         public void removeFromVectorDatabase(Long itemId) {
             // 空实现 - 不做任何操作
         }
+
+        @Override
+        public void beginReindex() {
+            throw new IllegalStateException("向量数据库功能未启用，请设置 app.vector-store.enabled=true");
+        }
+
+        @Override
+        public void reindexItems(List<Item> items, Map<Long, List<Long>> tagIdsByItem,
+                                 Map<Long, List<String>> imageUrlsByItem) {
+            // 空实现 - 不做任何操作
+        }
+
+        @Override
+        public void commitReindex() {
+            // 空实现 - 不做任何操作
+        }
+
+        @Override
+        public void abortReindex() {
+            // 空实现 - 不做任何操作
+        }
     }
 }
\ No newline at end of file
@@ -4,8 +4,10 @@ import com.whut.lostandfoundforwhut.common.result.Result;
 import com.whut.lostandfoundforwhut.model.dto.ItemDTO;
 import com.whut.lostandfoundforwhut.model.dto.ItemFilterDTO;
 import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.vo.ItemMatchVO;
 import com.whut.lostandfoundforwhut.model.vo.PageResultVO;
 import com.whut.lostandfoundforwhut.service.IImageService;
+import com.whut.lostandfoundforwhut.service.IItemMatchService;
 import com.whut.lostandfoundforwhut.service.IItemService;
 import com.whut.lostandfoundforwhut.common.utils.security.jwt.JwtUtil;
 import com.whut.lostandfoundforwhut.common.enums.ResponseCode;
@@ -15,11 +17,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.util.StringUtils;
 import com.whut.lostandfoundforwhut.service.IUserService;
 import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +45,7 @@ public class ItemController {
     private final IUserService userService;
     private final IImageService imageService;
     private final ItemImageMapper itemImageMapper;
+    private final IItemMatchService itemMatchService;
 
     @PostMapping("/add-item")
     @Operation(summary = "添加物品", description = "添加新的挂失或招领物品")
@@ -174,12 +179,23 @@ public class ItemController {
     }
 
     @GetMapping("/search-similar")
-    @Operation(summary = "搜索相似物品", description = "在向量数据库中搜索与查询文本相似的物品")
+    @Operation(summary = "搜索相似物品", description = "在向量数据库中搜索与查询文本相似的物品，可按类型、状态、标签、时间段过滤")
     public Result<List<Item>> searchSimilarItems(
             @Parameter(description = "查询文本", required = true) @RequestParam String query,
-            @Parameter(description = "返回结果数量", required = false, example = "5") @RequestParam(defaultValue = "5") int maxResults) {
+            @Parameter(description = "返回结果数量", required = false, example = "5") @RequestParam(defaultValue = "5") int maxResults,
+            @Parameter(description = "物品类型", required = false) @RequestParam(required = false) Integer type,
+            @Parameter(description = "物品状态", required = false) @RequestParam(required = false) Integer status,
+            @Parameter(description = "标签列表（命中任一即可）", required = false) @RequestParam(required = false) List<String> tags,
+            @Parameter(description = "开始时间", required = false) @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @Parameter(description = "结束时间", required = false) @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
         try {
-            List<Item> results = itemService.searchSimilarItems(query, maxResults);
+            ItemFilterDTO filter = new ItemFilterDTO();
+            filter.setType(type);
+            filter.setStatus(status);
+            filter.setTags(tags);
+            filter.setStartTime(startTime);
+            filter.setEndTime(endTime);
+            List<Item> results = itemService.searchSimilarItems(query, maxResults, filter);
             log.info("搜索相似物品完成，查询：{}，返回结果数量：{}", query, results.size());
             return Result.success(results);
         } catch (Exception e) {
@@ -188,6 +204,20 @@ public class ItemController {
         }
     }
 
+    @GetMapping("/{ItemId}/matches")
+    @Operation(summary = "获取可能的匹配", description = "获取与物品类型相反的相似物品（物品向量同步后预先计算），按相似度降序")
+    public Result<List<ItemMatchVO>> getItemMatches(
+            @Parameter(description = "Item ID", required = true) @PathVariable Long ItemId,
+            @Parameter(description = "返回结果数量", required = false, example = "10") @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<ItemMatchVO> matches = itemMatchService.getMatches(ItemId, limit);
+            return Result.success(matches);
+        } catch (Exception e) {
+            log.error("获取物品匹配失败，物品ID：{}", ItemId, e);
+            return Result.fail(ResponseCode.UN_ERROR.getCode(), "获取物品匹配失败：" + e.getMessage());
+        }
+    }
+
     private Long resolveUserIdFromToken(String authorization) {
         if (!StringUtils.hasText(authorization) || !authorization.startsWith("Bearer ")) {
             throw new AppException(ResponseCode.NOT_LOGIN.getCode(), ResponseCode.NOT_LOGIN.getInfo());
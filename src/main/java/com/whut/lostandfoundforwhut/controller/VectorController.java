@@ -2,7 +2,14 @@ package com.whut.lostandfoundforwhut.controller;
 
 import com.whut.lostandfoundforwhut.common.enums.ResponseCode;
 import com.whut.lostandfoundforwhut.common.result.Result;
+import com.whut.lostandfoundforwhut.common.utils.vector.cache.EmbeddingCache;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.DashScopeEmbeddingClient;
 import com.whut.lostandfoundforwhut.model.dto.TextEmbeddingDTO;
+import com.whut.lostandfoundforwhut.model.vo.VectorConsistencyReportVO;
+import com.whut.lostandfoundforwhut.model.vo.VectorReindexProgressVO;
+import com.whut.lostandfoundforwhut.service.IItemSearchService;
+import com.whut.lostandfoundforwhut.service.IVectorConsistencyService;
+import com.whut.lostandfoundforwhut.service.IVectorReindexService;
 import com.whut.lostandfoundforwhut.service.IVectorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 向量数据库控制器
@@ -27,6 +35,11 @@ import java.util.List;
 public class VectorController {
 
     private final IVectorService vectorService;
+    private final EmbeddingCache embeddingCache;
+    private final DashScopeEmbeddingClient embeddingClient;
+    private final IVectorReindexService vectorReindexService;
+    private final IItemSearchService itemSearchService;
+    private final IVectorConsistencyService vectorConsistencyService;
 
     @PostMapping("/add-text")
     @Operation(summary = "添加文本到向量数据库", description = "将文本添加到向量数据库中进行索引")
@@ -41,6 +54,19 @@ public class VectorController {
         }
     }
 
+    @PostMapping("/add-texts")
+    @Operation(summary = "批量添加文本到向量数据库", description = "批量生成嵌入并一次性写入向量数据库")
+    public Result<Void> addTextsToCollection(@RequestBody List<TextEmbeddingDTO> textEmbeddingDTOs) {
+        try {
+            vectorService.addTextsToCollection(textEmbeddingDTOs);
+            log.info("成功批量添加文本到向量数据库，数量：{}", textEmbeddingDTOs.size());
+            return Result.success(null);
+        } catch (Exception e) {
+            log.error("批量添加文本到向量数据库失败，数量：{}", textEmbeddingDTOs.size(), e);
+            return Result.fail(ResponseCode.UN_ERROR.getCode(), "批量添加文本到向量数据库失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/search")
     @Operation(summary = "向量搜索", description = "在向量数据库中搜索相似文本")
     public Result<List<String>> searchInCollection(
@@ -69,6 +95,68 @@ public class VectorController {
         }
     }
 
+    @GetMapping("/partitions/stats")
+    @Operation(summary = "向量分区统计", description = "获取各分区（挂失 / 招领 / 共享）的条目数、检索次数与耗时")
+    public Result<Map<String, Object>> getPartitionStats() {
+        return Result.success(vectorService.getPartitionStats());
+    }
+
+    @GetMapping("/write-queue/stats")
+    @Operation(summary = "向量写入队列统计", description = "获取存储不可用期间物品向量写入的本地队列积压与后台重连状态")
+    public Result<Map<String, Object>> getWriteQueueStats() {
+        return Result.success(vectorService.getWriteQueueStats());
+    }
+
+    @GetMapping("/embedding-cache/stats")
+    @Operation(summary = "嵌入缓存统计", description = "获取嵌入向量缓存的命中、未命中与淘汰计数")
+    public Result<Map<String, Object>> getEmbeddingCacheStats() {
+        return Result.success(embeddingCache.stats());
+    }
+
+    @GetMapping("/embedding-client/stats")
+    @Operation(summary = "嵌入调用统计", description = "获取 DashScope 嵌入调用的熔断状态、在途数、超时与拒绝计数及耗时")
+    public Result<Map<String, Object>> getEmbeddingClientStats() {
+        return Result.success(embeddingClient.stats());
+    }
+
+    @GetMapping("/search-cache/stats")
+    @Operation(summary = "检索结果缓存统计", description = "获取相似物品检索结果缓存的命中、失效与拒绝计数，以及向量召回请求合并计数")
+    public Result<Map<String, Object>> getSearchCacheStats() {
+        return Result.success(itemSearchService.getCacheStats());
+    }
+
+    @PostMapping("/reindex")
+    @Operation(summary = "全量重建向量索引", description = "从数据库流式读取物品重新嵌入到影子集合，完成后原子切换（异步执行）")
+    public Result<VectorReindexProgressVO> reindex() {
+        if (!vectorReindexService.start()) {
+            return Result.fail(ResponseCode.UN_ERROR.getCode(), "已有进行中的向量索引重建");
+        }
+        log.info("向量索引全量重建已启动");
+        return Result.success(vectorReindexService.getProgress());
+    }
+
+    @GetMapping("/reindex/progress")
+    @Operation(summary = "向量索引重建进度", description = "获取当前或最近一次重建的进度、吞吐量与预计剩余时间")
+    public Result<VectorReindexProgressVO> getReindexProgress() {
+        return Result.success(vectorReindexService.getProgress());
+    }
+
+    @PostMapping("/consistency/check")
+    @Operation(summary = "数据库与向量库对账", description = "归并比对数据库物品与向量库条目，只为有差异的物品登记修复")
+    public Result<VectorConsistencyReportVO> checkConsistency() {
+        VectorConsistencyReportVO report = vectorConsistencyService.check();
+        if (report.getError() != null) {
+            return Result.fail(ResponseCode.UN_ERROR.getCode(), "向量库对账未完成：" + report.getError());
+        }
+        return Result.success(report);
+    }
+
+    @GetMapping("/consistency/report")
+    @Operation(summary = "最近一次对账结果", description = "获取最近一次对账的差异统计与修复数量")
+    public Result<VectorConsistencyReportVO> getConsistencyReport() {
+        return Result.success(vectorConsistencyService.getLastReport());
+    }
+
     @DeleteMapping("/delete/{id}")
     @Operation(summary = "删除向量数据", description = "从向量数据库中删除指定ID的文本")
     public Result<Void> deleteFromCollection(
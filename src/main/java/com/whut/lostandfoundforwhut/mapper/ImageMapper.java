@@ -2,6 +2,9 @@ package com.whut.lostandfoundforwhut.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.whut.lostandfoundforwhut.model.entity.Image;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * @author DXR
@@ -9,4 +12,13 @@ import com.whut.lostandfoundforwhut.model.entity.Image;
  * @description 图片 Mapper 接口
  */
 public interface ImageMapper extends BaseMapper<Image> {
+
+    /**
+     * 更新物品图片的嵌入失败标记：failedUrls 中的图片标记为无法生成向量，物品的其余图片清除标记
+     *
+     * @param itemId     物品ID
+     * @param failedUrls 无法生成向量的图片URL
+     * @return 更新的记录数
+     */
+    int updateEmbedFailed(@Param("itemId") Long itemId, @Param("failedUrls") List<String> failedUrls);
 }
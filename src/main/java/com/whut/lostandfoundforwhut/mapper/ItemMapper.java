@@ -2,6 +2,7 @@ package com.whut.lostandfoundforwhut.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.whut.lostandfoundforwhut.model.entity.Item;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * @author DXR
@@ -9,4 +10,20 @@ import com.whut.lostandfoundforwhut.model.entity.Item;
  * @description 物品 Mapper 接口
  */
 public interface ItemMapper extends BaseMapper<Item> {
+
+    /**
+     * 按ID升序流式读取需要建立向量索引的物品（未删除且未结束），逐行回调，内存占用与总量无关
+     * 流式结果集会独占连接直到读取结束，不要在事务中调用，回调中的其他查询会使用连接池中的其他连接
+     *
+     * @param handler 逐行回调
+     */
+    void streamIndexable(ResultHandler<Item> handler);
+
+    /**
+     * 按ID升序流式读取全部未删除物品的ID、类型、状态、更新时间与图片数（向量库对账用），逐行回调
+     * 与 streamIndexable 一样独占连接直到读取结束，回调中的其他查询会使用连接池中的其他连接
+     *
+     * @param handler 逐行回调
+     */
+    void streamSyncState(ResultHandler<Item> handler);
 }
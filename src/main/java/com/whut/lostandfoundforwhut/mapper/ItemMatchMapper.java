@@ -0,0 +1,76 @@
+package com.whut.lostandfoundforwhut.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.whut.lostandfoundforwhut.model.entity.ItemMatch;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 挂失/招领匹配候选 Mapper 接口
+ */
+public interface ItemMatchMapper extends BaseMapper<ItemMatch> {
+
+    /**
+     * 批量写入匹配候选，同一对物品已存在时更新相似度
+     *
+     * @param matches 匹配候选列表
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("matches") List<ItemMatch> matches);
+
+    /**
+     * 查询物品的匹配候选（只返回仍有效且未删除的候选物品，按相似度降序）
+     *
+     * @param itemId 物品ID
+     * @param limit  最大条数
+     * @return 匹配候选列表
+     */
+    List<ItemMatch> selectTopByItemId(@Param("itemId") Long itemId, @Param("limit") int limit);
+
+    /**
+     * 查询把该物品列为候选的物品ID
+     *
+     * @param candidateId 候选物品ID
+     * @return 物品ID列表
+     */
+    List<Long> selectItemIdsByCandidateId(@Param("candidateId") Long candidateId);
+
+    /**
+     * 删除物品自身候选列表中不再保留的候选
+     *
+     * @param itemId           物品ID
+     * @param keepCandidateIds 需要保留的候选ID（为空时删除全部）
+     * @return 删除行数
+     */
+    int deleteStale(@Param("itemId") Long itemId, @Param("keepCandidateIds") Collection<Long> keepCandidateIds);
+
+    /**
+     * 从指定物品的候选列表中移除某个候选
+     *
+     * @param candidateId 候选物品ID
+     * @param itemIds     物品ID列表
+     * @return 删除行数
+     */
+    int deleteByCandidate(@Param("candidateId") Long candidateId, @Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * 删除与物品相关的全部匹配（双向）
+     *
+     * @param itemId 物品ID
+     * @return 删除行数
+     */
+    int deleteByItemId(@Param("itemId") Long itemId);
+
+    /**
+     * 只保留物品相似度最高的 limit 个候选
+     *
+     * @param itemId 物品ID
+     * @param limit  保留数量
+     * @return 删除行数
+     */
+    int trimToTopK(@Param("itemId") Long itemId, @Param("limit") int limit);
+}
@@ -0,0 +1,39 @@
+package com.whut.lostandfoundforwhut.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.whut.lostandfoundforwhut.model.entity.VectorOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量索引发件箱 Mapper 接口
+ */
+public interface VectorOutboxMapper extends BaseMapper<VectorOutbox> {
+
+    /**
+     * 查询已到处理时间的待处理记录（按ID升序，保证同一物品的操作顺序）
+     *
+     * @param limit 最大条数
+     * @return 待处理记录列表
+     */
+    List<VectorOutbox> selectReady(int limit);
+
+    /**
+     * 认领记录：仅当记录仍为待处理时置为处理中并累加尝试次数
+     *
+     * @param id 记录ID
+     * @return 影响行数，1 表示认领成功
+     */
+    int claim(Long id);
+
+    /**
+     * 将长时间停留在处理中的记录（进程崩溃遗留）重置为待处理
+     *
+     * @param before 更新时间早于该时间的记录视为卡住
+     * @return 重置的记录数
+     */
+    int resetStuck(LocalDateTime before);
+}
@@ -59,4 +59,10 @@ public class Item {
      */
     @TableField(exist = false)
     private List<String> tags;
+
+    /**
+     * 关联的图片数量，仅用于向量库对账与图片向量元数据同步
+     */
+    @TableField(exist = false)
+    private Integer imageCount;
 }
@@ -0,0 +1,44 @@
+package com.whut.lostandfoundforwhut.model.entity;
+
+import java.time.LocalDateTime;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 挂失/招领匹配候选实体，对应 item_match 表（每对物品双向各存一行）
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@TableName("item_match")
+public class ItemMatch {
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @TableField("item_id")
+    private Long itemId;
+
+    @TableField("candidate_id")
+    private Long candidateId;
+
+    /** 向量相似度 */
+    private Double score;
+
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,53 @@
+package com.whut.lostandfoundforwhut.model.entity;
+
+import java.time.LocalDateTime;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量索引发件箱实体，对应 vector_outbox 表
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@TableName("vector_outbox")
+public class VectorOutbox {
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @TableField("item_id")
+    private Long itemId;
+
+    private String operation;
+
+    @TableField("image_url")
+    private String imageUrl;
+
+    private Integer status;
+
+    private Integer attempts;
+
+    @TableField("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @TableField("last_error")
+    private String lastError;
+
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.whut.lostandfoundforwhut.model.vo;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 物品的可能匹配（类型相反的候选物品及相似度）
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemMatchVO {
+    /** 候选物品 */
+    private Item item;
+    /** 向量相似度 */
+    private Double score;
+}
@@ -0,0 +1,46 @@
+package com.whut.lostandfoundforwhut.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 数据库与向量库对账结果
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VectorConsistencyReportVO {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    /** 耗时（毫秒） */
+    private long elapsedMillis;
+    /** 数据库中未删除的物品数 */
+    private long databaseItems;
+    /** 向量库中有向量的物品数 */
+    private long indexedItems;
+    /** 有效但没有向量的物品数 */
+    private long missing;
+    /** 向量库中有、数据库中不存在（或已删除）的物品数 */
+    private long orphaned;
+    /** 已结束但仍有向量的物品数 */
+    private long closedIndexed;
+    /** 向量所在分区与物品类型不符的物品数 */
+    private long misplaced;
+    /** 图片向量数与物品图片数不符的物品数（离线嵌入模式不生成图片向量，不比较） */
+    private long imageMismatched;
+    /** 最近更新过、可能仍在同步中而跳过的物品数 */
+    private long skippedRecent;
+    /** 已登记修复（写入发件箱）的物品数 */
+    private long repaired;
+    /** 差异数超过单次修复上限，剩余差异留到下次对账 */
+    private boolean repairLimitReached;
+    /** 对账未完成的原因 */
+    private String error;
+}
@@ -0,0 +1,36 @@
+package com.whut.lostandfoundforwhut.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author DXR
+ * @date 2026/02/17
+ * @description 向量索引全量重建进度
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VectorReindexProgressVO {
+    /** 任务状态，见 VectorReindexStatus */
+    private String status;
+    /** 开始时统计的物品总数 */
+    private long total;
+    /** 已处理物品数 */
+    private long processed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    /** 已耗时（秒） */
+    private long elapsedSeconds;
+    /** 吞吐量（物品/秒） */
+    private double throughput;
+    /** 预计剩余时间（秒），无法估计时为 null */
+    private Long etaSeconds;
+    /** 失败原因 */
+    private String error;
+}
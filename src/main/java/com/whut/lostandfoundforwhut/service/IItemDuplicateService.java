@@ -0,0 +1,44 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 重复发布检测服务：按物品描述的 SimHash 指纹查找同一用户同类型的有效物品，
+ * 不调用嵌入模型，在物品写入向量库之前拦截重复发布
+ */
+public interface IItemDuplicateService {
+
+    /**
+     * 查找与物品重复的有效物品；没有时登记该物品的指纹（查找与登记原子完成，并发的重复提交只有一个能通过）
+     * 在事务中调用时，事务回滚会撤销登记
+     *
+     * @param item 已写入数据库（已分配ID）的物品
+     * @return 重复物品ID，没有时返回 null
+     */
+    Long checkAndRegister(Item item);
+
+    /**
+     * 编辑物品前查找与编辑后内容重复的其他有效物品，不登记指纹
+     *
+     * @param item 编辑后的物品
+     * @return 重复物品ID，没有时返回 null
+     */
+    Long findDuplicate(Item item);
+
+    /**
+     * 物品描述、类型或状态变化后更新指纹（结束的物品移出检测范围）
+     * 在事务中调用时，事务提交后才生效，回滚时保持原指纹
+     *
+     * @param item 物品
+     */
+    void update(Item item);
+
+    /**
+     * 将物品移出检测范围；在事务中调用时，事务提交后才生效
+     *
+     * @param itemId 物品ID
+     */
+    void remove(Long itemId);
+}
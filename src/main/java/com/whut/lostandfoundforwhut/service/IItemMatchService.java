@@ -0,0 +1,38 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.vo.ItemMatchVO;
+
+import java.util.List;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 挂失/招领匹配服务：物品向量同步后检索类型相反的相似物品，候选及相似度预先写入匹配表，
+ * 查询“可能的匹配”时只需一次索引读取
+ */
+public interface IItemMatchService {
+
+    /**
+     * 重新计算物品的匹配候选，并同步受影响物品（新旧候选）候选列表中的该物品
+     *
+     * @param item 物品（需已写入向量库）
+     */
+    void refreshMatches(Item item);
+
+    /**
+     * 删除与物品相关的全部匹配（物品下架或删除时调用）
+     *
+     * @param itemId 物品ID
+     */
+    void removeMatches(Long itemId);
+
+    /**
+     * 获取物品的可能匹配，按相似度降序
+     *
+     * @param itemId 物品ID
+     * @param limit  最大条数
+     * @return 匹配列表
+     */
+    List<ItemMatchVO> getMatches(Long itemId, int limit);
+}
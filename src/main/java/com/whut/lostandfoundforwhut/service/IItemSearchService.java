@@ -0,0 +1,60 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description 物品混合检索服务接口：BM25 关键词召回 + 向量召回，倒数排名融合
+ */
+public interface IItemSearchService {
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 混合检索物品ID，向量召回超时或失败时只返回关键词召回结果
+     * 过滤条件在两路召回内部执行，返回的物品均满足条件
+     * @param query 查询文本
+     * @param maxResults 返回数量
+     * @param filter 元数据过滤条件（可为空）
+     * @return 按融合得分降序排列的物品ID
+     */
+    List<Long> searchItemIds(String query, int maxResults, VectorFilter filter);
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 写入或覆盖物品的关键词索引，已结束的物品会被移出索引
+     * @param item 物品实体
+     * @param tagIds 标签ID列表（可为空）
+     */
+    void indexItem(Item item, List<Long> tagIds);
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 从关键词索引中移除物品
+     * @param itemId 物品ID
+     */
+    void removeItem(Long itemId);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 失效结果中包含该物品的检索结果缓存
+     * @param itemId 物品ID
+     */
+    void invalidateCachedResults(Long itemId);
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 获取检索结果缓存统计
+     * @return 命中/未命中/失效等计数，以及向量召回请求合并计数（singleFlight）
+     */
+    Map<String, Object> getCacheStats();
+}
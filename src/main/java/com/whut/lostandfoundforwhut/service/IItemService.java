@@ -66,11 +66,12 @@ public interface IItemService {
     List<Item> filterItemsByStatus(List<Long> itemIds, String status);
 
     /**
-     * 搜索相似物品
+     * 搜索相似物品，过滤条件在召回阶段执行，返回的物品均满足条件
      *
      * @param query      查询文本
      * @param maxResults 最大返回结果数
+     * @param filter     过滤条件（类型、状态、标签、时间段，可为空，分页参数忽略）
      * @return 相似的物品列表
      */
-    List<Item> searchSimilarItems(String query, int maxResults);
+    List<Item> searchSimilarItems(String query, int maxResults, ItemFilterDTO filter);
 }
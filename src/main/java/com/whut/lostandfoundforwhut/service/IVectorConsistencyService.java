@@ -0,0 +1,25 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.model.vo.VectorConsistencyReportVO;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 数据库与向量库对账服务：按物品ID归并比对两侧，只为有差异的物品登记修复
+ */
+public interface IVectorConsistencyService {
+
+    /**
+     * 立即执行一次对账并修复差异
+     *
+     * @return 对账结果，未完成时 error 非空
+     */
+    VectorConsistencyReportVO check();
+
+    /**
+     * 获取最近一次对账结果
+     *
+     * @return 对账结果，尚未对账时为 null
+     */
+    VectorConsistencyReportVO getLastReport();
+}
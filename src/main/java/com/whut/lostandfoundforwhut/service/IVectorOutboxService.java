@@ -0,0 +1,29 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量索引发件箱服务接口：业务事务内登记向量变更，后台任务异步同步到向量库
+ */
+public interface IVectorOutboxService {
+
+    /**
+     * @author DXR
+     * @date 2026/02/13
+     * @description 登记一条向量变更，应在物品写操作的同一事务内调用
+     * @param itemId 物品ID
+     * @param operation 操作类型
+     * @param imageUrl 新增时参与多模态嵌入的图片URL（可为空）
+     */
+    void enqueue(Long itemId, VectorOutboxOperation operation, String imageUrl);
+
+    /**
+     * @author DXR
+     * @date 2026/02/13
+     * @description 认领并处理一批到期的记录，成功的删除，失败的按退避策略重试
+     * @return 本批读取到的记录数
+     */
+    int drain();
+}
@@ -0,0 +1,25 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.model.vo.VectorReindexProgressVO;
+
+/**
+ * @author DXR
+ * @date 2026/02/17
+ * @description 向量索引全量重建服务：从 MySQL 流式读取物品，批量嵌入写入影子集合，完成后原子切换
+ */
+public interface IVectorReindexService {
+
+    /**
+     * 异步启动全量重建
+     *
+     * @return 是否启动成功，已有重建在运行时返回 false
+     */
+    boolean start();
+
+    /**
+     * 获取当前（或最近一次）重建的进度
+     *
+     * @return 进度
+     */
+    VectorReindexProgressVO getProgress();
+}
@@ -1,7 +1,10 @@
 package com.whut.lostandfoundforwhut.service;
 
 import java.util.List;
+import java.util.Map;
 
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
 import com.whut.lostandfoundforwhut.model.dto.TextEmbeddingDTO;
 import com.whut.lostandfoundforwhut.model.entity.Item;
 
@@ -52,6 +55,62 @@ public interface IVectorService {
      */
     void removeFromVectorDatabase(Long itemId);
 
+    /**
+     * 同步物品向量（新增或覆盖），失败时抛出异常，供后台任务重试
+     * 物品按多向量存储：描述生成文本向量，图片单独生成图片向量，检索时按最大相似度聚合；
+     * 不带图片时只重新嵌入文本向量，已有图片向量只同步元数据（前 item.imageCount 个槽位，未设置时为全部槽位）
+     *
+     * 物品的类型、状态、创建时间和标签作为元数据随向量存储
+     *
+     * @param item     物品实体
+     * @param imageUrl 图片URL（可为空）
+     * @param tagIds   标签ID列表（可为空）
+     */
+    void indexItem(Item item, String imageUrl, List<Long> tagIds);
+
+    /**
+     * 带物品的全部图片同步向量：重新嵌入文本与每张图片，清理图片变少后遗留的槽位，失败时抛出异常，供后台任务重试
+     *
+     * @param item      物品实体
+     * @param imageUrls 物品的全部图片URL（按图片槽位顺序）
+     * @param tagIds    标签ID列表（可为空）
+     * @return 无法生成向量的图片URL（文件缺失、无法解码或被模型拒绝，重试也不会成功）；
+     *         本次没有实际嵌入图片（向量库禁用、离线嵌入或写入进入本地队列）时返回 null
+     */
+    List<String> indexItemImages(Item item, List<String> imageUrls, List<Long> tagIds);
+
+    /**
+     * 删除物品向量，失败时抛出异常，供后台任务重试
+     *
+     * @param itemId 物品ID
+     */
+    void deindexItem(Long itemId);
+
+    /**
+     * 开始全量重建：创建空的影子存储（Chroma 影子集合 / 新的进程内索引）
+     * 重建期间的实时写入和删除会同时作用于影子存储
+     */
+    void beginReindex();
+
+    /**
+     * 批量嵌入物品文本与图片并写入影子存储，重建期间已被实时修改过的物品以实时数据为准
+     *
+     * @param items           物品列表（建议不超过一次嵌入请求的批量）
+     * @param tagIdsByItem    物品ID到标签ID列表的映射
+     * @param imageUrlsByItem 物品ID到图片URL列表的映射（按图片槽位顺序）
+     */
+    void reindexItems(List<Item> items, Map<Long, List<Long>> tagIdsByItem, Map<Long, List<String>> imageUrlsByItem);
+
+    /**
+     * 提交重建：原子切换到影子存储，删除旧集合并将影子集合改为正式集合名
+     */
+    void commitReindex();
+
+    /**
+     * 放弃重建，删除影子存储；没有进行中的重建时忽略
+     */
+    void abortReindex();
+
     /**
      * 添加文本到向量数据库
      *
@@ -59,6 +118,14 @@ public interface IVectorService {
      */
     void addTextToCollection(TextEmbeddingDTO textEmbeddingDTO);
 
+    /**
+     * 批量添加文本到向量数据库
+     * 文本按嵌入接口的最大批量打包，向量以一次 upsert 写入
+     *
+     * @param textEmbeddingDTOs 包含ID和文本内容的DTO列表
+     */
+    void addTextsToCollection(List<TextEmbeddingDTO> textEmbeddingDTOs);
+
     /**
      * 添加文本和对应图片列表到向量数据库
      * 
@@ -79,6 +146,27 @@ public interface IVectorService {
      */
     List<String> searchInCollection(String query, int maxResults);
 
+    /**
+     * 在向量数据库中搜索满足元数据过滤条件的相似条目
+     * 过滤在向量检索内部执行，不满足条件的条目不会占用返回名额
+     *
+     * @param query      查询文本
+     * @param maxResults 返回最相近的结果数
+     * @param filter     元数据过滤条件（可为空）
+     * @return 匹配的ID列表
+     */
+    List<String> searchInCollection(String query, int maxResults, VectorFilter filter);
+
+    /**
+     * 带相似度的过滤检索，多向量物品按其各向量中的最大相似度聚合
+     *
+     * @param query      查询文本
+     * @param maxResults 返回最相近的结果数
+     * @param filter     元数据过滤条件（可为空）
+     * @return 按相似度降序排列的ID及相似度
+     */
+    List<VectorStore.Match> searchScoredInCollection(String query, int maxResults, VectorFilter filter);
+
     /**
      * 获取集合中的所有条目
      *
@@ -86,6 +174,43 @@ public interface IVectorService {
      */
     int getCollectionSize();
 
+    /**
+     * 获取各分区（共享分区及按物品类型划分的分区）的条目数与检索耗时
+     *
+     * @return 是否按类型分区及每个分区的集合名、条目数、检索次数、平均/最大耗时
+     */
+    Map<String, Object> getPartitionStats();
+
+    /**
+     * 获取本地预写队列与后台重连状态
+     *
+     * @return 队列是否启用、存储是否已连接、待重放记录数、累计入队/重放/跳过数、连续重连失败次数
+     */
+    Map<String, Object> getWriteQueueStats();
+
+    /**
+     * 逐条回调各分区中已索引的物品向量ID（不读取向量），用于与数据库对账；同一物品的文本与图片向量各回调一次
+     *
+     * @param consumer 接收物品ID、所在分区对应的物品类型（共享分区为 null）与图片槽位（文本向量为 -1）
+     * @throws IllegalStateException 向量库未启用、未连接、有未重放的写入或正在重建时，结果不完整，不应据此修复
+     */
+    void scanIndexedItems(IndexedVectorConsumer consumer);
+
+    /**
+     * 是否会为图片生成向量：离线嵌入模式或未配置 DashScope 时图片不生成向量，对账时不比较图片向量
+     *
+     * @return 是否生成图片向量
+     */
+    boolean supportsImageEmbedding();
+
+    /**
+     * 物品应写入的分区
+     *
+     * @param itemType 物品类型
+     * @return 分区对应的物品类型，未按类型分区或类型未知时为 null（共享分区）
+     */
+    Integer partitionTypeOf(Integer itemType);
+
     /**
      * 删除集合中的特定条目
      *
@@ -94,7 +219,21 @@ public interface IVectorService {
     void deleteFromCollection(String id);
 
     /**
-     * 清空整个集合
+     * 清空整个集合（删除 Chroma 集合并清空进程内索引）
      */
     void clearCollection();
-}
\ No newline at end of file
+
+    /**
+     * 已索引向量的回调
+     */
+    @FunctionalInterface
+    interface IndexedVectorConsumer {
+
+        /**
+         * @param itemId        物品ID
+         * @param partitionType 所在分区对应的物品类型，共享分区为 null
+         * @param imageSlot     图片槽位，文本向量为 -1
+         */
+        void accept(long itemId, Integer partitionType, int imageSlot);
+    }
+}
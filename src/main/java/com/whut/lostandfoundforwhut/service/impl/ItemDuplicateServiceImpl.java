@@ -0,0 +1,218 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.utils.dedup.SimHash;
+import com.whut.lostandfoundforwhut.common.utils.dedup.SimHashIndex;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.service.IItemDuplicateService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 重复发布检测服务实现：有效物品的描述指纹保存在进程内的 SimHash 分段查找表中（启动时从数据库加载），
+ * 归属为用户 + 物品类型；特征过少的短描述只认定完全相同的指纹为重复，避免误判
+ * 查找表命中的候选会按数据库当前状态确认，已结束或已不存在的候选从表中移除后重新查找
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemDuplicateServiceImpl implements IItemDuplicateService {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemMapper itemMapper;
+
+    @Value("${app.dedup.enabled:true}")
+    private boolean enabled;
+
+    /** 判为重复的最大汉明距离（64 位指纹） */
+    @Value("${app.dedup.max-distance:3}")
+    private int maxDistance;
+
+    /** 特征数少于该值的描述只在指纹完全相同时判为重复 */
+    @Value("${app.dedup.min-features:8}")
+    private int minFeatures;
+
+    private SimHashIndex<Owner> index;
+    /** 已登记但所在事务尚未提交的物品，并发的重复提交在数据库中还看不到它 */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        index = new SimHashIndex<>(Math.max(0, maxDistance));
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 应用启动后按ID分页加载有效物品的描述指纹
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        index.clear();
+        long lastId = 0;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<Item> page = itemMapper.selectList(new LambdaQueryWrapper<Item>()
+                        .select(Item::getId, Item::getUserId, Item::getType, Item::getStatus, Item::getDescription)
+                        .eq(Item::getStatus, ItemStatus.ACTIVE.getCode())
+                        .gt(Item::getId, lastId)
+                        .orderByAsc(Item::getId)
+                        .last("LIMIT " + REBUILD_PAGE_SIZE));
+                for (Item item : page) {
+                    update(item);
+                    lastId = item.getId();
+                }
+                loaded += page.size();
+                if (page.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+            }
+            log.info("物品重复检测指纹加载完成，数量：{}，耗时：{}ms", loaded, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("物品重复检测指纹加载失败，已加载：{}", loaded, e);
+        }
+    }
+
+    @Override
+    public Long checkAndRegister(Item item) {
+        if (!enabled || item == null || item.getId() == null || item.getUserId() == null) {
+            return null;
+        }
+        SimHash.Signature signature = SimHash.of(item.getDescription());
+        if (signature.features() == 0) {
+            return null;
+        }
+        Owner owner = new Owner(item.getUserId(), item.getType());
+        int distance = signature.features() < minFeatures ? 0 : Math.max(0, maxDistance);
+        while (true) {
+            Long duplicateId = index.findOrAdd(owner, item.getId(), signature.fingerprint(), distance);
+            if (duplicateId == null) {
+                registerRollback(item.getId());
+                return null;
+            }
+            if (pending.contains(duplicateId) || isActiveDuplicate(item, duplicateId)) {
+                log.info("检测到重复发布，用户ID：{}，新物品ID：{}，重复物品ID：{}", item.getUserId(), item.getId(), duplicateId);
+                return duplicateId;
+            }
+            // 候选已结束或已不存在（例如绕过服务层修改了数据），移除后重新查找
+            index.remove(duplicateId);
+        }
+    }
+
+    @Override
+    public Long findDuplicate(Item item) {
+        if (!enabled || item == null || item.getId() == null || item.getUserId() == null
+                || !ItemStatus.ACTIVE.getCode().equals(item.getStatus())) {
+            return null;
+        }
+        SimHash.Signature signature = SimHash.of(item.getDescription());
+        if (signature.features() == 0) {
+            return null;
+        }
+        Owner owner = new Owner(item.getUserId(), item.getType());
+        int distance = signature.features() < minFeatures ? 0 : Math.max(0, maxDistance);
+        for (Long duplicateId : index.find(owner, signature.fingerprint(), distance)) {
+            if (duplicateId.equals(item.getId())) {
+                continue;
+            }
+            if (pending.contains(duplicateId) || isActiveDuplicate(item, duplicateId)) {
+                log.info("检测到编辑后重复，用户ID：{}，物品ID：{}，重复物品ID：{}", item.getUserId(), item.getId(), duplicateId);
+                return duplicateId;
+            }
+            index.remove(duplicateId);
+        }
+        return null;
+    }
+
+    @Override
+    public void update(Item item) {
+        if (!enabled || item == null || item.getId() == null) {
+            return;
+        }
+        Long itemId = item.getId();
+        SimHash.Signature signature = SimHash.of(item.getDescription());
+        if (!ItemStatus.ACTIVE.getCode().equals(item.getStatus()) || item.getUserId() == null
+                || signature.features() == 0) {
+            afterCommit(() -> index.remove(itemId));
+            return;
+        }
+        Owner owner = new Owner(item.getUserId(), item.getType());
+        long fingerprint = signature.fingerprint();
+        afterCommit(() -> index.put(owner, itemId, fingerprint));
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        if (!enabled || itemId == null) {
+            return;
+        }
+        afterCommit(() -> index.remove(itemId));
+    }
+
+    private boolean isActiveDuplicate(Item item, Long duplicateId) {
+        Item existing = itemMapper.selectById(duplicateId);
+        return existing != null
+                && ItemStatus.ACTIVE.getCode().equals(existing.getStatus())
+                && Objects.equals(existing.getUserId(), item.getUserId())
+                && Objects.equals(existing.getType(), item.getType());
+    }
+
+    /**
+     * 事务提交前登记对并发请求可见（作为待提交条目），回滚时撤销登记
+     */
+    private void registerRollback(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pending.add(itemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                pending.remove(itemId);
+                if (status != STATUS_COMMITTED) {
+                    index.remove(itemId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 事务提交后再修改查找表，回滚的编辑 / 下架不留下痕迹；不在事务中（如启动加载）时立即执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Owner(Long userId, Integer type) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemType;
+import com.whut.lostandfoundforwhut.common.utils.vector.ItemVectorIds;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMatchMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemMatch;
+import com.whut.lostandfoundforwhut.model.vo.ItemMatchVO;
+import com.whut.lostandfoundforwhut.service.IItemMatchService;
+import com.whut.lostandfoundforwhut.service.IVectorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 挂失/招领匹配服务实现：每对物品在匹配表中双向各存一行（相似度相同），
+ * 物品更新时只重算该物品的近邻，并增量修正新旧候选列表中指向它的行，不重算其他物品的近邻
+ * 写入顺序为先 upsert 新候选再删除过期候选，读取方不会看到候选列表被清空的中间状态
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemMatchServiceImpl implements IItemMatchService {
+    private final ItemMatchMapper itemMatchMapper;
+    private final ItemMapper itemMapper;
+    private final IVectorService vectorService;
+
+    @Value("${app.match.enabled:true}")
+    private boolean enabled;
+
+    /** 每个物品保留的候选数 */
+    @Value("${app.match.top-k:10}")
+    private int topK;
+
+    /** 相似度低于该值的候选不保存 */
+    @Value("${app.match.min-score:0.5}")
+    private double minScore;
+
+    @Override
+    public void refreshMatches(Item item) {
+        if (!enabled || item == null || item.getId() == null) {
+            return;
+        }
+        Long itemId = item.getId();
+        Integer oppositeType = oppositeType(item.getType());
+        if (oppositeType == null || item.getDescription() == null || item.getDescription().isBlank()) {
+            removeMatches(itemId);
+            return;
+        }
+
+        // 与物品入库时嵌入的文本相同，嵌入缓存命中时不产生额外的嵌入请求
+        VectorFilter filter = VectorFilter.builder()
+                .type(oppositeType)
+                .status(ItemStatus.ACTIVE.getCode())
+                .build();
+        Map<Long, Double> scoreByCandidate = new LinkedHashMap<>();
+        for (VectorStore.Match match : vectorService.searchScoredInCollection(item.getDescription(), topK, filter)) {
+            Long candidateId = ItemVectorIds.toItemId(match.id());
+            if (candidateId != null && !candidateId.equals(itemId) && match.score() >= minScore) {
+                scoreByCandidate.putIfAbsent(candidateId, match.score());
+            }
+        }
+
+        Set<Long> previousReferrers = new HashSet<>(itemMatchMapper.selectItemIdsByCandidateId(itemId));
+        if (!scoreByCandidate.isEmpty()) {
+            List<ItemMatch> rows = new ArrayList<>(scoreByCandidate.size() * 2);
+            scoreByCandidate.forEach((candidateId, score) -> {
+                rows.add(ItemMatch.builder().itemId(itemId).candidateId(candidateId).score(score).build());
+                rows.add(ItemMatch.builder().itemId(candidateId).candidateId(itemId).score(score).build());
+            });
+            itemMatchMapper.upsertBatch(rows);
+        }
+        itemMatchMapper.deleteStale(itemId, scoreByCandidate.keySet());
+
+        // 之前把该物品列为候选、本次已不相似的物品：移除指向该物品的行
+        previousReferrers.removeAll(scoreByCandidate.keySet());
+        if (!previousReferrers.isEmpty()) {
+            itemMatchMapper.deleteByCandidate(itemId, previousReferrers);
+        }
+        // 新候选的列表多了该物品，超出 topK 时淘汰相似度最低的
+        for (Long candidateId : scoreByCandidate.keySet()) {
+            itemMatchMapper.trimToTopK(candidateId, topK);
+        }
+        log.debug("物品匹配已更新，物品ID：{}，候选数：{}，移除反向候选：{}",
+                itemId, scoreByCandidate.size(), previousReferrers.size());
+    }
+
+    @Override
+    public void removeMatches(Long itemId) {
+        if (!enabled || itemId == null) {
+            return;
+        }
+        itemMatchMapper.deleteByItemId(itemId);
+    }
+
+    @Override
+    public List<ItemMatchVO> getMatches(Long itemId, int limit) {
+        if (!enabled || itemId == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<ItemMatch> matches = itemMatchMapper.selectTopByItemId(itemId, Math.min(limit, topK));
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Item> itemById = itemMapper.selectList(new LambdaQueryWrapper<Item>()
+                        .in(Item::getId, matches.stream().map(ItemMatch::getCandidateId).toList()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<ItemMatchVO> results = new ArrayList<>(matches.size());
+        for (ItemMatch match : matches) {
+            Item candidate = itemById.get(match.getCandidateId());
+            if (candidate != null) {
+                results.add(ItemMatchVO.builder().item(candidate).score(match.getScore()).build());
+            }
+        }
+        return results;
+    }
+
+    private static Integer oppositeType(Integer type) {
+        if (ItemType.LOST.getCode().equals(type)) {
+            return ItemType.FOUND.getCode();
+        }
+        if (ItemType.FOUND.getCode().equals(type)) {
+            return ItemType.LOST.getCode();
+        }
+        return null;
+    }
+}
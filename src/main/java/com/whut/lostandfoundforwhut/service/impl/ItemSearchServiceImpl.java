@@ -0,0 +1,308 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.utils.lock.SingleFlight;
+import com.whut.lostandfoundforwhut.common.utils.search.Bm25Index;
+import com.whut.lostandfoundforwhut.common.utils.search.RankFusion;
+import com.whut.lostandfoundforwhut.common.utils.search.SearchResultCache;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemTag;
+import com.whut.lostandfoundforwhut.service.IItemSearchService;
+import com.whut.lostandfoundforwhut.service.IVectorService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description 物品混合检索服务实现
+ * 关键词索引常驻内存，启动时从数据库加载有效物品，之后由向量发件箱任务随物品变更增量维护；
+ * 向量召回在独立线程池中执行并限时等待，DashScope 变慢或不可用时检索退化为纯关键词召回；
+ * 完整（未降级）的融合结果进入短时缓存，物品变更时按反向索引精确失效；
+ * 缓存未命中的相同查询并发到达时，向量召回合并为一次嵌入与近邻检索
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemSearchServiceImpl implements IItemSearchService {
+    private static final String ITEM_ID_PREFIX = "item_";
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    /** 每路召回深度 = max(返回数量 * 倍数, 最小深度) */
+    private static final int CANDIDATE_MULTIPLIER = 3;
+    private static final int MIN_CANDIDATES = 20;
+
+    private final ItemMapper itemMapper;
+    private final ItemTagMapper itemTagMapper;
+    private final IVectorService vectorService;
+    private final Bm25Index lexicalIndex = new Bm25Index();
+    /** 关键词索引文档的元数据，用于关键词召回的过滤 */
+    private final Map<String, VectorMetadata> metadataById = new ConcurrentHashMap<>();
+
+    @Value("${app.search.vector-timeout-ms:1500}")
+    private long vectorTimeoutMs;
+
+    @Value("${app.search.vector-threads:4}")
+    private int vectorThreads;
+
+    @Value("${app.search.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${app.search.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    /** 检索结果缓存过期时间，新物品最迟在该时间后出现在缓存过的查询结果中 */
+    @Value("${app.search.cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.search.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.search.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    private ThreadPoolExecutor vectorExecutor;
+    /** 检索结果缓存，未启用时为 null */
+    private SearchResultCache resultCache;
+    /** 向量召回请求合并，未启用时为 null */
+    private SingleFlight<SearchResultCache.Key, VectorLeg> vectorFlights;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        int threads = Math.max(1, vectorThreads);
+        // 有界队列：向量召回堆积时直接拒绝，本次检索只走关键词召回
+        vectorExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "item-search-vector-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (cacheEnabled && cacheTtlSeconds > 0) {
+            resultCache = new SearchResultCache(TimeUnit.SECONDS.toMillis(cacheTtlSeconds), cacheMaxEntries);
+        }
+        if (singleFlightEnabled) {
+            vectorFlights = new SingleFlight<>();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        vectorExecutor.shutdownNow();
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/15
+     * @description 应用启动后按ID分页加载有效物品，重建关键词索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildLexicalIndex() {
+        long start = System.currentTimeMillis();
+        lexicalIndex.clear();
+        metadataById.clear();
+        long lastId = 0;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<Item> page = itemMapper.selectList(new LambdaQueryWrapper<Item>()
+                        .select(Item::getId, Item::getType, Item::getStatus, Item::getCreatedAt,
+                                Item::getDescription, Item::getEventPlace)
+                        .eq(Item::getStatus, ItemStatus.ACTIVE.getCode())
+                        .gt(Item::getId, lastId)
+                        .orderByAsc(Item::getId)
+                        .last("LIMIT " + REBUILD_PAGE_SIZE));
+                Map<Long, List<Long>> tagIdsByItem = new HashMap<>();
+                if (!page.isEmpty()) {
+                    List<Long> itemIds = page.stream().map(Item::getId).toList();
+                    for (ItemTag itemTag : itemTagMapper.selectList(
+                            new LambdaQueryWrapper<ItemTag>().in(ItemTag::getItemId, itemIds))) {
+                        tagIdsByItem.computeIfAbsent(itemTag.getItemId(), key -> new ArrayList<>())
+                                .add(itemTag.getTagId());
+                    }
+                }
+                for (Item item : page) {
+                    indexItem(item, tagIdsByItem.get(item.getId()));
+                    lastId = item.getId();
+                }
+                loaded += page.size();
+                if (page.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+            }
+            log.info("物品关键词索引重建完成，数量：{}，耗时：{}ms", loaded, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("物品关键词索引重建失败，已加载：{}", loaded, e);
+        }
+    }
+
+    @Override
+    public List<Long> searchItemIds(String query, int maxResults, VectorFilter filter) {
+        if (query == null || query.trim().isEmpty() || maxResults <= 0) {
+            return new ArrayList<>();
+        }
+        SearchResultCache cache = resultCache;
+        SearchResultCache.Key cacheKey = null;
+        long stamp = 0;
+        if (cache != null) {
+            cacheKey = SearchResultCache.key(query, maxResults, filter);
+            List<Long> cached = cache.get(cacheKey);
+            if (cached != null) {
+                return new ArrayList<>(cached);
+            }
+            stamp = cache.stamp();
+        }
+        int depth = Math.max(maxResults * CANDIDATE_MULTIPLIER, MIN_CANDIDATES);
+
+        Future<VectorLeg> vectorLeg = null;
+        try {
+            long legStamp = stamp;
+            Callable<VectorLeg> vectorSearch = () ->
+                    new VectorLeg(vectorService.searchInCollection(query, depth, filter), legStamp);
+            SingleFlight<SearchResultCache.Key, VectorLeg> flights = vectorFlights;
+            if (flights != null) {
+                // 按召回深度合并，返回数量不同但深度相同的查询也共享同一次召回；
+                // 召回带回发起时的失效戳，加入方按较早的失效戳写缓存，召回期间结果中的物品失效过时不写入
+                vectorLeg = flights.execute(SearchResultCache.key(query, depth, filter), vectorSearch, vectorExecutor);
+            } else {
+                vectorLeg = vectorExecutor.submit(vectorSearch);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("向量召回线程池已满，本次检索只使用关键词召回，查询：{}", query);
+        }
+
+        List<String> lexicalIds = new ArrayList<>();
+        Predicate<String> lexicalFilter = filter == null || filter.isEmpty()
+                ? null
+                : id -> filter.matches(metadataById.get(id));
+        for (Bm25Index.SearchResult result : lexicalIndex.search(query, depth, lexicalFilter)) {
+            lexicalIds.add(result.id());
+        }
+        VectorLeg leg = awaitVectorLeg(vectorLeg, query);
+        boolean degraded = leg == null;
+        List<String> vectorIds = degraded ? List.of() : leg.ids();
+
+        List<String> fused = RankFusion.reciprocalRank(List.of(vectorIds, lexicalIds), rrfK, maxResults);
+        List<Long> itemIds = new ArrayList<>(fused.size());
+        for (String id : fused) {
+            if (id.startsWith(ITEM_ID_PREFIX)) {
+                try {
+                    itemIds.add(Long.parseLong(id.substring(ITEM_ID_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略无法解析的向量条目ID：{}", id);
+                }
+            }
+        }
+        // 降级结果只含关键词召回，不缓存，向量召回恢复后立即生效
+        if (cache != null && !degraded) {
+            cache.put(cacheKey, itemIds, Math.min(stamp, leg.stamp()));
+        }
+        log.debug("混合检索完成，查询：{}，向量召回：{}，关键词召回：{}，融合结果：{}",
+                query, vectorIds.size(), lexicalIds.size(), itemIds.size());
+        return itemIds;
+    }
+
+    @Override
+    public void indexItem(Item item, List<Long> tagIds) {
+        if (item == null || item.getId() == null) {
+            return;
+        }
+        if (ItemStatus.CLOSED.getCode().equals(item.getStatus())) {
+            removeItem(item.getId());
+            return;
+        }
+        String id = ITEM_ID_PREFIX + item.getId();
+        metadataById.put(id, VectorMetadata.of(item, tagIds));
+        lexicalIndex.put(id, lexicalText(item));
+        invalidateCachedResults(item.getId());
+    }
+
+    @Override
+    public void removeItem(Long itemId) {
+        String id = ITEM_ID_PREFIX + itemId;
+        lexicalIndex.remove(id);
+        metadataById.remove(id);
+        invalidateCachedResults(itemId);
+    }
+
+    @Override
+    public void invalidateCachedResults(Long itemId) {
+        SearchResultCache cache = resultCache;
+        if (cache != null && itemId != null) {
+            cache.invalidateItem(itemId);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        SearchResultCache cache = resultCache;
+        Map<String, Object> stats = cache == null ? new HashMap<>() : cache.stats();
+        stats.put("enabled", cache != null);
+        SingleFlight<SearchResultCache.Key, VectorLeg> flights = vectorFlights;
+        stats.put("singleFlight", flights == null ? Map.of("enabled", false) : flights.stats());
+        return stats;
+    }
+
+    /**
+     * 等待向量召回结果
+     *
+     * @return 向量召回的条目ID与发起时的失效戳；被拒绝、超时或失败（即本次检索已降级）时返回 null
+     */
+    private VectorLeg awaitVectorLeg(Future<VectorLeg> vectorLeg, String query) {
+        if (vectorLeg == null) {
+            return null;
+        }
+        try {
+            return vectorLeg.get(vectorTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            vectorLeg.cancel(true);
+            log.warn("向量召回超时（{}ms），本次检索只使用关键词召回，查询：{}", vectorTimeoutMs, query);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("向量召回失败，本次检索只使用关键词召回，查询：{}", query, e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * 向量召回结果及发起召回时的缓存失效戳
+     */
+    private record VectorLeg(List<String> ids, long stamp) {
+        private VectorLeg {
+            ids = ids == null ? List.of() : ids;
+        }
+    }
+
+    private static String lexicalText(Item item) {
+        String description = item.getDescription() == null ? "" : item.getDescription();
+        String eventPlace = item.getEventPlace() == null ? "" : item.getEventPlace();
+        return description + " " + eventPlace;
+    }
+}
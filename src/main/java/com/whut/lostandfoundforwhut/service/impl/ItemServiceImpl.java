@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.whut.lostandfoundforwhut.common.enums.ResponseCode;
 import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
 import com.whut.lostandfoundforwhut.common.exception.AppException;
 import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
 import com.whut.lostandfoundforwhut.mapper.ItemMapper;
@@ -19,16 +20,22 @@ import com.whut.lostandfoundforwhut.model.entity.Tag;
 import com.whut.lostandfoundforwhut.model.entity.User;
 import com.whut.lostandfoundforwhut.model.vo.PageResultVO;
 import com.whut.lostandfoundforwhut.service.IImageService;
+import com.whut.lostandfoundforwhut.service.IItemDuplicateService;
 import com.whut.lostandfoundforwhut.service.IItemService;
+import com.whut.lostandfoundforwhut.service.IItemSearchService;
 import com.whut.lostandfoundforwhut.service.ITagService;
-import com.whut.lostandfoundforwhut.service.IVectorService;
+import com.whut.lostandfoundforwhut.service.IVectorOutboxService;
 import com.whut.lostandfoundforwhut.common.utils.page.PageUtils;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -55,7 +62,9 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
     private final IImageService imageService;
     private final ImageMapper imageMapper;
     private final ITagService tagService;
-    private final IVectorService vectorService;
+    private final IItemSearchService itemSearchService;
+    private final IVectorOutboxService vectorOutboxService;
+    private final IItemDuplicateService itemDuplicateService;
 
     @Override
     @Transactional
@@ -79,6 +88,13 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
         itemMapper.insert(item);
         log.info("物品创建成功：{}", item.getId());
 
+        // 同一用户同类型的有效物品中存在描述近似的物品时拒绝发布（抛出异常使插入回滚），不进入向量索引
+        Long duplicateId = itemDuplicateService.checkAndRegister(item);
+        if (duplicateId != null) {
+            throw new AppException(ResponseCode.ITEM_DUPLICATE.getCode(),
+                    ResponseCode.ITEM_DUPLICATE.getInfo() + "，与已发布的物品相似，物品ID：" + duplicateId);
+        }
+
         // 将物品和图片添加到关联表中
         // List<String> imageUrls;
         // if (itemDTO.getImageIds() != null && !itemDTO.getImageIds().isEmpty()) {
@@ -108,9 +124,9 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
         String imageUrl = imageMapper.selectById(itemDTO.getImageId()).getUrl();
 
         System.out.println("imageUrl: " + imageUrl);
-        // 将物品描述和图片添加到向量数据库
+        // 将物品描述和图片添加到向量数据库（同事务写入发件箱，由后台任务异步生成向量）
         // vectorService.addToVectorDatabase(item);
-        vectorService.addImagesToVectorDatabase(item, imageUrl);
+        vectorOutboxService.enqueue(item.getId(), VectorOutboxOperation.ADD, imageUrl);
 
         // 解析并绑定标签
         List<String> tagNames = tagService.parseTagText(itemDTO.getTagText());
@@ -153,8 +169,16 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
             existingItem.setDescription(itemDTO.getDescription());
         }
 
-        // 更新数据库
+        // 编辑后与同一用户同类型的其他有效物品重复时拒绝
+        Long duplicateId = itemDuplicateService.findDuplicate(existingItem);
+        if (duplicateId != null) {
+            throw new AppException(ResponseCode.ITEM_DUPLICATE.getCode(),
+                    ResponseCode.ITEM_DUPLICATE.getInfo() + "，与已发布的物品相似，物品ID：" + duplicateId);
+        }
+
+        // 更新数据库（重复检测指纹在事务提交后更新）
         itemMapper.updateById(existingItem);
+        itemDuplicateService.update(existingItem);
 
         // 处理图片关联
         String updateImageIdStr = itemDTO.getImageId();
@@ -197,8 +221,12 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
             }
         }
 
-        // 更新向量数据库中的物品描述
-        vectorService.updateVectorDatabase(existingItem);
+        // 更新向量数据库中的物品描述（异步），缓存中包含该物品的检索结果立即失效
+        // 图片关联变化时按 item_images 重新嵌入全部图片，清理被替换图片的旧槽位
+        boolean imagesChanged = !deleteImageIds.isEmpty() || !addImageIds.isEmpty();
+        vectorOutboxService.enqueue(itemId,
+                imagesChanged ? VectorOutboxOperation.REINDEX : VectorOutboxOperation.UPDATE, null);
+        afterCommit(() -> itemSearchService.invalidateCachedResults(itemId));
         // 仅在传入 tagText 时更新标签
         if (itemDTO.getTagText() != null) {
             List<String> tagNames = tagService.parseTagText(itemDTO.getTagText());
@@ -324,6 +352,7 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
     }
 
     @Override
+    @Transactional
     public boolean takeDownItem(Long itemId, Long userId) {
         // 查询物品是否存在且属于当前用户
         Item existingItem = itemMapper.selectById(itemId);
@@ -341,9 +370,11 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
         // 更新物品状态为关闭而不是物理删除
         existingItem.setStatus(ItemStatus.CLOSED.getCode());
         int rows = itemMapper.updateById(existingItem);
+        itemDuplicateService.remove(itemId);
 
-        // 从向量数据库中删除物品描述
-        vectorService.removeFromVectorDatabase(itemId);
+        // 从向量数据库中删除物品描述（异步），缓存中包含该物品的检索结果立即失效
+        vectorOutboxService.enqueue(itemId, VectorOutboxOperation.REMOVE, null);
+        afterCommit(() -> itemSearchService.invalidateCachedResults(itemId));
 
         return rows > 0;
     }
@@ -369,27 +400,31 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
     }
 
     @Override
-    public List<Item> searchSimilarItems(String query, int maxResults) {
+    public List<Item> searchSimilarItems(String query, int maxResults, ItemFilterDTO filter) {
         try {
-            // 使用向量数据库搜索相似的物品ID
-            List<String> similarItemIds = vectorService.searchInCollection(query, maxResults);
+            VectorFilter vectorFilter = toVectorFilter(filter);
+            if (vectorFilter == null) {
+                // 指定的标签均不存在，不可能有满足条件的物品
+                return new ArrayList<>();
+            }
 
-            // 将向量数据库返回的ID转换为Long类型的物品ID
-            List<Long> itemIds = similarItemIds.stream()
-                    .filter(id -> id.startsWith("item_")) // 确保是物品ID格式
-                    .map(id -> Long.parseLong(id.substring(5))) // 移除 "item_" 前缀并转换为Long
-                    .collect(Collectors.toList());
+            // 关键词 + 向量混合召回（过滤条件在召回内部执行），返回按融合得分排序的物品ID
+            List<Long> itemIds = itemSearchService.searchItemIds(query, maxResults, vectorFilter);
 
             if (itemIds.isEmpty()) {
                 return new ArrayList<>();
             }
 
-            // 根据ID列表查询物品信息
+            // 根据ID列表查询物品信息，并按召回顺序排列
             LambdaQueryWrapper<Item> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.in(Item::getId, itemIds)
-                    .orderByDesc(Item::getCreatedAt); // 按创建时间倒序排列
+            queryWrapper.in(Item::getId, itemIds);
 
-            List<Item> items = itemMapper.selectList(queryWrapper);
+            Map<Long, Integer> rankById = new HashMap<>();
+            for (int i = 0; i < itemIds.size(); i++) {
+                rankById.put(itemIds.get(i), i);
+            }
+            List<Item> items = new ArrayList<>(itemMapper.selectList(queryWrapper));
+            items.sort(Comparator.comparingInt(item -> rankById.getOrDefault(item.getId(), Integer.MAX_VALUE)));
 
             log.info("搜索相似物品完成，查询：{}，返回结果数量：{}", query, items.size());
 
@@ -399,4 +434,48 @@ public class ItemServiceImpl extends ServiceImpl<ItemMapper, Item> implements II
             throw new AppException(ResponseCode.UN_ERROR.getCode(), "搜索相似物品失败：" + e.getMessage());
         }
     }
+
+    /**
+     * 将物品筛选DTO转换为向量检索过滤条件，标签名解析为标签ID
+     *
+     * @param filter 物品筛选DTO（可为空）
+     * @return 过滤条件；指定了标签但均不存在时返回 null
+     */
+    private VectorFilter toVectorFilter(ItemFilterDTO filter) {
+        if (filter == null) {
+            return new VectorFilter();
+        }
+        List<Long> tagIds = null;
+        if (filter.getTags() != null && !filter.getTags().isEmpty()) {
+            tagIds = tagMapper.selectList(new LambdaQueryWrapper<Tag>().in(Tag::getName, filter.getTags())).stream()
+                    .map(Tag::getId)
+                    .collect(Collectors.toList());
+            if (tagIds.isEmpty()) {
+                return null;
+            }
+        }
+        return VectorFilter.builder()
+                .type(filter.getType())
+                .status(filter.getStatus())
+                .tagIds(tagIds)
+                .startTime(filter.getStartTime())
+                .endTime(filter.getEndTime())
+                .build();
+    }
+
+    /**
+     * 事务提交后执行：提交前执行时，并发的检索仍可能读到未提交前的数据并写回缓存；不在事务中时立即执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,269 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
+import com.whut.lostandfoundforwhut.common.utils.vector.ItemVectorIds;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.vo.VectorConsistencyReportVO;
+import com.whut.lostandfoundforwhut.service.IVectorConsistencyService;
+import com.whut.lostandfoundforwhut.service.IVectorOutboxService;
+import com.whut.lostandfoundforwhut.service.IVectorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 数据库与向量库对账服务实现：向量库一侧只读条目ID（不读向量），按物品ID排序成紧凑的 long 数组；
+ * 数据库一侧按ID升序流式读取物品状态与图片数，两侧归并比对，额外内存只有向量库的ID数组（每个向量 8 字节）
+ * 差异（缺失、孤立、已结束仍索引、分区错位、图片向量数与图片数不符）登记到发件箱修复，
+ * 有效物品按数据库中的全部图片重新嵌入，只有差异物品需要重新嵌入，耗时与差异量成正比
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorConsistencyServiceImpl implements IVectorConsistencyService {
+    /** 打包键低 4 位存放槽位编码：0 为文本向量，否则为图片槽位 + 1 */
+    private static final int SLOT_BITS = 4;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    /** 槽位之上 8 位存放分区编码：0 为共享分区，否则为分区对应的物品类型 + 1，再往上是物品ID */
+    private static final int PARTITION_BITS = 8;
+    private static final long PARTITION_MASK = (1L << PARTITION_BITS) - 1;
+    private static final int ITEM_SHIFT = PARTITION_BITS + SLOT_BITS;
+
+    private final ItemMapper itemMapper;
+    private final IVectorService vectorService;
+    private final IVectorOutboxService vectorOutboxService;
+
+    @Value("${app.vector-store.consistency.enabled:true}")
+    private boolean enabled;
+
+    /** 最近更新过的物品可能仍有发件箱记录在处理，不视为差异 */
+    @Value("${app.vector-store.consistency.grace-seconds:600}")
+    private long graceSeconds;
+
+    /** 单次对账最多登记的修复数，差异过多时应改用全量重建 */
+    @Value("${app.vector-store.consistency.max-repairs:1000}")
+    private int maxRepairs;
+
+    private volatile VectorConsistencyReportVO lastReport;
+
+    /**
+     * @author DXR
+     * @date 2026/02/19
+     * @description 定时对账
+     */
+    @Scheduled(initialDelayString = "${app.vector-store.consistency.initial-delay-ms:600000}",
+            fixedDelayString = "${app.vector-store.consistency.interval-ms:3600000}")
+    public void scheduledCheck() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            check();
+        } catch (Exception e) {
+            log.error("向量库对账失败", e);
+        }
+    }
+
+    @Override
+    public synchronized VectorConsistencyReportVO check() {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Merge merge = new Merge(startedAt.minusSeconds(graceSeconds), vectorService.supportsImageEmbedding());
+        String error = null;
+        try {
+            merge.keys = snapshotIndexed();
+            itemMapper.streamSyncState(context -> merge.onItem(context.getResultObject()));
+            merge.finish();
+        } catch (IllegalStateException e) {
+            // 向量库不可用或有未重放的写入，此时的差异不可信
+            error = e.getMessage();
+            log.info("跳过向量库对账：{}", error);
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("向量库对账失败，已登记修复：{}", merge.repaired, e);
+        }
+
+        VectorConsistencyReportVO report = VectorConsistencyReportVO.builder()
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .databaseItems(merge.databaseItems)
+                .indexedItems(merge.indexedItems)
+                .missing(merge.missing)
+                .orphaned(merge.orphaned)
+                .closedIndexed(merge.closedIndexed)
+                .misplaced(merge.misplaced)
+                .imageMismatched(merge.imageMismatched)
+                .skippedRecent(merge.skippedRecent)
+                .repaired(merge.repaired)
+                .repairLimitReached(merge.repairLimitReached)
+                .error(error)
+                .build();
+        lastReport = report;
+        if (error == null) {
+            log.info("向量库对账完成，数据库物品：{}，已索引物品：{}，缺失：{}，孤立：{}，已结束仍索引：{}，分区错位：{}，"
+                            + "图片向量不符：{}，跳过：{}，登记修复：{}，耗时：{}ms", report.getDatabaseItems(),
+                    report.getIndexedItems(), report.getMissing(), report.getOrphaned(), report.getClosedIndexed(),
+                    report.getMisplaced(), report.getImageMismatched(), report.getSkippedRecent(),
+                    report.getRepaired(), report.getElapsedMillis());
+            if (report.isRepairLimitReached()) {
+                log.warn("向量库差异超过单次修复上限 {}，剩余差异留到下次对账，差异较大时建议全量重建", maxRepairs);
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public VectorConsistencyReportVO getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * 读取向量库中全部物品向量的（物品ID, 分区, 槽位）打包键，排序去重
+     */
+    private long[] snapshotIndexed() {
+        long[][] buffer = {new long[1024]};
+        int[] size = {0};
+        vectorService.scanIndexedItems((itemId, partitionType, imageSlot) -> {
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], buffer[0].length * 2);
+            }
+            buffer[0][size[0]++] = itemId << ITEM_SHIFT | partitionCode(partitionType) << SLOT_BITS | imageSlot + 1;
+        });
+        long[] keys = Arrays.copyOf(buffer[0], size[0]);
+        Arrays.sort(keys);
+        int distinct = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[distinct - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    /**
+     * 物品应有的图片向量数：每张图片一个向量，超过槽位数的图片不生成向量
+     * 图片数不含已确认无法生成向量的图片（重新嵌入时记录），这类物品修复一次后不再被判为不符
+     */
+    private static int expectedImageVectors(Item item) {
+        int images = item.getImageCount() == null ? 0 : item.getImageCount();
+        return Math.min(images, ItemVectorIds.MAX_IMAGES);
+    }
+
+    private static long partitionCode(Integer partitionType) {
+        return partitionType == null ? 0 : (partitionType + 1) & PARTITION_MASK;
+    }
+
+    /**
+     * 归并状态：keys 为向量库一侧排好序的打包键，cursor 之前的键已处理
+     */
+    private final class Merge {
+        private final LocalDateTime graceCutoff;
+        /** 是否比较图片向量数，离线嵌入模式下图片不生成向量 */
+        private final boolean checkImages;
+        private long[] keys = new long[0];
+        private int cursor;
+        private long databaseItems;
+        private long indexedItems;
+        private long missing;
+        private long orphaned;
+        private long closedIndexed;
+        private long misplaced;
+        private long imageMismatched;
+        private long skippedRecent;
+        private long repaired;
+        private boolean repairLimitReached;
+
+        private Merge(LocalDateTime graceCutoff, boolean checkImages) {
+            this.graceCutoff = graceCutoff;
+            this.checkImages = checkImages;
+        }
+
+        private void onItem(Item item) {
+            long itemId = item.getId();
+            drainOrphans(itemId);
+            databaseItems++;
+
+            long expected = partitionCode(vectorService.partitionTypeOf(item.getType()));
+            boolean indexed = false;
+            boolean hasText = false;
+            boolean wrongPartition = false;
+            int imageVectors = 0;
+            while (cursor < keys.length && keys[cursor] >>> ITEM_SHIFT == itemId) {
+                long key = keys[cursor++];
+                indexed = true;
+                wrongPartition |= (key >>> SLOT_BITS & PARTITION_MASK) != expected;
+                if ((key & SLOT_MASK) == 0) {
+                    hasText = true;
+                } else {
+                    imageVectors++;
+                }
+            }
+            if (indexed) {
+                indexedItems++;
+            }
+
+            boolean active = item.getStatus() == null || ItemStatus.ACTIVE.getCode().equals(item.getStatus());
+            boolean imagesDiffer = checkImages && imageVectors != expectedImageVectors(item);
+            boolean consistent = active ? hasText && !wrongPartition && !imagesDiffer : !indexed;
+            if (consistent) {
+                return;
+            }
+            if (item.getUpdatedAt() != null && item.getUpdatedAt().isAfter(graceCutoff)) {
+                skippedRecent++;
+                return;
+            }
+            if (!active) {
+                closedIndexed++;
+                repair(itemId, VectorOutboxOperation.REMOVE);
+                return;
+            }
+            if (!hasText) {
+                missing++;
+            } else if (wrongPartition) {
+                misplaced++;
+            } else {
+                imageMismatched++;
+            }
+            // 按数据库中的全部图片重新嵌入，写入时按类型路由，清理其他分区中的旧向量与多余的图片槽位
+            repair(itemId, VectorOutboxOperation.REINDEX);
+        }
+
+        /**
+         * 向量库中ID小于 itemId 的物品在数据库中不存在
+         */
+        private void drainOrphans(long itemId) {
+            while (cursor < keys.length && keys[cursor] >>> ITEM_SHIFT < itemId) {
+                long orphanId = keys[cursor] >>> ITEM_SHIFT;
+                while (cursor < keys.length && keys[cursor] >>> ITEM_SHIFT == orphanId) {
+                    cursor++;
+                }
+                indexedItems++;
+                orphaned++;
+                repair(orphanId, VectorOutboxOperation.REMOVE);
+            }
+        }
+
+        private void finish() {
+            drainOrphans(Long.MAX_VALUE);
+        }
+
+        private void repair(long itemId, VectorOutboxOperation operation) {
+            if (repaired >= maxRepairs) {
+                repairLimitReached = true;
+                return;
+            }
+            vectorOutboxService.enqueue(itemId, operation, null);
+            repaired++;
+        }
+    }
+}
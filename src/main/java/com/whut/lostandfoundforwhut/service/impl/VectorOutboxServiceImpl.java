@@ -0,0 +1,310 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxStatus;
+import com.whut.lostandfoundforwhut.mapper.ImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.mapper.VectorOutboxMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemImage;
+import com.whut.lostandfoundforwhut.model.entity.ItemTag;
+import com.whut.lostandfoundforwhut.model.entity.VectorOutbox;
+import com.whut.lostandfoundforwhut.service.IItemMatchService;
+import com.whut.lostandfoundforwhut.service.IItemSearchService;
+import com.whut.lostandfoundforwhut.service.IVectorOutboxService;
+import com.whut.lostandfoundforwhut.service.IVectorService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author DXR
+ * @date 2026/02/13
+ * @description 向量索引发件箱服务实现：定时认领到期记录，按物品分组后交给工作线程池并行同步
+ * 同步以物品的当前数据库状态为准（不存在或已结束则删除向量），因此重试和乱序补偿都是幂等的
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorOutboxServiceImpl implements IVectorOutboxService {
+    private static final int LAST_ERROR_MAX_LENGTH = 500;
+
+    private final VectorOutboxMapper vectorOutboxMapper;
+    private final ItemMapper itemMapper;
+    private final ItemTagMapper itemTagMapper;
+    private final ItemImageMapper itemImageMapper;
+    private final ImageMapper imageMapper;
+    private final IVectorService vectorService;
+    private final IItemSearchService itemSearchService;
+    private final IItemMatchService itemMatchService;
+
+    @Value("${app.vector-store.outbox.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${app.vector-store.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.vector-store.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.vector-store.outbox.backoff-base-seconds:2}")
+    private long backoffBaseSeconds;
+
+    @Value("${app.vector-store.outbox.backoff-max-seconds:600}")
+    private long backoffMaxSeconds;
+
+    @Value("${app.vector-store.outbox.stuck-timeout-seconds:300}")
+    private long stuckTimeoutSeconds;
+
+    private ExecutorService workers;
+    private volatile LocalDateTime nextStuckCheckAt = LocalDateTime.MIN;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "vector-outbox-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void enqueue(Long itemId, VectorOutboxOperation operation, String imageUrl) {
+        VectorOutbox record = VectorOutbox.builder()
+                .itemId(itemId)
+                .operation(operation.getCode())
+                .imageUrl(imageUrl)
+                .status(VectorOutboxStatus.PENDING.getCode())
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        vectorOutboxMapper.insert(record);
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/13
+     * @description 定时轮询：整批读满说明仍有积压，继续处理直到追平
+     */
+    @Scheduled(initialDelayString = "${app.vector-store.outbox.initial-delay-ms:5000}",
+            fixedDelayString = "${app.vector-store.outbox.poll-interval-ms:1000}")
+    public void scheduledDrain() {
+        try {
+            while (drain() >= batchSize) {
+                // 继续处理下一批
+            }
+        } catch (Exception e) {
+            log.error("处理向量发件箱失败", e);
+        }
+    }
+
+    @Override
+    public int drain() {
+        resetStuckIfDue();
+
+        List<VectorOutbox> ready = vectorOutboxMapper.selectReady(batchSize);
+        if (ready.isEmpty()) {
+            return 0;
+        }
+
+        // 认领后按物品分组，同一物品的多条记录合并为一次同步
+        Map<Long, List<VectorOutbox>> groups = new LinkedHashMap<>();
+        for (VectorOutbox record : ready) {
+            if (vectorOutboxMapper.claim(record.getId()) != 1) {
+                continue;
+            }
+            record.setAttempts((record.getAttempts() == null ? 0 : record.getAttempts()) + 1);
+            groups.computeIfAbsent(record.getItemId(), key -> new ArrayList<>()).add(record);
+        }
+
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        for (List<VectorOutbox> group : groups.values()) {
+            futures.add(workers.submit(() -> processGroup(group)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("向量发件箱工作线程异常", e.getCause());
+            }
+        }
+        return ready.size();
+    }
+
+    private void processGroup(List<VectorOutbox> group) {
+        VectorOutbox latest = group.get(group.size() - 1);
+        Long itemId = latest.getItemId();
+        try {
+            syncItem(latest, pendingImageUrl(group), requestsAllImages(group));
+        } catch (Exception e) {
+            log.warn("同步物品向量失败，物品ID：{}，尝试次数：{}", itemId, latest.getAttempts(), e);
+            for (VectorOutbox record : group) {
+                markFailure(record, e);
+            }
+            return;
+        }
+        vectorOutboxMapper.deleteByIds(group.stream().map(VectorOutbox::getId).toList());
+    }
+
+    /**
+     * 合并记录中待嵌入的图片：最后一次删除之后、最近一条带图片的新增记录的图片，
+     * 新增后紧接着编辑（同一批内新增 + 更新）时图片不会丢失
+     */
+    private static String pendingImageUrl(List<VectorOutbox> group) {
+        for (int i = group.size() - 1; i >= 0; i--) {
+            VectorOutbox record = group.get(i);
+            if (VectorOutboxOperation.REMOVE.getCode().equals(record.getOperation())) {
+                return null;
+            }
+            if (VectorOutboxOperation.ADD.getCode().equals(record.getOperation()) && record.getImageUrl() != null) {
+                return record.getImageUrl();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 最后一次删除之后是否有重新嵌入记录：有则按数据库中的全部图片重新嵌入
+     */
+    private static boolean requestsAllImages(List<VectorOutbox> group) {
+        for (int i = group.size() - 1; i >= 0; i--) {
+            String operation = group.get(i).getOperation();
+            if (VectorOutboxOperation.REMOVE.getCode().equals(operation)) {
+                return false;
+            }
+            if (VectorOutboxOperation.REINDEX.getCode().equals(operation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以物品当前状态为准同步向量：合并记录中有待嵌入的图片时带图片做多模态嵌入，
+     * 有重新嵌入记录时带物品的全部图片重新嵌入，并记录哪些图片无法生成向量，对账时不再按这些图片判定不符
+     * 关键词索引先于向量更新，不受 DashScope 可用性影响；向量写入后再让包含该物品的检索结果缓存失效，
+     * 避免两步之间的检索按旧向量排名写入缓存；匹配候选在向量写入后重算
+     */
+    private void syncItem(VectorOutbox latest, String imageUrl, boolean allImages) {
+        Long itemId = latest.getItemId();
+        if (VectorOutboxOperation.REMOVE.getCode().equals(latest.getOperation())) {
+            removeItem(itemId);
+            return;
+        }
+        Item item = itemMapper.selectById(itemId);
+        if (item == null || ItemStatus.CLOSED.getCode().equals(item.getStatus())) {
+            removeItem(itemId);
+            return;
+        }
+        List<Long> tagIds = itemTagMapper.selectList(new LambdaQueryWrapper<ItemTag>().eq(ItemTag::getItemId, itemId))
+                .stream()
+                .map(ItemTag::getTagId)
+                .toList();
+        itemSearchService.indexItem(item, tagIds);
+        if (allImages) {
+            List<String> unembeddable = vectorService.indexItemImages(item,
+                    itemImageMapper.getImageUrlsByItemId(itemId), tagIds);
+            if (unembeddable != null) {
+                imageMapper.updateEmbedFailed(itemId, unembeddable);
+            }
+        } else {
+            // 只同步已有图片槽位的元数据，不为不存在的图片向量发请求
+            item.setImageCount(Math.toIntExact(itemImageMapper.selectCount(
+                    new LambdaQueryWrapper<ItemImage>().eq(ItemImage::getItemId, itemId))));
+            vectorService.indexItem(item, imageUrl, tagIds);
+        }
+        itemSearchService.invalidateCachedResults(itemId);
+        itemMatchService.refreshMatches(item);
+    }
+
+    private void removeItem(Long itemId) {
+        itemSearchService.removeItem(itemId);
+        vectorService.deindexItem(itemId);
+        itemSearchService.invalidateCachedResults(itemId);
+        itemMatchService.removeMatches(itemId);
+    }
+
+    private void markFailure(VectorOutbox record, Exception e) {
+        int attempts = record.getAttempts();
+        VectorOutbox update = new VectorOutbox();
+        update.setId(record.getId());
+        update.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+        if (attempts >= maxAttempts) {
+            update.setStatus(VectorOutboxStatus.FAILED.getCode());
+            log.error("物品向量同步超过最大重试次数，记录ID：{}，物品ID：{}", record.getId(), record.getItemId());
+        } else {
+            update.setStatus(VectorOutboxStatus.PENDING.getCode());
+            update.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis(attempts))));
+        }
+        vectorOutboxMapper.updateById(update);
+    }
+
+    /**
+     * 指数退避（带 20% 抖动），避免下游恢复时所有记录同时重试
+     */
+    private long backoffMillis(int attempts) {
+        long seconds = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        long millis = Math.min(seconds, backoffMaxSeconds) * 1000;
+        return millis + ThreadLocalRandom.current().nextLong(millis / 5 + 1);
+    }
+
+    /**
+     * 进程在处理中崩溃会留下处理中状态的记录，定期将其放回待处理
+     */
+    private void resetStuckIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(nextStuckCheckAt)) {
+            return;
+        }
+        nextStuckCheckAt = now.plusSeconds(60);
+        int reset = vectorOutboxMapper.resetStuck(now.minusSeconds(stuckTimeoutSeconds));
+        if (reset > 0) {
+            log.warn("重置卡住的向量发件箱记录：{}", reset);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= LAST_ERROR_MAX_LENGTH) {
+            return message;
+        }
+        return message.substring(0, LAST_ERROR_MAX_LENGTH);
+    }
+}
@@ -0,0 +1,232 @@
+package com.whut.lostandfoundforwhut.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorReindexStatus;
+import com.whut.lostandfoundforwhut.mapper.ImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.model.entity.Image;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemImage;
+import com.whut.lostandfoundforwhut.model.entity.ItemTag;
+import com.whut.lostandfoundforwhut.model.vo.VectorReindexProgressVO;
+import com.whut.lostandfoundforwhut.service.IVectorReindexService;
+import com.whut.lostandfoundforwhut.service.IVectorService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author DXR
+ * @date 2026/02/17
+ * @description 向量索引全量重建服务实现：单线程后台任务按ID顺序流式读取物品，
+ * 每批一次文本嵌入请求（另加每张图片一次图片嵌入）并按配置的速率限流，写入影子存储后原子切换
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorReindexServiceImpl implements IVectorReindexService {
+    private final ItemMapper itemMapper;
+    private final ItemTagMapper itemTagMapper;
+    private final ItemImageMapper itemImageMapper;
+    private final ImageMapper imageMapper;
+    private final IVectorService vectorService;
+
+    /** 每批物品数，不超过一次 DashScope 文本嵌入请求的上限时每批只发一次请求 */
+    @Value("${app.vector-store.reindex.batch-size:25}")
+    private int batchSize;
+
+    /** 每秒最多发出的嵌入请求（批）数，小于等于 0 表示不限速 */
+    @Value("${app.vector-store.reindex.requests-per-second:5}")
+    private double requestsPerSecond;
+
+    private final AtomicLong processed = new AtomicLong();
+    private volatile VectorReindexStatus status = VectorReindexStatus.IDLE;
+    private volatile long total;
+    private volatile long startedAtMillis;
+    private volatile long finishedAtMillis;
+    private volatile String error;
+    /** 下一次允许发出嵌入请求的时间（纳秒），仅任务线程访问 */
+    private long nextPermitNanos;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized boolean start() {
+        if (status == VectorReindexStatus.RUNNING) {
+            return false;
+        }
+        processed.set(0);
+        total = 0;
+        error = null;
+        startedAtMillis = System.currentTimeMillis();
+        finishedAtMillis = 0;
+        status = VectorReindexStatus.RUNNING;
+        try {
+            executor.execute(this::run);
+        } catch (RuntimeException e) {
+            finish(VectorReindexStatus.FAILED, e.getMessage());
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public VectorReindexProgressVO getProgress() {
+        long done = processed.get();
+        long end = finishedAtMillis > 0 ? finishedAtMillis : System.currentTimeMillis();
+        long elapsedMillis = startedAtMillis > 0 ? Math.max(end - startedAtMillis, 0) : 0;
+        double throughput = elapsedMillis > 0 ? done * 1000.0 / elapsedMillis : 0;
+        Long eta = null;
+        if (status == VectorReindexStatus.RUNNING && throughput > 0) {
+            eta = (long) Math.ceil(Math.max(total - done, 0) / throughput);
+        }
+        return VectorReindexProgressVO.builder()
+                .status(status.getCode())
+                .total(total)
+                .processed(done)
+                .startedAt(toLocalDateTime(startedAtMillis))
+                .finishedAt(toLocalDateTime(finishedAtMillis))
+                .elapsedSeconds(elapsedMillis / 1000)
+                .throughput(throughput)
+                .etaSeconds(eta)
+                .error(error)
+                .build();
+    }
+
+    private void run() {
+        try {
+            total = itemMapper.selectCount(new LambdaQueryWrapper<Item>()
+                    .ne(Item::getStatus, ItemStatus.CLOSED.getCode()));
+            log.info("向量索引重建开始，物品总数：{}，批大小：{}，限速：{} 批/秒", total, batchSize, requestsPerSecond);
+            vectorService.beginReindex();
+            nextPermitNanos = System.nanoTime();
+
+            List<Item> batch = new ArrayList<>(batchSize);
+            itemMapper.streamIndexable(context -> {
+                batch.add(context.getResultObject());
+                if (batch.size() >= Math.max(1, batchSize)) {
+                    flush(batch);
+                    batch.clear();
+                }
+            });
+            flush(batch);
+
+            vectorService.commitReindex();
+            finish(VectorReindexStatus.COMPLETED, null);
+            log.info("向量索引重建完成，处理：{}，耗时：{}s", processed.get(), getProgress().getElapsedSeconds());
+        } catch (Exception e) {
+            log.error("向量索引重建失败，已处理：{}", processed.get(), e);
+            try {
+                vectorService.abortReindex();
+            } catch (Exception abortError) {
+                log.warn("放弃向量索引重建失败", abortError);
+            }
+            finish(VectorReindexStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void flush(List<Item> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        acquirePermit();
+
+        List<Long> itemIds = batch.stream().map(Item::getId).toList();
+        Map<Long, List<Long>> tagIdsByItem = new HashMap<>();
+        for (ItemTag itemTag : itemTagMapper.selectList(
+                new LambdaQueryWrapper<ItemTag>().in(ItemTag::getItemId, itemIds))) {
+            tagIdsByItem.computeIfAbsent(itemTag.getItemId(), key -> new ArrayList<>()).add(itemTag.getTagId());
+        }
+        vectorService.reindexItems(new ArrayList<>(batch), tagIdsByItem, loadImageUrls(itemIds));
+        processed.addAndGet(batch.size());
+    }
+
+    /**
+     * 批量读取物品图片URL，按图片ID排序，与实时写入的图片槽位顺序一致
+     */
+    private Map<Long, List<String>> loadImageUrls(List<Long> itemIds) {
+        List<ItemImage> itemImages = itemImageMapper.selectList(new LambdaQueryWrapper<ItemImage>()
+                .in(ItemImage::getItemId, itemIds)
+                .orderByAsc(ItemImage::getItemId, ItemImage::getImageId));
+        if (itemImages.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, String> urlById = new HashMap<>();
+        for (Image image : imageMapper.selectBatchIds(itemImages.stream().map(ItemImage::getImageId).toList())) {
+            urlById.put(image.getId(), image.getUrl());
+        }
+        Map<Long, List<String>> imageUrlsByItem = new HashMap<>();
+        for (ItemImage itemImage : itemImages) {
+            String url = urlById.get(itemImage.getImageId());
+            if (url != null) {
+                imageUrlsByItem.computeIfAbsent(itemImage.getItemId(), key -> new ArrayList<>()).add(url);
+            }
+        }
+        return imageUrlsByItem;
+    }
+
+    /**
+     * 固定间隔限速：每批占用 1/requestsPerSecond 秒，落后时不累积额度，避免恢复后突发
+     */
+    private void acquirePermit() {
+        if (requestsPerSecond <= 0) {
+            return;
+        }
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long now = System.nanoTime();
+        long wait = nextPermitNanos - now;
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("向量索引重建被中断", e);
+            }
+        }
+        nextPermitNanos = Math.max(now, nextPermitNanos) + interval;
+    }
+
+    private synchronized void finish(VectorReindexStatus finalStatus, String message) {
+        error = message;
+        finishedAtMillis = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        if (epochMillis <= 0) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -1,46 +1,120 @@
 package com.whut.lostandfoundforwhut.service.impl;
 
 import com.alibaba.dashscope.embeddings.MultiModalEmbeddingParam;
-import com.alibaba.dashscope.embeddings.MultiModalEmbedding;
 import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResult;
 import com.alibaba.dashscope.embeddings.MultiModalEmbeddingItemBase;
 import com.alibaba.dashscope.embeddings.MultiModalEmbeddingItemText;
 import com.alibaba.dashscope.embeddings.MultiModalEmbeddingItemImage;
-import com.alibaba.dashscope.embeddings.TextEmbedding;
 import com.alibaba.dashscope.embeddings.TextEmbeddingParam;
 import com.alibaba.dashscope.embeddings.TextEmbeddingResult;
 import com.alibaba.dashscope.embeddings.TextEmbeddingResultItem;
 import com.alibaba.dashscope.exception.NoApiKeyException;
-import com.alibaba.dashscope.exception.UploadFileException;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemType;
+import com.whut.lostandfoundforwhut.common.utils.image.ImageDownscaler;
+import com.whut.lostandfoundforwhut.common.utils.vector.cache.EmbeddingCache;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.DashScopeEmbeddingClient;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.EmbeddingDecoder;
+import com.whut.lostandfoundforwhut.common.utils.vector.embedding.EmbeddingProvider;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.EmbeddingUnavailableException;
+import com.whut.lostandfoundforwhut.common.utils.vector.ItemVectorIds;
+import com.whut.lostandfoundforwhut.common.utils.vector.LocalVectorIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import com.whut.lostandfoundforwhut.common.utils.vector.hnsw.HnswIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.projection.PcaProjection;
+import com.whut.lostandfoundforwhut.common.utils.vector.projection.TruncatingProjection;
+import com.whut.lostandfoundforwhut.common.utils.vector.projection.VectorProjection;
+import com.whut.lostandfoundforwhut.common.utils.vector.quantized.QuantizedFlatIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.ChromaVectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.FileVectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.InMemoryVectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.MappedVectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorWriteQueue;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
 import com.whut.lostandfoundforwhut.service.IVectorService;
 import dev.langchain4j.data.embedding.Embedding;
-import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.store.embedding.EmbeddingMatch;
-import dev.langchain4j.store.embedding.chroma.ChromaEmbeddingStore;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 
+import java.io.Closeable;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Arrays;
+import java.util.Locale;
 import java.util.Base64;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import com.whut.lostandfoundforwhut.model.dto.TextEmbeddingDTO;
 import com.whut.lostandfoundforwhut.model.entity.Item;
 
 /**
- * 向量数据库服务实现 - 仅支持ChromaDB存储
+ * 向量数据库服务实现 - 支持可配置的向量存储（ChromaDB / 本地文件 / 内存）与进程内索引（HNSW / int8 量化暴力扫描）
+ * 物品向量按类型分区（挂失 / 招领各一套存储），带类型条件的检索只扫描对应分区；只有有效物品会写入分区
+ * 存储或嵌入服务不可用时物品写入进入本地预写队列，后台重连线程按指数退避重试连接并按序重放，请求线程不等待故障恢复
+ * 实例由 VectorConfig 统一创建，避免重复实例各自持有一份内存索引
  */
 @Slf4j
-@Service
 public class VectorServiceImpl implements IVectorService {
 
+    private static final String BACKEND_HNSW = "hnsw";
+    private static final String BACKEND_QUANTIZED = "quantized";
+    private static final String PROJECTION_PCA = "pca";
+    private static final String PROJECTION_TRUNCATE = "truncate";
+    private static final String STORE_FILE = "file";
+    private static final String STORE_MEMORY = "memory";
+    private static final String STORE_MMAP = "mmap";
+    /** 共享分区：无元数据、无类型或未知类型的条目，沿用原集合名 */
+    private static final String SHARED_PARTITION = "shared";
+    /** 从存储镜像加载进程内索引时的分页大小 */
+    private static final int WARMUP_PAGE_SIZE = 500;
+    /** 对账时分页读取条目ID的页大小 */
+    private static final int SCAN_PAGE_SIZE = 1000;
+    /** 重建时影子集合名后缀 */
+    private static final String REINDEX_SUFFIX = "_reindex";
+    /** 文本嵌入模型 */
+    private static final String TEXT_EMBEDDING_MODEL = "text-embedding-v1";
+    /** 多模态嵌入模型：图片向量与检索图片分区用的查询向量都由它生成 */
+    private static final String MULTIMODAL_EMBEDDING_MODEL = "tongyi-embedding-vision-plus";
+    /** 图片分区名后缀：图片向量与文本向量维度不同、不可互相比较，按分区另建集合 */
+    private static final String IMAGE_PARTITION_SUFFIX = "_images";
+
     @Value("${app.vector-store.enabled:false}")
     private boolean vectorStoreEnabled;
 
@@ -50,11 +124,140 @@ public class VectorServiceImpl implements IVectorService {
     @Value("${app.vector-store.chroma-url:http://localhost:8000}")
     private String chromaUrl;
 
+    /** Chroma 请求连接超时（毫秒） */
+    @Value("${app.vector-store.chroma-connect-timeout-ms:2000}")
+    private long chromaConnectTimeoutMs;
+
+    /** Chroma 请求读取超时（毫秒），Chroma 挂起时发件箱、重建与对账线程按超时失败后重试 */
+    @Value("${app.vector-store.chroma-read-timeout-ms:10000}")
+    private long chromaReadTimeoutMs;
+
     @Value("${ai.ali.api-key:}")
     private String dashScopeApiKey;
 
-    private ChromaEmbeddingStore embeddingStore;
-    private boolean initialized = false; // 标记是否已初始化
+    /** 向量存储后端：chroma（默认）、hnsw 或 quantized */
+    @Value("${app.vector-store.backend:chroma}")
+    private String backend;
+
+    @Value("${app.vector-store.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${app.vector-store.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${app.vector-store.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    /** 量化索引重排候选倍数 */
+    @Value("${app.vector-store.quantized.rerank-factor:8}")
+    private int quantizedRerankFactor;
+
+    /** 量化索引一阶段降维：none（默认）、pca（按语料学习主方向）或 truncate（Matryoshka 前缀截断） */
+    @Value("${app.vector-store.quantized.projection:none}")
+    private String quantizedProjection;
+
+    /** 降维后的维度 */
+    @Value("${app.vector-store.quantized.projection-dimension:256}")
+    private int projectionDimension;
+
+    /** PCA 训练样本数上限 */
+    @Value("${app.vector-store.quantized.projection-sample-size:2048}")
+    private int projectionSampleSize;
+
+    /** 量化索引全精度向量文件目录 */
+    @Value("${app.vector-store.quantized.data-dir:${java.io.tmpdir}/lost-and-found-vectors}")
+    private String quantizedDataDir;
+
+    /** 进程内索引后端下是否同时写入向量存储（store.type）作为持久化镜像 */
+    @Value("${app.vector-store.mirror-to-chroma:true}")
+    private boolean mirrorToChroma;
+
+    /** 向量存储：chroma（默认）、file（本地追加日志文件）、mmap（内存映射定长槽位文件）或 memory（进程内，重启丢失） */
+    @Value("${app.vector-store.store.type:chroma}")
+    private String storeType;
+
+    /** 本地文件存储目录 */
+    @Value("${app.vector-store.store.data-dir:${java.io.tmpdir}/lost-and-found-store}")
+    private String storeDataDir;
+
+    /** 是否按物品类型分区（集合名加 _lost / _found 后缀），开启或关闭后需全量重建一次 */
+    @Value("${app.vector-store.partition-by-type:true}")
+    private boolean partitionByType;
+
+    /** mmap 存储的向量编码：float32 或 int8（每向量对称量化，文件约为 1/4） */
+    @Value("${app.vector-store.store.mmap-encoding:float32}")
+    private String mmapEncoding;
+
+    /** 单次 DashScope 文本嵌入请求携带的最大文本数（text-embedding-v1 上限为 25） */
+    @Value("${app.vector-store.embedding.batch-size:25}")
+    private int embeddingBatchSize;
+
+    /** 物品多向量检索的候选倍数：先取 maxResults * 倍数 个向量再按物品聚合，不足时加倍重取 */
+    @Value("${app.vector-store.multi-vector.fetch-factor:3}")
+    private int multiVectorFetchFactor;
+
+    /** 多模态嵌入前图片长边缩放上限（像素） */
+    @Value("${app.vector-store.embedding.image.max-side:1024}")
+    private int imageMaxSide;
+
+    /** 图片重新编码的 JPEG 质量 */
+    @Value("${app.vector-store.embedding.image.quality:0.85}")
+    private float imageQuality;
+
+    /** 原图字节数上限 */
+    @Value("${app.vector-store.embedding.image.max-source-bytes:20971520}")
+    private int imageMaxSourceBytes;
+
+    @Resource
+    private EmbeddingCache embeddingCache;
+
+    @Resource
+    private DashScopeEmbeddingClient embeddingClient;
+
+    /** 离线嵌入：primary 时所有嵌入都在本地生成，不调用 DashScope；fallback 时仅在 DashScope 不可用时使用 */
+    @Value("${app.vector-store.embedding.local.mode:fallback}")
+    private String localEmbeddingMode;
+
+    @Resource
+    private EmbeddingProvider localEmbeddingProvider;
+
+    @Resource
+    private ItemMapper itemMapper;
+
+    /** 物品向量写入的本地预写队列文件，配置为空时不启用队列（故障时写入直接失败） */
+    @Value("${app.vector-store.write-queue.file:${java.io.tmpdir}/lost-and-found-store/vector-writes.wal}")
+    private String writeQueueFile;
+
+    /** 重连后每批重放的队列记录数 */
+    @Value("${app.vector-store.write-queue.batch-size:50}")
+    private int writeQueueBatchSize;
+
+    @Value("${app.vector-store.write-queue.backoff-base-ms:1000}")
+    private long reconnectBackoffBaseMs;
+
+    @Value("${app.vector-store.write-queue.backoff-max-ms:60000}")
+    private long reconnectBackoffMaxMs;
+
+    /** 当前生效的分区存储，重建完成时整体替换，读写方法开头取一次引用，保证切换的原子性 */
+    private volatile Partitions store;
+    /** 各分区的检索次数与耗时，按分区名累计，重建切换后继续累计 */
+    private final Map<String, PartitionStats> partitionStats = new ConcurrentHashMap<>();
+    /** 进行中的全量重建，为 null 表示没有重建 */
+    private volatile Reindex reindex;
+    /** 进程内索引代数，重建时的影子索引使用新的全精度向量文件，避免覆盖正在使用的文件 */
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile boolean initialized = false; // 标记是否已初始化
+    /** 持久化存储是否已打开（或无需打开）；为 false 时物品写入进入本地队列，由重连线程补打开 */
+    private volatile boolean storesAttached = false;
+    private VectorWriteQueue writeQueue;
+    private ScheduledExecutorService reconnector;
+    /** 是否已有待执行的重连任务，避免每次入队都调度一次 */
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+    /** 连续重连失败次数，决定退避时长 */
+    private final AtomicInteger reconnectFailures = new AtomicInteger();
+    private final LongAdder queuedWrites = new LongAdder();
+    private final LongAdder replayedWrites = new LongAdder();
+    private final LongAdder droppedWrites = new LongAdder();
 
     @PostConstruct
     public void initializeCollection() {
@@ -65,19 +268,685 @@ public class VectorServiceImpl implements IVectorService {
             return;
         }
 
+        openWriteQueue();
+        Partitions partitions = createPartitions((partition, collection) ->
+                new Store(partition, createLocalIndex(collection), null, new ConcurrentHashMap<>()));
+        LocalVectorIndex localIndex = partitions.shared().localIndex();
+        if (localIndex instanceof HnswIndex) {
+            log.info("HNSW内存向量索引初始化成功，M：{}，efConstruction：{}，efSearch：{}，存储镜像：{}",
+                    hnswM, hnswEfConstruction, hnswEfSearch, mirrorToChroma);
+        } else if (localIndex instanceof QuantizedFlatIndex) {
+            log.info("int8量化向量索引初始化成功，目录：{}，重排倍数：{}，降维：{}，存储镜像：{}",
+                    quantizedDataDir, quantizedRerankFactor, projectionTrainer() == null ? "无"
+                            : quantizedProjection + "/" + projectionDimension, mirrorToChroma);
+        }
+        if (localIndex != null) {
+            this.initialized = true;
+            if (!mirrorToChroma) {
+                this.store = partitions;
+                this.storesAttached = true;
+                scheduleReconnectIfPending();
+                return;
+            }
+        }
+
+        try {
+            partitions = attachStores(partitions, this::openStore);
+
+            this.initialized = true;
+            log.info("向量存储初始化成功，类型：{}，集合名称：{}", storeType, partitions.collectionNames());
+        } catch (Exception e) {
+            log.error("向量存储初始化失败，类型：{}，原因：{}，物品写入进入本地队列，后台重连", storeType, e.getMessage(), e);
+            // 进程内索引后端下镜像不可用不影响索引的读；写入在镜像连接并加载后重放，避免索引与镜像不一致
+            this.initialized = localIndex != null;
+            this.store = partitions;
+            scheduleReconnect(0);
+            return;
+        }
+
+        this.store = partitions;
+        if (localIndex != null) {
+            for (Store partition : partitions.all()) {
+                loadIndexFromStore(partition);
+            }
+        }
+        this.storesAttached = true;
+        scheduleReconnectIfPending();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconnector != null) {
+            reconnector.shutdownNow();
+        }
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        Partitions current = store;
+        if (current != null) {
+            for (Store partition : current.all()) {
+                closeQuietly(partition.persistent());
+            }
+        }
+    }
+
+    /**
+     * @author DXR
+     * @date 2026/02/18
+     * @description 应用启动后按数据库重新登记离线嵌入的语料统计：统计只在内存中，重启后为空，
+     * 按物品键登记与写入时一致，之后的实时写入只替换对应物品的统计；离线嵌入不在用时跳过
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildEmbeddingStatistics() {
+        if (!vectorStoreEnabled || !usesLocalEmbedding()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long[] registered = {0};
+        try {
+            itemMapper.streamIndexable(context -> {
+                Item item = context.getResultObject();
+                localEmbeddingProvider.register(ItemVectorIds.itemKey(item.getId()),
+                        item.getDescription() != null ? item.getDescription() : "未提供描述");
+                registered[0]++;
+            });
+            log.info("离线嵌入语料统计重建完成，数量：{}，耗时：{}ms", registered[0], System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("离线嵌入语料统计重建失败，已登记：{}", registered[0], e);
+        }
+    }
+
+    /**
+     * 打开本地预写队列并创建重连线程；队列文件打开失败时不启用队列，不影响启动
+     */
+    private void openWriteQueue() {
+        reconnector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-reconnector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (writeQueueFile == null || writeQueueFile.isBlank()) {
+            return;
+        }
+        try {
+            writeQueue = new VectorWriteQueue(Path.of(writeQueueFile));
+        } catch (RuntimeException e) {
+            log.error("打开向量写入队列失败，存储不可用时物品写入将直接失败：{}", writeQueueFile, e);
+        }
+    }
+
+    /**
+     * 写入物品向量：存储未连接或队列中仍有未重放的写入时直接入队（保证同一物品的写入顺序），
+     * 写入时遇到存储或嵌入服务故障同样入队；write 返回 false 表示图片向量待补齐，文本向量已写入
+     *
+     * @param operation 操作名称，用于日志
+     * @param itemId    物品ID
+     * @param write     直接写入
+     * @param enqueue   写入队列
+     */
+    private void writeOrEnqueue(String operation, Long itemId, BooleanSupplier write,
+                                Consumer<VectorWriteQueue> enqueue) {
+        if (writeQueue != null && (!initialized || !storesAttached || writeQueue.size() > 0)) {
+            log.info("向量存储未连接或有待重放的写入，物品向量{}进入本地队列，物品ID：{}", operation, itemId);
+            enqueue(enqueue);
+            return;
+        }
+        checkInitialized();
+        boolean complete;
+        try {
+            complete = write.getAsBoolean();
+        } catch (RuntimeException e) {
+            if (writeQueue == null || !isOutage(e)) {
+                throw e;
+            }
+            log.warn("物品向量{}失败，进入本地队列等待重放，物品ID：{}，原因：{}", operation, itemId, e.getMessage());
+            enqueue(enqueue);
+            return;
+        }
+        if (!complete && writeQueue != null) {
+            log.warn("图片嵌入不可用，物品文本向量已写入，图片向量进入本地队列等待补齐，物品ID：{}", itemId);
+            enqueue(enqueue);
+        }
+    }
+
+    private void enqueue(Consumer<VectorWriteQueue> enqueue) {
+        enqueue.accept(writeQueue);
+        queuedWrites.increment();
+        scheduleReconnect(0);
+    }
+
+    /**
+     * 存储或嵌入服务故障（连接失败、超时、5xx、熔断 / 限流降级），恢复后重试可以成功
+     */
+    private static boolean isOutage(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EmbeddingUnavailableException || cause instanceof ResourceAccessException
+                    || cause instanceof HttpServerErrorException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleReconnectIfPending() {
+        if (!storesAttached || (writeQueue != null && writeQueue.size() > 0)) {
+            scheduleReconnect(0);
+        }
+    }
+
+    private void scheduleReconnect(long delayMillis) {
+        if (reconnector == null || !reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reconnector.schedule(this::reconnect, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 应用关闭中
+            reconnectScheduled.set(false);
+        }
+    }
+
+    /**
+     * 重连线程：先补打开未连接的存储，再按序分批重放本地队列；失败时按指数退避重新调度
+     * 执行期间保持已调度标记，期间入队的写入由本轮重放或结束时的补调度处理
+     */
+    private void reconnect() {
+        long retryDelay = -1;
+        try {
+            if (!storesAttached) {
+                connectStores();
+            }
+            drainWriteQueue();
+            reconnectFailures.set(0);
+        } catch (Exception e) {
+            int failures = reconnectFailures.incrementAndGet();
+            retryDelay = reconnectBackoffMillis(failures);
+            log.warn("向量存储仍不可用，{}ms 后重试，连续失败次数：{}，待重放写入：{}，原因：{}", retryDelay, failures,
+                    writeQueue == null ? 0 : writeQueue.size(), e.getMessage());
+        }
+        reconnectScheduled.set(false);
+        if (retryDelay >= 0) {
+            scheduleReconnect(retryDelay);
+        } else {
+            scheduleReconnectIfPending();
+        }
+    }
+
+    /**
+     * 指数退避（带 20% 抖动），避免存储恢复时与其他实例同时重连
+     */
+    private long reconnectBackoffMillis(int failures) {
+        long base = Math.max(1, reconnectBackoffBaseMs);
+        long millis = Math.min(base << Math.min(failures - 1, 20), Math.max(base, reconnectBackoffMaxMs));
+        return millis + ThreadLocalRandom.current().nextLong(millis / 5 + 1);
+    }
+
+    /**
+     * 启动时未能打开的持久化存储补打开，进程内索引后端从存储重新加载后再重放队列
+     */
+    private void connectStores() {
+        Partitions attached = attachStores(store, this::openStore);
+        if (attached.shared().localIndex() != null) {
+            for (Store partition : attached.all()) {
+                loadIndexFromStore(partition);
+            }
+        }
+        this.store = attached;
+        this.initialized = true;
+        this.storesAttached = true;
+        log.info("向量存储已重新连接，类型：{}，集合名称：{}", storeType, attached.collectionNames());
+    }
+
+    /**
+     * 按入队顺序分批重放本地队列，每批重放完成后确认；故障类异常中止重放（记录保留，退避后重试），
+     * 其他异常说明记录本身无法写入，记录日志后跳过，避免阻塞后续记录
+     */
+    private void drainWriteQueue() {
+        if (writeQueue == null) {
+            return;
+        }
+        while (true) {
+            List<VectorWriteQueue.Entry> batch = writeQueue.peek(Math.max(1, writeQueueBatchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (VectorWriteQueue.Entry entry : coalesce(batch)) {
+                try {
+                    replay(entry);
+                } catch (RuntimeException e) {
+                    if (isOutage(e)) {
+                        throw e;
+                    }
+                    droppedWrites.increment();
+                    log.error("重放物品向量写入失败，跳过该记录，物品ID：{}", entry.itemId(), e);
+                }
+            }
+            writeQueue.acknowledge(batch.get(batch.size() - 1).sequence());
+            replayedWrites.add(batch.size());
+            log.info("本地队列中的物品向量写入已重放，本批记录数：{}，剩余：{}", batch.size(), writeQueue.size());
+        }
+    }
+
+    /**
+     * 同一批内同一物品只重放最后一条（写入都以物品快照为准，是幂等的）；
+     * 最后一条只更新文本时沿用较早记录中待嵌入的图片
+     */
+    private static Collection<VectorWriteQueue.Entry> coalesce(List<VectorWriteQueue.Entry> batch) {
+        Map<Long, VectorWriteQueue.Entry> latest = new LinkedHashMap<>();
+        for (VectorWriteQueue.Entry entry : batch) {
+            VectorWriteQueue.Entry previous = latest.remove(entry.itemId());
+            if (previous != null && !previous.isRemove() && !entry.isRemove() && entry.imageUrls().isEmpty()) {
+                entry = new VectorWriteQueue.Entry(entry.sequence(), entry.itemId(), entry.item(),
+                        previous.imageUrls(), entry.tagIds());
+            }
+            latest.put(entry.itemId(), entry);
+        }
+        return latest.values();
+    }
+
+    private void replay(VectorWriteQueue.Entry entry) {
+        if (entry.isRemove()) {
+            removeItemVectors(entry.itemId());
+            return;
+        }
+        boolean complete = entry.imageUrls().size() > 1
+                ? writeItemImages(entry.item(), entry.imageUrls(), entry.tagIds(), null)
+                : writeItem(entry.item(), entry.imageUrls().isEmpty() ? null : entry.imageUrls().get(0),
+                        entry.tagIds());
+        if (!complete) {
+            throw new EmbeddingUnavailableException("图片嵌入仍不可用，物品ID：" + entry.itemId());
+        }
+    }
+
+    /**
+     * 创建共享分区及（开启分区时）每种物品类型一个分区；支持图片嵌入时每个分区再配一个图片分区
+     *
+     * @param factory 接收分区名与集合名，创建该分区的存储
+     */
+    private Partitions createPartitions(BiFunction<String, String, Store> factory) {
+        Store shared = factory.apply(SHARED_PARTITION, collectionOf(SHARED_PARTITION));
+        Map<Integer, Store> byType = new LinkedHashMap<>();
+        if (partitionByType) {
+            for (ItemType type : ItemType.values()) {
+                String partition = type.name().toLowerCase(Locale.ROOT);
+                byType.put(type.getCode(), factory.apply(partition, collectionOf(partition)));
+            }
+        }
+        Store sharedImages = null;
+        Map<Integer, Store> imagesByType = new LinkedHashMap<>();
+        if (supportsImageEmbedding()) {
+            String partition = SHARED_PARTITION + IMAGE_PARTITION_SUFFIX;
+            sharedImages = factory.apply(partition, collectionOf(partition));
+            for (Map.Entry<Integer, Store> entry : byType.entrySet()) {
+                String imagePartition = entry.getValue().partition() + IMAGE_PARTITION_SUFFIX;
+                imagesByType.put(entry.getKey(), factory.apply(imagePartition, collectionOf(imagePartition)));
+            }
+        }
+        return new Partitions(shared, byType, sharedImages, imagesByType, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 为每个分区打开持久化向量存储，任一分区打开失败时关闭已打开的存储
+     *
+     * @param opener 接收集合名，返回打开的存储
+     */
+    private Partitions attachStores(Partitions partitions, Function<String, VectorStore> opener) {
+        List<VectorStore> opened = new ArrayList<>();
+        try {
+            return partitions.map(partition -> {
+                VectorStore persistent = opener.apply(collectionOf(partition.partition()));
+                opened.add(persistent);
+                return new Store(partition.partition(), partition.localIndex(), persistent,
+                        partition.metadataById());
+            });
+        } catch (RuntimeException e) {
+            opened.forEach(VectorServiceImpl::closeQuietly);
+            throw e;
+        }
+    }
+
+    /**
+     * 分区对应的正式集合名
+     */
+    private String collectionOf(String partition) {
+        return SHARED_PARTITION.equals(partition) ? collectionName : collectionName + "_" + partition;
+    }
+
+    /**
+     * 按配置的类型打开向量存储
+     *
+     * @param name 集合名称（文件存储的文件名）
+     */
+    private VectorStore openStore(String name) {
+        if (STORE_FILE.equalsIgnoreCase(storeType)) {
+            return new FileVectorStore(Path.of(storeDataDir), name);
+        }
+        if (STORE_MMAP.equalsIgnoreCase(storeType)) {
+            return new MappedVectorStore(Path.of(storeDataDir), name,
+                    MappedVectorStore.Encoding.valueOf(mmapEncoding.trim().toUpperCase(Locale.ROOT)));
+        }
+        if (STORE_MEMORY.equalsIgnoreCase(storeType)) {
+            return new InMemoryVectorStore(name);
+        }
+        return new ChromaVectorStore(chromaUrl, name, Duration.ofMillis(chromaConnectTimeoutMs),
+                Duration.ofMillis(chromaReadTimeoutMs));
+    }
+
+    /**
+     * 按配置的后端创建进程内索引，chroma 后端返回 null
+     *
+     * @param name 索引名称（量化索引的全精度向量文件名）
+     */
+    private LocalVectorIndex createLocalIndex(String name) {
+        if (BACKEND_HNSW.equalsIgnoreCase(backend)) {
+            return new HnswIndex(hnswM, hnswEfConstruction, hnswEfSearch);
+        }
+        if (BACKEND_QUANTIZED.equalsIgnoreCase(backend)) {
+            return new QuantizedFlatIndex(Path.of(quantizedDataDir, name + ".f32"), quantizedRerankFactor,
+                    projectionTrainer(), projectionSampleSize);
+        }
+        return null;
+    }
+
+    private VectorProjection.Trainer projectionTrainer() {
+        if (PROJECTION_PCA.equalsIgnoreCase(quantizedProjection)) {
+            return PcaProjection.trainer(projectionDimension);
+        }
+        if (PROJECTION_TRUNCATE.equalsIgnoreCase(quantizedProjection)) {
+            return TruncatingProjection.trainer(projectionDimension);
+        }
+        return null;
+    }
+
+    /**
+     * 启动时从存储镜像分页加载向量，重建进程内索引
+     */
+    private void loadIndexFromStore(Store target) {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        int skipped = 0;
+        try {
+            int offset = 0;
+            while (true) {
+                VectorStore.Page page = target.persistent().scan(offset, WARMUP_PAGE_SIZE);
+                List<String> ids = page.ids();
+                for (int i = 0; i < ids.size(); i++) {
+                    float[] vector = page.vectors().get(i);
+                    if (vector == null) {
+                        skipped++;
+                        continue;
+                    }
+                    try {
+                        target.localIndex().add(ids.get(i), vector);
+                        putMetadata(target, ids.get(i), page.metadatas().get(i));
+                        loaded++;
+                    } catch (IllegalArgumentException e) {
+                        // 历史数据可能混有不同模型（维度）的向量，跳过即可
+                        log.warn("跳过无法加载到进程内索引的向量，ID：{}，原因：{}", ids.get(i), e.getMessage());
+                        skipped++;
+                    }
+                }
+                offset += ids.size();
+                if (ids.size() < WARMUP_PAGE_SIZE) {
+                    break;
+                }
+            }
+            log.info("进程内索引已从存储镜像加载完成，分区：{}，加载：{}，跳过：{}，耗时：{}ms",
+                    target.partition(), loaded, skipped, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("从存储镜像加载进程内索引失败，分区：{}，已加载：{}", target.partition(), loaded, e);
+        }
+    }
+
+    /**
+     * 写入单条向量
+     */
+    private void storeEmbedding(String id, Embedding embedding) {
+        storeEmbeddings(List.of(id), List.of(embedding), null);
+    }
+
+    /**
+     * 批量写入向量到当前存储；重建进行中时同时写入影子存储
+     *
+     * @param metadatas 与 ids 一一对应的元数据，为 null 表示不带元数据
+     */
+    private void storeEmbeddings(List<String> ids, List<Embedding> embeddings, List<VectorMetadata> metadatas) {
+        checkInitialized();
+        List<float[]> vectors = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            vectors.add(embedding.vector());
+        }
+        // 先读 reindex 再读 store：提交重建时先替换 store 再清空 reindex，读到 null 时 store 必然已是新存储
+        Reindex current = reindex;
+        writeTo(store, ids, vectors, metadatas);
+        if (current != null) {
+            current.apply(ids, target -> writeTo(target, ids, vectors, metadatas));
+        }
+    }
+
+    /**
+     * 从当前存储删除向量；重建进行中时同时从影子存储删除
+     */
+    private void removeEmbeddings(List<String> ids) {
+        Reindex current = reindex;
+        removeFrom(store, ids);
+        if (current != null) {
+            current.apply(ids, target -> removeFrom(target, ids));
+        }
+    }
+
+    /**
+     * 只更新已存在向量的元数据（不重新嵌入）；重建进行中时同时更新影子存储
+     */
+    private void updateEmbeddingMetadata(List<String> ids, VectorMetadata metadata) {
+        Reindex current = reindex;
+        updateMetadataIn(store, ids, metadata);
+        if (current != null) {
+            current.applyMetadata(ids, metadata, target -> updateMetadataIn(target, ids, metadata));
+        }
+    }
+
+    /**
+     * 按元数据中的物品类型把条目分到各分区写入
+     * 同一ID只保留在一个分区：物品类型变化后，新向量写入新分区，再从原分区删除旧向量
+     */
+    private void writeTo(Partitions target, List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        List<Store> partitions = target.all();
+        Map<String, Set<String>> previousPartitions = new HashMap<>();
+        for (String id : ids) {
+            String key = ItemVectorIds.toItemKey(id);
+            Set<String> previous = target.partitionsByKey().get(key);
+            if (previous != null) {
+                previousPartitions.put(key, previous);
+            }
+        }
+        Map<String, Set<String>> routedPartitions = new HashMap<>();
+        for (Store partition : partitions) {
+            List<String> routedIds = new ArrayList<>();
+            List<float[]> routedVectors = new ArrayList<>();
+            List<VectorMetadata> routedMetadatas = metadatas == null ? null : new ArrayList<>();
+            List<String> otherIds = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                VectorMetadata metadata = metadatas == null ? null : metadatas.get(i);
+                if (target.route(ids.get(i), metadata) != partition) {
+                    otherIds.add(ids.get(i));
+                    continue;
+                }
+                routedIds.add(ids.get(i));
+                routedPartitions.computeIfAbsent(ItemVectorIds.toItemKey(ids.get(i)), key -> new HashSet<>())
+                        .add(partition.partition());
+                routedVectors.add(vectors.get(i));
+                if (routedMetadatas != null) {
+                    routedMetadatas.add(metadata);
+                }
+            }
+            if (!routedIds.isEmpty()) {
+                writeTo(partition, routedIds, routedVectors, routedMetadatas);
+            }
+            if (partitions.size() > 1) {
+                removeStale(partition, otherIds, previousPartitions);
+            }
+        }
+        if (partitions.size() > 1 && target.shared().localIndex() == null) {
+            for (Map.Entry<String, Set<String>> entry : routedPartitions.entrySet()) {
+                Set<String> known = previousPartitions.get(entry.getKey());
+                for (String partition : entry.getValue()) {
+                    known = withPartition(known, partition);
+                }
+                target.partitionsByKey().put(entry.getKey(), known);
+            }
+        }
+    }
+
+    /**
+     * 写入后物品可能所在的分区：原分区未知时只记新分区；类型变化后未重新嵌入的图片向量仍留在原分区，原分区保留在集合中
+     */
+    private static Set<String> withPartition(Set<String> previous, String partition) {
+        if (previous == null || previous.equals(Set.of(partition))) {
+            return Set.of(partition);
+        }
+        Set<String> merged = new HashSet<>(previous);
+        merged.add(partition);
+        return Set.copyOf(merged);
+    }
+
+    /**
+     * 从分区删除已写入其他分区的ID（只看属于本分区向量空间的ID）：有进程内索引时只删除索引中确实存在的，避免无谓的镜像删除；
+     * 只有 chroma 时只删除记录中可能位于该分区的物品，类型未变化的写入不产生额外的删除请求，
+     * 原分区未知（重启后首次写入）时仍删除
+     */
+    private void removeStale(Store partition, List<String> ids, Map<String, Set<String>> previousPartitions) {
+        List<String> stale;
+        if (partition.localIndex() != null) {
+            stale = ids.stream().filter(partition::accepts).filter(partition.localIndex()::contains).toList();
+        } else {
+            stale = ids.stream().filter(partition::accepts).filter(id -> {
+                Set<String> previous = previousPartitions.get(ItemVectorIds.toItemKey(id));
+                return previous == null || previous.contains(partition.partition());
+            }).toList();
+        }
+        if (!stale.isEmpty()) {
+            removeFrom(partition, stale);
+        }
+    }
+
+    private void removeFrom(Partitions target, List<String> ids) {
+        for (Store partition : knownPartitions(target, ids)) {
+            List<String> own = ids.stream().filter(partition::accepts).toList();
+            if (!own.isEmpty()) {
+                removeFrom(partition, own);
+            }
+        }
+        // 文本向量（物品键）删除即物品已删除，忘记其分区；只删除多余图片槽位时保留
+        for (String id : ids) {
+            if (ItemVectorIds.toItemKey(id).equals(id)) {
+                target.partitionsByKey().remove(id);
+            }
+        }
+    }
+
+    /**
+     * 元数据更新作用于物品可能所在的分区（不存在的ID被忽略）：图片向量不随文本重新嵌入，类型变化后仍留在原分区，
+     * 元数据同步后不会再被原类型的检索命中，下次带图片同步或全量重建时归位
+     */
+    private void updateMetadataIn(Partitions target, List<String> ids, VectorMetadata metadata) {
+        for (Store partition : knownPartitions(target, ids)) {
+            List<String> own = ids.stream().filter(partition::accepts).toList();
+            if (!own.isEmpty()) {
+                updateMetadataIn(partition, own, metadata);
+            }
+        }
+    }
+
+    /**
+     * 条目可能所在的分区：全部条目的物品都记录了分区时只返回这些分区，否则返回所有分区
+     */
+    private static List<Store> knownPartitions(Partitions target, List<String> ids) {
+        List<Store> partitions = target.all();
+        if (partitions.size() == 1 || target.partitionsByKey().isEmpty()) {
+            return partitions;
+        }
+        Set<String> names = new HashSet<>();
+        for (String id : ids) {
+            Set<String> known = target.partitionsByKey().get(ItemVectorIds.toItemKey(id));
+            if (known == null) {
+                return partitions;
+            }
+            names.addAll(known);
+        }
+        return partitions.stream().filter(partition -> names.contains(partition.partition())).toList();
+    }
+
+    /**
+     * 写入指定分区：进程内索引后端写本地索引并同步镜像，chroma 后端直接写向量存储
+     * 存储使用 upsert 覆盖已存在的ID，无需先删除再添加
+     */
+    private void writeTo(Store target, List<String> ids, List<float[]> vectors, List<VectorMetadata> metadatas) {
+        if (target.localIndex() != null) {
+            for (int i = 0; i < ids.size(); i++) {
+                target.localIndex().add(ids.get(i), vectors.get(i));
+                putMetadata(target, ids.get(i), metadatas == null ? null : metadatas.get(i));
+            }
+        }
+        if (target.persistent() == null) {
+            return;
+        }
+        try {
+            target.persistent().upsert(ids, vectors, metadatas);
+        } catch (RuntimeException e) {
+            if (target.localIndex() == null) {
+                throw e;
+            }
+            log.warn("同步写入存储镜像失败，数量：{}", ids.size(), e);
+        }
+    }
+
+    private void removeFrom(Store target, List<String> ids) {
+        if (target.localIndex() != null) {
+            for (String id : ids) {
+                target.localIndex().remove(id);
+                target.metadataById().remove(id);
+            }
+        }
+        if (target.persistent() == null) {
+            return;
+        }
+        try {
+            target.persistent().delete(ids);
+        } catch (RuntimeException e) {
+            if (target.localIndex() == null) {
+                throw e;
+            }
+            log.warn("同步删除存储镜像失败，ID：{}", ids, e);
+        }
+    }
+
+    private void updateMetadataIn(Store target, List<String> ids, VectorMetadata metadata) {
+        if (target.localIndex() != null) {
+            for (String id : ids) {
+                if (target.localIndex().contains(id)) {
+                    putMetadata(target, id, metadata);
+                }
+            }
+        }
+        if (target.persistent() == null) {
+            return;
+        }
         try {
-            // 创建 ChromaDB 存储实例
-            this.embeddingStore = ChromaEmbeddingStore.builder()
-                    .baseUrl(chromaUrl)
-                    .collectionName(collectionName)
-                    .build();
+            target.persistent().updateMetadata(ids, Collections.nCopies(ids.size(), metadata));
+        } catch (RuntimeException e) {
+            if (target.localIndex() == null) {
+                throw e;
+            }
+            log.warn("同步更新存储镜像元数据失败，ID：{}", ids, e);
+        }
+    }
 
-            this.initialized = true;
-            log.info("ChromaDB向量数据库初始化成功，集合名称：{}，连接地址：{}", collectionName, chromaUrl);
-            System.out.println("ChromaDB向量数据库初始化成功，集合名称：" + collectionName + "，连接地址：" + chromaUrl);
-        } catch (Exception e) {
-            log.error("ChromaDB向量数据库初始化失败: {}", e.getMessage(), e);
-            this.initialized = false;
+    private static void putMetadata(Store target, String id, VectorMetadata metadata) {
+        if (metadata == null) {
+            target.metadataById().remove(id);
+        } else {
+            target.metadataById().put(id, metadata);
         }
     }
 
@@ -109,21 +978,17 @@ public class VectorServiceImpl implements IVectorService {
             if (id == null || id.trim().isEmpty()) {
                 throw new IllegalArgumentException("文本嵌入ID不能为空");
             }
+            if (ItemVectorIds.imageSlot(id) >= 0) {
+                throw new IllegalArgumentException("图片向量ID不能写入文本向量：" + id);
+            }
             if (text == null || text.trim().isEmpty()) {
                 throw new IllegalArgumentException("文本内容不能为空");
             }
 
             Embedding embedding = generateEmbedding(text);
 
-            // 尝试先删除已存在的ID，以避免ID冲突
-            try {
-                embeddingStore.removeAll(List.of(id));
-            } catch (Exception e) {
-                // 如果删除失败，继续添加
-                log.warn("删除已存在的向量ID失败，将继续添加: {}", id, e);
-            }
-
-            embeddingStore.add(id, embedding);
+            storeEmbedding(id, embedding);
+            registerLocalText(id, text);
 
             log.info("文本已添加到向量数据库，ID：{}", id);
         } catch (IllegalArgumentException e) {
@@ -135,6 +1000,53 @@ public class VectorServiceImpl implements IVectorService {
         }
     }
 
+    @Override
+    public void addTextsToCollection(List<TextEmbeddingDTO> textEmbeddingDTOs) {
+        if (!vectorStoreEnabled) {
+            log.debug("向量数据库功能已禁用，跳过批量添加文本到集合");
+            return;
+        }
+
+        checkInitialized();
+
+        if (textEmbeddingDTOs == null || textEmbeddingDTOs.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 同一批次中重复的ID只保留最后一次出现的文本，Chroma 的 upsert 不允许批内ID重复
+            Map<String, String> textsById = new LinkedHashMap<>();
+            for (TextEmbeddingDTO textEmbeddingDTO : textEmbeddingDTOs) {
+                String id = textEmbeddingDTO.getId();
+                String text = textEmbeddingDTO.getText();
+                if (id == null || id.trim().isEmpty()) {
+                    throw new IllegalArgumentException("文本嵌入ID不能为空");
+                }
+                if (ItemVectorIds.imageSlot(id) >= 0) {
+                    throw new IllegalArgumentException("图片向量ID不能写入文本向量：" + id);
+                }
+                if (text == null || text.trim().isEmpty()) {
+                    throw new IllegalArgumentException("文本内容不能为空，ID：" + id);
+                }
+                textsById.remove(id);
+                textsById.put(id, text);
+            }
+
+            List<String> ids = new ArrayList<>(textsById.keySet());
+            List<Embedding> embeddings = generateEmbeddings(new ArrayList<>(textsById.values()));
+            storeEmbeddings(ids, embeddings, null);
+            textsById.forEach(this::registerLocalText);
+
+            log.info("批量文本已添加到向量数据库，数量：{}", ids.size());
+        } catch (IllegalArgumentException e) {
+            log.error("批量添加文本到向量数据库失败，参数错误：{}", e.getMessage());
+            throw new RuntimeException("批量添加文本到向量数据库失败，参数错误", e);
+        } catch (Exception e) {
+            log.error("批量添加文本到向量数据库失败，数量：{}", textEmbeddingDTOs.size(), e);
+            throw new RuntimeException("批量添加文本到向量数据库失败", e);
+        }
+    }
+
     @Override
     public void addToVectorDatabase(Item item) {
         try {
@@ -155,29 +1067,7 @@ public class VectorServiceImpl implements IVectorService {
     public void addImagesToVectorDatabase(Item item, String imageUrl) {
         try {
             if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                // 处理单张图片的多模态嵌入：结合文本描述和图片信息
-                String itemDescription = item.getDescription() != null ? item.getDescription() : "";
-
-                // 为整个物品创建一个多模态嵌入，包含文本描述和图片
-                String itemId = "item_" + item.getId();
-
-                System.out.println("单张图片: " + imageUrl);
-
-                // 创建多模态嵌入（文本+单张图片）
-                Embedding embedding = generateMultimodalEmbedding(itemDescription, imageUrl);
-
-                if (embedding != null) {
-                    // 尝试先删除已存在的ID
-                    try {
-                        embeddingStore.removeAll(List.of(itemId));
-                    } catch (Exception e) {
-                        log.warn("删除已存在的向量ID失败，将继续添加: {}", itemId, e);
-                    }
-
-                    embeddingStore.add(itemId, embedding);
-
-                    log.info("物品单张图片多模态信息已添加到向量数据库，物品ID：{}", item.getId());
-                }
+                indexItem(item, imageUrl, List.of());
             }
         } catch (Exception e) {
             log.error("添加物品单张图片到向量数据库时发生异常，物品ID：{}", item.getId(), e);
@@ -189,29 +1079,12 @@ public class VectorServiceImpl implements IVectorService {
     public void addImagesToVectorDatabases(Item item, List<String> imageUrls) {
         try {
             if (imageUrls != null && !imageUrls.isEmpty()) {
-                // 处理多模态嵌入：结合文本描述和所有图片信息
-                String itemDescription = item.getDescription() != null ? item.getDescription() : "";
-
-                // 为整个物品创建一个多模态嵌入，包含文本描述和所有图片
-                String itemId = "item_" + item.getId();
-
-                System.out.println("图片" + imageUrls);
-
-                // 创建多模态嵌入（文本+所有图片）
-                Embedding embedding = generateMultimodalEmbeddings(itemDescription, imageUrls);
-
-                if (embedding != null) {
-                    // 尝试先删除已存在的ID
-                    try {
-                        embeddingStore.removeAll(List.of(itemId));
-                    } catch (Exception e) {
-                        log.warn("删除已存在的向量ID失败，将继续添加: {}", itemId, e);
-                    }
-
-                    embeddingStore.add(itemId, embedding);
-
-                    log.info("物品多模态信息已添加到向量数据库，物品ID：{}，图片数量：{}", item.getId(), imageUrls.size());
+                if (!vectorStoreEnabled) {
+                    log.debug("向量数据库功能已禁用，跳过物品多向量写入: {}", item.getId());
+                    return;
                 }
+                writeOrEnqueue("写入", item.getId(), () -> writeItemImages(item, imageUrls, null, null),
+                        queue -> queue.appendIndex(item, imageUrls, null));
             }
         } catch (Exception e) {
             log.error("添加物品图片到向量数据库时发生异常，物品ID：{}", item.getId(), e);
@@ -222,16 +1095,7 @@ public class VectorServiceImpl implements IVectorService {
     @Override
     public void updateVectorDatabase(Item item) {
         try {
-            String itemDescription = item.getDescription() != null ? item.getDescription() : "未提供描述";
-            // 先删除旧的向量数据
-            deleteFromCollection("item_" + item.getId());
-
-            TextEmbeddingDTO textEmbeddingDTO = TextEmbeddingDTO.builder()
-                    .id("item_" + item.getId())
-                    .text(itemDescription)
-                    .build();
-            addTextToCollection(textEmbeddingDTO);
-            log.info("向量数据库中物品信息已更新，ID：{}", item.getId());
+            indexItem(item, null, List.of());
         } catch (Exception e) {
             log.error("更新向量数据库时发生异常，物品ID：{}", item.getId(), e);
             // 这里不抛出异常，因为向量数据库的失败不应影响主业务流程
@@ -241,17 +1105,187 @@ public class VectorServiceImpl implements IVectorService {
     @Override
     public void removeFromVectorDatabase(Long itemId) {
         try {
-            deleteFromCollection("item_" + itemId);
-            log.info("向量数据库中物品信息已删除，ID：{}", itemId);
+            deindexItem(itemId);
         } catch (Exception e) {
             log.error("删除向量数据库条目时发生异常，物品ID：{}", itemId, e);
             // 这里不抛出异常，因为向量数据库的失败不应影响主业务流程
         }
     }
 
+    /**
+     * 文本与每张图片各一个向量，共享物品键，检索时按最大相似度聚合；按物品类型写入对应分区
+     *
+     * @param unembeddable 收集无法生成向量的图片URL（重试也不会成功），不需要时为空
+     * @return 图片嵌入服务不可用、有图片未生成向量时返回 false
+     */
+    private boolean writeItemImages(Item item, List<String> imageUrls, List<Long> tagIds,
+                                    List<String> unembeddable) {
+        if (!isActive(item)) {
+            removeItemVectors(item.getId());
+            return true;
+        }
+        String itemDescription = item.getDescription() != null ? item.getDescription() : "未提供描述";
+        List<String> ids = new ArrayList<>();
+        List<Embedding> embeddings = new ArrayList<>();
+        ids.add(ItemVectorIds.itemKey(item.getId()));
+        embeddings.add(generateEmbedding(itemDescription));
+        int slot = 0;
+        boolean complete = true;
+        for (String imageUrl : imageUrls) {
+            if (slot >= ItemVectorIds.MAX_IMAGES) {
+                log.warn("物品图片超过 {} 张，其余图片不生成向量，物品ID：{}", ItemVectorIds.MAX_IMAGES, item.getId());
+                break;
+            }
+            Embedding imageEmbedding;
+            try {
+                imageEmbedding = generateImageEmbedding(imageUrl);
+            } catch (EmbeddingUnavailableException e) {
+                log.warn("图片嵌入不可用，稍后补齐：{}，原因：{}", imageUrl, e.getMessage());
+                complete = false;
+                continue;
+            }
+            if (imageEmbedding != null) {
+                ids.add(ItemVectorIds.imageId(item.getId(), slot++));
+                embeddings.add(imageEmbedding);
+            } else if (unembeddable != null) {
+                unembeddable.add(imageUrl);
+            }
+        }
+        storeEmbeddings(ids, embeddings, Collections.nCopies(ids.size(), VectorMetadata.of(item, tagIds)));
+        registerLocalText(ids.get(0), itemDescription);
+        if (complete) {
+            // 清理图片变少后遗留的槽位；有图片待补齐时保留旧槽位，补齐时再清理
+            removeEmbeddings(ItemVectorIds.imageIds(item.getId(), slot));
+        }
+
+        log.info("物品多向量信息已添加到向量数据库，物品ID：{}，图片向量数：{}", item.getId(), slot);
+        return complete;
+    }
+
+    @Override
+    public void indexItem(Item item, String imageUrl, List<Long> tagIds) {
+        if (!vectorStoreEnabled) {
+            log.debug("向量数据库功能已禁用，跳过物品向量同步: {}", item.getId());
+            return;
+        }
+
+        List<String> imageUrls = imageUrl == null || imageUrl.trim().isEmpty() ? List.of() : List.of(imageUrl);
+        writeOrEnqueue("同步", item.getId(), () -> writeItem(item, imageUrl, tagIds),
+                queue -> queue.appendIndex(item, imageUrls, tagIds));
+    }
+
+    @Override
+    public List<String> indexItemImages(Item item, List<String> imageUrls, List<Long> tagIds) {
+        if (!vectorStoreEnabled) {
+            log.debug("向量数据库功能已禁用，跳过物品向量同步: {}", item.getId());
+            return null;
+        }
+
+        List<String> urls = imageUrls == null ? List.of() : imageUrls;
+        List<String> unembeddable = supportsImageEmbedding() ? new ArrayList<>() : null;
+        AtomicBoolean written = new AtomicBoolean();
+        writeOrEnqueue("同步", item.getId(), () -> {
+            boolean complete = writeItemImages(item, urls, tagIds, unembeddable);
+            written.set(true);
+            return complete;
+        }, queue -> queue.appendIndex(item, urls, tagIds));
+        return written.get() ? unembeddable : null;
+    }
+
+    /**
+     * 写入物品的文本向量及（有图片时）图片向量
+     *
+     * @return 图片嵌入服务不可用、图片向量未生成时返回 false，文本向量已写入
+     */
+    private boolean writeItem(Item item, String imageUrl, List<Long> tagIds) {
+        // 只有有效物品进入分区，已结束的物品直接删除向量，不占用检索扫描量
+        if (!isActive(item)) {
+            removeItemVectors(item.getId());
+            return true;
+        }
+
+        String itemDescription = item.getDescription() != null ? item.getDescription() : "未提供描述";
+        Embedding textEmbedding = generateEmbedding(itemDescription);
+        if (textEmbedding == null) {
+            throw new IllegalStateException("生成物品向量失败，物品ID：" + item.getId());
+        }
+        VectorMetadata metadata = VectorMetadata.of(item, tagIds);
+        List<String> ids = new ArrayList<>(2);
+        List<Embedding> embeddings = new ArrayList<>(2);
+        List<VectorMetadata> metadatas = new ArrayList<>(2);
+        ids.add(ItemVectorIds.itemKey(item.getId()));
+        embeddings.add(textEmbedding);
+        metadatas.add(metadata);
+
+        boolean withImage = imageUrl != null && !imageUrl.trim().isEmpty();
+        boolean imageEmbedded = false;
+        boolean complete = true;
+        if (withImage) {
+            Embedding imageEmbedding = null;
+            try {
+                imageEmbedding = generateImageEmbedding(imageUrl);
+            } catch (EmbeddingUnavailableException e) {
+                log.warn("图片嵌入不可用，先写入文本向量：{}，原因：{}", imageUrl, e.getMessage());
+                complete = false;
+            }
+            if (imageEmbedding != null) {
+                ids.add(ItemVectorIds.imageId(item.getId(), 0));
+                embeddings.add(imageEmbedding);
+                metadatas.add(metadata);
+                imageEmbedded = true;
+            }
+        }
+
+        // 写入使用 upsert 覆盖旧向量，无需先删除；类型/状态/创建时间/标签随向量存储，供检索时过滤
+        storeEmbeddings(ids, embeddings, metadatas);
+        // 语料统计按物品键登记，编辑、重试与重放只替换该物品的旧统计
+        registerLocalText(ids.get(0), itemDescription);
+        int imageSlots = item.getImageCount() == null ? ItemVectorIds.MAX_IMAGES
+                : Math.min(item.getImageCount(), ItemVectorIds.MAX_IMAGES);
+        if (!imageEmbedded && imageSlots > 0) {
+            // 图片向量未重新嵌入：只同步已有图片向量的元数据，过滤条件对图片向量同样生效；
+            // 槽位数按物品的图片数，调用方未提供时同步全部槽位
+            updateEmbeddingMetadata(ItemVectorIds.imageIds(item.getId(), 0).subList(0, imageSlots), metadata);
+        }
+        log.info("物品向量已同步到向量数据库，物品ID：{}，图片向量：{}", item.getId(), imageEmbedded);
+        return complete;
+    }
+
+    @Override
+    public void deindexItem(Long itemId) {
+        if (!vectorStoreEnabled) {
+            log.debug("向量数据库功能已禁用，跳过物品向量删除: {}", itemId);
+            return;
+        }
+
+        writeOrEnqueue("删除", itemId, () -> {
+            removeItemVectors(itemId);
+            return true;
+        }, queue -> queue.appendRemove(itemId));
+    }
+
+    private void removeItemVectors(Long itemId) {
+        removeEmbeddings(ItemVectorIds.allIds(itemId));
+        unregisterLocalText(ItemVectorIds.itemKey(itemId));
+        log.info("向量数据库中物品信息已删除，ID：{}", itemId);
+    }
+
+    private static boolean isActive(Item item) {
+        return item.getStatus() == null || ItemStatus.ACTIVE.getCode().equals(item.getStatus());
+    }
+
     @Override
-    @SuppressWarnings("deprecation")
     public List<String> searchInCollection(String query, int maxResults) {
+        return searchInCollection(query, maxResults, null);
+    }
+
+    @Override
+    public List<String> searchInCollection(String query, int maxResults, VectorFilter filter) {
+        return searchScoredInCollection(query, maxResults, filter).stream().map(VectorStore.Match::id).toList();
+    }
+
+    @Override
+    public List<VectorStore.Match> searchScoredInCollection(String query, int maxResults, VectorFilter filter) {
         if (!vectorStoreEnabled) {
             log.debug("向量数据库功能已禁用，返回空搜索结果");
             return List.of();
@@ -270,14 +1304,21 @@ public class VectorServiceImpl implements IVectorService {
                 return List.of();
             }
 
-            Embedding queryEmbedding = generateEmbedding(query);
+            // 分区中只有有效物品，按其他状态过滤不可能命中，无需生成查询向量
+            if (filter != null && filter.getStatus() != null
+                    && !ItemStatus.ACTIVE.getCode().equals(filter.getStatus())) {
+                return List.of();
+            }
 
-            List<EmbeddingMatch<TextSegment>> relevant = embeddingStore.findRelevant(queryEmbedding, maxResults);
+            Embedding queryEmbedding = generateQueryEmbedding(query);
+            Partitions current = store;
+            // 图片分区在多模态模型的向量空间里，查询文本要用同一模型再嵌入一次
+            float[] imageVector = current.sharedImages() == null ? null : generateImageQueryEmbedding(query);
 
-            List<String> results = new ArrayList<>();
-            for (EmbeddingMatch<TextSegment> match : relevant) {
-                results.add(match.embeddingId());
-            }
+            // 过滤条件下推到索引内部，返回的 maxResults 条均满足条件
+            boolean filtered = filter != null && !filter.isEmpty();
+            List<VectorStore.Match> results = searchItemKeys(current, queryEmbedding.vector(), imageVector,
+                    maxResults, filtered ? filter : null);
             log.info("向量搜索完成，查询：{}，返回结果数量：{}", query, results.size());
             return results;
         } catch (Exception e) {
@@ -286,8 +1327,76 @@ public class VectorServiceImpl implements IVectorService {
         }
     }
 
+    /**
+     * 多向量检索：取 maxResults * 倍数 个最近向量，按物品键聚合（max-sim）；
+     * 同一物品的多个向量挤占名额导致物品数不足时加倍重取，最多取到每个物品全部向量都可能命中的数量
+     *
+     * @param vector      文本分区的查询向量
+     * @param imageVector 图片分区的查询向量，为空时不检索图片分区
+     * @return 按最大相似度降序排列的物品键及其最大相似度（非物品条目原样返回）
+     */
+    private List<VectorStore.Match> searchItemKeys(Partitions current, float[] vector, float[] imageVector,
+            int maxResults, VectorFilter filter) {
+        int limit = maxResults * Math.max(1, multiVectorFetchFactor);
+        int cap = Math.max(limit, maxResults * (ItemVectorIds.MAX_IMAGES + 1));
+        while (true) {
+            List<VectorStore.Match> nearest = nearestVectors(current, vector, imageVector, limit, filter);
+            // 结果按相似度降序，物品键首次出现的位置即其各向量中的最大相似度
+            Map<String, VectorStore.Match> byItemKey = new LinkedHashMap<>();
+            for (VectorStore.Match match : nearest) {
+                String itemKey = ItemVectorIds.toItemKey(match.id());
+                byItemKey.putIfAbsent(itemKey, new VectorStore.Match(itemKey, match.score()));
+                if (byItemKey.size() >= maxResults) {
+                    break;
+                }
+            }
+            if (byItemKey.size() >= maxResults || nearest.size() < limit || limit >= cap) {
+                return new ArrayList<>(byItemKey.values());
+            }
+            limit = Math.min(limit * 2, cap);
+        }
+    }
+
+    /**
+     * 带类型条件时只检索该类型的分区，否则检索全部分区后按相似度合并
+     * 文本分区与图片分区各用本向量空间的查询向量，两边都是余弦相似度，合并后由调用方按物品取最大值
+     */
+    private List<VectorStore.Match> nearestVectors(Partitions current, float[] vector, float[] imageVector,
+            int limit, VectorFilter filter) {
+        List<Store> partitions = current.select(filter).stream()
+                .filter(partition -> !partition.holdsImages() || imageVector != null)
+                .toList();
+        if (partitions.size() == 1) {
+            return nearestVectors(partitions.get(0), vector, limit, filter);
+        }
+        List<VectorStore.Match> merged = new ArrayList<>();
+        for (Store partition : partitions) {
+            float[] query = partition.holdsImages() ? imageVector : vector;
+            merged.addAll(nearestVectors(partition, query, limit, filter));
+        }
+        merged.sort(Comparator.comparingDouble(VectorStore.Match::score).reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private List<VectorStore.Match> nearestVectors(Store partition, float[] vector, int limit, VectorFilter filter) {
+        long start = System.nanoTime();
+        List<VectorStore.Match> matches;
+        if (partition.localIndex() == null) {
+            matches = partition.persistent().query(vector, limit, filter);
+        } else {
+            Map<String, VectorMetadata> metadataById = partition.metadataById();
+            Predicate<String> predicate = filter != null ? id -> filter.matches(metadataById.get(id)) : null;
+            matches = new ArrayList<>(limit);
+            for (LocalVectorIndex.SearchResult result : partition.localIndex().search(vector, limit, predicate)) {
+                matches.add(new VectorStore.Match(result.id(), result.score()));
+            }
+        }
+        partitionStats.computeIfAbsent(partition.partition(), key -> new PartitionStats())
+                .record(System.nanoTime() - start);
+        return matches;
+    }
+
     @Override
-    @SuppressWarnings("deprecation")
     public int getCollectionSize() {
         if (!vectorStoreEnabled) {
             log.debug("向量数据库功能已禁用，返回0");
@@ -296,19 +1405,135 @@ public class VectorServiceImpl implements IVectorService {
 
         checkInitialized();
 
+        int size = 0;
+        for (Store partition : store.all()) {
+            size += partitionSize(partition);
+        }
+        log.debug("获取集合大小完成，当前大小：{}", size);
+        return size;
+    }
+
+    /**
+     * 进程内索引自身维护条目数；向量存储使用自身的计数（Chroma 为原生 count 接口），均无需生成嵌入或扫描
+     */
+    private int partitionSize(Store partition) {
+        if (partition.localIndex() != null) {
+            return partition.localIndex().size();
+        }
         try {
-            // 使用通用查询来获取所有项目
-            Embedding queryEmbedding = generateEmbedding("anything");
-            List<EmbeddingMatch<TextSegment>> allItems = embeddingStore.findRelevant(queryEmbedding, 10000);
-            int size = allItems.size();
-            log.info("获取集合大小完成，当前大小：{}", size);
-            return size;
+            return partition.persistent().count();
         } catch (Exception e) {
-            log.error("获取集合大小失败", e);
+            log.error("获取集合大小失败，分区：{}", partition.partition(), e);
             return 0;
         }
     }
 
+    @Override
+    public Map<String, Object> getPartitionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partitionByType", partitionByType);
+        if (!vectorStoreEnabled || !initialized) {
+            return stats;
+        }
+        Map<String, Object> partitions = new LinkedHashMap<>();
+        for (Store partition : store.all()) {
+            PartitionStats latency = partitionStats.get(partition.partition());
+            long queries = latency == null ? 0 : latency.queries.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("collection", collectionOf(partition.partition()));
+            item.put("size", partitionSize(partition));
+            item.put("queries", queries);
+            item.put("avgLatencyMs", queries == 0 ? 0.0 : latency.totalNanos.sum() / 1e6 / queries);
+            item.put("maxLatencyMs", latency == null ? 0.0 : latency.maxNanos.get() / 1e6);
+            partitions.put(partition.partition(), item);
+        }
+        stats.put("partitions", partitions);
+        return stats;
+    }
+
+    @Override
+    public void scanIndexedItems(IndexedVectorConsumer consumer) {
+        checkInitialized();
+        if (!storesAttached || (writeQueue != null && writeQueue.size() > 0)) {
+            throw new IllegalStateException("向量存储未连接或有待重放的写入");
+        }
+        if (reindex != null) {
+            throw new IllegalStateException("向量索引重建进行中");
+        }
+        Partitions current = store;
+        scanPartition(current.shared(), null, current.partitionsByKey(), consumer);
+        for (Map.Entry<Integer, Store> entry : current.byType().entrySet()) {
+            scanPartition(entry.getValue(), entry.getKey(), current.partitionsByKey(), consumer);
+        }
+        if (current.sharedImages() != null) {
+            scanPartition(current.sharedImages(), null, current.partitionsByKey(), consumer);
+            for (Map.Entry<Integer, Store> entry : current.imagesByType().entrySet()) {
+                scanPartition(entry.getValue(), entry.getKey(), current.partitionsByKey(), consumer);
+            }
+        }
+    }
+
+    /**
+     * 进程内索引后端以索引为准（条目ID即元数据表的键），否则分页读取存储的条目ID
+     */
+    private void scanPartition(Store partition, Integer type, Map<String, Set<String>> partitionsByKey,
+                               IndexedVectorConsumer consumer) {
+        if (partition.localIndex() != null) {
+            for (String id : List.copyOf(partition.metadataById().keySet())) {
+                acceptItemId(id, type, consumer);
+            }
+            return;
+        }
+        int offset = 0;
+        while (true) {
+            List<String> ids = partition.persistent().scanIds(offset, SCAN_PAGE_SIZE);
+            for (String id : ids) {
+                // 记录的分区之外仍有该物品的向量（重启前类型变化遗留），补记该分区，之后的写入会清理它
+                partitionsByKey.computeIfPresent(ItemVectorIds.toItemKey(id),
+                        (key, known) -> withPartition(known, partition.partition()));
+                acceptItemId(id, type, consumer);
+            }
+            offset += ids.size();
+            if (ids.size() < SCAN_PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private static void acceptItemId(String vectorId, Integer type, IndexedVectorConsumer consumer) {
+        Long itemId = ItemVectorIds.toItemId(vectorId);
+        if (itemId != null) {
+            consumer.accept(itemId, type, ItemVectorIds.imageSlot(vectorId));
+        }
+    }
+
+    @Override
+    public boolean supportsImageEmbedding() {
+        return vectorStoreEnabled && !isLocalEmbeddingPrimary()
+                && dashScopeApiKey != null && !dashScopeApiKey.trim().isEmpty();
+    }
+
+    @Override
+    public Integer partitionTypeOf(Integer itemType) {
+        Partitions current = store;
+        return current != null && itemType != null && current.byType().containsKey(itemType) ? itemType : null;
+    }
+
+    @Override
+    public Map<String, Object> getWriteQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", writeQueue != null);
+        stats.put("initialized", initialized);
+        stats.put("storesAttached", storesAttached);
+        stats.put("pending", writeQueue == null ? 0 : writeQueue.size());
+        stats.put("logRecords", writeQueue == null ? 0 : writeQueue.logRecords());
+        stats.put("queued", queuedWrites.sum());
+        stats.put("replayed", replayedWrites.sum());
+        stats.put("dropped", droppedWrites.sum());
+        stats.put("reconnectFailures", reconnectFailures.get());
+        return stats;
+    }
+
     @Override
     public void deleteFromCollection(String id) {
         if (!vectorStoreEnabled) {
@@ -324,14 +1549,9 @@ public class VectorServiceImpl implements IVectorService {
                 return;
             }
 
-            // ChromaDB Java客户端不直接支持按ID删除，所以我们尝试移除所有匹配的ID
-            try {
-                embeddingStore.removeAll(List.of(id));
-                log.info("从ChromaDB向量数据库删除条目完成，ID：{}", id);
-            } catch (Exception e) {
-                log.warn("ChromaDB不直接支持按ID删除，请考虑重新构建集合。ID：{}", id, e);
-                // 记录但不抛出异常，因为这是ChromaDB的限制而非程序错误
-            }
+            removeEmbeddings(List.of(id));
+            unregisterLocalText(id);
+            log.info("从向量数据库删除条目完成，ID：{}", id);
         } catch (Exception e) {
             log.error("从向量数据库删除条目失败，ID：{}", id, e);
             throw new RuntimeException("删除条目失败", e);
@@ -345,19 +1565,195 @@ public class VectorServiceImpl implements IVectorService {
             return;
         }
 
-        checkInitialized();
-
+        checkInitialized();
+
+        try {
+            for (Store partition : store.all()) {
+                if (partition.localIndex() != null) {
+                    partition.localIndex().clear();
+                    partition.metadataById().clear();
+                    log.info("进程内向量索引已清空，分区：{}", partition.partition());
+                }
+                if (partition.persistent() == null) {
+                    continue;
+                }
+                // 删除整个集合，下次读写时按原名称重新创建
+                partition.persistent().drop();
+                log.info("向量存储集合已清空：{}", partition.persistent().name());
+            }
+        } catch (Exception e) {
+            log.error("清空向量数据库集合失败", e);
+            throw new RuntimeException("清空集合失败", e);
+        }
+    }
+
+    @Override
+    public synchronized void beginReindex() {
+        checkInitialized();
+        if (reindex != null) {
+            throw new IllegalStateException("已有进行中的向量索引重建");
+        }
+
+        int shadowGeneration = generation.incrementAndGet();
+        Partitions shadow = createPartitions((partition, collection) -> new Store(partition,
+                createLocalIndex(collection + "." + shadowGeneration), null, new ConcurrentHashMap<>()));
+        if (shadow.shared().localIndex() == null || mirrorToChroma) {
+            shadow = attachStores(shadow, collection -> {
+                VectorStore shadowStore = openStore(collection + REINDEX_SUFFIX);
+                // 清理上次中断的重建遗留的影子集合
+                shadowStore.drop();
+                return shadowStore;
+            });
+        }
+        this.reindex = new Reindex(shadow);
+        log.info("向量索引重建开始，影子集合：{}", shadow.shared().persistent() == null ? "无"
+                : shadow.all().stream().map(partition -> partition.persistent().name()).toList());
+    }
+
+    @Override
+    public void reindexItems(List<Item> items, Map<Long, List<Long>> tagIdsByItem,
+                             Map<Long, List<String>> imageUrlsByItem) {
+        Reindex current = reindex;
+        if (current == null) {
+            throw new IllegalStateException("没有进行中的向量索引重建");
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(items.size());
+        List<String> texts = new ArrayList<>(items.size());
+        List<VectorMetadata> metadatas = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ids.add(ItemVectorIds.itemKey(item.getId()));
+            texts.add(item.getDescription() != null ? item.getDescription() : "未提供描述");
+            metadatas.add(VectorMetadata.of(item, tagIdsByItem.get(item.getId())));
+        }
+        // 嵌入在锁外生成，只有写入影子存储时与实时写入互斥
+        List<float[]> vectors = new ArrayList<>(items.size());
+        for (Embedding embedding : generateEmbeddings(texts)) {
+            vectors.add(embedding.vector());
+        }
+        // 旧集合在提交时整体删除，图片向量同样要在影子存储中重新生成；图片嵌入暂时不可用时放弃本次重建
+        for (int i = 0; i < items.size(); i++) {
+            Long itemId = items.get(i).getId();
+            List<String> imageUrls = imageUrlsByItem.getOrDefault(itemId, List.of());
+            int slot = 0;
+            for (String imageUrl : imageUrls) {
+                if (slot >= ItemVectorIds.MAX_IMAGES) {
+                    break;
+                }
+                Embedding imageEmbedding = generateImageEmbedding(imageUrl);
+                if (imageEmbedding != null) {
+                    ids.add(ItemVectorIds.imageId(itemId, slot++));
+                    vectors.add(imageEmbedding.vector());
+                    metadatas.add(metadatas.get(i));
+                }
+            }
+        }
+        current.load(ids, fresh -> {
+            List<String> freshIds = new ArrayList<>(fresh.size());
+            List<float[]> freshVectors = new ArrayList<>(fresh.size());
+            List<VectorMetadata> freshMetadatas = new ArrayList<>(fresh.size());
+            for (Integer i : fresh) {
+                freshIds.add(ids.get(i));
+                freshVectors.add(vectors.get(i));
+                freshMetadatas.add(current.metadataOf(ids.get(i), metadatas.get(i)));
+            }
+            writeTo(current.target, freshIds, freshVectors, freshMetadatas);
+            // 被实时写入抢先的物品已由实时写入登记，这里只登记本批写入的文本
+            for (Integer i : fresh) {
+                if (i < texts.size()) {
+                    registerLocalText(ids.get(i), texts.get(i));
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void commitReindex() {
+        Reindex current = reindex;
+        if (current == null) {
+            throw new IllegalStateException("没有进行中的向量索引重建");
+        }
+        Partitions old;
+        synchronized (current) {
+            if (current.broken) {
+                abortReindex();
+                throw new IllegalStateException("重建期间影子存储写入失败，已放弃本次重建");
+            }
+            old = store;
+            // 先替换 store 再清空 reindex，与 storeEmbeddings 的读取顺序配合，切换瞬间的实时写入不会丢失
+            this.store = current.target;
+            this.reindex = null;
+        }
+
+        // 删除旧集合后把影子集合改名为正式集合名，重启时直接加载新数据；改名不影响切换后的读写
+        for (Store partition : current.target.all()) {
+            VectorStore shadowStore = partition.persistent();
+            if (shadowStore == null) {
+                continue;
+            }
+            try {
+                Store oldPartition = old.find(partition.partition());
+                if (oldPartition != null && oldPartition.persistent() != null) {
+                    oldPartition.persistent().drop();
+                }
+                shadowStore.renameTo(collectionOf(partition.partition()));
+            } catch (RuntimeException e) {
+                log.error("重建完成但影子集合改名失败，当前进程已切换到新集合：{}，重启前需手动改名",
+                        shadowStore.name(), e);
+            }
+        }
+        for (Store partition : old.all()) {
+            closeQuietly(partition.localIndex());
+            closeQuietly(partition.persistent());
+        }
+        log.info("向量索引重建完成并已切换，条目数：{}", getCollectionSize());
+    }
+
+    @Override
+    public synchronized void abortReindex() {
+        Reindex current = reindex;
+        if (current == null) {
+            return;
+        }
+        synchronized (current) {
+            this.reindex = null;
+            current.finished = true;
+        }
+        for (Store partition : current.target.all()) {
+            if (partition.persistent() != null) {
+                try {
+                    partition.persistent().drop();
+                } catch (RuntimeException e) {
+                    log.warn("删除影子集合失败：{}", partition.persistent().name(), e);
+                }
+            }
+            closeQuietly(partition.localIndex());
+            closeQuietly(partition.persistent());
+        }
+        log.info("向量索引重建已放弃");
+    }
+
+    private static void closeQuietly(LocalVectorIndex index) {
+        if (index instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("关闭进程内索引失败", e);
+            }
+        }
+    }
+
+    private static void closeQuietly(VectorStore vectorStore) {
+        if (vectorStore == null) {
+            return;
+        }
         try {
-            // 重新创建实例来清空数据
-            // 由于ChromaDB Java客户端没有直接的删除全部数据的方法，我们重新创建实例
-            this.embeddingStore = ChromaEmbeddingStore.builder()
-                    .baseUrl(chromaUrl)
-                    .collectionName(collectionName)
-                    .build();
-            log.info("ChromaDB向量数据库集合已清空并重建");
-        } catch (Exception e) {
-            log.error("清空向量数据库集合失败", e);
-            throw new RuntimeException("清空集合失败", e);
+            vectorStore.close();
+        } catch (RuntimeException e) {
+            log.warn("关闭向量存储失败：{}", vectorStore.name(), e);
         }
     }
 
@@ -368,132 +1764,130 @@ public class VectorServiceImpl implements IVectorService {
      * @return 嵌入向量
      */
     public Embedding generateEmbedding(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            log.warn("输入文本为空，使用默认嵌入向量");
-            return Embedding.from(new float[384]); // 返回零向量
-        }
-
-        if (dashScopeApiKey == null || dashScopeApiKey.trim().isEmpty()) {
-            log.warn("DashScope API密钥未配置/为空，将使用简化嵌入向量（仅用于演示）");
-            return Embedding.from(computeSimpleEmbedding(text));
-        }
+        return generateEmbeddings(Collections.singletonList(text)).get(0);
+    }
 
-        try {
-            TextEmbeddingParam param = TextEmbeddingParam
-                    .builder()
-                    .apiKey(dashScopeApiKey)
-                    .model("text-embedding-v1")
-                    .texts(Arrays.asList(text))
-                    .build();
-            TextEmbedding textEmbedding = new TextEmbedding();
-            TextEmbeddingResult result = textEmbedding.call(param);
-            List<TextEmbeddingResultItem> items = result.getOutput().getEmbeddings();
-            if (items != null && !items.isEmpty()) {
-                List<Double> vector = items.get(0).getEmbedding();
-                List<Float> floatVector = vector.stream()
-                        .map(Double::floatValue)
-                        .collect(Collectors.toList());
-                float[] embeddingArray = new float[floatVector.size()];
-                for (int i = 0; i < floatVector.size(); i++) {
-                    embeddingArray[i] = floatVector.get(i);
-                }
-                return Embedding.from(embeddingArray);
-            } else {
-                log.warn("向量结果为空，使用简化嵌入向量");
-                return Embedding.from(computeSimpleEmbedding(text));
-            }
-        } catch (Exception e) {
-            log.error("调用DashScope API失败，使用简化嵌入向量。文本长度：{}", text.length(), e);
-            return Embedding.from(computeSimpleEmbedding(text));
-        }
+    /**
+     * 批量生成文本的嵌入向量
+     * 按 DashScope 单次请求上限打包文本，N 条文本只需 N/batchSize 次请求
+     * 离线嵌入只在 primary 模式或未配置 DashScope 时使用（此时语料同样由离线嵌入生成）
+     *
+     * @param texts 输入文本列表
+     * @return 与输入一一对应的嵌入向量
+     * @throws EmbeddingUnavailableException DashScope 暂时不可用
+     */
+    public List<Embedding> generateEmbeddings(List<String> texts) {
+        return generateEmbeddings(texts, false);
     }
 
     /**
-     * 生成多模态嵌入向量（文本+单张图片）
-     * 
-     * @param text     输入文本
-     * @param imageUrl 图片URL
+     * 生成查询文本的嵌入向量（离线嵌入在查询侧按 IDF 加权）
+     *
+     * @param query 查询文本
      * @return 嵌入向量
      */
-    public Embedding generateMultimodalEmbedding(String text, String imageUrl) {
-        System.out.println("进入单张处理");
-        if (dashScopeApiKey == null || dashScopeApiKey.trim().isEmpty()) {
-            log.warn("DashScope API密钥未配置/为空，将使用简化嵌入向量（仅用于演示）");
-            String combinedText = text;
-            if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                combinedText += " " + imageUrl;
+    private Embedding generateQueryEmbedding(String query) {
+        return generateEmbeddings(Collections.singletonList(query), true).get(0);
+    }
+
+    private List<Embedding> generateEmbeddings(List<String> texts, boolean query) {
+        List<Embedding> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.trim().isEmpty()) {
+                log.warn("输入文本为空，使用默认嵌入向量");
+                results.set(i, Embedding.from(new float[localEmbeddingProvider.dimension()])); // 返回零向量
+            } else {
+                pending.add(i);
             }
-            return Embedding.from(computeSimpleEmbedding(combinedText));
+        }
+        if (pending.isEmpty()) {
+            return results;
         }
 
-        // 使用SDK方法
-        try {
-            Embedding sdkResult = generateMultimodalEmbeddingWithSDK(text, imageUrl);
-            if (sdkResult != null) {
-                log.debug("单图片多模态嵌入生成成功（SDK方式）");
-                return sdkResult;
+        if (usesLocalEmbedding()) {
+            if (!isLocalEmbeddingPrimary()) {
+                log.warn("DashScope API密钥未配置/为空，将使用离线嵌入向量");
             }
-        } catch (Exception e) {
-            log.warn("使用SDK生成单图片多模态嵌入失败: {}", e.getMessage());
+            for (Integer i : pending) {
+                results.set(i, Embedding.from(computeLocalEmbedding(texts.get(i), query)));
+            }
+            return results;
         }
 
-        // 如果SDK方法失败，返回简化嵌入向量
-        log.warn("单图片多模态向量结果为空，使用简化嵌入向量");
-        String combinedText = text;
-        if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-            combinedText += " " + imageUrl;
+        // 命中缓存的文本不再请求 DashScope
+        List<String> pendingTexts = new ArrayList<>(pending.size());
+        for (Integer i : pending) {
+            pendingTexts.add(texts.get(i));
         }
-        return Embedding.from(computeSimpleEmbedding(combinedText));
-    }
-
-    /**
-     * 生成多模态嵌入向量（文本+图像列表）
-     * 优先使用DashScope SDK，失败时回退到HTTP API
-     * 
-     * @param text        输入文本
-     * @param base64Image Base64编码的图像数据
-     * @return 嵌入向量
-     */
-    public Embedding generateMultimodalEmbeddings(String text, List<String> imageUrls) {
-        System.out.println("进入多张处理");
-        if (dashScopeApiKey == null || dashScopeApiKey.trim().isEmpty()) {
-            log.warn("DashScope API密钥未配置/为空，将使用简化嵌入向量（仅用于演示）");
-            String combinedText = text;
-            if (imageUrls != null && !imageUrls.isEmpty()) {
-                combinedText += String.join(" ", imageUrls);
+        List<float[]> cached = embeddingCache.getAll(TEXT_EMBEDDING_MODEL, pendingTexts);
+        List<Integer> misses = new ArrayList<>();
+        for (int j = 0; j < pending.size(); j++) {
+            if (cached.get(j) != null) {
+                results.set(pending.get(j), Embedding.from(cached.get(j)));
+            } else {
+                misses.add(pending.get(j));
             }
-            return Embedding.from(computeSimpleEmbedding(combinedText));
         }
+        pending = misses;
+
+        int batchSize = Math.max(1, embeddingBatchSize);
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Integer> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            List<String> batchTexts = new ArrayList<>(batch.size());
+            for (Integer i : batch) {
+                batchTexts.add(texts.get(i));
+            }
 
-        // 使用SDK方法
-        try {
-            Embedding sdkResult = generateMultimodalEmbeddingWithSDK(text, imageUrls);
-            if (sdkResult != null) {
-                log.debug("多模态嵌入生成成功（SDK方式）");
-                return sdkResult;
+            try {
+                TextEmbeddingParam param = TextEmbeddingParam
+                        .builder()
+                        .apiKey(dashScopeApiKey)
+                        .model(TEXT_EMBEDDING_MODEL)
+                        .texts(batchTexts)
+                        .build();
+                TextEmbeddingResult result = embeddingClient.embedText(param);
+                List<TextEmbeddingResultItem> items = result.getOutput().getEmbeddings();
+                if (items != null) {
+                    for (int position = 0; position < items.size(); position++) {
+                        TextEmbeddingResultItem item = items.get(position);
+                        // 按 textIndex 回填，防止返回顺序与请求顺序不一致
+                        int index = item.getTextIndex() != null ? item.getTextIndex() : position;
+                        float[] vector = EmbeddingDecoder.toFloatArray(item.getEmbedding());
+                        if (index >= 0 && index < batch.size() && vector != null) {
+                            results.set(batch.get(index), Embedding.from(vector));
+                            // 只缓存模型真实返回的向量
+                            embeddingCache.put(TEXT_EMBEDDING_MODEL, texts.get(batch.get(index)), vector);
+                        }
+                    }
+                }
+            } catch (EmbeddingUnavailableException e) {
+                // 离线向量与 DashScope 语料不在同一向量空间，写入和检索都不能降级：
+                // 物品写入抛出后进入本地队列，恢复后重放；检索抛出后只使用关键词召回且不缓存
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("调用DashScope API失败，批次文本数：" + batchTexts.size(), e);
             }
-        } catch (Exception e) {
-            log.warn("使用SDK生成多模态嵌入失败: {}", e.getMessage());
-        }
 
-        // 如果SDK方法失败，返回简化嵌入向量
-        log.warn("多模态向量结果为空，使用简化嵌入向量");
-        String combinedText = text;
-        if (imageUrls != null && !imageUrls.isEmpty()) {
-            combinedText += String.join(" ", imageUrls);
+            for (Integer i : batch) {
+                if (results.get(i) == null) {
+                    throw new IllegalStateException("DashScope 未返回文本向量，文本序号：" + i);
+                }
+            }
         }
-        return Embedding.from(computeSimpleEmbedding(combinedText));
+        return results;
     }
 
     /**
-     * 使用DashScope SDK生成多模态嵌入向量（单张图片版本）
-     * 
+     * 使用DashScope SDK生成多模态嵌入向量（文本与单张图片均可为空，不能同时为空）
+     *
      * @param text     输入文本
      * @param imageUrl 图片URL
      * @return 嵌入向量
      */
     private Embedding generateMultimodalEmbeddingWithSDK(String text, String imageUrl)
-            throws UploadFileException, NoApiKeyException {
+            throws NoApiKeyException {
 
         List<MultiModalEmbeddingItemBase> contents = new ArrayList<>();
 
@@ -502,24 +1896,15 @@ public class VectorServiceImpl implements IVectorService {
             MultiModalEmbeddingItemText textContent = new MultiModalEmbeddingItemText(text);
             contents.add(textContent);
         }
-        System.out.println("添加文本内容: " + contents);
 
         // 添加单张图像内容
         if (imageUrl != null && !imageUrl.trim().isEmpty()) {
             try {
                 // 将图片URL转换为Base64
                 log.debug("开始转换图片: {}", imageUrl);
-                String base64Image = imageUrlToBase64(imageUrl);
-                if (base64Image != null && !base64Image.isEmpty()) {
-                    // 提取纯Base64数据（去除data:image/...;base64,前缀）
-                    String pureBase64 = base64Image;
-                    if (base64Image.startsWith("data:image/")) {
-                        int commaIndex = base64Image.indexOf(",");
-                        if (commaIndex > 0) {
-                            pureBase64 = base64Image.substring(commaIndex + 1);
-                        }
-                    }
-
+                // 纯Base64数据（不含data:image/...;base64,前缀）
+                String pureBase64 = imageUrlToBase64(imageUrl);
+                if (pureBase64 != null && !pureBase64.isEmpty()) {
                     MultiModalEmbeddingItemImage imageContent = new MultiModalEmbeddingItemImage(pureBase64);
                     contents.add(imageContent);
                     log.debug("成功添加图片内容到多模态内容列表");
@@ -542,18 +1927,17 @@ public class VectorServiceImpl implements IVectorService {
             throw new NoApiKeyException();
         }
 
-        log.debug("准备调用DashScope API，模型: tongyi-embedding-vision-plus，内容数量: {}", contents.size());
+        log.debug("准备调用DashScope API，模型: {}，内容数量: {}", MULTIMODAL_EMBEDDING_MODEL, contents.size());
 
         // 构建参数 - 使用正确的参数格式
         MultiModalEmbeddingParam param = MultiModalEmbeddingParam.builder()
                 .apiKey(dashScopeApiKey)
-                .model("tongyi-embedding-vision-plus") // 使用正确的模型名称，与Python示例保持一致
+                .model(MULTIMODAL_EMBEDDING_MODEL)
                 .contents(contents)
                 .build();
 
-        // 调用API
-        MultiModalEmbedding multiModalEmbedding = new MultiModalEmbedding();
-        MultiModalEmbeddingResult result = multiModalEmbedding.call(param);
+        // 调用API（受并发、限流、超时与熔断保护，不可用时抛出异常由调用方降级）
+        MultiModalEmbeddingResult result = embeddingClient.embedMultimodal(param);
 
         // 检查API调用结果
         if (result == null) {
@@ -561,327 +1945,116 @@ public class VectorServiceImpl implements IVectorService {
             return null;
         }
 
-        // 解析结果
-        if (result.getOutput() != null) {
-            try {
-                // 直接访问output中的embedding字段
-                Object output = result.getOutput();
-
-                // 尝试获取embedding字段
-                java.lang.reflect.Method getEmbeddingMethod = output.getClass().getMethod("getEmbedding");
-                Object embeddingObj = getEmbeddingMethod.invoke(output);
-
-                if (embeddingObj instanceof List) {
-                    List<?> embeddingList = (List<?>) embeddingObj;
-                    if (!embeddingList.isEmpty()) {
-                        float[] embeddingArray = new float[embeddingList.size()];
-                        for (int i = 0; i < embeddingList.size(); i++) {
-                            Object value = embeddingList.get(i);
-                            if (value instanceof Number) {
-                                embeddingArray[i] = ((Number) value).floatValue();
-                            } else {
-                                log.warn("嵌入向量中包含非数字值: {}", value);
-                                return null;
-                            }
-                        }
-                        log.debug("成功生成多模态嵌入向量，维度: {}", embeddingArray.length);
-                        return Embedding.from(embeddingArray);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("从SDK结果中直接提取嵌入向量时发生异常: {}", e.getMessage());
-                // 回退到反射方式
-                Embedding embedding = extractEmbeddingFromResult(result);
-                if (embedding != null) {
-                    return embedding;
-                }
-            }
-        } else {
-            log.warn("SDK返回的结果中output字段为空");
+        // 按 SDK 类型直接解码为 float[]
+        float[] embeddingArray = EmbeddingDecoder.decodeMultimodal(result);
+        if (embeddingArray == null) {
+            log.warn("SDK返回的多模态嵌入结果解析失败");
+            return null;
         }
-
-        log.warn("SDK返回的单图片多模态嵌入结果解析失败");
-        return null;
+        log.debug("成功生成多模态嵌入向量，维度: {}", embeddingArray.length);
+        return Embedding.from(embeddingArray);
     }
 
     /**
-     * 使用DashScope SDK生成多模态嵌入向量（多张图片版本）
-     * 
-     * @param text      输入文本
-     * @param imageUrls 图片URL列表
+     * 生成单张图片的向量（多模态模型，只含图片内容），离线模式或图片处理失败时返回 null，物品只保留文本向量
+     *
+     * @param imageUrl 图片URL
      * @return 嵌入向量
+     * @throws EmbeddingUnavailableException DashScope 暂时不可用，调用方稍后重试
      */
-    private Embedding generateMultimodalEmbeddingWithSDK(String text, List<String> imageUrls)
-            throws UploadFileException, NoApiKeyException {
-
-        List<MultiModalEmbeddingItemBase> contents = new ArrayList<>();
-
-        // 添加文本内容
-        if (text != null && !text.trim().isEmpty()) {
-            MultiModalEmbeddingItemText textContent = new MultiModalEmbeddingItemText(text);
-            contents.add(textContent);
-        }
-
-        // 添加多张图像内容
-        if (imageUrls != null && !imageUrls.isEmpty()) {
-            for (String imageUrl : imageUrls) {
-                if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                    try {
-                        // 将图片URL转换为Base64
-                        log.debug("开始转换图片: {}", imageUrl);
-                        String base64Image = imageUrlToBase64(imageUrl);
-                        if (base64Image != null && !base64Image.isEmpty()) {
-                            // 提取纯Base64数据（去除data:image/...;base64,前缀）
-                            String pureBase64 = base64Image;
-                            if (base64Image.startsWith("data:image/")) {
-                                int commaIndex = base64Image.indexOf(",");
-                                if (commaIndex > 0) {
-                                    pureBase64 = base64Image.substring(commaIndex + 1);
-                                }
-                            }
-
-                            MultiModalEmbeddingItemImage imageContent = new MultiModalEmbeddingItemImage(pureBase64);
-                            contents.add(imageContent);
-                            log.debug("成功添加图片内容到多模态内容列表");
-                        } else {
-                            log.warn("转换图片到Base64失败，结果为空: {}", imageUrl);
-                        }
-                    } catch (Exception e) {
-                        log.warn("转换图片URL到Base64失败: {}", imageUrl, e);
-                    }
-                }
-            }
-        }
-
-        if (contents.isEmpty()) {
-            log.warn("多模态内容为空，无法生成嵌入向量");
+    private Embedding generateImageEmbedding(String imageUrl) {
+        if (usesLocalEmbedding()) {
+            log.debug("离线嵌入模式不支持图片，跳过图片向量：{}", imageUrl);
             return null;
         }
-
-        // 检查API密钥是否有效
-        if (dashScopeApiKey == null || dashScopeApiKey.trim().isEmpty()) {
-            log.warn("DashScope API密钥未配置");
-            throw new NoApiKeyException();
-        }
-
-        log.debug("准备调用DashScope API，模型: multimodal-embedding-v1，内容数量: {}", contents.size());
-
-        // 构建参数 - 使用正确的参数格式
-        MultiModalEmbeddingParam param = MultiModalEmbeddingParam.builder()
-                .apiKey(dashScopeApiKey)
-                .model("multimodal-embedding-v1") // 使用正确的模型名称
-                .contents(contents)
-                .build();
-
-        // 调用API
-        MultiModalEmbedding multiModalEmbedding = new MultiModalEmbedding();
-        MultiModalEmbeddingResult result = multiModalEmbedding.call(param);
-
-        // 检查API调用结果
-        if (result == null) {
-            log.warn("DashScope API调用失败，返回结果为空");
+        try {
+            return generateMultimodalEmbeddingWithSDK(null, imageUrl);
+        } catch (EmbeddingUnavailableException e) {
+            // 暂时不可用（熔断、限流、超时）由调用方稍后补齐
+            throw e;
+        } catch (Exception e) {
+            log.warn("生成图片向量失败，物品只保留文本向量：{}，原因：{}", imageUrl, e.getMessage());
             return null;
         }
-
-        // 解析结果
-        if (result.getOutput() != null) {
-            try {
-                // 直接访问output中的embedding字段
-                Object output = result.getOutput();
-
-                // 尝试获取embedding字段
-                java.lang.reflect.Method getEmbeddingMethod = output.getClass().getMethod("getEmbedding");
-                Object embeddingObj = getEmbeddingMethod.invoke(output);
-
-                if (embeddingObj instanceof List) {
-                    List<?> embeddingList = (List<?>) embeddingObj;
-                    if (!embeddingList.isEmpty()) {
-                        float[] embeddingArray = new float[embeddingList.size()];
-                        for (int i = 0; i < embeddingList.size(); i++) {
-                            Object value = embeddingList.get(i);
-                            if (value instanceof Number) {
-                                embeddingArray[i] = ((Number) value).floatValue();
-                            } else {
-                                log.warn("嵌入向量中包含非数字值: {}", value);
-                                return null;
-                            }
-                        }
-                        log.debug("成功生成多模态嵌入向量，维度: {}", embeddingArray.length);
-                        return Embedding.from(embeddingArray);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("从SDK结果中直接提取嵌入向量时发生异常: {}", e.getMessage());
-                // 回退到反射方式
-                Embedding embedding = extractEmbeddingFromResult(result);
-                if (embedding != null) {
-                    return embedding;
-                }
-            }
-        } else {
-            log.warn("SDK返回的结果中output字段为空");
-        }
-
-        log.warn("SDK返回的多模态嵌入结果解析失败");
-        return null;
     }
 
     /**
-     * 计算简单嵌入向量（用于演示）
-     * 
-     * @param text 输入文本
-     * @return 简单嵌入向量
+     * 生成检索图片分区用的查询向量：查询文本经多模态模型的文本编码，与图片向量在同一向量空间
+     *
+     * @param query 查询文本
+     * @return 查询向量
+     * @throws EmbeddingUnavailableException DashScope 暂时不可用，检索只使用关键词召回
      */
-    private float[] computeSimpleEmbedding(String text) {
-        if (text == null || text.isEmpty()) {
-            return new float[1536]; // 修改为1536维以匹配ChromaDB集合要求
+    private float[] generateImageQueryEmbedding(String query) {
+        float[] cached = embeddingCache.getAll(MULTIMODAL_EMBEDDING_MODEL, List.of(query)).get(0);
+        if (cached != null) {
+            return cached;
         }
-
-        byte[] bytes = text.getBytes();
-        float[] vector = new float[1536]; // 修改为1536维以匹配ChromaDB集合要求
-
-        if (bytes.length == 0) {
-            return vector;
-        }
-
-        for (int i = 0; i < bytes.length; i++) {
-            vector[i % vector.length] += bytes[i];
-        }
-
-        // 归一化向量
-        double norm = 0;
-        for (float v : vector) {
-            norm += v * v;
+        Embedding embedding;
+        try {
+            embedding = generateMultimodalEmbeddingWithSDK(query, null);
+        } catch (NoApiKeyException e) {
+            throw new IllegalStateException("DashScope API密钥未配置", e);
         }
-        norm = Math.sqrt(norm);
-
-        if (norm > 0) {
-            for (int i = 0; i < vector.length; i++) {
-                vector[i] /= (float) norm;
-            }
+        if (embedding == null) {
+            throw new IllegalStateException("DashScope 未返回查询文本的多模态向量");
         }
-
-        return vector;
+        embeddingCache.put(MULTIMODAL_EMBEDDING_MODEL, query, embedding.vector());
+        return embedding.vector();
     }
 
     /**
-     * 将图片文件转换为Base64格式
-     * 按照DashScope官方示例格式生成
+     * 使用离线嵌入生成器计算嵌入向量
      *
-     * @param imagePath 图片文件路径
-     * @return Base64编码的图片字符串，格式为 "data:image/[format];base64,[base64_data]"
-     * @throws Exception 当文件不存在或读取失败时抛出异常
+     * @param text  输入文本
+     * @param query 是否为查询文本（查询侧按 IDF 加权）
+     * @return 嵌入向量
      */
-    public String imageToBase64(String imagePath) throws Exception {
-        try {
-            byte[] imageBytes;
-            try (FileInputStream fis = new FileInputStream(imagePath)) {
-                imageBytes = fis.readAllBytes();
-            }
-
-            String imageData = Base64.getEncoder().encodeToString(imageBytes);
-
-            // 获取图片格式
-            String formatType;
-            String lowerImagePath = imagePath.toLowerCase();
-            if (lowerImagePath.endsWith(".png")) {
-                formatType = "png";
-            } else if (lowerImagePath.endsWith(".jpg") || lowerImagePath.endsWith(".jpeg")) {
-                formatType = "jpeg";
-            } else {
-                formatType = "jpeg"; // 默认格式
-            }
+    private float[] computeLocalEmbedding(String text, boolean query) {
+        return query ? localEmbeddingProvider.embedQuery(text) : localEmbeddingProvider.embed(text);
+    }
 
-            // 构造正确的Base64格式，严格按照官方示例
-            return "data:image/" + formatType + ";base64," + imageData;
-        } catch (Exception e) {
-            log.error("图片转Base64失败，路径：{}", imagePath, e);
-            throw new Exception("错误：图片转Base64失败：" + e.getMessage());
-        }
+    private boolean isLocalEmbeddingPrimary() {
+        return "primary".equalsIgnoreCase(localEmbeddingMode);
     }
 
     /**
-     * 通过反射安全地从MultiModalEmbeddingResult中提取嵌入向量
-     * 
-     * @param result SDK返回的结果对象
-     * @return 嵌入向量，如果无法提取则返回null
+     * 离线嵌入是否实际在用：primary 模式，或未配置 DashScope API 密钥
      */
-    private Embedding extractEmbeddingFromResult(MultiModalEmbeddingResult result) {
-        try {
-            // 尝试获取output对象
-            Object output = result.getOutput();
-            if (output == null) {
-                log.debug("SDK结果的output为null");
-                return null;
-            }
-
-            // 尝试常见的方法名来获取嵌入向量
-            String[] methodNames = { "getEmbeddings", "getEmbedding", "getResult", "getData", "getVectors" };
-            Class<?> outputClass = output.getClass();
-
-            for (String methodName : methodNames) {
-                try {
-                    java.lang.reflect.Method method = outputClass.getMethod(methodName);
-                    Object embeddingsObj = method.invoke(output);
-
-                    if (embeddingsObj instanceof List) {
-                        List<?> embeddingsList = (List<?>) embeddingsObj;
-                        if (!embeddingsList.isEmpty()) {
-                            Object firstItem = embeddingsList.get(0);
-                            if (firstItem instanceof List) {
-                                // 嵌入向量是List<Float>或List<Double>的形式
-                                List<?> vectorList = (List<?>) firstItem;
-                                if (!vectorList.isEmpty()) {
-                                    float[] embeddingArray = new float[vectorList.size()];
-                                    for (int i = 0; i < vectorList.size(); i++) {
-                                        Object value = vectorList.get(i);
-                                        if (value instanceof Number) {
-                                            embeddingArray[i] = ((Number) value).floatValue();
-                                        } else {
-                                            log.warn("嵌入向量中包含非数字值: {}", value);
-                                            return null;
-                                        }
-                                    }
-                                    return Embedding.from(embeddingArray);
-                                }
-                            } else if (firstItem instanceof Number) {
-                                // 嵌入向量是扁平化的List<Float>形式
-                                float[] embeddingArray = new float[embeddingsList.size()];
-                                for (int i = 0; i < embeddingsList.size(); i++) {
-                                    Object value = embeddingsList.get(i);
-                                    if (value instanceof Number) {
-                                        embeddingArray[i] = ((Number) value).floatValue();
-                                    } else {
-                                        log.warn("嵌入向量中包含非数字值: {}", value);
-                                        return null;
-                                    }
-                                }
-                                return Embedding.from(embeddingArray);
-                            }
-                        }
-                    }
-                } catch (NoSuchMethodException e) {
-                    // 方法不存在，继续尝试下一个
-                    continue;
-                } catch (Exception e) {
-                    log.debug("调用方法 {} 时发生异常: {}", methodName, e.getMessage());
-                }
-            }
+    private boolean usesLocalEmbedding() {
+        return isLocalEmbeddingPrimary() || dashScopeApiKey == null || dashScopeApiKey.trim().isEmpty();
+    }
 
-            log.debug("无法从SDK结果中提取有效的嵌入向量");
-            return null;
+    /**
+     * 登记离线嵌入的语料统计；统计只用于离线查询向量的 IDF 加权，DashScope 生成向量时不登记
+     */
+    private void registerLocalText(String id, String text) {
+        if (usesLocalEmbedding()) {
+            localEmbeddingProvider.register(id, text);
+        }
+    }
 
-        } catch (Exception e) {
-            log.warn("反射提取嵌入向量时发生异常: {}", e.getMessage());
-            return null;
+    private void unregisterLocalText(String id) {
+        if (usesLocalEmbedding()) {
+            localEmbeddingProvider.unregister(id);
         }
     }
 
     /**
-     * 从远程URL下载图片并转换为Base64格式
+     * 缩放并编码图片
+     */
+    private ImageDownscaler.EncodedImage encodeImage(InputStream in) throws IOException {
+        ImageDownscaler.EncodedImage encoded = ImageDownscaler.encode(in, imageMaxSide, imageQuality, imageMaxSourceBytes);
+        log.debug("图片编码完成，原图：{} 字节，编码后：{}x{}，Base64 长度：{}",
+                encoded.sourceBytes(), encoded.width(), encoded.height(), encoded.base64().length());
+        return encoded;
+    }
+
+    /**
+     * 从远程URL下载图片，缩放编码后转换为纯Base64数据
      *
      * @param imageUrl 远程图片URL
-     * @return Base64编码的图片字符串，格式为 "data:image/[format];base64,[base64_data]"
+     * @return Base64数据（不含data URI前缀）
      * @throws Exception 当下载失败或转换失败时抛出异常
      */
     private String downloadAndConvertToBase64(String imageUrl) throws Exception {
@@ -901,38 +2074,12 @@ public class VectorServiceImpl implements IVectorService {
                 throw new Exception("下载图片失败，响应码: " + responseCode);
             }
 
-            // 读取图片数据
-            byte[] imageBytes = connection.getInputStream().readAllBytes();
-
-            // 获取图片格式（从URL后缀或Content-Type）
-            String formatType;
-            String lowerImageUrl = imageUrl.toLowerCase();
-            if (lowerImageUrl.endsWith(".png")) {
-                formatType = "png";
-            } else if (lowerImageUrl.endsWith(".jpg") || lowerImageUrl.endsWith(".jpeg")) {
-                formatType = "jpeg";
-            } else {
-                // 尝试从Content-Type获取
-                String contentType = connection.getContentType();
-                if (contentType != null) {
-                    if (contentType.contains("png")) {
-                        formatType = "png";
-                    } else if (contentType.contains("jpeg") || contentType.contains("jpg")) {
-                        formatType = "jpeg";
-                    } else {
-                        formatType = "jpeg"; // 默认格式
-                    }
-                } else {
-                    formatType = "jpeg"; // 默认格式
-                }
+            // 响应体直接流入编码器，不在堆上保留原图的完整副本
+            try (InputStream in = connection.getInputStream()) {
+                return encodeImage(in).base64();
+            } finally {
+                connection.disconnect();
             }
-
-            // 编码为Base64
-            String imageData = Base64.getEncoder().encodeToString(imageBytes);
-
-            // 构造正确的Base64格式
-            return "data:image/" + formatType + ";base64," + imageData;
-
         } catch (Exception e) {
             log.error("下载并转换远程图片失败，URL：{}", imageUrl, e);
             throw new Exception("错误：下载并转换远程图片失败：" + e.getMessage());
@@ -940,11 +2087,11 @@ public class VectorServiceImpl implements IVectorService {
     }
 
     /**
-     * 将图片URL转换为Base64格式
+     * 将图片URL转换为纯Base64数据
      * 支持本地文件路径和远程URL
      *
      * @param imageUrl 图片URL（可以是本地文件名或远程URL）
-     * @return Base64编码的图片字符串，格式为 "data:image/[format];base64,[base64_data]"
+     * @return Base64数据（不含data URI前缀）
      * @throws Exception 当文件不存在或读取失败时抛出异常
      */
     private String imageUrlToBase64(String imageUrl) throws Exception {
@@ -977,11 +2124,215 @@ public class VectorServiceImpl implements IVectorService {
                 // 构造完整路径
                 String imagePath = System.getProperty("user.dir") + "/uploads/image/" + cleanFileName;
                 log.debug("处理本地图片文件: {} -> {}", cleanFileName, imagePath);
-                return imageToBase64(imagePath);
+                try (InputStream in = new FileInputStream(imagePath)) {
+                    return encodeImage(in).base64();
+                }
             }
         } catch (Exception e) {
             log.error("处理图片失败: {}", imageUrl, e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 一个分区的完整向量存储：进程内索引、持久化向量存储（均可为空）与进程内索引条目的元数据
+     */
+    private record Store(String partition, LocalVectorIndex localIndex, VectorStore persistent,
+            Map<String, VectorMetadata> metadataById) {
+
+        /**
+         * 是否为图片向量分区：图片与文本来自不同模型，维度与向量空间都不同，分开存储
+         */
+        private boolean holdsImages() {
+            return partition.endsWith(IMAGE_PARTITION_SUFFIX);
+        }
+
+        /**
+         * 该ID的向量是否属于本分区的向量空间：图片槽位ID只进图片分区，其余只进文本分区
+         */
+        private boolean accepts(String id) {
+            return holdsImages() == ItemVectorIds.imageSlot(id) >= 0;
+        }
+    }
+
+    /**
+     * 按物品类型划分的一组分区存储：带类型元数据的条目写入对应类型分区，其余写入共享分区
+     * 未开启分区时只有共享分区；支持图片嵌入时每个文本分区另有一个同类型的图片分区
+     *
+     * @param sharedImages    共享图片分区，不支持图片嵌入时为空
+     * @param imagesByType    按类型的图片分区，不支持图片嵌入或未开启分区时为空
+     * @param partitionsByKey 没有进程内索引时记录物品向量可能所在的分区（未记录视为可能在任一分区），
+     *                        物品类型未变化时写入、删除与元数据更新只作用于这些分区
+     */
+    private record Partitions(Store shared, Map<Integer, Store> byType, Store sharedImages,
+            Map<Integer, Store> imagesByType, Map<String, Set<String>> partitionsByKey) {
+
+        private Store route(String id, VectorMetadata metadata) {
+            boolean image = ItemVectorIds.imageSlot(id) >= 0;
+            if (image && sharedImages == null) {
+                throw new IllegalStateException("未启用图片嵌入，不能写入图片向量: " + id);
+            }
+            Store fallback = image ? sharedImages : shared;
+            if (metadata == null || metadata.type() == null) {
+                return fallback;
+            }
+            return (image ? imagesByType : byType).getOrDefault(metadata.type(), fallback);
+        }
+
+        /**
+         * 检索需要扫描的分区：带类型条件时只有该类型的分区（无元数据的条目不满足任何非空过滤，共享分区可跳过）
+         */
+        private List<Store> select(VectorFilter filter) {
+            if (filter == null || filter.getType() == null || byType.isEmpty()) {
+                return all();
+            }
+            if (sharedImages == null) {
+                return List.of(byType.getOrDefault(filter.getType(), shared));
+            }
+            return List.of(byType.getOrDefault(filter.getType(), shared),
+                    imagesByType.getOrDefault(filter.getType(), sharedImages));
+        }
+
+        private List<Store> all() {
+            List<Store> all = new ArrayList<>(2 * byType.size() + 2);
+            all.add(shared);
+            all.addAll(byType.values());
+            if (sharedImages != null) {
+                all.add(sharedImages);
+                all.addAll(imagesByType.values());
+            }
+            return all;
+        }
+
+        private Store find(String partition) {
+            for (Store candidate : all()) {
+                if (candidate.partition().equals(partition)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private Partitions map(Function<Store, Store> mapper) {
+            Store mappedShared = mapper.apply(shared);
+            Map<Integer, Store> mapped = mapAll(byType, mapper);
+            Store mappedSharedImages = sharedImages == null ? null : mapper.apply(sharedImages);
+            return new Partitions(mappedShared, mapped, mappedSharedImages, mapAll(imagesByType, mapper),
+                    partitionsByKey);
+        }
+
+        private static Map<Integer, Store> mapAll(Map<Integer, Store> stores, Function<Store, Store> mapper) {
+            Map<Integer, Store> mapped = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Store> entry : stores.entrySet()) {
+                mapped.put(entry.getKey(), mapper.apply(entry.getValue()));
+            }
+            return mapped;
+        }
+
+        private List<String> collectionNames() {
+            return all().stream()
+                    .map(partition -> partition.persistent() == null ? partition.partition()
+                            : partition.persistent().name())
+                    .toList();
+        }
+    }
+
+    /**
+     * 单个分区的检索次数与耗时
+     */
+    private static final class PartitionStats {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            queries.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * 进行中的全量重建
+     * 重建期间被实时写入或删除过的ID以实时数据为准，重建批次跳过这些ID，避免用旧快照覆盖；
+     * 只更新过元数据的ID（如只改描述时的图片向量）在影子存储中可能还不存在，批次仍写入向量，但使用实时元数据
+     */
+    private static final class Reindex {
+        private final Partitions target;
+        private final Set<String> touchedIds = new HashSet<>();
+        private final Map<String, VectorMetadata> liveMetadata = new HashMap<>();
+        /** 实时写入影子存储失败，影子数据已不完整，不能提交 */
+        private boolean broken;
+        /** 已放弃，影子存储已关闭 */
+        private boolean finished;
+
+        private Reindex(Partitions target) {
+            this.target = target;
+        }
+
+        /**
+         * 将实时写入/删除同步到影子存储
+         */
+        private synchronized void apply(List<String> ids, Consumer<Partitions> action) {
+            if (finished) {
+                return;
+            }
+            touchedIds.addAll(ids);
+            ids.forEach(liveMetadata::remove);
+            run(ids, action);
+        }
+
+        /**
+         * 将实时的元数据更新同步到影子存储，记录最新元数据供之后的重建批次使用
+         */
+        private synchronized void applyMetadata(List<String> ids, VectorMetadata metadata,
+                                                Consumer<Partitions> action) {
+            if (finished) {
+                return;
+            }
+            for (String id : ids) {
+                if (!touchedIds.contains(id)) {
+                    liveMetadata.put(id, metadata);
+                }
+            }
+            run(ids, action);
+        }
+
+        private void run(List<String> ids, Consumer<Partitions> action) {
+            try {
+                action.accept(target);
+            } catch (RuntimeException e) {
+                broken = true;
+                log.warn("同步写入影子存储失败，本次重建将无法提交，ID：{}", ids, e);
+            }
+        }
+
+        /**
+         * 重建批次写入时使用的元数据：重建期间有实时元数据更新时以实时数据为准
+         */
+        private synchronized VectorMetadata metadataOf(String id, VectorMetadata snapshot) {
+            return liveMetadata.getOrDefault(id, snapshot);
+        }
+
+        /**
+         * 写入重建批次，只写入重建期间未被实时修改过的条目
+         *
+         * @param ids    批次内的ID
+         * @param writer 接收需要写入的条目下标
+         */
+        private synchronized void load(List<String> ids, Consumer<List<Integer>> writer) {
+            if (finished) {
+                throw new IllegalStateException("向量索引重建已放弃");
+            }
+            List<Integer> fresh = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                if (!touchedIds.contains(ids.get(i))) {
+                    fresh.add(i);
+                }
+            }
+            if (!fresh.isEmpty()) {
+                writer.accept(fresh);
+            }
+        }
+    }
+}
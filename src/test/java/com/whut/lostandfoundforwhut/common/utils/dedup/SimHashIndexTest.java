@@ -0,0 +1,72 @@
+package com.whut.lostandfoundforwhut.common.utils.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description SimHash 指纹与分段查找表测试
+ */
+class SimHashIndexTest {
+
+    @Test
+    void simHash_nearDuplicateTextIsCloserThanUnrelatedText() {
+        long original = SimHash.of("在鉴湖校区图书馆三楼丢失一个黑色双肩包，里面有笔记本电脑和校园卡").fingerprint();
+        long edited = SimHash.of("在鉴湖校区图书馆三楼丢失一个黑色双肩包，里面有笔记本电脑和校园卡！").fingerprint();
+        long reworded = SimHash.of("鉴湖校区图书馆三楼丢失黑色双肩包一个，里面有笔记本电脑、校园卡").fingerprint();
+        long unrelated = SimHash.of("南湖食堂门口捡到一串钥匙，挂着蓝色小熊挂件").fingerprint();
+
+        assertEquals(0, SimHash.distance(original, edited));
+        assertTrue(SimHash.distance(original, reworded) < SimHash.distance(original, unrelated));
+        assertTrue(SimHash.distance(original, unrelated) > 10);
+        assertEquals(0, SimHash.of("  ").features());
+    }
+
+    @Test
+    void findOrAdd_findsEveryFingerprintWithinDistanceAndIsolatesOwners() {
+        SimHashIndex<String> index = new SimHashIndex<>(3);
+        Random random = new Random(7);
+        long base = random.nextLong();
+        assertNull(index.findOrAdd("user-1", 1L, base, 3));
+
+        // 鸽巢原理保证距离不超过 3 的指纹必定命中，无论翻转哪几位
+        for (int trial = 0; trial < 200; trial++) {
+            long probe = base;
+            int flips = random.nextInt(4);
+            for (int i = 0; i < flips; i++) {
+                probe ^= 1L << random.nextInt(Long.SIZE);
+            }
+            assertEquals(List.of(1L), index.find("user-1", probe, 3));
+            assertTrue(index.find("user-2", probe, 3).isEmpty());
+        }
+        assertTrue(index.find("user-1", base ^ 0xFL, 3).isEmpty());
+        assertEquals(List.of(1L), index.find("user-1", base ^ 0x7L, 3));
+        assertTrue(index.find("user-1", base ^ 0x1L, 0).isEmpty());
+
+        assertEquals(1L, index.findOrAdd("user-1", 2L, base ^ 0x3L, 3));
+        assertNull(index.findOrAdd("user-2", 2L, base, 3));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void putAndRemove_replaceOwnerAndFingerprint() {
+        SimHashIndex<String> index = new SimHashIndex<>(2);
+        index.put("user-1", 1L, 0L);
+        index.put("user-2", 1L, -1L);
+
+        assertTrue(index.find("user-1", 0L, 2).isEmpty());
+        assertEquals(List.of(1L), index.find("user-2", -1L, 2));
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+        assertTrue(index.find("user-2", -1L, 2).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
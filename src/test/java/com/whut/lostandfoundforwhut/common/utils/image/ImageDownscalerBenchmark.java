@@ -0,0 +1,85 @@
+package com.whut.lostandfoundforwhut.common.utils.image;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 图片编码 JMH 基准：对比原先 readAllBytes + 完整 Base64 字符串 + data URI 拼接的做法与缩放后流式编码，
+ * 返回值为请求负载字符数。单次堆分配字节数看 GC profiler 的 gc.alloc.rate.norm（main 方法已开启，
+ * 命令行运行时加 -prof gc）。不参与单元测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageDownscalerBenchmark {
+    private byte[] source;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 手机拍照常见分辨率，带噪点的 JPEG 原图约数 MB
+        source = photo(4032, 3024);
+    }
+
+    @Benchmark
+    public int readAllBytesBase64() {
+        byte[] bytes = new ByteArrayInputStream(source).readAllBytes();
+        String base64 = Base64.getEncoder().encodeToString(bytes);
+        return ("data:image/jpeg;base64," + base64).length();
+    }
+
+    @Benchmark
+    public int downscaleStream() throws IOException {
+        ImageDownscaler.EncodedImage encoded = ImageDownscaler.encode(new ByteArrayInputStream(source), 1024,
+                0.85f, Integer.MAX_VALUE);
+        return ("data:image/jpeg;base64," + encoded.base64()).length();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageDownscalerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    private static byte[] photo(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(64)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(64)) & 0xFF;
+                int b = random.nextInt(256);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.whut.lostandfoundforwhut.common.utils.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 图片缩放编码测试
+ */
+class ImageDownscalerTest {
+
+    @Test
+    void encode_downscalesLargeImageToMaxSide() throws Exception {
+        byte[] png = image(4000, 3000, BufferedImage.TYPE_INT_RGB, "png");
+
+        ImageDownscaler.EncodedImage encoded = ImageDownscaler.encode(new ByteArrayInputStream(png), 1024, 0.85f,
+                Integer.MAX_VALUE);
+
+        assertEquals("jpeg", encoded.format());
+        assertEquals(1024, encoded.width());
+        assertEquals(768, encoded.height());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(encoded.base64())));
+        assertEquals(1024, decoded.getWidth());
+        assertEquals(768, decoded.getHeight());
+    }
+
+    @Test
+    void encode_flattensTransparentImageOntoWhite() throws Exception {
+        byte[] png = image(200, 100, BufferedImage.TYPE_INT_ARGB, "png");
+
+        ImageDownscaler.EncodedImage encoded = ImageDownscaler.encode(new ByteArrayInputStream(png), 1024, 0.85f,
+                Integer.MAX_VALUE);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(encoded.base64())));
+        assertEquals(200, decoded.getWidth());
+        // 右半边是透明区域
+        Color corner = new Color(decoded.getRGB(190, 50));
+        assertTrue(corner.getRed() > 240 && corner.getGreen() > 240 && corner.getBlue() > 240);
+    }
+
+    @Test
+    void encode_passesThroughUndecodableBytes() throws Exception {
+        byte[] data = "RIFF....WEBPVP8 not really an image".getBytes();
+
+        ImageDownscaler.EncodedImage encoded = ImageDownscaler.encode(new ByteArrayInputStream(data), 1024, 0.85f,
+                Integer.MAX_VALUE);
+
+        assertNull(encoded.format());
+        assertEquals(Base64.getEncoder().encodeToString(data), encoded.base64());
+    }
+
+    @Test
+    void encode_rejectsOversizedSource() throws Exception {
+        byte[] png = image(300, 300, BufferedImage.TYPE_INT_RGB, "png");
+
+        assertThrows(IOException.class,
+                () -> ImageDownscaler.encode(new ByteArrayInputStream(png), 1024, 0.85f, png.length - 1));
+    }
+
+    static byte[] image(int width, int height, int type, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int x = 0; x < width / 2; x += 10) {
+                graphics.setColor(new Color((x * 7) % 256, (x * 13) % 256, (x * 29) % 256));
+                graphics.fillRect(x, 0, 10, height);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+}
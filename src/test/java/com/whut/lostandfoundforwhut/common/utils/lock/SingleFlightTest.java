@@ -0,0 +1,111 @@
+package com.whut.lostandfoundforwhut.common.utils.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 本地请求合并测试
+ */
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_sharesInFlightTaskAndRerunsAfterCompletion() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> first = flights.execute("校园卡", () -> {
+            release.await();
+            return calls.incrementAndGet();
+        }, executor);
+        CompletableFuture<Integer> second = flights.execute("校园卡", calls::incrementAndGet, executor);
+        CompletableFuture<Integer> other = flights.execute("双肩包", () -> 100, executor);
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, second.get(5, TimeUnit.SECONDS));
+        assertEquals(100, other.get(5, TimeUnit.SECONDS));
+        // 完成后到达的请求重新执行
+        assertEquals(2, flights.execute("校园卡", calls::incrementAndGet, executor).get(5, TimeUnit.SECONDS));
+        assertEquals(3L, flights.stats().get("executed"));
+        assertEquals(1L, flights.stats().get("coalesced"));
+        assertEquals(0, flights.stats().get("inFlight"));
+    }
+
+    @Test
+    void cancel_interruptsTaskOnlyWhenAllCallersGiveUp() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Integer> first = flights.execute("校园卡", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+                return 1;
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }, executor);
+        CompletableFuture<Integer> second = flights.execute("校园卡", () -> 2, executor);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        first.cancel(true);
+        assertFalse(interrupted.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(second.isDone());
+
+        second.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1L, flights.stats().get("abandoned"));
+        // 已放弃的任务不再被复用
+        assertEquals(3, flights.execute("校园卡", () -> 3, executor).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_propagatesRejection() throws Exception {
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            saturated.submit(() -> {
+                release.await();
+                return null;
+            });
+            saturated.submit(() -> null);
+            SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+            assertThrows(RejectedExecutionException.class, () -> flights.execute("校园卡", () -> 1, saturated));
+            assertEquals(0, flights.stats().get("inFlight"));
+
+            release.countDown();
+            saturated.shutdown();
+            assertTrue(saturated.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            saturated.shutdownNow();
+        }
+    }
+}
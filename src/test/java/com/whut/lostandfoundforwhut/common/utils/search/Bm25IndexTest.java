@@ -0,0 +1,57 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/15
+ * @description BM25 倒排索引与 RRF 融合测试
+ */
+class Bm25IndexTest {
+
+    @Test
+    void tokenize_keepsAlphanumericRunsAndSplitsHan() {
+        assertEquals(List.of("b12", "栋", "栋门", "门", "iphone15"), TextTokenizer.tokenize("Ｂ12栋门 iPhone15"));
+    }
+
+    @Test
+    void search_exactTokenRanksFirst() {
+        Bm25Index index = new Bm25Index();
+        index.put("item_1", "在图书馆捡到一张校园卡，卡号 2021305678");
+        index.put("item_2", "在食堂丢失校园卡一张");
+        index.put("item_3", "黑色华为耳机，鉴主楼附近");
+
+        List<Bm25Index.SearchResult> results = index.search("卡号2021305678", 3);
+        assertEquals("item_1", results.get(0).id());
+
+        assertEquals("item_3", index.search("华为", 3).get(0).id());
+        assertTrue(index.search("xyz 雨伞", 3).isEmpty());
+    }
+
+    @Test
+    void put_overwritesAndRemoveDropsPostings() {
+        Bm25Index index = new Bm25Index();
+        index.put("item_1", "红色雨伞");
+        index.put("item_1", "蓝色水杯");
+        assertTrue(index.search("雨伞", 5).isEmpty());
+        assertEquals("item_1", index.search("水杯", 5).get(0).id());
+
+        assertTrue(index.remove("item_1"));
+        assertEquals(0, index.size());
+        assertTrue(index.search("水杯", 5).isEmpty());
+    }
+
+    @Test
+    void reciprocalRank_rewardsAgreementAcrossLegs() {
+        List<String> vector = List.of("a", "b", "c");
+        List<String> lexical = List.of("c", "d");
+        List<String> fused = RankFusion.reciprocalRank(List.of(vector, lexical), RankFusion.DEFAULT_RRF_K, 3);
+        assertEquals(List.of("c", "a", "b"), fused);
+        assertEquals(List.of("d"), RankFusion.reciprocalRank(List.of(List.of(), List.of("d")), 60, 5));
+    }
+}
@@ -0,0 +1,94 @@
+package com.whut.lostandfoundforwhut.common.utils.search;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 检索结果缓存测试
+ */
+class SearchResultCacheTest {
+
+    @Test
+    void get_hitsNormalizedKeyUntilExpired() {
+        AtomicLong now = new AtomicLong();
+        SearchResultCache cache = new SearchResultCache(1000, 100, now::get);
+        cache.put(SearchResultCache.key("黑色 双肩包", 5, null), List.of(2L, 1L), cache.stamp());
+
+        assertEquals(List.of(2L, 1L), cache.get(SearchResultCache.key("  黑色   双肩包 ", 5, new VectorFilter())));
+        assertNull(cache.get(SearchResultCache.key("黑色 双肩包", 10, null)));
+        assertNull(cache.get(SearchResultCache.key("黑色 双肩包", 5, VectorFilter.builder().type(1).build())));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.get(SearchResultCache.key("黑色 双肩包", 5, null)));
+    }
+
+    @Test
+    void invalidateItem_dropsOnlyEntriesContainingItem() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+        SearchResultCache.Key bag = SearchResultCache.key("双肩包", 5, null);
+        SearchResultCache.Key card = SearchResultCache.key("校园卡", 5, null);
+        cache.put(bag, List.of(2L, 3L), cache.stamp());
+        cache.put(card, List.of(1L), cache.stamp());
+
+        cache.invalidateItem(3L);
+
+        assertNull(cache.get(bag));
+        assertEquals(List.of(1L), cache.get(card));
+        assertEquals(1L, cache.stats().get("invalidated"));
+    }
+
+    @Test
+    void put_discardsResultComputedBeforeInvalidation() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+        SearchResultCache.Key key = SearchResultCache.key("校园卡", 5, null);
+        long stamp = cache.stamp();
+        // 检索进行中物品被修改
+        cache.invalidateItem(1L);
+        cache.put(key, List.of(1L), stamp);
+        assertNull(cache.get(key));
+
+        cache.put(key, List.of(1L), cache.stamp());
+        assertEquals(List.of(1L), cache.get(key));
+    }
+
+    @Test
+    void put_ignoresInvalidationOfItemsOutsideResult() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+        SearchResultCache.Key key = SearchResultCache.key("校园卡", 5, null);
+        long stamp = cache.stamp();
+        // 检索进行中其他物品被修改，不影响本次结果写入
+        cache.invalidateItem(7L);
+        cache.invalidateItem(8L);
+        cache.put(key, List.of(1L, 2L), stamp);
+        assertEquals(List.of(1L, 2L), cache.get(key));
+
+        // 清空之前开始的检索一律丢弃
+        long beforeClear = cache.stamp();
+        cache.clear();
+        cache.put(key, List.of(1L), beforeClear);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void put_rejectsWhenFullAndReplacedEntryKeepsReverseIndex() {
+        SearchResultCache cache = new SearchResultCache(60_000, 1);
+        SearchResultCache.Key first = SearchResultCache.key("a", 5, null);
+        cache.put(first, List.of(1L), cache.stamp());
+        cache.put(SearchResultCache.key("b", 5, null), List.of(2L), cache.stamp());
+        assertEquals(1L, cache.stats().get("rejected"));
+
+        // 同 Key 覆盖写入后，旧条目摘除反向索引不影响新条目
+        cache.put(first, List.of(1L, 4L), cache.stamp());
+        cache.invalidateItem(4L);
+        assertNull(cache.get(first));
+    }
+}
@@ -0,0 +1,65 @@
+package com.whut.lostandfoundforwhut.common.utils.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/16
+ * @description 向量检索过滤条件测试
+ */
+class VectorFilterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 2, 10, 12, 0);
+
+    @Test
+    void matches_appliesAllConditions() {
+        VectorMetadata metadata = new VectorMetadata(0, 0, VectorMetadata.epochSeconds(CREATED_AT), Set.of(3L, 5L));
+
+        assertTrue(new VectorFilter().matches(null));
+        assertTrue(VectorFilter.builder().type(0).status(0).tagIds(List.of(1L, 5L))
+                .startTime(CREATED_AT.minusDays(1)).endTime(CREATED_AT).build().matches(metadata));
+        assertFalse(VectorFilter.builder().type(1).build().matches(metadata));
+        assertFalse(VectorFilter.builder().tagIds(List.of(1L, 2L)).build().matches(metadata));
+        assertFalse(VectorFilter.builder().startTime(CREATED_AT.plusSeconds(1)).build().matches(metadata));
+        assertFalse(VectorFilter.builder().status(0).build().matches(null));
+    }
+
+    @Test
+    void toChromaWhere_buildsAndOfClauses() {
+        assertNull(new VectorFilter().toChromaWhere());
+        assertEquals(Map.of("type", Map.of("$eq", 1)), VectorFilter.builder().type(1).build().toChromaWhere());
+
+        Map<String, Object> where = VectorFilter.builder()
+                .status(0)
+                .tagIds(List.of(3L, 5L))
+                .endTime(CREATED_AT)
+                .build()
+                .toChromaWhere();
+        assertEquals(Map.of("$and", List.of(
+                Map.of("status", Map.of("$eq", 0)),
+                Map.of("created_at", Map.of("$lte", VectorMetadata.epochSeconds(CREATED_AT))),
+                Map.of("$or", List.of(
+                        Map.of("tag_3", Map.of("$eq", true)),
+                        Map.of("tag_5", Map.of("$eq", true)))))), where);
+    }
+
+    @Test
+    void metadata_roundTripsThroughChroma() {
+        VectorMetadata metadata = new VectorMetadata(1, 0, 1760000000L, Set.of(7L));
+
+        Map<String, Object> chroma = metadata.toChroma();
+        assertEquals(true, chroma.get("tag_7"));
+        assertEquals(metadata, VectorMetadata.fromChroma(chroma));
+        assertNull(VectorMetadata.fromChroma(Map.of()));
+    }
+}
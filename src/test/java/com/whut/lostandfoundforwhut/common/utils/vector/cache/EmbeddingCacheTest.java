@@ -0,0 +1,91 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author DXR
+ * @date 2026/02/12
+ * @description 嵌入向量两级缓存测试
+ */
+@ExtendWith(MockitoExtension.class)
+class EmbeddingCacheTest {
+
+    @Mock
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, byte[]> valueOperations;
+
+    @InjectMocks
+    private EmbeddingCache embeddingCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(embeddingCache, "enabled", true);
+        ReflectionTestUtils.setField(embeddingCache, "localMaxSize", 2);
+        ReflectionTestUtils.setField(embeddingCache, "redisTtlHours", 1L);
+        lenient().when(byteRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void getAll_hitsLocalAfterPutIgnoringWhitespaceAndCase() {
+        float[] vector = {0.1f, 0.2f, 0.3f};
+        embeddingCache.put("m", "校园卡 ABC", vector);
+
+        List<float[]> results = embeddingCache.getAll("m", List.of("  校园卡   abc "));
+
+        assertArrayEquals(vector, results.get(0));
+        verify(valueOperations, never()).multiGet(anyList());
+        assertEquals(1L, embeddingCache.stats().get("localHits"));
+    }
+
+    @Test
+    void getAll_fallsBackToRedisAndDecodesBinary() {
+        float[] vector = {1.5f, -2.25f};
+        when(valueOperations.multiGet(anyList()))
+                .thenReturn(Arrays.asList(EmbeddingCache.encode(vector), null));
+
+        List<float[]> results = embeddingCache.getAll("m", List.of("钥匙", "耳机"));
+
+        assertArrayEquals(vector, results.get(0));
+        assertNull(results.get(1));
+        Map<String, Object> stats = embeddingCache.stats();
+        assertEquals(1L, stats.get("redisHits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondLimit() {
+        embeddingCache.put("m", "a", new float[]{1});
+        embeddingCache.put("m", "b", new float[]{2});
+        embeddingCache.getAll("m", List.of("a"));
+        embeddingCache.put("m", "c", new float[]{3});
+
+        Map<String, Object> stats = embeddingCache.stats();
+        assertEquals(2, stats.get("localSize"));
+        assertEquals(1L, stats.get("evictions"));
+        assertArrayEquals(new float[]{1}, embeddingCache.getAll("m", List.of("a")).get(0));
+        assertNull(embeddingCache.getAll("m", List.of("b")).get(0));
+    }
+}
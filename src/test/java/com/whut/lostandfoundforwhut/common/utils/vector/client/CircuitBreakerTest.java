@@ -0,0 +1,105 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 熔断器与令牌桶测试
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000, now::get);
+
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialAndClosesOnSuccess() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = openBreaker(now);
+
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenTrialFailureReopens() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = openBreaker(now);
+
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        now.addAndGet(999);
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void ignoredTrialReleasesHalfOpenPermit() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = openBreaker(now);
+
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void tokenBucketAllowsBurstThenPacesRequests() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        // 桶已空，不愿等待时拒绝且不预占
+        assertEquals(-1, bucket.reserve(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(TimeUnit.SECONDS.toNanos(1)));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    private static CircuitBreaker openBreaker(AtomicLong now) {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 1000, now::get);
+        for (int i = 0; i < 2; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
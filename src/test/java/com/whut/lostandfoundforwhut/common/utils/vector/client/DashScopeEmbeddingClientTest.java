@@ -0,0 +1,129 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description DashScope 嵌入调用隔离层测试
+ */
+class DashScopeEmbeddingClientTest {
+
+    private DashScopeEmbeddingClient client;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        client = new DashScopeEmbeddingClient();
+        ReflectionTestUtils.setField(client, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMs", 50L);
+        ReflectionTestUtils.setField(client, "requestsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(client, "burst", 100);
+        ReflectionTestUtils.setField(client, "breakerWindowSize", 4);
+        ReflectionTestUtils.setField(client, "breakerMinimumCalls", 2);
+        ReflectionTestUtils.setField(client, "breakerFailureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(client, "breakerOpenDurationMs", 60000L);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.shutdown();
+    }
+
+    @Test
+    void execute_returnsResultAndRecordsLatency() {
+        assertEquals("ok", client.execute("text", 1000, () -> "ok"));
+
+        Map<String, Object> stats = client.stats();
+        assertEquals(1L, stats.get("successes"));
+        assertEquals("CLOSED", stats.get("circuitState"));
+    }
+
+    @Test
+    void execute_timesOutWithoutWaitingForSlowCall() {
+        long start = System.nanoTime();
+
+        assertThrows(EmbeddingUnavailableException.class, () -> client.execute("text", 100, this::blockUntilReleased));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1L, client.stats().get("timeouts"));
+        // 超时的调用仍在执行，继续占用并发名额
+        assertEquals(1, client.stats().get("inFlight"));
+    }
+
+    @Test
+    void execute_rejectsWhenBulkheadIsFull() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch started = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                callers.submit(() -> client.execute("text", 5000, () -> {
+                    started.countDown();
+                    return blockUntilReleased();
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(EmbeddingUnavailableException.class, () -> client.execute("text", 5000, () -> "ok"));
+            assertEquals(1L, client.stats().get("rejectedBulkhead"));
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void execute_opensCircuitAfterFailuresAndFailsFast() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(EmbeddingUnavailableException.class, () -> client.execute("text", 1000, () -> {
+                throw new IllegalStateException("503");
+            }));
+        }
+
+        assertThrows(EmbeddingUnavailableException.class, () -> client.execute("text", 1000, () -> {
+            throw new AssertionError("熔断期间不应发起调用");
+        }));
+        assertEquals("OPEN", client.stats().get("circuitState"));
+        assertEquals(1L, client.stats().get("rejectedCircuitOpen"));
+        assertEquals(2L, client.stats().get("failures"));
+    }
+
+    @Test
+    void execute_rejectsWhenRateLimited() {
+        ReflectionTestUtils.setField(client, "rateLimiter", new TokenBucket(1, 1));
+
+        assertEquals("ok", client.execute("text", 1000, () -> "ok"));
+        assertThrows(EmbeddingUnavailableException.class, () -> client.execute("text", 1000, () -> "ok"));
+        assertEquals(1L, client.stats().get("rejectedRateLimit"));
+    }
+
+    /**
+     * 模拟阻塞在网络读取上的 SDK 调用：不响应中断，直到测试放行
+     */
+    private String blockUntilReleased() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (release.getCount() > 0 && System.nanoTime() < deadline) {
+            try {
+                release.await(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+                // 忽略取消，与阻塞 IO 一致
+            }
+        }
+        return "late";
+    }
+}
@@ -0,0 +1,121 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 嵌入解码 JMH 基准：对比原先按方法名反射查找（含 NoSuchMethodException 回退）并逐个 instanceof 拆箱的做法
+ * 与 EmbeddingDecoder 的直接解码。单次分配字节数看 GC profiler 的 gc.alloc.rate.norm（main 方法已开启，
+ * 命令行运行时加 -prof gc）。不参与单元测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmbeddingDecoderBenchmark {
+    private static final int DIMENSION = 1536;
+
+    private Output output;
+
+    @Setup
+    public void setUp() {
+        List<Double> values = new ArrayList<>(DIMENSION);
+        Random random = new Random(42);
+        for (int i = 0; i < DIMENSION; i++) {
+            values.add(random.nextGaussian());
+        }
+        output = new Output(List.of(values));
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) {
+        blackhole.consume(legacyDecode(output));
+    }
+
+    @Benchmark
+    public void typed(Blackhole blackhole) {
+        blackhole.consume(EmbeddingDecoder.toFloatArray(output.getEmbeddings().get(0)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmbeddingDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * 原 generateMultimodalEmbeddingWithSDK + extractEmbeddingFromResult 的解码流程
+     */
+    private static float[] legacyDecode(Object output) {
+        try {
+            Method getEmbeddingMethod = output.getClass().getMethod("getEmbedding");
+            return toArray((List<?>) getEmbeddingMethod.invoke(output));
+        } catch (Exception e) {
+            String[] methodNames = { "getEmbeddings", "getEmbedding", "getResult", "getData", "getVectors" };
+            for (String methodName : methodNames) {
+                try {
+                    Object embeddingsObj = output.getClass().getMethod(methodName).invoke(output);
+                    if (embeddingsObj instanceof List<?> embeddingsList && !embeddingsList.isEmpty()
+                            && embeddingsList.get(0) instanceof List<?> vectorList) {
+                        return toArray(vectorList);
+                    }
+                } catch (Exception ignored) {
+                    // 继续尝试下一个方法名
+                }
+            }
+            return null;
+        }
+    }
+
+    private static float[] toArray(List<?> vectorList) {
+        float[] embeddingArray = new float[vectorList.size()];
+        for (int i = 0; i < vectorList.size(); i++) {
+            Object value = vectorList.get(i);
+            if (value instanceof Number) {
+                embeddingArray[i] = ((Number) value).floatValue();
+            } else {
+                return null;
+            }
+        }
+        return embeddingArray;
+    }
+
+    /**
+     * 与 SDK 输出结构相同的访问器：只有 getEmbeddings
+     */
+    public static class Output {
+        private final List<List<Double>> embeddings;
+
+        Output(List<List<Double>> embeddings) {
+            this.embeddings = embeddings;
+        }
+
+        public List<List<Double>> getEmbeddings() {
+            return embeddings;
+        }
+    }
+}
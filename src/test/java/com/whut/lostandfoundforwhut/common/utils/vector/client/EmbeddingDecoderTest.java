@@ -0,0 +1,52 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.client;
+
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingOutput;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResult;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResultItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 嵌入结果解码测试
+ */
+class EmbeddingDecoderTest {
+
+    @Test
+    void toFloatArray_convertsValuesAndRejectsNullComponents() {
+        assertArrayEquals(new float[] { 0.5f, -1f, 2f }, EmbeddingDecoder.toFloatArray(List.of(0.5, -1.0, 2.0)));
+        assertNull(EmbeddingDecoder.toFloatArray(List.of()));
+        assertNull(EmbeddingDecoder.toFloatArray(null));
+        assertNull(EmbeddingDecoder.toFloatArray(Arrays.asList(1.0, null)));
+    }
+
+    @Test
+    void decodeMultimodal_returnsFirstNonEmptyEmbedding() {
+        MultiModalEmbeddingResultItem empty = mock(MultiModalEmbeddingResultItem.class);
+        when(empty.getEmbedding()).thenReturn(List.of());
+        MultiModalEmbeddingResultItem item = mock(MultiModalEmbeddingResultItem.class);
+        when(item.getEmbedding()).thenReturn(List.of(0.25, 0.75));
+        MultiModalEmbeddingOutput output = mock(MultiModalEmbeddingOutput.class);
+        when(output.getEmbeddings()).thenReturn(List.of(empty, item));
+        MultiModalEmbeddingResult result = mock(MultiModalEmbeddingResult.class);
+        when(result.getOutput()).thenReturn(output);
+
+        assertArrayEquals(new float[] { 0.25f, 0.75f }, EmbeddingDecoder.decodeMultimodal(result));
+    }
+
+    @Test
+    void decodeMultimodal_handlesMissingOutput() {
+        MultiModalEmbeddingResult result = mock(MultiModalEmbeddingResult.class);
+
+        assertNull(EmbeddingDecoder.decodeMultimodal(result));
+        assertNull(EmbeddingDecoder.decodeMultimodal(null));
+    }
+}
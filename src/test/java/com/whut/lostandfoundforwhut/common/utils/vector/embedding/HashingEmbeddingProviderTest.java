@@ -0,0 +1,104 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 离线嵌入生成器测试
+ */
+class HashingEmbeddingProviderTest {
+
+    @Test
+    void embed_isDeterministicAndNormalized() {
+        HashingEmbeddingProvider provider = new HashingEmbeddingProvider(256);
+
+        float[] first = provider.embed("在图书馆三楼丢了一张校园卡");
+        float[] second = new HashingEmbeddingProvider(256).embed("在图书馆三楼丢了一张校园卡");
+
+        assertEquals(256, first.length);
+        assertArrayEquals(first, second);
+        assertEquals(1.0, dot(first, first), 1e-5);
+    }
+
+    @Test
+    void embed_similarChineseTextsScoreHigherThanUnrelated() {
+        HashingEmbeddingProvider provider = new HashingEmbeddingProvider(1536);
+        float[] card = provider.embed("图书馆丢失校园卡一张，卡套是蓝色的");
+        float[] umbrella = provider.embed("食堂门口捡到一把黑色雨伞");
+
+        float[] query = provider.embedQuery("蓝色卡套的校园卡");
+
+        assertTrue(dot(query, card) > 0.3);
+        assertTrue(dot(query, card) > dot(query, umbrella) + 0.2);
+    }
+
+    @Test
+    void embedQuery_downweightsFeaturesCommonToAllDocuments() {
+        HashingEmbeddingProvider provider = new HashingEmbeddingProvider(1536);
+        float[] phone = provider.embed("丢失 华为 手机");
+        float[] wallet = provider.embed("丢失 钱包");
+        provider.register("phone", "丢失 华为 手机");
+        provider.register("wallet", "丢失 钱包");
+        for (int i = 0; i < 20; i++) {
+            provider.register("item-" + i, "丢失 物品 " + i);
+        }
+
+        // "丢失" 出现在所有文档中，查询 "丢失 手机" 主要由 "手机" 决定
+        float[] query = provider.embedQuery("丢失 手机");
+
+        assertEquals(22, provider.documentCount());
+        assertTrue(dot(query, phone) > 2 * dot(query, wallet));
+    }
+
+    @Test
+    void register_isIdempotentPerDocumentId() {
+        HashingEmbeddingProvider provider = new HashingEmbeddingProvider(1536);
+        provider.register("wallet", "丢失 钱包");
+        provider.register("phone", "丢失 手机");
+        float[] expected = provider.embedQuery("丢失 手机");
+
+        // 生成向量、重复登记（编辑、重试、重放）不改变统计
+        provider.embed("丢失 手机");
+        provider.register("phone", "丢失 手机");
+        provider.register("phone", "丢失 手机");
+        assertEquals(2, provider.documentCount());
+        assertArrayEquals(expected, provider.embedQuery("丢失 手机"));
+
+        // 编辑后替换旧统计，删除后扣除
+        provider.register("card", "校园卡");
+        provider.register("card", "丢失 雨伞");
+        provider.unregister("card");
+        provider.unregister("missing");
+        assertEquals(2, provider.documentCount());
+        assertArrayEquals(expected, provider.embedQuery("丢失 手机"));
+
+        provider.unregister("wallet");
+        provider.unregister("phone");
+        assertEquals(0, provider.documentCount());
+        assertArrayEquals(new HashingEmbeddingProvider(1536).embedQuery("丢失 手机"), provider.embedQuery("丢失 手机"));
+    }
+
+    @Test
+    void embed_emptyTextReturnsZeroVector() {
+        HashingEmbeddingProvider provider = new HashingEmbeddingProvider(64);
+
+        assertArrayEquals(new float[64], provider.embed("，。！"));
+        provider.register("empty", "，。！");
+        assertEquals(0, provider.documentCount());
+        assertThrows(IllegalArgumentException.class, () -> new HashingEmbeddingProvider(0));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,223 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.hnsw;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/10
+ * @description HNSW 索引测试
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void search_recallAgainstBruteForce() {
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(16, 200, 64);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            index.add("item_" + i, vector);
+        }
+
+        int hits = 0;
+        int total = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = bruteForce(vectors, query, 10);
+            for (HnswIndex.SearchResult result : index.search(query, 10)) {
+                if (expected.contains(result.id())) {
+                    hits++;
+                }
+            }
+            total += 10;
+        }
+        assertTrue(hits / (double) total > 0.9, "召回率过低：" + hits / (double) total);
+    }
+
+    @Test
+    void remove_excludesFromResults() {
+        HnswIndex index = new HnswIndex(8, 50, 20);
+        index.add("a", new float[]{1, 0, 0});
+        index.add("b", new float[]{0.9f, 0.1f, 0});
+        index.add("c", new float[]{0, 1, 0});
+
+        assertEquals("a", index.search(new float[]{1, 0, 0}, 1).get(0).id());
+        assertTrue(index.remove("a"));
+        assertFalse(index.contains("a"));
+        assertEquals(2, index.size());
+        assertEquals("b", index.search(new float[]{1, 0, 0}, 1).get(0).id());
+    }
+
+    @Test
+    void add_overwritesExistingId() {
+        HnswIndex index = new HnswIndex(8, 50, 20);
+        index.add("a", new float[]{1, 0, 0});
+        index.add("b", new float[]{0, 1, 0});
+        index.add("a", new float[]{0, 0, 1});
+
+        assertEquals(2, index.size());
+        List<HnswIndex.SearchResult> results = index.search(new float[]{0, 0, 1}, 2);
+        assertEquals("a", results.get(0).id());
+        assertEquals(1.0f, results.get(0).score(), 1e-5);
+    }
+
+    @Test
+    void add_repeatedOverwritesKeepTombstonesBoundedAndRecall() {
+        Random random = new Random(5);
+        HnswIndex index = new HnswIndex(16, 200, 64);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            vectors.add(null);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                float[] vector = randomVector(random);
+                vectors.set(i, vector);
+                index.add("item_" + i, vector);
+            }
+            // 墓碑累积到有效条目的 20% 即修复
+            assertTrue(index.deletedSize() <= 200, "墓碑未修复：" + index.deletedSize());
+        }
+
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = bruteForce(vectors, query, 10);
+            for (HnswIndex.SearchResult result : index.search(query, 10)) {
+                if (expected.contains(result.id())) {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(hits / 500.0 > 0.9, "召回率过低：" + hits / 500.0);
+    }
+
+    @Test
+    void compact_unlinksTombstonesAndReplacesDeletedEntryPoint() {
+        Random random = new Random(9);
+        HnswIndex index = new HnswIndex(8, 100, 32);
+        for (int i = 0; i < 300; i++) {
+            index.add("item_" + i, randomVector(random));
+        }
+        // 删除大部分条目（大概率包含入口点），只留下 item_0 ~ item_19
+        for (int i = 20; i < 300; i++) {
+            index.remove("item_" + i);
+        }
+
+        index.compact();
+
+        assertEquals(0, index.deletedSize());
+        for (int q = 0; q < 10; q++) {
+            List<HnswIndex.SearchResult> results = index.search(randomVector(random), 10);
+            assertEquals(10, results.size());
+            for (HnswIndex.SearchResult result : results) {
+                assertTrue(Integer.parseInt(result.id().substring(5)) < 20, "返回了已删除的条目：" + result.id());
+            }
+        }
+        index.add("item_new", randomVector(random));
+        assertTrue(index.contains("item_new"));
+    }
+
+    @Test
+    void search_withFilterReturnsKMatchingResults() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(16, 200, 64);
+        for (int i = 0; i < 2000; i++) {
+            index.add("item_" + i, randomVector(random));
+        }
+
+        // 只有 1% 的条目满足过滤条件，结果仍应凑满 k 条
+        for (int q = 0; q < 10; q++) {
+            List<HnswIndex.SearchResult> results = index.search(randomVector(random), 10,
+                    id -> Integer.parseInt(id.substring(5)) % 100 == 0);
+            assertEquals(10, results.size());
+            for (HnswIndex.SearchResult result : results) {
+                assertEquals(0, Integer.parseInt(result.id().substring(5)) % 100);
+            }
+        }
+    }
+
+    @Test
+    void add_rejectsDimensionMismatch() {
+        HnswIndex index = new HnswIndex(8, 50, 20);
+        index.add("a", new float[]{1, 0, 0});
+        assertThrows(IllegalArgumentException.class, () -> index.add("b", new float[]{1, 0}));
+    }
+
+    @Test
+    void add_concurrentInsertsAreAllSearchable() throws Exception {
+        HnswIndex index = new HnswIndex(12, 100, 50);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < 250; i++) {
+                    index.add(thread + "_" + i, randomVector(random));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(2000, index.size());
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(10, index.search(randomVector(random), 10).size());
+        }
+    }
+
+    private static Set<String> bruteForce(List<float[]> vectors, float[] query, int k) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> -cosine(vectors.get(i), query)));
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < k; i++) {
+            ids.add("item_" + order.get(i));
+        }
+        return ids;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double na = 0;
+        double nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
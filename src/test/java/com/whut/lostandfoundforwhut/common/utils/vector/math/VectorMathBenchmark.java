@@ -0,0 +1,96 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 向量内核 JMH 基准：标量与 SIMD 内核在 1536 维下对 20000 行逐行点积、int8 量化码点积与一对多批量点积，
+ * 每次调用扫描全部行；内存带宽按矩阵字节数（约 117 MB）除以 dotMany 单次耗时换算。
+ * 分叉的 JVM 已追加 --add-modules jdk.incubator.vector，simd 不可用时直接失败而不是静默退回标量。不参与单元测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class VectorMathBenchmark {
+    private static final int DIMENSION = 1536;
+    private static final int ROWS = 20_000;
+
+    @Param({ "scalar", "simd" })
+    private String kernelName;
+
+    private VectorKernel kernel;
+    private float[] query;
+    private float[] matrix;
+    private byte[] codes;
+    private float[] scores;
+
+    @Setup
+    public void setUp() {
+        kernel = "scalar".equals(kernelName) ? new ScalarKernel() : VectorMath.loadKernel();
+        if (!"scalar".equals(kernelName) && kernel instanceof ScalarKernel) {
+            throw new IllegalStateException("SIMD 内核不可用，请确认 jdk.incubator.vector 模块已加载");
+        }
+        Random random = new Random(42);
+        query = new float[DIMENSION];
+        matrix = new float[ROWS * DIMENSION];
+        codes = new byte[ROWS * DIMENSION];
+        scores = new float[ROWS];
+        for (int i = 0; i < DIMENSION; i++) {
+            query[i] = (float) random.nextGaussian();
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = (float) random.nextGaussian();
+        }
+        random.nextBytes(codes);
+    }
+
+    @Benchmark
+    public float dot() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += kernel.dot(query, 0, matrix, row * DIMENSION, DIMENSION);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float dotBytes() {
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += kernel.dotBytes(query, codes, row * DIMENSION);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float[] dotMany() {
+        kernel.dotMany(query, matrix, ROWS, scores);
+        return scores;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VectorMathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
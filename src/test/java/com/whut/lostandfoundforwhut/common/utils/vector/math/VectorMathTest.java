@@ -0,0 +1,109 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 向量运算测试：标量与 SIMD 内核（可用时）均与双精度朴素实现对比
+ */
+class VectorMathTest {
+    private static final int[] LENGTHS = { 0, 1, 3, 7, 8, 15, 16, 17, 33, 100, 1536 };
+
+    @Test
+    void kernels_matchNaiveDotProduct() {
+        Random random = new Random(7);
+        for (VectorKernel kernel : kernels()) {
+            for (int length : LENGTHS) {
+                float[] a = random(random, length + 5);
+                float[] b = random(random, length + 3);
+                assertEquals(naiveDot(a, 5, b, 3, length), kernel.dot(a, 5, b, 3, length), 1e-3,
+                        kernel.name() + " dot, length " + length);
+
+                byte[] codes = new byte[length + 2];
+                random.nextBytes(codes);
+                float[] weights = random(random, length);
+                double expected = 0;
+                for (int i = 0; i < length; i++) {
+                    expected += weights[i] * codes[2 + i];
+                }
+                assertEquals(expected, kernel.dotBytes(weights, codes, 2), 1e-2,
+                        kernel.name() + " dotBytes, length " + length);
+            }
+        }
+    }
+
+    @Test
+    void kernels_dotManyMatchesRowByRow() {
+        Random random = new Random(11);
+        int dimension = 37;
+        for (VectorKernel kernel : kernels()) {
+            for (int rows : new int[] { 0, 1, 4, 7, 9 }) {
+                float[] query = random(random, dimension);
+                float[] matrix = random(random, rows * dimension);
+                float[] scores = new float[rows];
+                kernel.dotMany(query, matrix, rows, scores);
+                for (int row = 0; row < rows; row++) {
+                    assertEquals(naiveDot(query, 0, matrix, row * dimension, dimension), scores[row], 1e-4,
+                            kernel.name() + " dotMany row " + row + "/" + rows);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cosineAndNormalize() {
+        assertEquals(1f, VectorMath.cosine(new float[] { 1, 2, 3 }, new float[] { 2, 4, 6 }), 1e-6);
+        assertEquals(0f, VectorMath.cosine(new float[] { 1, 0 }, new float[] { 0, 0 }));
+        assertArrayEquals(new float[] { 0.6f, 0.8f }, VectorMath.normalize(new float[] { 3, 4 }), 1e-6f);
+        assertArrayEquals(new float[3], VectorMath.normalize(new float[3]));
+
+        List<float[]> vectors = new ArrayList<>();
+        vectors.add(new float[] { 1, 0 });
+        vectors.add(new float[] { 0.5f, 0.5f });
+        assertArrayEquals(new float[] { 1f, 0.5f }, VectorMath.dotMany(new float[] { 1, 0 }, vectors));
+    }
+
+    @Test
+    void rejectsMismatchedOrOutOfRangeInput() {
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(new float[2], new float[3]));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> VectorMath.dot(new float[4], 2, new float[4], 0, 3));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> VectorMath.dotMany(new float[4], new float[7], 2, new float[2]));
+    }
+
+    private static List<VectorKernel> kernels() {
+        List<VectorKernel> kernels = new ArrayList<>();
+        kernels.add(new ScalarKernel());
+        VectorKernel selected = VectorMath.loadKernel();
+        if (!(selected instanceof ScalarKernel)) {
+            kernels.add(selected);
+        }
+        return kernels;
+    }
+
+    private static float[] random(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double naiveDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += (double) a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
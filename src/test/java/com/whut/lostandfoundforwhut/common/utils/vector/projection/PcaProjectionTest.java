@@ -0,0 +1,110 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.projection;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description PCA 与截断降维投影测试
+ */
+class PcaProjectionTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    void fit_preservesDotProductsOfLowRankData() {
+        Random random = new Random(3);
+        float[][] basis = new float[8][];
+        for (int i = 0; i < basis.length; i++) {
+            basis[i] = gaussian(random, DIMENSION);
+        }
+        List<float[]> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            samples.add(combine(random, basis));
+        }
+
+        PcaProjection projection = PcaProjection.fit(samples, 8, 4);
+        assertEquals(8, projection.dimension());
+        assertTrue(projection.explainedEnergy() > 0.999, "保留能量过低：" + projection.explainedEnergy());
+        // 数据位于 8 维子空间内，投影后的点积与原始点积一致
+        for (int i = 0; i < 20; i++) {
+            float[] a = combine(random, basis);
+            float[] b = combine(random, basis);
+            assertEquals(VectorMath.dot(a, b), VectorMath.dot(projection.project(a), projection.project(b)), 1e-3);
+        }
+    }
+
+    @Test
+    void fit_ordersComponentsByCapturedEnergy() {
+        Random random = new Random(5);
+        List<float[]> samples = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            float[] sample = gaussian(random, DIMENSION);
+            // 前几维方差依次递减，其余维度几乎为零
+            for (int d = 0; d < DIMENSION; d++) {
+                sample[d] *= d < 4 ? 4 - d : 0.01f;
+            }
+            samples.add(VectorMath.normalize(sample));
+        }
+
+        PcaProjection projection = PcaProjection.fit(samples, 4, 6);
+        float[] first = projection.project(unit(0));
+        float[] fourth = projection.project(unit(3));
+        assertEquals(1, Math.abs(first[0]), 1e-2);
+        assertEquals(1, Math.abs(fourth[3]), 1e-2);
+    }
+
+    @Test
+    void trainers_skipWhenProjectionWouldNotReduce() {
+        List<float[]> samples = List.of(new float[]{1, 0, 0, 0}, new float[]{0, 1, 0, 0});
+        assertNull(PcaProjection.trainer(4).fit(samples, 4));
+        assertNull(PcaProjection.trainer(3).fit(samples, 4));
+        // 样本数刚够目标维度时不训练，需达到目标维度的 MIN_SAMPLES_PER_DIMENSION 倍
+        assertNull(PcaProjection.trainer(2).fit(samples, 4));
+        List<float[]> enough = new ArrayList<>();
+        for (int i = 0; i < 2 * PcaProjection.MIN_SAMPLES_PER_DIMENSION; i++) {
+            enough.add(i % 2 == 0 ? new float[]{1, 0, 0, 0} : new float[]{0, 1, 0, 0});
+        }
+        assertNotNull(PcaProjection.trainer(2).fit(enough, 4));
+        assertNull(TruncatingProjection.trainer(4).fit(samples, 4));
+
+        VectorProjection truncating = TruncatingProjection.trainer(2).fit(List.of(), 4);
+        assertArrayEquals(new float[]{0.6f, 0.8f}, truncating.project(new float[]{0.3f, 0.4f, 0.5f, 0.7f}), 1e-6f);
+    }
+
+    private static float[] combine(Random random, float[][] basis) {
+        float[] vector = new float[DIMENSION];
+        for (float[] direction : basis) {
+            float weight = (float) random.nextGaussian();
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] += weight * direction[d];
+            }
+        }
+        return VectorMath.normalize(vector);
+    }
+
+    private static float[] gaussian(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float[] unit(int axis) {
+        float[] vector = new float[DIMENSION];
+        vector[axis] = 1;
+        return vector;
+    }
+}
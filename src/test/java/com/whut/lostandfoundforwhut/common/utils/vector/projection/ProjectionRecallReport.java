@@ -0,0 +1,201 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.projection;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.LocalVectorIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.math.VectorMath;
+import com.whut.lostandfoundforwhut.common.utils.vector.quantized.QuantizedFlatIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.FileVectorStore;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 量化索引降维的召回率 / 耗时报告，用于选择 app.vector-store.quantized.projection、
+ * projection-dimension 与 rerank-factor：每种降维配置建一次索引，重排倍数 f 通过检索 k*f 条后取前 k 条模拟
+ * （候选数相同，结果与 rerank-factor=f 的索引一致），召回率以全维暴力检索的前 k 条为准
+ * 运行方式（无参数时使用合成语料：前缀能量集中的 Matryoshka 式分布及其维度打乱版本）：
+ * java --add-modules jdk.incubator.vector -cp ... ProjectionRecallReport [本地文件存储目录 集合名]
+ */
+public class ProjectionRecallReport {
+    private static final int DIMENSION = 1536;
+    private static final int CORPUS_SIZE = 20_000;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+    private static final int SAMPLE_SIZE = 2048;
+    private static final int[] RERANK_FACTORS = {4, 8, 16, 32};
+    private static final int[] DIMENSIONS = {128, 256};
+
+    public static void main(String[] args) throws Exception {
+        Path workDir = Files.createTempDirectory("projection-report");
+        if (args.length >= 2) {
+            List<float[]> corpus = loadStore(Path.of(args[0]), args[1]);
+            Random random = new Random(42);
+            List<float[]> queries = new ArrayList<>();
+            for (int i = 0; i < QUERIES; i++) {
+                // 以语料中的向量加扰动作为查询
+                queries.add(perturb(random, corpus.get(random.nextInt(corpus.size()))));
+            }
+            report(args[1], corpus, queries, workDir);
+            return;
+        }
+        Random random = new Random(42);
+        int[] permutation = permutation(random, DIMENSION);
+        List<float[]> prefix = new ArrayList<>();
+        List<float[]> shuffled = new ArrayList<>();
+        for (int i = 0; i < CORPUS_SIZE + QUERIES; i++) {
+            float[] vector = decayingVector(random);
+            prefix.add(vector);
+            shuffled.add(permute(vector, permutation));
+        }
+        report("合成-前缀能量集中", prefix.subList(0, CORPUS_SIZE), prefix.subList(CORPUS_SIZE, prefix.size()), workDir);
+        report("合成-维度打乱", shuffled.subList(0, CORPUS_SIZE), shuffled.subList(CORPUS_SIZE, shuffled.size()),
+                workDir);
+    }
+
+    private static void report(String name, List<float[]> corpus, List<float[]> queries, Path workDir)
+            throws Exception {
+        int dimension = corpus.get(0).length;
+        System.out.printf("%n== %s：%d 条，%d 维，%d 次查询，recall@%d ==%n", name, corpus.size(), dimension,
+                queries.size(), K);
+        List<Set<Integer>> expected = new ArrayList<>();
+        long exactStart = System.nanoTime();
+        for (float[] query : queries) {
+            expected.add(bruteForce(corpus, query));
+        }
+        System.out.printf("%-16s %8s %10s %10s%n", "配置", "倍数", "召回率", "耗时ms/次");
+        System.out.printf("%-16s %8s %10.4f %10.3f%n", "全维暴力", "-", 1.0,
+                (System.nanoTime() - exactStart) / 1e6 / queries.size());
+
+        List<String> configs = new ArrayList<>();
+        configs.add("none");
+        for (int target : DIMENSIONS) {
+            configs.add("pca/" + target);
+            configs.add("truncate/" + target);
+        }
+        for (String config : configs) {
+            VectorProjection.Trainer trainer = trainer(config);
+            long buildStart = System.nanoTime();
+            try (QuantizedFlatIndex index = new QuantizedFlatIndex(workDir.resolve(config.replace('/', '-') + ".f32"),
+                    1, trainer, SAMPLE_SIZE)) {
+                for (int i = 0; i < corpus.size(); i++) {
+                    index.add(String.valueOf(i), corpus.get(i));
+                }
+                String label = config + " (" + index.codeDimension() + "维)";
+                System.out.printf("%-16s 建索引 %.1fs%n", label, (System.nanoTime() - buildStart) / 1e9);
+                for (int factor : RERANK_FACTORS) {
+                    int hits = 0;
+                    long start = System.nanoTime();
+                    for (int q = 0; q < queries.size(); q++) {
+                        List<LocalVectorIndex.SearchResult> results = index.search(queries.get(q), K * factor);
+                        for (int i = 0; i < Math.min(K, results.size()); i++) {
+                            if (expected.get(q).contains(Integer.parseInt(results.get(i).id()))) {
+                                hits++;
+                            }
+                        }
+                    }
+                    double latency = (System.nanoTime() - start) / 1e6 / queries.size();
+                    System.out.printf("%-16s %8d %10.4f %10.3f%n", label, factor,
+                            hits / (double) (queries.size() * K), latency);
+                }
+            }
+        }
+    }
+
+    private static VectorProjection.Trainer trainer(String config) {
+        if (config.startsWith("pca/")) {
+            return PcaProjection.trainer(Integer.parseInt(config.substring(4)));
+        }
+        if (config.startsWith("truncate/")) {
+            return TruncatingProjection.trainer(Integer.parseInt(config.substring(9)));
+        }
+        return null;
+    }
+
+    private static Set<Integer> bruteForce(List<float[]> corpus, float[] query) {
+        float[] q = VectorMath.normalize(query);
+        PriorityQueue<float[]> top = new PriorityQueue<>((a, b) -> Float.compare(a[1], b[1]));
+        for (int i = 0; i < corpus.size(); i++) {
+            float score = VectorMath.cosine(q, corpus.get(i));
+            if (top.size() < K) {
+                top.add(new float[]{i, score});
+            } else if (score > top.peek()[1]) {
+                top.poll();
+                top.add(new float[]{i, score});
+            }
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (float[] entry : top) {
+            ids.add((int) entry[0]);
+        }
+        return ids;
+    }
+
+    /**
+     * 各维标准差按幂律衰减，模拟嵌入的谱分布（Matryoshka 模型的能量集中在前缀维度）
+     */
+    private static float[] decayingVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] = (float) (random.nextGaussian() * Math.pow(d + 1, -0.6));
+        }
+        return vector;
+    }
+
+    private static float[] perturb(Random random, float[] vector) {
+        float[] normalized = VectorMath.normalize(vector);
+        float noise = 0.5f / (float) Math.sqrt(normalized.length);
+        for (int d = 0; d < normalized.length; d++) {
+            normalized[d] += (float) random.nextGaussian() * noise;
+        }
+        return normalized;
+    }
+
+    private static int[] permutation(Random random, int size) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+
+    private static float[] permute(float[] vector, int[] permutation) {
+        float[] permuted = new float[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            permuted[permutation[d]] = vector[d];
+        }
+        return permuted;
+    }
+
+    private static List<float[]> loadStore(Path directory, String name) {
+        List<float[]> corpus = new ArrayList<>();
+        try (FileVectorStore store = new FileVectorStore(directory, name)) {
+            int offset = 0;
+            while (true) {
+                VectorStore.Page page = store.scan(offset, 1000);
+                for (float[] vector : page.vectors()) {
+                    if (vector != null) {
+                        corpus.add(vector);
+                    }
+                }
+                offset += page.ids().size();
+                if (page.ids().size() < 1000) {
+                    return corpus;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.quantized;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.LocalVectorIndex;
+import com.whut.lostandfoundforwhut.common.utils.vector.projection.PcaProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/14
+ * @description int8 量化索引测试
+ */
+class QuantizedFlatIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void search_recallAgainstBruteForce() throws Exception {
+        Random random = new Random(42);
+        List<float[]> vectors = new ArrayList<>();
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(tempDir.resolve("vectors.f32"), 8)) {
+            for (int i = 0; i < 3000; i++) {
+                float[] vector = randomVector(random);
+                vectors.add(vector);
+                index.add("item_" + i, vector);
+            }
+            // 每维 1 字节（含扩容余量）仍远小于 float 存储
+            assertTrue(index.codeBytes() < 3000L * DIMENSION * Float.BYTES / 2);
+
+            int hits = 0;
+            int total = 0;
+            for (int q = 0; q < 50; q++) {
+                float[] query = randomVector(random);
+                Set<String> expected = bruteForce(vectors, query, 10);
+                List<LocalVectorIndex.SearchResult> results = index.search(query, 10);
+                assertEquals(10, results.size());
+                for (LocalVectorIndex.SearchResult result : results) {
+                    if (expected.contains(result.id())) {
+                        hits++;
+                    }
+                }
+                total += 10;
+            }
+            assertTrue(hits / (double) total > 0.95, "召回率过低：" + hits / (double) total);
+        }
+    }
+
+    @Test
+    void add_concurrentWritesDuringRecalibrationAreReencoded() throws Exception {
+        Random random = new Random(11);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            vectors.add(randomVector(random));
+        }
+        // 重排候选只有 1 个：量化码错误时自身不会排在第一
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(tempDir.resolve("vectors.f32"), 1)) {
+            // 两个线程交错写入，校准在写锁之外进行时另一线程的写入按旧参数编码，换入时重新编码
+            Thread[] writers = new Thread[2];
+            for (int t = 0; t < writers.length; t++) {
+                int offset = t;
+                writers[t] = new Thread(() -> {
+                    for (int i = offset; i < vectors.size(); i += 2) {
+                        index.add("item_" + i, vectors.get(i));
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            assertEquals(vectors.size(), index.size());
+            for (int i = 0; i < vectors.size(); i++) {
+                LocalVectorIndex.SearchResult top = index.search(vectors.get(i), 1).get(0);
+                assertEquals("item_" + i, top.id());
+                assertEquals(1.0f, top.score(), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    void search_pcaProjectionScansLowDimensionalCodes() throws Exception {
+        Random random = new Random(7);
+        // 能量集中在 16 个方向上，另有少量各向同性噪声，接近真实嵌入的谱衰减
+        float[][] basis = new float[16][];
+        for (int i = 0; i < basis.length; i++) {
+            basis[i] = randomVector(random);
+        }
+        List<float[]> vectors = new ArrayList<>();
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(tempDir.resolve("vectors.f32"), 8,
+                PcaProjection.trainer(16), 512)) {
+            for (int i = 0; i < 2000; i++) {
+                float[] vector = lowRankVector(random, basis);
+                vectors.add(vector);
+                index.add("item_" + i, vector);
+                if (i == 32) {
+                    // 样本数不足目标维度的 4 倍（最近一次校准只有 32 个样本）时仍按全维量化
+                    assertEquals(DIMENSION, index.codeDimension());
+                }
+            }
+            assertEquals(16, index.codeDimension());
+
+            int hits = 0;
+            int total = 0;
+            for (int q = 0; q < 50; q++) {
+                float[] query = lowRankVector(random, basis);
+                Set<String> expected = bruteForce(vectors, query, 10);
+                for (LocalVectorIndex.SearchResult result : index.search(query, 10)) {
+                    if (expected.contains(result.id())) {
+                        hits++;
+                    }
+                }
+                total += 10;
+            }
+            assertTrue(hits / (double) total > 0.9, "召回率过低：" + hits / (double) total);
+
+            index.clear();
+            assertEquals(-1, index.codeDimension());
+            // 样本不足以训练投影时按全维量化
+            index.add("a", new float[]{1, 0, 0});
+            assertEquals(3, index.codeDimension());
+            assertEquals("a", index.search(new float[]{1, 0, 0}, 1).get(0).id());
+        }
+    }
+
+    @Test
+    void search_scoresAreExactAfterRerank() throws Exception {
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(tempDir.resolve("vectors.f32"), 4)) {
+            index.add("a", new float[]{1, 0, 0});
+            index.add("b", new float[]{0.6f, 0.8f, 0});
+            index.add("c", new float[]{0, 0, 1});
+
+            List<LocalVectorIndex.SearchResult> results = index.search(new float[]{2, 0, 0}, 2);
+            assertEquals("a", results.get(0).id());
+            assertEquals(1.0f, results.get(0).score(), 1e-6);
+            assertEquals("b", results.get(1).id());
+            assertEquals(0.6f, results.get(1).score(), 1e-6);
+        }
+    }
+
+    @Test
+    void remove_and_overwrite_reuseSlots() throws Exception {
+        Path file = tempDir.resolve("vectors.f32");
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(file, 4)) {
+            index.add("a", new float[]{1, 0, 0});
+            index.add("b", new float[]{0, 1, 0});
+            assertTrue(index.remove("a"));
+            assertFalse(index.contains("a"));
+            assertFalse(index.remove("a"));
+            index.add("c", new float[]{0, 0, 1});
+            index.add("b", new float[]{1, 0, 0});
+
+            assertEquals(2, index.size());
+            assertEquals(2L * 3 * Float.BYTES, Files.size(file));
+            assertEquals("b", index.search(new float[]{1, 0, 0}, 1).get(0).id());
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void add_rejectsDimensionMismatch() throws Exception {
+        try (QuantizedFlatIndex index = new QuantizedFlatIndex(tempDir.resolve("vectors.f32"), 4)) {
+            index.add("a", new float[]{1, 0, 0});
+            assertThrows(IllegalArgumentException.class, () -> index.add("b", new float[]{1, 0}));
+            index.clear();
+            index.add("b", new float[]{1, 0});
+            assertEquals(2, index.getDimension());
+        }
+    }
+
+    private static Set<String> bruteForce(List<float[]> vectors, float[] query, int k) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> -cosine(vectors.get(i), query)));
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < k; i++) {
+            ids.add("item_" + order.get(i));
+        }
+        return ids;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double na = 0;
+        double nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    private static float[] lowRankVector(Random random, float[][] basis) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < basis.length; i++) {
+            float weight = (float) random.nextGaussian() / (1 + i * 0.2f);
+            for (int d = 0; d < DIMENSION; d++) {
+                vector[d] += weight * basis[i][d];
+            }
+        }
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] += (float) random.nextGaussian() * 0.05f;
+        }
+        return vector;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,119 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 本地文件向量存储测试
+ */
+class FileVectorStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reopen_replaysUpsertsDeletesAndMetadata() {
+        VectorMetadata metadata = new VectorMetadata(1, 0, 1700000000L, Set.of(3L, 7L));
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            store.upsert(List.of("a", "b"), List.of(new float[]{1, 2, 3}, new float[]{3, 2, 1}),
+                    List.of(metadata, new VectorMetadata(null, null, null, Set.of())));
+            store.upsert(List.of("c"), List.of(new float[]{0, 0, 1}), null);
+            store.upsert(List.of("a"), List.of(new float[]{1, 1, 1}), List.of(metadata));
+            store.delete(List.of("b"));
+        }
+
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            assertEquals(2, store.count());
+            VectorStore.Page page = store.scan(0, 10);
+            assertEquals(List.of("a", "c"), page.ids());
+            assertArrayEquals(new float[]{1, 1, 1}, page.vectors().get(0));
+            assertEquals(metadata, page.metadatas().get(0));
+            assertNull(page.metadatas().get(1));
+
+            List<VectorStore.Match> matches = store.query(new float[]{1, 1, 1}, 5,
+                    VectorFilter.builder().tagIds(List.of(7L)).build());
+            assertEquals(List.of("a"), matches.stream().map(VectorStore.Match::id).toList());
+        }
+    }
+
+    @Test
+    void reopen_truncatesTornTail() throws IOException {
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            store.upsert(List.of("a"), List.of(new float[]{1, 0}), null);
+            store.upsert(List.of("b"), List.of(new float[]{0, 1}), null);
+        }
+        Path file = tempDir.resolve("items" + FileVectorStore.FILE_SUFFIX);
+        long intact = Files.size(file);
+        // 模拟写入 "c" 时进程崩溃：只落盘了一部分记录
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 3);
+        }
+
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            assertEquals(1, store.count());
+            assertEquals(List.of("a"), store.scan(0, 10).ids());
+            store.upsert(List.of("c"), List.of(new float[]{1, 1}), null);
+        }
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            assertEquals(List.of("a", "c"), store.scan(0, 10).ids());
+        }
+    }
+
+    @Test
+    void overwrites_compactLogWhenMostRecordsAreGarbage() {
+        Path file = tempDir.resolve("items" + FileVectorStore.FILE_SUFFIX);
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            for (int round = 0; round < 30; round++) {
+                for (int i = 0; i < 100; i++) {
+                    store.upsert(List.of(String.format("item_%03d", i)), List.of(new float[]{round, i}), null);
+                }
+            }
+            assertEquals(100, store.count());
+            assertTrue(store.logRecords() < 1024 + 100, "日志未压缩：" + store.logRecords());
+        }
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            assertEquals(100, store.count());
+            assertArrayEquals(new float[]{29, 42}, store.scan(42, 1).vectors().get(0));
+        }
+        assertFalse(Files.exists(tempDir.resolve("items" + FileVectorStore.FILE_SUFFIX + ".compact")));
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void dropAndRename_replaceLiveCollection() {
+        FileVectorStore live = new FileVectorStore(tempDir, "items");
+        live.upsert(List.of("old"), List.of(new float[]{1, 0}), null);
+        FileVectorStore shadow = new FileVectorStore(tempDir, "items_reindex");
+        shadow.upsert(List.of("new"), List.of(new float[]{0, 1}), null);
+
+        live.drop();
+        shadow.renameTo("items");
+        live.close();
+        shadow.upsert(List.of("newer"), List.of(new float[]{1, 1}), null);
+        shadow.close();
+
+        assertFalse(Files.exists(tempDir.resolve("items_reindex" + FileVectorStore.FILE_SUFFIX)));
+        try (FileVectorStore store = new FileVectorStore(tempDir, "items")) {
+            assertEquals("items", store.name());
+            assertEquals(List.of("new", "newer"), store.scan(0, 10).ids());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 进程内向量存储测试
+ */
+class InMemoryVectorStoreTest {
+
+    @Test
+    void query_returnsTopKByCosineWithFilter() {
+        InMemoryVectorStore store = new InMemoryVectorStore("items");
+        store.upsert(List.of("a", "b", "c"),
+                List.of(new float[]{1, 0}, new float[]{0.8f, 0.6f}, new float[]{0, 1}),
+                List.of(new VectorMetadata(0, 0, 100L, Set.of(1L)),
+                        new VectorMetadata(1, 0, 100L, Set.of()),
+                        new VectorMetadata(0, 0, 100L, Set.of(2L))));
+
+        List<VectorStore.Match> all = store.query(new float[]{2, 0}, 2, null);
+        assertEquals(List.of("a", "b"), all.stream().map(VectorStore.Match::id).toList());
+        assertEquals(1.0, all.get(0).score(), 1e-6);
+        assertEquals(0.8, all.get(1).score(), 1e-6);
+
+        List<VectorStore.Match> found = store.query(new float[]{1, 0}, 2, VectorFilter.builder().type(0).build());
+        assertEquals(List.of("a", "c"), found.stream().map(VectorStore.Match::id).toList());
+    }
+
+    @Test
+    void upsertDeleteAndScan_pagesInIdOrder() {
+        InMemoryVectorStore store = new InMemoryVectorStore("items");
+        List<String> ids = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add("item_" + i);
+            vectors.add(new float[]{i, 1});
+        }
+        store.upsert(ids, vectors, null);
+        store.upsert(List.of("item_3"), List.of(new float[]{9, 9}), null);
+        store.delete(List.of("item_5", "missing"));
+        assertEquals(9, store.count());
+
+        List<String> scanned = new ArrayList<>();
+        for (int offset = 0; ; offset += 4) {
+            VectorStore.Page page = store.scan(offset, 4);
+            scanned.addAll(page.ids());
+            if (page.ids().size() < 4) {
+                break;
+            }
+        }
+        assertEquals(9, scanned.size());
+        assertTrue(!scanned.contains("item_5"));
+        assertEquals(9f, store.scan(3, 1).vectors().get(0)[0]);
+
+        store.drop();
+        assertEquals(0, store.count());
+    }
+}
@@ -0,0 +1,191 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 内存映射向量存储测试
+ */
+class MappedVectorStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reopen_restoresSlotsTombstonesAndMetadata() {
+        VectorMetadata metadata = new VectorMetadata(1, 0, 1700000000L, Set.of(3L, 7L));
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            store.upsert(List.of("a", "b"), List.of(new float[]{3, 4, 0}, new float[]{0, 0, 2}),
+                    List.of(metadata, new VectorMetadata(null, null, null, Set.of())));
+            store.upsert(List.of("c"), List.of(new float[]{0, 1, 0}), null);
+            store.delete(List.of("b"));
+            store.updateMetadata(List.of("c"), List.of(metadata));
+            assertEquals(1, store.deadSlots());
+        }
+
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            assertEquals(2, store.count());
+            VectorStore.Page page = store.scan(0, 10);
+            assertEquals(List.of("a", "c"), page.ids());
+            // 写入前归一化
+            assertArrayEquals(new float[]{0.6f, 0.8f, 0}, page.vectors().get(0), 1e-6f);
+            assertEquals(metadata, page.metadatas().get(1));
+
+            List<VectorStore.Match> matches = store.query(new float[]{0, 1, 0}, 5,
+                    VectorFilter.builder().tagIds(List.of(7L)).build());
+            assertEquals(List.of("c", "a"), matches.stream().map(VectorStore.Match::id).toList());
+            assertEquals(1.0, matches.get(0).score(), 1e-6);
+            assertEquals(0.8, matches.get(1).score(), 1e-6);
+            assertTrue(store.query(new float[]{0, 0, 1}, 5, VectorFilter.builder().type(2).build()).isEmpty());
+        }
+    }
+
+    @Test
+    void reopen_ignoresVectorsWithoutCommittedLogRecord() throws IOException {
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            store.upsert(List.of("a"), List.of(new float[]{1, 0}), null);
+            store.upsert(List.of("b"), List.of(new float[]{0, 1}), null);
+        }
+        Path idLog = tempDir.resolve("items" + MappedVectorStore.DIR_SUFFIX).resolve("ids.log");
+        // 模拟写入 "b" 的日志记录时进程崩溃：向量已落盘，日志记录不完整
+        try (FileChannel channel = FileChannel.open(idLog, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            assertEquals(List.of("a"), store.scan(0, 10).ids());
+            store.upsert(List.of("c"), List.of(new float[]{1, 1}), null);
+        }
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            VectorStore.Page page = store.scan(0, 10);
+            assertEquals(List.of("a", "c"), page.ids());
+            assertEquals(0, store.deadSlots());
+            assertArrayEquals(new float[]{0.70710677f, 0.70710677f}, page.vectors().get(1), 1e-6f);
+        }
+    }
+
+    @Test
+    void compact_dropsDeadSlotsAndSurvivesReopen() throws IOException {
+        Random random = new Random(11);
+        List<String> ids = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(String.format("item_%03d", i));
+            vectors.add(randomVector(random, 16));
+        }
+        Path storeDir = tempDir.resolve("items" + MappedVectorStore.DIR_SUFFIX);
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            store.upsert(ids, vectors, null);
+            store.delete(ids.subList(0, 150));
+            store.upsert(List.of("item_199"), List.of(vectors.get(0)), null);
+            assertEquals(151, store.deadSlots());
+
+            store.compact();
+            assertEquals(0, store.deadSlots());
+            assertEquals(50, store.logRecords());
+            assertEquals(50, store.count());
+            assertTrue(Files.exists(storeDir.resolve("vectors-1.bin")));
+            assertFalse(Files.exists(storeDir.resolve("vectors-0.bin")));
+            assertEquals("item_199", store.query(vectors.get(0), 1, null).get(0).id());
+        }
+
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            VectorStore.Page page = store.scan(0, 100);
+            assertEquals(ids.subList(150, 200), page.ids());
+            assertEquals("item_160", store.query(vectors.get(160), 1, null).get(0).id());
+            store.upsert(List.of("item_000"), List.of(vectors.get(0)), null);
+            assertEquals(51, store.count());
+        }
+    }
+
+    @Test
+    void int8Encoding_approximatesCosineScores() {
+        Random random = new Random(5);
+        float[] query = randomVector(random, 64);
+        float[] near = query.clone();
+        near[0] += 0.3f;
+        float[] far = randomVector(random, 64);
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.INT8)) {
+            store.upsert(List.of("near", "far"), List.of(near, far), null);
+        }
+        // 已有文件按文件头中的编码打开，与配置无关
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            List<VectorStore.Match> matches = store.query(query, 2, null);
+            assertEquals(List.of("near", "far"), matches.stream().map(VectorStore.Match::id).toList());
+            assertEquals(cosine(query, near), matches.get(0).score(), 0.01);
+            assertEquals(cosine(query, far), matches.get(1).score(), 0.01);
+        }
+    }
+
+    @Test
+    void renameToAndDrop_replaceDirectoryAndClearEntries() {
+        try (MappedVectorStore shadow = open("items_reindex", MappedVectorStore.Encoding.FLOAT32)) {
+            shadow.upsert(List.of("a"), List.of(new float[]{1, 0}), null);
+            try (MappedVectorStore live = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+                live.upsert(List.of("old"), List.of(new float[]{0, 1}), null);
+            }
+            shadow.renameTo("items");
+            assertEquals("items", shadow.name());
+            shadow.upsert(List.of("b"), List.of(new float[]{1, 1}), null);
+        }
+        assertFalse(Files.exists(tempDir.resolve("items_reindex" + MappedVectorStore.DIR_SUFFIX)));
+
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            assertEquals(List.of("a", "b"), store.scan(0, 10).ids());
+            store.drop();
+            assertEquals(0, store.count());
+            // 清空后可以写入不同维度
+            store.upsert(List.of("c"), List.of(new float[]{1, 0, 0}), null);
+        }
+        try (MappedVectorStore store = open("items", MappedVectorStore.Encoding.FLOAT32)) {
+            VectorStore.Page page = store.scan(0, 10);
+            assertEquals(List.of("c"), page.ids());
+            assertNull(page.metadatas().get(0));
+            assertEquals(3, page.vectors().get(0).length);
+        }
+    }
+
+    private MappedVectorStore open(String name, MappedVectorStore.Encoding encoding) {
+        return new MappedVectorStore(tempDir, name, encoding);
+    }
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,152 @@
+package com.whut.lostandfoundforwhut.common.utils.vector.store;
+
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author DXR
+ * @date 2026/02/19
+ * @description 物品向量写入本地预写队列测试
+ */
+class VectorWriteQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reopen_restoresUnacknowledgedEntriesInOrder() {
+        Path file = tempDir.resolve("writes.wal");
+        LocalDateTime createdAt = LocalDateTime.of(2026, 2, 19, 8, 30, 15, 123_000_000);
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            queue.appendIndex(item(1L, "黑色双肩包", createdAt), List.of("https://img/1.jpg"), List.of(3L, 7L));
+            queue.appendRemove(2L);
+            queue.appendIndex(item(3L, null, null), null, null);
+            queue.acknowledge(queue.peek(1).get(0).sequence());
+        }
+
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            List<VectorWriteQueue.Entry> entries = queue.peek(10);
+            assertEquals(2, entries.size());
+            assertTrue(entries.get(0).isRemove());
+            assertEquals(2L, entries.get(0).itemId());
+
+            VectorWriteQueue.Entry index = entries.get(1);
+            assertEquals(3L, index.item().getId());
+            assertNull(index.item().getDescription());
+            assertNull(index.item().getImageCount());
+            assertEquals(List.of(), index.imageUrls());
+            // 序号在重启后继续递增
+            assertEquals(index.sequence() + 1, queue.appendRemove(4L).sequence());
+        }
+    }
+
+    @Test
+    void reopen_keepsItemSnapshot() {
+        Path file = tempDir.resolve("writes.wal");
+        LocalDateTime createdAt = LocalDateTime.of(2026, 2, 19, 8, 30, 15, 123_000_000);
+        Item item = item(1L, "黑色双肩包".repeat(20_000), createdAt);
+        item.setUserId(99L);
+        item.setImageCount(2);
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            queue.appendIndex(item, List.of("https://img/1.jpg", "https://img/2.jpg"), List.of(3L, 7L));
+        }
+
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            VectorWriteQueue.Entry entry = queue.peek(1).get(0);
+            assertEquals(item.getDescription(), entry.item().getDescription());
+            assertEquals(1, entry.item().getType());
+            assertEquals(0, entry.item().getStatus());
+            assertEquals(createdAt, entry.item().getCreatedAt());
+            assertEquals(2, entry.item().getImageCount());
+            // 快照只保留重放所需字段
+            assertNull(entry.item().getUserId());
+            assertEquals(List.of("https://img/1.jpg", "https://img/2.jpg"), entry.imageUrls());
+            assertEquals(List.of(3L, 7L), entry.tagIds());
+        }
+    }
+
+    @Test
+    void acknowledge_truncatesFileWhenQueueDrains() throws IOException {
+        Path file = tempDir.resolve("writes.wal");
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            long header = Files.size(file);
+            for (long id = 1; id <= 5; id++) {
+                queue.appendRemove(id);
+            }
+            queue.acknowledge(queue.peek(2).get(1).sequence());
+            assertEquals(3, queue.size());
+            assertEquals(6, queue.logRecords());
+
+            queue.acknowledge(queue.peek(3).get(2).sequence());
+            assertEquals(0, queue.size());
+            assertEquals(0, queue.logRecords());
+            assertEquals(header, Files.size(file));
+        }
+    }
+
+    @Test
+    void acknowledge_compactsWhenAcksDominate() throws IOException {
+        Path file = tempDir.resolve("writes.wal");
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            for (long id = 1; id <= 1500; id++) {
+                queue.appendRemove(id);
+            }
+            for (int i = 0; i < 1490; i++) {
+                queue.acknowledge(queue.peek(1).get(0).sequence());
+            }
+            assertEquals(10, queue.size());
+            assertTrue(queue.logRecords() < 1500, "确认后未压缩：" + queue.logRecords());
+        }
+
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            List<VectorWriteQueue.Entry> entries = queue.peek(100);
+            assertEquals(10, entries.size());
+            assertEquals(1491L, entries.get(0).itemId());
+            assertEquals(1500L, entries.get(9).itemId());
+        }
+    }
+
+    @Test
+    void reopen_truncatesTornTail() throws IOException {
+        Path file = tempDir.resolve("writes.wal");
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            queue.appendRemove(1L);
+            queue.appendRemove(2L);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            assertEquals(1, queue.size());
+            queue.appendRemove(3L);
+        }
+        try (VectorWriteQueue queue = new VectorWriteQueue(file)) {
+            List<VectorWriteQueue.Entry> entries = queue.peek(10);
+            assertEquals(List.of(1L, 3L), entries.stream().map(VectorWriteQueue.Entry::itemId).toList());
+        }
+    }
+
+    private static Item item(Long id, String description, LocalDateTime createdAt) {
+        return Item.builder()
+                .id(id)
+                .type(1)
+                .status(0)
+                .description(description)
+                .createdAt(createdAt)
+                .build();
+    }
+}
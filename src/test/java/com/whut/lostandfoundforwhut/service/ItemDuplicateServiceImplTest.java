@@ -0,0 +1,134 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemType;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.service.impl.ItemDuplicateServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemDuplicateServiceImplTest {
+    private static final String DESCRIPTION = "在鉴湖校区图书馆三楼丢失一个黑色双肩包，里面有笔记本电脑和校园卡";
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @InjectMocks
+    private ItemDuplicateServiceImpl itemDuplicateService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemDuplicateService, "enabled", true);
+        ReflectionTestUtils.setField(itemDuplicateService, "maxDistance", 3);
+        ReflectionTestUtils.setField(itemDuplicateService, "minFeatures", 8);
+        itemDuplicateService.init();
+    }
+
+    @Test
+    void checkAndRegister_rejectsSameUserAndTypeOnly() {
+        Item first = item(1L, 7L, ItemType.LOST, DESCRIPTION);
+        assertNull(itemDuplicateService.checkAndRegister(first));
+        when(itemMapper.selectById(1L)).thenReturn(first);
+
+        assertEquals(1L, itemDuplicateService.checkAndRegister(item(2L, 7L, ItemType.LOST, DESCRIPTION + "！")));
+        assertNull(itemDuplicateService.checkAndRegister(item(3L, 8L, ItemType.LOST, DESCRIPTION)));
+        assertNull(itemDuplicateService.checkAndRegister(item(4L, 7L, ItemType.FOUND, DESCRIPTION)));
+    }
+
+    @Test
+    void checkAndRegister_dropsCandidatesNoLongerActive() {
+        Item first = item(1L, 7L, ItemType.LOST, DESCRIPTION);
+        itemDuplicateService.checkAndRegister(first);
+        // 物品已在数据库中结束，但没有经过服务层移出检测范围
+        Item closed = item(1L, 7L, ItemType.LOST, DESCRIPTION);
+        closed.setStatus(ItemStatus.CLOSED.getCode());
+        when(itemMapper.selectById(1L)).thenReturn(closed);
+
+        assertNull(itemDuplicateService.checkAndRegister(item(2L, 7L, ItemType.LOST, DESCRIPTION)));
+        when(itemMapper.selectById(2L)).thenReturn(item(2L, 7L, ItemType.LOST, DESCRIPTION));
+        assertEquals(2L, itemDuplicateService.checkAndRegister(item(3L, 7L, ItemType.LOST, DESCRIPTION)));
+    }
+
+    @Test
+    void checkAndRegister_shortDescriptionsRequireIdenticalFingerprint() {
+        Item keys = item(1L, 7L, ItemType.LOST, "钥匙");
+        assertNull(itemDuplicateService.checkAndRegister(keys));
+        when(itemMapper.selectById(1L)).thenReturn(keys);
+
+        assertEquals(1L, itemDuplicateService.checkAndRegister(item(2L, 7L, ItemType.LOST, "钥匙。")));
+        assertNull(itemDuplicateService.checkAndRegister(item(3L, 7L, ItemType.LOST, "耳机")));
+
+        itemDuplicateService.remove(1L);
+        assertNull(itemDuplicateService.checkAndRegister(item(4L, 7L, ItemType.LOST, "钥匙")));
+    }
+
+    @Test
+    void findDuplicate_detectsEditIntoOtherActiveItemButNotItself() {
+        Item first = item(1L, 7L, ItemType.LOST, DESCRIPTION);
+        itemDuplicateService.checkAndRegister(first);
+        itemDuplicateService.checkAndRegister(item(2L, 7L, ItemType.LOST, "蓝色水杯"));
+        when(itemMapper.selectById(1L)).thenReturn(first);
+
+        assertNull(itemDuplicateService.findDuplicate(item(1L, 7L, ItemType.LOST, DESCRIPTION + "！")));
+        assertEquals(1L, itemDuplicateService.findDuplicate(item(2L, 7L, ItemType.LOST, DESCRIPTION)));
+    }
+
+    @Test
+    void updateAndRemove_applyOnlyAfterCommit() {
+        Item first = item(1L, 7L, ItemType.LOST, DESCRIPTION);
+        itemDuplicateService.checkAndRegister(first);
+        when(itemMapper.selectById(1L)).thenReturn(first);
+
+        // 下架回滚：物品仍有效，仍在检测范围内
+        inTransaction(() -> itemDuplicateService.remove(1L), TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(1L, itemDuplicateService.checkAndRegister(item(2L, 7L, ItemType.LOST, DESCRIPTION)));
+
+        // 编辑回滚：不留下新描述的指纹
+        inTransaction(() -> itemDuplicateService.update(item(1L, 7L, ItemType.LOST, "红色雨伞")),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertNull(itemDuplicateService.findDuplicate(item(3L, 7L, ItemType.LOST, "红色雨伞")));
+
+        inTransaction(() -> itemDuplicateService.remove(1L), TransactionSynchronization.STATUS_COMMITTED);
+        assertNull(itemDuplicateService.checkAndRegister(item(4L, 7L, ItemType.LOST, DESCRIPTION)));
+    }
+
+    private static void inTransaction(Runnable action, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Item item(Long id, Long userId, ItemType type, String description) {
+        return Item.builder()
+                .id(id)
+                .userId(userId)
+                .type(type.getCode())
+                .status(ItemStatus.ACTIVE.getCode())
+                .description(description)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemType;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMatchMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemMatch;
+import com.whut.lostandfoundforwhut.model.vo.ItemMatchVO;
+import com.whut.lostandfoundforwhut.service.impl.ItemMatchServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemMatchServiceImplTest {
+
+    @Mock
+    private ItemMatchMapper itemMatchMapper;
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @Mock
+    private IVectorService vectorService;
+
+    @InjectMocks
+    private ItemMatchServiceImpl itemMatchService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemMatchService, "enabled", true);
+        ReflectionTestUtils.setField(itemMatchService, "topK", 3);
+        ReflectionTestUtils.setField(itemMatchService, "minScore", 0.5);
+    }
+
+    @Test
+    void refreshMatches_searchesOppositeTypeAndUpdatesBothDirections() {
+        Item lost = Item.builder().id(1L).type(ItemType.LOST.getCode()).description("黑色钱包").build();
+        when(vectorService.searchScoredInCollection(eq("黑色钱包"), eq(3), any())).thenReturn(List.of(
+                new VectorStore.Match("item_5", 0.9),
+                new VectorStore.Match("item_6", 0.7),
+                new VectorStore.Match("item_7", 0.3)));
+        // 物品 8 之前把物品 1 列为候选，本次已不在近邻中
+        when(itemMatchMapper.selectItemIdsByCandidateId(1L)).thenReturn(List.of(5L, 8L));
+
+        itemMatchService.refreshMatches(lost);
+
+        ArgumentCaptor<VectorFilter> filterCaptor = ArgumentCaptor.forClass(VectorFilter.class);
+        verify(vectorService).searchScoredInCollection(eq("黑色钱包"), eq(3), filterCaptor.capture());
+        assertEquals(ItemType.FOUND.getCode(), filterCaptor.getValue().getType());
+        assertEquals(ItemStatus.ACTIVE.getCode(), filterCaptor.getValue().getStatus());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ItemMatch>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(itemMatchMapper);
+        order.verify(itemMatchMapper).upsertBatch(rowsCaptor.capture());
+        order.verify(itemMatchMapper).deleteStale(1L, Set.of(5L, 6L));
+        List<ItemMatch> rows = rowsCaptor.getValue();
+        // 低于最低相似度的候选不保存，每对物品双向各一行
+        assertEquals(4, rows.size());
+        assertEquals(List.of(1L, 5L, 1L, 6L), rows.stream().map(ItemMatch::getItemId).toList());
+        assertEquals(List.of(5L, 1L, 6L, 1L), rows.stream().map(ItemMatch::getCandidateId).toList());
+        assertEquals(0.9, rows.get(1).getScore());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> staleCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(itemMatchMapper).deleteByCandidate(eq(1L), staleCaptor.capture());
+        assertEquals(Set.of(8L), Set.copyOf(staleCaptor.getValue()));
+        verify(itemMatchMapper).trimToTopK(5L, 3);
+        verify(itemMatchMapper).trimToTopK(6L, 3);
+    }
+
+    @Test
+    void refreshMatches_withoutCandidatesClearsExistingMatches() {
+        Item found = Item.builder().id(2L).type(ItemType.FOUND.getCode()).description("校园卡").build();
+        when(vectorService.searchScoredInCollection(anyString(), anyInt(), any())).thenReturn(List.of());
+        when(itemMatchMapper.selectItemIdsByCandidateId(2L)).thenReturn(List.of());
+
+        itemMatchService.refreshMatches(found);
+
+        verify(itemMatchMapper, never()).upsertBatch(anyList());
+        verify(itemMatchMapper).deleteStale(2L, Set.of());
+        verify(itemMatchMapper, never()).deleteByCandidate(anyLong(), anyCollection());
+    }
+
+    @Test
+    void getMatches_readsPrecomputedRowsInScoreOrder() {
+        when(itemMatchMapper.selectTopByItemId(1L, 3)).thenReturn(List.of(
+                ItemMatch.builder().itemId(1L).candidateId(6L).score(0.8).build(),
+                ItemMatch.builder().itemId(1L).candidateId(5L).score(0.6).build()));
+        when(itemMapper.selectList(any())).thenReturn(List.of(
+                Item.builder().id(5L).build(),
+                Item.builder().id(6L).build()));
+
+        List<ItemMatchVO> matches = itemMatchService.getMatches(1L, 20);
+
+        assertEquals(List.of(6L, 5L), matches.stream().map(match -> match.getItem().getId()).toList());
+        assertEquals(0.8, matches.get(0).getScore());
+        verify(vectorService, never()).searchScoredInCollection(anyString(), anyInt(), any());
+    }
+}
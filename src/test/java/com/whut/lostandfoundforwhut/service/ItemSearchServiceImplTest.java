@@ -0,0 +1,221 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.service.impl.ItemSearchServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchServiceImplTest {
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @Mock
+    private ItemTagMapper itemTagMapper;
+
+    @Mock
+    private IVectorService vectorService;
+
+    @InjectMocks
+    private ItemSearchServiceImpl itemSearchService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemSearchService, "vectorTimeoutMs", 200L);
+        ReflectionTestUtils.setField(itemSearchService, "vectorThreads", 2);
+        ReflectionTestUtils.setField(itemSearchService, "rrfK", 60);
+        ReflectionTestUtils.setField(itemSearchService, "singleFlightEnabled", true);
+        itemSearchService.init();
+        itemSearchService.indexItem(item(1L, "校园卡 卡号 2021305678", "图书馆"), List.of());
+        itemSearchService.indexItem(item(2L, "黑色双肩包", "鉴主楼"), List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemSearchService.shutdown();
+    }
+
+    @Test
+    void searchItemIds_fusesVectorAndLexicalResults() {
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenReturn(List.of("item_2", "item_1"));
+
+        assertEquals(List.of(1L, 2L), itemSearchService.searchItemIds("2021305678", 5, null));
+    }
+
+    @Test
+    void searchItemIds_fallsBackToLexicalWhenVectorFails() {
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenThrow(new IllegalStateException("down"));
+
+        assertEquals(List.of(1L), itemSearchService.searchItemIds("2021305678", 5, null));
+    }
+
+    @Test
+    void searchItemIds_fallsBackToLexicalWhenVectorTimesOut() {
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return List.of("item_2");
+        });
+
+        long start = System.currentTimeMillis();
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test
+    void searchItemIds_appliesFilterInBothLegs() {
+        itemSearchService.indexItem(item(3L, "校园卡 2021305678 已找到", "南湖"), List.of(9L));
+        VectorFilter filter = VectorFilter.builder().tagIds(List.of(9L)).build();
+        when(vectorService.searchInCollection(anyString(), anyInt(), eq(filter))).thenReturn(List.of("item_3"));
+
+        // 关键词召回同样按标签过滤，item_1 虽然命中关键词也不会返回
+        assertEquals(List.of(3L), itemSearchService.searchItemIds("2021305678", 5, filter));
+    }
+
+    @Test
+    void searchItemIds_cachesCompleteResultsUntilItemChanges() {
+        ReflectionTestUtils.setField(itemSearchService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(itemSearchService, "cacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(itemSearchService, "cacheMaxEntries", 100);
+        itemSearchService.shutdown();
+        itemSearchService.init();
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenReturn(List.of("item_2"));
+
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        verify(vectorService, times(1)).searchInCollection(anyString(), anyInt(), any());
+
+        itemSearchService.invalidateCachedResults(2L);
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        verify(vectorService, times(2)).searchInCollection(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void searchItemIds_cachesUnlessResultItemChangesDuringSearch() {
+        ReflectionTestUtils.setField(itemSearchService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(itemSearchService, "cacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(itemSearchService, "cacheMaxEntries", 100);
+        itemSearchService.shutdown();
+        itemSearchService.init();
+        AtomicLong changedDuringSearch = new AtomicLong(9L);
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            itemSearchService.invalidateCachedResults(changedDuringSearch.get());
+            return List.of("item_2");
+        });
+
+        // 检索期间只有结果之外的物品变更，结果照常缓存
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 5, null));
+        verify(vectorService, times(1)).searchInCollection(anyString(), anyInt(), any());
+
+        // 检索期间结果中的物品变更，结果不写入缓存
+        changedDuringSearch.set(2L);
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 4, null));
+        assertEquals(List.of(2L), itemSearchService.searchItemIds("双肩包", 4, null));
+        verify(vectorService, times(3)).searchInCollection(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void searchItemIds_doesNotCacheDegradedResults() {
+        ReflectionTestUtils.setField(itemSearchService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(itemSearchService, "cacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(itemSearchService, "cacheMaxEntries", 100);
+        itemSearchService.shutdown();
+        itemSearchService.init();
+        when(vectorService.searchInCollection(anyString(), anyInt(), any()))
+                .thenThrow(new IllegalStateException("down"))
+                .thenReturn(List.of("item_2", "item_1"));
+
+        assertEquals(List.of(1L), itemSearchService.searchItemIds("2021305678", 5, null));
+        assertEquals(List.of(1L, 2L), itemSearchService.searchItemIds("2021305678", 5, null));
+    }
+
+    @Test
+    void searchItemIds_coalescesConcurrentIdenticalQueries() throws Exception {
+        ReflectionTestUtils.setField(itemSearchService, "vectorTimeoutMs", 5000L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            release.await();
+            return List.of("item_2", "item_1");
+        });
+
+        int callers = 5;
+        ExecutorService callerPool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                // 规范化后相同的查询
+                String query = i % 2 == 0 ? "2021305678" : " 2021305678 ";
+                results.add(callerPool.submit(() -> itemSearchService.searchItemIds(query, 5, null)));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalesced() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<List<Long>> result : results) {
+                assertEquals(List.of(1L, 2L), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callerPool.shutdownNow();
+        }
+        verify(vectorService, times(1)).searchInCollection(anyString(), anyInt(), any());
+        assertEquals((long) callers - 1, coalesced());
+    }
+
+    @Test
+    void indexItem_closedItemIsRemoved() {
+        Item closed = item(1L, "校园卡 卡号 2021305678", "图书馆");
+        closed.setStatus(ItemStatus.CLOSED.getCode());
+        itemSearchService.indexItem(closed, List.of());
+        when(vectorService.searchInCollection(anyString(), anyInt(), any())).thenReturn(List.of());
+
+        assertTrue(itemSearchService.searchItemIds("2021305678", 5, null).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long coalesced() {
+        Map<String, Object> stats = (Map<String, Object>) itemSearchService.getCacheStats().get("singleFlight");
+        return (long) stats.get("coalesced");
+    }
+
+    private static Item item(Long id, String description, String eventPlace) {
+        return Item.builder()
+                .id(id)
+                .description(description)
+                .eventPlace(eventPlace)
+                .status(ItemStatus.ACTIVE.getCode())
+                .build();
+    }
+}
@@ -2,11 +2,14 @@ package com.whut.lostandfoundforwhut.service;
 
 import com.whut.lostandfoundforwhut.common.enums.ResponseCode;
 import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
 import com.whut.lostandfoundforwhut.common.exception.AppException;
+import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
 import com.whut.lostandfoundforwhut.mapper.ItemMapper;
 import com.whut.lostandfoundforwhut.mapper.UserMapper;
 import com.whut.lostandfoundforwhut.model.dto.ItemDTO;
 import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.User;
 import com.whut.lostandfoundforwhut.service.impl.ItemServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,8 +17,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +35,24 @@ class ItemServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private ItemImageMapper itemImageMapper;
+
+    @Mock
+    private IImageService imageService;
+
+    @Mock
+    private ITagService tagService;
+
+    @Mock
+    private IItemSearchService itemSearchService;
+
+    @Mock
+    private IItemDuplicateService itemDuplicateService;
+
+    @Mock
+    private IVectorOutboxService vectorOutboxService;
+
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -37,6 +63,20 @@ class ItemServiceImplTest {
         assertEquals(ResponseCode.USER_NOT_FOUND.getCode(), ex.getCode());
     }
 
+    @Test
+    void addItem_rejectsDuplicateBeforeIndexing() {
+        when(userMapper.selectById(1L)).thenReturn(new User());
+        when(itemDuplicateService.checkAndRegister(any(Item.class))).thenReturn(5L);
+        ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setDescription("黑色双肩包");
+
+        AppException ex = assertThrows(AppException.class, () -> itemService.addItem(itemDTO, 1L));
+
+        assertEquals(ResponseCode.ITEM_DUPLICATE.getCode(), ex.getCode());
+        verify(itemMapper).insert(any(Item.class));
+        verify(vectorOutboxService, never()).enqueue(any(), any(), any());
+    }
+
     @Test
     void updateItem_throwsWhenUserMismatch() {
         Item existing = new Item();
@@ -46,6 +86,62 @@ class ItemServiceImplTest {
         assertEquals(ResponseCode.NO_PERMISSION.getCode(), ex.getCode());
     }
 
+    @Test
+    void updateItem_rejectsEditThatDuplicatesAnotherItem() {
+        Item existing = new Item();
+        existing.setId(10L);
+        existing.setUserId(1L);
+        existing.setStatus(ItemStatus.ACTIVE.getCode());
+        when(itemMapper.selectById(10L)).thenReturn(existing);
+        when(itemDuplicateService.findDuplicate(existing)).thenReturn(5L);
+        ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setDescription("黑色双肩包");
+
+        AppException ex = assertThrows(AppException.class, () -> itemService.updateItem(10L, itemDTO, 1L));
+
+        assertEquals(ResponseCode.ITEM_DUPLICATE.getCode(), ex.getCode());
+        verify(itemMapper, never()).updateById(any(Item.class));
+        verify(vectorOutboxService, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void updateItem_reindexesAllImagesWhenImageReplaced() {
+        Item existing = new Item();
+        existing.setId(10L);
+        existing.setUserId(1L);
+        existing.setStatus(ItemStatus.ACTIVE.getCode());
+        when(itemMapper.selectById(10L)).thenReturn(existing);
+        when(itemDuplicateService.findDuplicate(existing)).thenReturn(null);
+        when(itemImageMapper.getImageIdsByItemId(10L)).thenReturn(List.of(7L));
+        when(itemImageMapper.insertItemImages(10L, List.of(8L))).thenReturn(true);
+        ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setImageId("8");
+
+        itemService.updateItem(10L, itemDTO, 1L);
+
+        // 被替换的图片不能继续参与匹配，新图片需要重新嵌入
+        verify(vectorOutboxService).enqueue(10L, VectorOutboxOperation.REINDEX, null);
+        verify(imageService).deleteImagesAndFiles(List.of(7L));
+    }
+
+    @Test
+    void updateItem_textOnlyEditEnqueuesUpdate() {
+        Item existing = new Item();
+        existing.setId(10L);
+        existing.setUserId(1L);
+        existing.setStatus(ItemStatus.ACTIVE.getCode());
+        when(itemMapper.selectById(10L)).thenReturn(existing);
+        when(itemDuplicateService.findDuplicate(existing)).thenReturn(null);
+        when(itemImageMapper.getImageIdsByItemId(10L)).thenReturn(List.of(7L));
+        ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setDescription("黑色双肩包 内有笔记本");
+        itemDTO.setImageId("7");
+
+        itemService.updateItem(10L, itemDTO, 1L);
+
+        verify(vectorOutboxService).enqueue(10L, VectorOutboxOperation.UPDATE, null);
+    }
+
     @Test
     void takeDownItem_throwsWhenAlreadyClosed() {
         Item existing = new Item();
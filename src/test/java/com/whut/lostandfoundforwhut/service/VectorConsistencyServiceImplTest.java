@@ -0,0 +1,192 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.vo.VectorConsistencyReportVO;
+import com.whut.lostandfoundforwhut.service.impl.VectorConsistencyServiceImpl;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VectorConsistencyServiceImplTest {
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @Mock
+    private IVectorService vectorService;
+
+    @Mock
+    private IVectorOutboxService vectorOutboxService;
+
+    @InjectMocks
+    private VectorConsistencyServiceImpl vectorConsistencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(vectorConsistencyService, "graceSeconds", 600L);
+        ReflectionTestUtils.setField(vectorConsistencyService, "maxRepairs", 1000);
+        // 按类型分区：失物在 0 分区，招领在 1 分区
+        lenient().when(vectorService.partitionTypeOf(0)).thenReturn(0);
+        lenient().when(vectorService.partitionTypeOf(1)).thenReturn(1);
+    }
+
+    @Test
+    void check_repairsOnlyDifferences() {
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+        streamItems(
+                item(1L, 0, ItemStatus.ACTIVE, old),
+                item(2L, 0, ItemStatus.ACTIVE, old),
+                item(3L, 1, ItemStatus.CLOSED, old),
+                item(4L, 1, ItemStatus.ACTIVE, old),
+                item(6L, 0, ItemStatus.ACTIVE, LocalDateTime.now()));
+        scanIndexed(new Object[][]{
+                {7L, null, -1}, {1L, 0, -1}, {3L, 1, -1}, {1L, 0, -1}, {4L, null, -1}, {5L, 0, -1}});
+
+        VectorConsistencyReportVO report = vectorConsistencyService.check();
+
+        assertNull(report.getError());
+        assertEquals(5, report.getDatabaseItems());
+        assertEquals(5, report.getIndexedItems());
+        assertEquals(1, report.getMissing());
+        assertEquals(2, report.getOrphaned());
+        assertEquals(1, report.getClosedIndexed());
+        assertEquals(1, report.getMisplaced());
+        assertEquals(1, report.getSkippedRecent());
+        assertEquals(5, report.getRepaired());
+        assertFalse(report.isRepairLimitReached());
+        verify(vectorOutboxService).enqueue(2L, VectorOutboxOperation.REINDEX, null);
+        verify(vectorOutboxService).enqueue(3L, VectorOutboxOperation.REMOVE, null);
+        verify(vectorOutboxService).enqueue(4L, VectorOutboxOperation.REINDEX, null);
+        verify(vectorOutboxService).enqueue(5L, VectorOutboxOperation.REMOVE, null);
+        verify(vectorOutboxService).enqueue(7L, VectorOutboxOperation.REMOVE, null);
+        verifyNoMoreInteractions(vectorOutboxService);
+        assertSame(report, vectorConsistencyService.getLastReport());
+    }
+
+    @Test
+    void check_comparesImageVectorsWithImageCount() {
+        when(vectorService.supportsImageEmbedding()).thenReturn(true);
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+        streamItems(
+                item(1L, 0, ItemStatus.ACTIVE, old, 2),
+                item(2L, 0, ItemStatus.ACTIVE, old, 2),
+                item(3L, 0, ItemStatus.ACTIVE, old, 0),
+                item(4L, 0, ItemStatus.ACTIVE, old, 12),
+                item(5L, 0, ItemStatus.ACTIVE, old, 1));
+        List<Object[]> entries = new ArrayList<>(List.of(
+                new Object[]{1L, 0, -1}, new Object[]{1L, 0, 0}, new Object[]{1L, 0, 1},
+                new Object[]{2L, 0, -1},
+                new Object[]{3L, 0, -1}, new Object[]{3L, 0, 0},
+                new Object[]{4L, 0, -1}));
+        // 超过槽位数的图片不生成向量，9 个图片向量即为完整
+        for (int slot = 0; slot < 9; slot++) {
+            entries.add(new Object[]{4L, 0, slot});
+        }
+        scanIndexed(entries.toArray(new Object[0][]));
+
+        VectorConsistencyReportVO report = vectorConsistencyService.check();
+
+        assertEquals(4, report.getIndexedItems());
+        assertEquals(2, report.getImageMismatched());
+        assertEquals(1, report.getMissing());
+        assertEquals(3, report.getRepaired());
+        verify(vectorOutboxService).enqueue(2L, VectorOutboxOperation.REINDEX, null);
+        verify(vectorOutboxService).enqueue(3L, VectorOutboxOperation.REINDEX, null);
+        verify(vectorOutboxService).enqueue(5L, VectorOutboxOperation.REINDEX, null);
+        verifyNoMoreInteractions(vectorOutboxService);
+    }
+
+    @Test
+    void check_stopsRepairingAtLimit() {
+        ReflectionTestUtils.setField(vectorConsistencyService, "maxRepairs", 1);
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+        streamItems(item(2L, 0, ItemStatus.CLOSED, old), item(3L, 0, ItemStatus.CLOSED, old));
+        scanIndexed(new Object[][]{{2L, 0, -1}, {3L, 0, -1}});
+
+        VectorConsistencyReportVO report = vectorConsistencyService.check();
+
+        assertEquals(2, report.getClosedIndexed());
+        assertEquals(1, report.getRepaired());
+        assertTrue(report.isRepairLimitReached());
+        verify(vectorOutboxService).enqueue(2L, VectorOutboxOperation.REMOVE, null);
+        verifyNoMoreInteractions(vectorOutboxService);
+    }
+
+    @Test
+    void check_skipsWhenStoreUnavailable() {
+        doThrow(new IllegalStateException("向量写入队列中仍有待重放的记录"))
+                .when(vectorService).scanIndexedItems(any());
+
+        VectorConsistencyReportVO report = vectorConsistencyService.check();
+
+        assertEquals("向量写入队列中仍有待重放的记录", report.getError());
+        verify(itemMapper, never()).streamSyncState(any());
+        verifyNoInteractions(vectorOutboxService);
+    }
+
+    private void streamItems(Item... items) {
+        doAnswer(invocation -> {
+            ResultHandler<Item> handler = invocation.getArgument(0);
+            for (Item item : items) {
+                ResultContext<Item> context = mock(ResultContext.class);
+                when(context.getResultObject()).thenReturn(item);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(itemMapper).streamSyncState(any());
+    }
+
+    private void scanIndexed(Object[][] entries) {
+        doAnswer(invocation -> {
+            IVectorService.IndexedVectorConsumer consumer = invocation.getArgument(0);
+            for (Object[] entry : entries) {
+                consumer.accept((Long) entry[0], (Integer) entry[1], (Integer) entry[2]);
+            }
+            return null;
+        }).when(vectorService).scanIndexedItems(any());
+    }
+
+    private static Item item(Long id, int type, ItemStatus status, LocalDateTime updatedAt) {
+        return item(id, type, status, updatedAt, 0);
+    }
+
+    private static Item item(Long id, int type, ItemStatus status, LocalDateTime updatedAt, int imageCount) {
+        return Item.builder()
+                .id(id)
+                .type(type)
+                .status(status.getCode())
+                .updatedAt(updatedAt)
+                .imageCount(imageCount)
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxOperation;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorOutboxStatus;
+import com.whut.lostandfoundforwhut.mapper.ImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.mapper.VectorOutboxMapper;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemTag;
+import com.whut.lostandfoundforwhut.model.entity.VectorOutbox;
+import com.whut.lostandfoundforwhut.service.impl.VectorOutboxServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VectorOutboxServiceImplTest {
+
+    @Mock
+    private VectorOutboxMapper vectorOutboxMapper;
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @Mock
+    private ItemTagMapper itemTagMapper;
+
+    @Mock
+    private ItemImageMapper itemImageMapper;
+
+    @Mock
+    private ImageMapper imageMapper;
+
+    @Mock
+    private IVectorService vectorService;
+
+    @Mock
+    private IItemSearchService itemSearchService;
+
+    @Mock
+    private IItemMatchService itemMatchService;
+
+    @InjectMocks
+    private VectorOutboxServiceImpl vectorOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(vectorOutboxService, "workerThreads", 2);
+        ReflectionTestUtils.setField(vectorOutboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(vectorOutboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(vectorOutboxService, "backoffBaseSeconds", 2L);
+        ReflectionTestUtils.setField(vectorOutboxService, "backoffMaxSeconds", 600L);
+        ReflectionTestUtils.setField(vectorOutboxService, "stuckTimeoutSeconds", 300L);
+        vectorOutboxService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorOutboxService.shutdown();
+    }
+
+    @Test
+    void drain_coalescesRecordsOfSameItemAndDeletesOnSuccess() {
+        Item item = Item.builder().id(1L).status(ItemStatus.ACTIVE.getCode()).description("黑色钱包").build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(10L, 1L, VectorOutboxOperation.ADD, "http://img/1.jpg", 0),
+                record(11L, 1L, VectorOutboxOperation.UPDATE, null, 0)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(1L)).thenReturn(item);
+        ItemTag itemTag = new ItemTag();
+        itemTag.setItemId(1L);
+        itemTag.setTagId(7L);
+        when(itemTagMapper.selectList(any())).thenReturn(List.of(itemTag));
+        when(itemImageMapper.selectCount(any())).thenReturn(1L);
+
+        assertEquals(2, vectorOutboxService.drain());
+
+        // 新增后紧接着更新：合并为一次同步，新增记录的图片仍然嵌入，标签ID随元数据写入
+        verify(itemSearchService).indexItem(item, List.of(7L));
+        verify(vectorService).indexItem(item, "http://img/1.jpg", List.of(7L));
+        // 已有图片向量的元数据只按数据库中的图片数同步
+        assertEquals(1, item.getImageCount());
+        verify(itemMatchService).refreshMatches(item);
+        verify(vectorOutboxMapper).deleteByIds(List.of(10L, 11L));
+    }
+
+    @Test
+    void drain_dropsImageOfAddBeforeRemove() {
+        Item item = Item.builder().id(6L).status(ItemStatus.ACTIVE.getCode()).build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(60L, 6L, VectorOutboxOperation.ADD, "http://img/6.jpg", 0),
+                record(61L, 6L, VectorOutboxOperation.REMOVE, null, 0),
+                record(62L, 6L, VectorOutboxOperation.UPDATE, null, 0)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(6L)).thenReturn(item);
+
+        vectorOutboxService.drain();
+
+        verify(vectorService).indexItem(item, null, List.of());
+    }
+
+    @Test
+    void drain_reindexEmbedsAllImagesOfItem() {
+        Item item = Item.builder().id(7L).status(ItemStatus.ACTIVE.getCode()).build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(70L, 7L, VectorOutboxOperation.REINDEX, null, 0),
+                record(71L, 7L, VectorOutboxOperation.UPDATE, null, 0)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(7L)).thenReturn(item);
+        when(itemImageMapper.getImageUrlsByItemId(7L)).thenReturn(List.of("http://img/7a.jpg", "http://img/7b.jpg"));
+
+        vectorOutboxService.drain();
+
+        // 对账修复按数据库中的全部图片重新嵌入，不只是第一张
+        verify(vectorService).indexItemImages(item, List.of("http://img/7a.jpg", "http://img/7b.jpg"), List.of());
+        verify(vectorService, never()).indexItem(any(), any(), any());
+        verify(vectorOutboxMapper).deleteByIds(List.of(70L, 71L));
+    }
+
+    @Test
+    void drain_reindexRecordsImagesThatCannotBeEmbedded() {
+        Item item = Item.builder().id(8L).status(ItemStatus.ACTIVE.getCode()).build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(80L, 8L, VectorOutboxOperation.REINDEX, null, 0)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(8L)).thenReturn(item);
+        List<String> urls = List.of("http://img/8a.jpg", "http://img/8b.jpg");
+        when(itemImageMapper.getImageUrlsByItemId(8L)).thenReturn(urls);
+        when(vectorService.indexItemImages(item, urls, List.of())).thenReturn(List.of("http://img/8b.jpg"));
+
+        vectorOutboxService.drain();
+
+        // 无法嵌入的图片记录下来，对账按能生成向量的图片数比较，不会每次都重新登记修复
+        verify(imageMapper).updateEmbedFailed(8L, List.of("http://img/8b.jpg"));
+        verify(vectorOutboxMapper).deleteByIds(List.of(80L));
+    }
+
+    @Test
+    void drain_reindexKeepsEmbedFailuresWhenImagesWereNotEmbedded() {
+        Item item = Item.builder().id(9L).status(ItemStatus.ACTIVE.getCode()).build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(90L, 9L, VectorOutboxOperation.REINDEX, null, 0)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(9L)).thenReturn(item);
+        when(itemImageMapper.getImageUrlsByItemId(9L)).thenReturn(List.of("http://img/9.jpg"));
+        when(vectorService.indexItemImages(any(), any(), any())).thenReturn(null);
+
+        vectorOutboxService.drain();
+
+        // 写入进入本地队列或离线嵌入时不知道图片能否嵌入，保留原有标记
+        verify(imageMapper, never()).updateEmbedFailed(any(), any());
+    }
+
+    @Test
+    void drain_removesVectorWhenItemClosed() {
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(20L, 2L, VectorOutboxOperation.ADD, "http://img/2.jpg", 0)));
+        when(vectorOutboxMapper.claim(20L)).thenReturn(1);
+        when(itemMapper.selectById(2L)).thenReturn(
+                Item.builder().id(2L).status(ItemStatus.CLOSED.getCode()).build());
+
+        vectorOutboxService.drain();
+
+        // 向量删除后再让缓存失效，两步之间的检索写入的旧结果不会保留到过期
+        InOrder order = inOrder(itemSearchService, vectorService);
+        order.verify(itemSearchService).removeItem(2L);
+        order.verify(vectorService).deindexItem(2L);
+        order.verify(itemSearchService).invalidateCachedResults(2L);
+        verify(itemMatchService).removeMatches(2L);
+        verify(vectorService, never()).indexItem(any(), any(), any());
+    }
+
+    @Test
+    void drain_schedulesRetryThenMarksFailedAfterMaxAttempts() {
+        Item item = Item.builder().id(3L).status(ItemStatus.ACTIVE.getCode()).build();
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(30L, 3L, VectorOutboxOperation.UPDATE, null, 0),
+                record(31L, 4L, VectorOutboxOperation.REMOVE, null, 2)));
+        when(vectorOutboxMapper.claim(anyLong())).thenReturn(1);
+        when(itemMapper.selectById(3L)).thenReturn(item);
+        doThrow(new IllegalStateException("chroma down")).when(vectorService).indexItem(item, null, List.of());
+        doThrow(new IllegalStateException("chroma down")).when(vectorService).deindexItem(4L);
+
+        LocalDateTime before = LocalDateTime.now();
+        vectorOutboxService.drain();
+
+        ArgumentCaptor<VectorOutbox> captor = ArgumentCaptor.forClass(VectorOutbox.class);
+        verify(vectorOutboxMapper, times(2)).updateById(captor.capture());
+        verify(vectorOutboxMapper, never()).deleteByIds(anyCollection());
+        for (VectorOutbox update : captor.getAllValues()) {
+            if (update.getId() == 30L) {
+                assertEquals(VectorOutboxStatus.PENDING.getCode(), update.getStatus());
+                assertTrue(update.getNextAttemptAt().isAfter(before.plusSeconds(1)));
+            } else {
+                assertEquals(VectorOutboxStatus.FAILED.getCode(), update.getStatus());
+            }
+            assertTrue(update.getLastError().contains("chroma down"));
+        }
+    }
+
+    @Test
+    void drain_skipsRecordsClaimedByOthers() {
+        when(vectorOutboxMapper.selectReady(anyInt())).thenReturn(List.of(
+                record(40L, 5L, VectorOutboxOperation.REMOVE, null, 0)));
+        when(vectorOutboxMapper.claim(40L)).thenReturn(0);
+
+        vectorOutboxService.drain();
+
+        verify(vectorService, never()).deindexItem(anyLong());
+    }
+
+    private static VectorOutbox record(Long id, Long itemId, VectorOutboxOperation operation, String imageUrl,
+            int attempts) {
+        return VectorOutbox.builder()
+                .id(id)
+                .itemId(itemId)
+                .operation(operation.getCode())
+                .imageUrl(imageUrl)
+                .status(VectorOutboxStatus.PENDING.getCode())
+                .attempts(attempts)
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.enums.vector.VectorReindexStatus;
+import com.whut.lostandfoundforwhut.mapper.ImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemImageMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.mapper.ItemTagMapper;
+import com.whut.lostandfoundforwhut.model.entity.Image;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.model.entity.ItemImage;
+import com.whut.lostandfoundforwhut.model.entity.ItemTag;
+import com.whut.lostandfoundforwhut.model.vo.VectorReindexProgressVO;
+import com.whut.lostandfoundforwhut.service.impl.VectorReindexServiceImpl;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VectorReindexServiceImplTest {
+
+    @Mock
+    private ItemMapper itemMapper;
+
+    @Mock
+    private ItemTagMapper itemTagMapper;
+
+    @Mock
+    private ItemImageMapper itemImageMapper;
+
+    @Mock
+    private ImageMapper imageMapper;
+
+    @Mock
+    private IVectorService vectorService;
+
+    @InjectMocks
+    private VectorReindexServiceImpl vectorReindexService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(vectorReindexService, "batchSize", 2);
+        ReflectionTestUtils.setField(vectorReindexService, "requestsPerSecond", 0.0);
+        vectorReindexService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorReindexService.shutdown();
+    }
+
+    @Test
+    void start_streamsItemsInBatchesAndCommits() throws Exception {
+        when(itemMapper.selectCount(any())).thenReturn(3L);
+        streamItems(item(1L), item(2L), item(3L));
+        ItemTag itemTag = new ItemTag();
+        itemTag.setItemId(1L);
+        itemTag.setTagId(9L);
+        when(itemTagMapper.selectList(any())).thenReturn(List.of(itemTag), List.of());
+        when(itemImageMapper.selectList(any())).thenReturn(List.of(itemImage(2L, 12L), itemImage(2L, 11L)), List.of());
+        when(imageMapper.selectBatchIds(any())).thenReturn(List.of(image(11L, "url11"), image(12L, "url12")));
+
+        assertTrue(vectorReindexService.start());
+        VectorReindexProgressVO progress = awaitFinished();
+
+        assertEquals(VectorReindexStatus.COMPLETED.getCode(), progress.getStatus());
+        assertEquals(3, progress.getTotal());
+        assertEquals(3, progress.getProcessed());
+        InOrder order = inOrder(vectorService);
+        order.verify(vectorService).beginReindex();
+        // 图片URL按关联表的返回顺序（查询已按图片ID排序）进入槽位
+        order.verify(vectorService).reindexItems(List.of(item(1L), item(2L)), Map.of(1L, List.of(9L)),
+                Map.of(2L, List.of("url12", "url11")));
+        order.verify(vectorService).reindexItems(List.of(item(3L)), Map.of(), Map.of());
+        order.verify(vectorService).commitReindex();
+    }
+
+    @Test
+    void start_abortsShadowWhenBatchFails() throws Exception {
+        when(itemMapper.selectCount(any())).thenReturn(2L);
+        streamItems(item(1L), item(2L));
+        doThrow(new IllegalStateException("dashscope down")).when(vectorService).reindexItems(anyList(), anyMap(), anyMap());
+
+        assertTrue(vectorReindexService.start());
+        VectorReindexProgressVO progress = awaitFinished();
+
+        assertEquals(VectorReindexStatus.FAILED.getCode(), progress.getStatus());
+        assertEquals("dashscope down", progress.getError());
+        verify(vectorService).abortReindex();
+        verify(vectorService, never()).commitReindex();
+    }
+
+    @Test
+    void start_rejectsConcurrentRun() throws Exception {
+        when(itemMapper.selectCount(any())).thenReturn(0L);
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return null;
+        }).when(itemMapper).streamIndexable(any());
+
+        assertTrue(vectorReindexService.start());
+        assertFalse(vectorReindexService.start());
+        awaitFinished();
+        assertTrue(vectorReindexService.start());
+        awaitFinished();
+    }
+
+    private static ItemImage itemImage(Long itemId, Long imageId) {
+        ItemImage itemImage = new ItemImage();
+        itemImage.setItemId(itemId);
+        itemImage.setImageId(imageId);
+        return itemImage;
+    }
+
+    private static Image image(Long id, String url) {
+        Image image = new Image();
+        image.setId(id);
+        image.setUrl(url);
+        return image;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamItems(Item... items) {
+        doAnswer(invocation -> {
+            ResultHandler<Item> handler = invocation.getArgument(0);
+            for (Item item : items) {
+                ResultContext<Item> context = mock(ResultContext.class);
+                when(context.getResultObject()).thenReturn(item);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(itemMapper).streamIndexable(any());
+    }
+
+    private VectorReindexProgressVO awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        VectorReindexProgressVO progress = vectorReindexService.getProgress();
+        while (VectorReindexStatus.RUNNING.getCode().equals(progress.getStatus())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            progress = vectorReindexService.getProgress();
+        }
+        return progress;
+    }
+
+    private static Item item(Long id) {
+        return Item.builder().id(id).status(ItemStatus.ACTIVE.getCode()).description("物品" + id).build();
+    }
+}
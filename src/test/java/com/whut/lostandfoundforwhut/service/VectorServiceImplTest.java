@@ -0,0 +1,504 @@
+package com.whut.lostandfoundforwhut.service;
+
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingOutput;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResult;
+import com.alibaba.dashscope.embeddings.MultiModalEmbeddingResultItem;
+import com.whut.lostandfoundforwhut.common.enums.item.ItemStatus;
+import com.whut.lostandfoundforwhut.common.utils.vector.ItemVectorIds;
+import com.whut.lostandfoundforwhut.common.utils.vector.VectorFilter;
+import com.whut.lostandfoundforwhut.common.utils.vector.cache.EmbeddingCache;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.CircuitBreaker;
+import com.whut.lostandfoundforwhut.common.utils.vector.client.DashScopeEmbeddingClient;
+import com.whut.lostandfoundforwhut.common.utils.vector.embedding.HashingEmbeddingProvider;
+import com.whut.lostandfoundforwhut.common.utils.vector.store.VectorStore;
+import com.whut.lostandfoundforwhut.mapper.ItemMapper;
+import com.whut.lostandfoundforwhut.model.dto.TextEmbeddingDTO;
+import com.whut.lostandfoundforwhut.model.entity.Item;
+import com.whut.lostandfoundforwhut.service.impl.VectorServiceImpl;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author DXR
+ * @date 2026/02/18
+ * @description 向量服务测试：内存向量存储 + 离线嵌入，无需 Chroma 与 DashScope；
+ * 图片向量用例的文本向量预先放入嵌入缓存，多模态向量由模拟的客户端返回
+ */
+class VectorServiceImplTest {
+
+    private static final int IMAGE_DIMENSION = 64;
+
+    private VectorServiceImpl vectorService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        vectorService = newService("memory");
+        vectorService.initializeCollection();
+    }
+
+    @Test
+    void searchInCollection_aggregatesItemVectorsByMaxSimilarity() throws Exception {
+        VectorServiceImpl service = newMultimodalService("memory",
+                multimodalClient(unit(IMAGE_DIMENSION, 0)), "黑色华为耳机", "红色雨伞", "蓝色水杯");
+        service.initializeCollection();
+        String image = imageFile();
+        try {
+            service.indexItemImages(item(1L, "黑色华为耳机", 0), List.of(image, image), List.of());
+            service.indexItem(item(2L, "红色雨伞", 0), null, List.of());
+            service.indexItem(item(3L, "蓝色水杯", 0), null, List.of());
+
+            // 物品1的文本与两张图片向量占满前几名，仍只返回一次，名额不足时加倍重取补上其他物品
+            List<String> results = service.searchInCollection("黑色华为耳机", 2);
+            assertEquals(2, results.size());
+            assertEquals("item_1", results.get(0));
+        } finally {
+            deleteImageFile(image);
+        }
+    }
+
+    @Test
+    void indexItem_imageVectorsLiveInTheirOwnSpaceWithDifferentDimension() throws Exception {
+        // 第一次多模态调用嵌入图片，之后依次是两次检索的查询文本
+        DashScopeEmbeddingClient client = multimodalClient(unit(IMAGE_DIMENSION, 0), unit(IMAGE_DIMENSION, 1),
+                unit(IMAGE_DIMENSION, 0));
+        VectorServiceImpl service = newMultimodalService("memory", client, "黑色双肩包", "红色雨伞", "双肩包");
+        ReflectionTestUtils.setField(service, "backend", "hnsw");
+        ReflectionTestUtils.setField(service, "hnswM", 8);
+        ReflectionTestUtils.setField(service, "hnswEfConstruction", 50);
+        ReflectionTestUtils.setField(service, "hnswEfSearch", 20);
+        service.initializeCollection();
+        String image = imageFile();
+        try {
+            // 文本 256 维、图片 64 维，写入各自分区的索引，索引不会因维度不一致拒绝写入
+            service.indexItem(item(1L, "黑色双肩包", 0), image, List.of());
+            service.indexItem(item(2L, "红色雨伞", 1), null, List.of());
+            assertEquals(3, service.getCollectionSize());
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> partitions =
+                    (Map<String, Map<String, Object>>) service.getPartitionStats().get("partitions");
+            assertEquals(1, partitions.get("lost").get("size"));
+            assertEquals(1, partitions.get("found").get("size"));
+            assertEquals(1, partitions.get("lost_images").get("size"));
+            assertEquals("items_lost_images", partitions.get("lost_images").get("collection"));
+
+            // 查询文本在图片空间与物品1的图片不相似，按文本空间的相似度排序
+            assertEquals("item_2", service.searchInCollection("红色雨伞", 2).get(0));
+            // 图片空间命中物品1的图片，物品取各向量空间中的最大相似度
+            VectorStore.Match best = service.searchScoredInCollection("双肩包", 1, null).get(0);
+            assertEquals("item_1", best.id());
+            assertEquals(1.0, best.score(), 1e-4);
+            assertEquals(List.of("item_2"), service.searchInCollection("双肩包", 5,
+                    VectorFilter.builder().type(1).build()));
+
+            // 文本嵌入入口不接受图片槽位ID
+            assertThrows(RuntimeException.class, () -> service.addTextToCollection(
+                    text(ItemVectorIds.imageId(1L, 0), "黑色双肩包")));
+
+            service.deindexItem(1L);
+            assertEquals(1, service.getCollectionSize());
+        } finally {
+            deleteImageFile(image);
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void indexItemImages_reportsImagesThatCannotBeEmbedded() throws Exception {
+        VectorServiceImpl service = newMultimodalService("memory",
+                multimodalClient(unit(IMAGE_DIMENSION, 0)), "黑色双肩包");
+        service.initializeCollection();
+        String image = imageFile();
+        try {
+            // 文件缺失的图片重试也无法嵌入，返回给调用方记录，其余图片照常写入
+            assertEquals(List.of("vector-test-missing.png"), service.indexItemImages(item(1L, "黑色双肩包", 0),
+                    List.of("vector-test-missing.png", image), List.of()));
+            assertEquals(2, service.getCollectionSize());
+
+            // 离线嵌入不生成图片向量，无从判断图片能否嵌入
+            assertNull(vectorService.indexItemImages(item(2L, "蓝色水杯", 0), List.of(image), List.of()));
+        } finally {
+            deleteImageFile(image);
+        }
+    }
+
+    @Test
+    void indexItem_textUpdateKeepsImageVectorsAndRefreshesMetadata() throws Exception {
+        VectorServiceImpl vectorService = newMultimodalService("memory",
+                multimodalClient(unit(IMAGE_DIMENSION, 0)), "白色运动鞋", "白色运动鞋 42码", "运动鞋", "白色 运动鞋");
+        vectorService.initializeCollection();
+        String image = imageFile();
+        try {
+            vectorService.indexItem(item(5L, "白色运动鞋", 0), image, List.of(9L));
+        } finally {
+            deleteImageFile(image);
+        }
+        assertEquals(2, vectorService.getCollectionSize());
+
+        VectorFilter tagged = VectorFilter.builder().tagIds(List.of(9L)).build();
+        assertEquals(List.of("item_5"), vectorService.searchInCollection("运动鞋", 5, tagged));
+
+        // 再次只更新文本：图片向量保留，元数据随之更新
+        vectorService.indexItem(item(5L, "白色运动鞋 42码", 1), null, List.of(9L));
+        assertEquals(2, vectorService.getCollectionSize());
+        VectorFilter lost = VectorFilter.builder().type(1).build();
+        assertEquals(List.of("item_5"), vectorService.searchInCollection("白色 运动鞋", 5, lost));
+        assertEquals(List.of(), vectorService.searchInCollection("白色 运动鞋", 5,
+                VectorFilter.builder().type(0).build()));
+
+        vectorService.deindexItem(5L);
+        assertEquals(0, vectorService.getCollectionSize());
+    }
+
+    @Test
+    void searchInCollection_typeFilterScansOnlyThatPartition() {
+        vectorService.indexItem(item(1L, "黑色双肩包 笔记本电脑", 0), null, List.of());
+        vectorService.indexItem(item(2L, "黑色双肩包 校园卡", 1), null, List.of());
+        vectorService.indexItem(item(3L, "蓝色水杯", 1), null, List.of());
+
+        assertEquals(List.of("item_2", "item_3"), vectorService.searchInCollection("黑色双肩包", 5,
+                VectorFilter.builder().type(1).build()));
+        assertEquals(List.of("item_1"), vectorService.searchInCollection("黑色双肩包", 5,
+                VectorFilter.builder().type(0).status(ItemStatus.ACTIVE.getCode()).build()));
+        assertEquals(List.of(), vectorService.searchInCollection("黑色双肩包", 5,
+                VectorFilter.builder().status(ItemStatus.CLOSED.getCode()).build()));
+        assertEquals(2, vectorService.searchInCollection("黑色双肩包", 2).size());
+
+        Map<String, Map<String, Object>> partitions = partitions();
+        assertEquals(1, partitions.get("lost").get("size"));
+        assertEquals(2, partitions.get("found").get("size"));
+        assertEquals(0, partitions.get("shared").get("size"));
+        // 按类型过滤的检索不扫描其他分区，不带类型的检索扫描全部分区，按已结束状态过滤不扫描
+        assertEquals(2L, partitions.get("lost").get("queries"));
+        assertEquals(2L, partitions.get("found").get("queries"));
+        assertEquals(1L, partitions.get("shared").get("queries"));
+        assertEquals("items_found", partitions.get("found").get("collection"));
+    }
+
+    @Test
+    void searchInCollection_closedStatusFilterSkipsQueryEmbedding() {
+        AtomicInteger queryEmbeddings = new AtomicInteger();
+        ReflectionTestUtils.setField(vectorService, "localEmbeddingProvider", new HashingEmbeddingProvider(256) {
+            @Override
+            public float[] embedQuery(String text) {
+                queryEmbeddings.incrementAndGet();
+                return super.embedQuery(text);
+            }
+        });
+        vectorService.indexItem(item(1L, "黑色双肩包", 0), null, List.of());
+
+        assertEquals(List.of(), vectorService.searchInCollection("黑色双肩包", 5,
+                VectorFilter.builder().status(ItemStatus.CLOSED.getCode()).build()));
+        assertEquals(0, queryEmbeddings.get());
+        assertEquals(List.of("item_1"), vectorService.searchInCollection("黑色双肩包", 5));
+        assertEquals(1, queryEmbeddings.get());
+    }
+
+    @Test
+    void indexItem_movesBetweenPartitionsAndDropsClosedItems() {
+        vectorService.indexItem(item(1L, "银色钥匙串", 0), null, List.of());
+        vectorService.indexItem(item(1L, "银色钥匙串", 1), null, List.of());
+        assertEquals(1, vectorService.getCollectionSize());
+        assertEquals(List.of(), vectorService.searchInCollection("钥匙", 5, VectorFilter.builder().type(0).build()));
+        assertEquals(List.of("item_1"), vectorService.searchInCollection("钥匙", 5,
+                VectorFilter.builder().type(1).build()));
+
+        Item closed = item(1L, "银色钥匙串", 1);
+        closed.setStatus(ItemStatus.CLOSED.getCode());
+        vectorService.indexItem(closed, null, List.of());
+        assertEquals(0, vectorService.getCollectionSize());
+        assertTrue(vectorService.searchInCollection("钥匙", 5).isEmpty());
+    }
+
+    @Test
+    void indexItem_typeChangeRoundTripLeavesVectorsOnlyInCurrentPartition() throws Exception {
+        VectorServiceImpl vectorService = newMultimodalService("memory",
+                multimodalClient(unit(IMAGE_DIMENSION, 0)), "银色钥匙串", "银色钥匙串 挂件", "钥匙");
+        vectorService.initializeCollection();
+        String image = imageFile();
+        try {
+            vectorService.indexItem(item(1L, "银色钥匙串", 0), image, List.of());
+        } finally {
+            deleteImageFile(image);
+        }
+        vectorService.indexItem(item(1L, "银色钥匙串", 1), null, List.of());
+        vectorService.indexItem(item(1L, "银色钥匙串 挂件", 0), null, List.of());
+        vectorService.indexItem(item(1L, "银色钥匙串 挂件", 0), null, List.of());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> partitions =
+                (Map<String, Map<String, Object>>) vectorService.getPartitionStats().get("partitions");
+        assertEquals(1, partitions.get("lost").get("size"));
+        assertEquals(0, partitions.get("found").get("size"));
+        assertEquals(0, partitions.get("shared").get("size"));
+        // 图片向量不随文本重新嵌入，留在原类型的图片分区并同步元数据
+        assertEquals(1, partitions.get("lost_images").get("size"));
+        assertEquals(0, partitions.get("found_images").get("size"));
+        assertEquals(List.of(), vectorService.searchInCollection("钥匙", 5, VectorFilter.builder().type(1).build()));
+        assertEquals(List.of("item_1"), vectorService.searchInCollection("钥匙", 5,
+                VectorFilter.builder().type(0).build()));
+
+        vectorService.deindexItem(1L);
+        assertEquals(0, vectorService.getCollectionSize());
+    }
+
+    @Test
+    void indexItem_queuesWritesWhileStoreUnavailableAndReplaysAfterReconnect() throws Exception {
+        // 数据目录被同名文件占用，存储无法打开，模拟启动时存储不可用
+        Path dataDir = tempDir.resolve("store");
+        Files.writeString(dataDir, "occupied");
+        VectorServiceImpl service = newService("file");
+        ReflectionTestUtils.setField(service, "storeDataDir", dataDir.toString());
+        ReflectionTestUtils.setField(service, "writeQueueFile", tempDir.resolve("writes.wal").toString());
+        ReflectionTestUtils.setField(service, "writeQueueBatchSize", 2);
+        ReflectionTestUtils.setField(service, "reconnectBackoffBaseMs", 10L);
+        ReflectionTestUtils.setField(service, "reconnectBackoffMaxMs", 50L);
+        service.initializeCollection();
+        try {
+            // 写入不抛异常，进入本地队列
+            service.indexItem(item(1L, "黑色双肩包", 0), null, List.of());
+            service.indexItem(item(2L, "蓝色水杯", 1), null, List.of());
+            service.deindexItem(1L);
+            service.indexItem(item(3L, "黑色雨伞", 1), null, List.of());
+            assertEquals(4, service.getWriteQueueStats().get("pending"));
+            assertFalse((Boolean) service.getWriteQueueStats().get("storesAttached"));
+            assertThrows(IllegalStateException.class, () -> service.searchInCollection("黑色", 5));
+
+            Files.delete(dataDir);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!Integer.valueOf(0).equals(service.getWriteQueueStats().get("pending"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            Map<String, Object> stats = service.getWriteQueueStats();
+            assertEquals(0, stats.get("pending"));
+            assertEquals(4L, stats.get("queued"));
+            assertEquals(4L, stats.get("replayed"));
+            assertTrue((Boolean) stats.get("storesAttached"));
+            assertEquals(2, service.getCollectionSize());
+            List<String> results = service.searchInCollection("黑色", 5);
+            assertEquals("item_3", results.get(0));
+            assertFalse(results.contains("item_1"));
+
+            // 队列清空后直接写入存储
+            service.indexItem(item(4L, "黑色钱包", 0), null, List.of());
+            assertEquals(3, service.getCollectionSize());
+            assertEquals(4L, service.getWriteQueueStats().get("queued"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void indexItem_queuesWriteWhenDashScopeBreakerIsOpenInFallbackMode() {
+        VectorServiceImpl service = newService("memory");
+        ReflectionTestUtils.setField(service, "localEmbeddingMode", "fallback");
+        ReflectionTestUtils.setField(service, "dashScopeApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "embeddingCache", new EmbeddingCache());
+        ReflectionTestUtils.setField(service, "embeddingClient", openBreakerClient());
+        ReflectionTestUtils.setField(service, "writeQueueFile", tempDir.resolve("writes.wal").toString());
+        ReflectionTestUtils.setField(service, "reconnectBackoffBaseMs", 60_000L);
+        ReflectionTestUtils.setField(service, "reconnectBackoffMaxMs", 60_000L);
+        service.initializeCollection();
+        try {
+            // 熔断中不能用离线向量写入 DashScope 向量空间的集合，写入进入本地队列等待恢复后重放
+            service.indexItem(item(1L, "黑色双肩包", 0), null, List.of());
+
+            assertEquals(0, service.getCollectionSize());
+            assertEquals(1L, service.getWriteQueueStats().get("queued"));
+            assertEquals(1, service.getWriteQueueStats().get("pending"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void searchInCollection_failsInsteadOfOfflineQueryWhenDashScopeIsDownInFallbackMode() {
+        vectorService.indexItem(item(1L, "黑色双肩包", 0), null, List.of());
+        ReflectionTestUtils.setField(vectorService, "localEmbeddingMode", "fallback");
+        ReflectionTestUtils.setField(vectorService, "dashScopeApiKey", "test-key");
+        ReflectionTestUtils.setField(vectorService, "embeddingCache", new EmbeddingCache());
+        ReflectionTestUtils.setField(vectorService, "embeddingClient", openBreakerClient());
+
+        // 离线查询向量与 DashScope 语料不可比，检索失败，由混合检索降级为关键词召回
+        assertThrows(RuntimeException.class, () -> vectorService.searchInCollection("黑色双肩包", 5));
+    }
+
+    @Test
+    void rebuildEmbeddingStatistics_registersItemsOnlyWhenLocalEmbeddingIsUsed() {
+        List<String> registered = new ArrayList<>();
+        ReflectionTestUtils.setField(vectorService, "localEmbeddingProvider", new HashingEmbeddingProvider(256) {
+            @Override
+            public void register(String id, String text) {
+                registered.add(id + ":" + text);
+            }
+        });
+        Item undescribed = item(2L, null, 0);
+        ItemMapper itemMapper = mock(ItemMapper.class);
+        doAnswer(invocation -> {
+            ResultHandler<Item> handler = invocation.getArgument(0);
+            for (Item item : List.of(item(1L, "黑色双肩包", 0), undescribed)) {
+                ResultContext<Item> context = mock(ResultContext.class);
+                when(context.getResultObject()).thenReturn(item);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(itemMapper).streamIndexable(any());
+        ReflectionTestUtils.setField(vectorService, "itemMapper", itemMapper);
+
+        vectorService.rebuildEmbeddingStatistics();
+        assertEquals(List.of("item_1:黑色双肩包", "item_2:未提供描述"), registered);
+
+        // fallback 且配置了 DashScope：向量由 DashScope 生成，不读库也不登记
+        ReflectionTestUtils.setField(vectorService, "localEmbeddingMode", "fallback");
+        ReflectionTestUtils.setField(vectorService, "dashScopeApiKey", "test-key");
+        registered.clear();
+        vectorService.rebuildEmbeddingStatistics();
+        assertTrue(registered.isEmpty());
+        verify(itemMapper, times(1)).streamIndexable(any());
+    }
+
+    private static VectorServiceImpl newService(String storeType) {
+        VectorServiceImpl service = new VectorServiceImpl();
+        ReflectionTestUtils.setField(service, "vectorStoreEnabled", true);
+        ReflectionTestUtils.setField(service, "collectionName", "items");
+        ReflectionTestUtils.setField(service, "backend", "chroma");
+        ReflectionTestUtils.setField(service, "storeType", storeType);
+        ReflectionTestUtils.setField(service, "partitionByType", true);
+        ReflectionTestUtils.setField(service, "multiVectorFetchFactor", 1);
+        ReflectionTestUtils.setField(service, "localEmbeddingMode", "primary");
+        ReflectionTestUtils.setField(service, "localEmbeddingProvider", new HashingEmbeddingProvider(256));
+        return service;
+    }
+
+    /**
+     * fallback 模式且配置了 DashScope 的服务（支持图片嵌入）：给定文本的文本向量预先放入嵌入缓存，
+     * 由离线嵌入生成，与多模态客户端返回的图片向量维度不同
+     */
+    private static VectorServiceImpl newMultimodalService(String storeType, DashScopeEmbeddingClient client,
+                                                          String... texts) {
+        VectorServiceImpl service = newService(storeType);
+        ReflectionTestUtils.setField(service, "localEmbeddingMode", "fallback");
+        ReflectionTestUtils.setField(service, "dashScopeApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "embeddingClient", client);
+        ReflectionTestUtils.setField(service, "imageMaxSide", 1024);
+        ReflectionTestUtils.setField(service, "imageQuality", 0.85f);
+        ReflectionTestUtils.setField(service, "imageMaxSourceBytes", 1 << 20);
+        EmbeddingCache cache = new EmbeddingCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "localMaxSize", 100);
+        HashingEmbeddingProvider textModel = new HashingEmbeddingProvider(256);
+        for (String text : texts) {
+            cache.put("text-embedding-v1", text, textModel.embed(text));
+        }
+        ReflectionTestUtils.setField(service, "embeddingCache", cache);
+        return service;
+    }
+
+    /**
+     * 按调用顺序返回给定向量的多模态客户端，最后一个向量重复返回
+     */
+    private static DashScopeEmbeddingClient multimodalClient(float[]... vectors) {
+        DashScopeEmbeddingClient client = mock(DashScopeEmbeddingClient.class);
+        List<MultiModalEmbeddingResult> results = new ArrayList<>();
+        for (float[] vector : vectors) {
+            List<Double> values = new ArrayList<>(vector.length);
+            for (float value : vector) {
+                values.add((double) value);
+            }
+            MultiModalEmbeddingResultItem item = mock(MultiModalEmbeddingResultItem.class);
+            when(item.getEmbedding()).thenReturn(values);
+            MultiModalEmbeddingOutput output = mock(MultiModalEmbeddingOutput.class);
+            when(output.getEmbeddings()).thenReturn(List.of(item));
+            MultiModalEmbeddingResult result = mock(MultiModalEmbeddingResult.class);
+            when(result.getOutput()).thenReturn(output);
+            results.add(result);
+        }
+        when(client.embedMultimodal(any())).thenReturn(results.get(0),
+                results.subList(1, results.size()).toArray(new MultiModalEmbeddingResult[0]));
+        return client;
+    }
+
+    private static float[] unit(int dimension, int axis) {
+        float[] vector = new float[dimension];
+        vector[axis] = 1f;
+        return vector;
+    }
+
+    /**
+     * 在本地上传目录放一张图片，返回其文件名（本地图片按文件名从上传目录读取）
+     */
+    private static String imageFile() throws Exception {
+        Path dir = Path.of(System.getProperty("user.dir"), "uploads", "image");
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "vector-test-", ".png");
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file.getFileName().toString();
+    }
+
+    private static void deleteImageFile(String name) throws Exception {
+        Files.deleteIfExists(Path.of(System.getProperty("user.dir"), "uploads", "image", name));
+    }
+
+    /**
+     * 熔断器已打开的 DashScope 客户端，所有调用直接被拒绝
+     */
+    private static DashScopeEmbeddingClient openBreakerClient() {
+        DashScopeEmbeddingClient client = new DashScopeEmbeddingClient();
+        ReflectionTestUtils.setField(client, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(client, "requestsPerSecond", 10.0);
+        ReflectionTestUtils.setField(client, "burst", 10);
+        client.init();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 0.5, 60_000L);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        ReflectionTestUtils.setField(client, "circuitBreaker", breaker);
+        return client;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> partitions() {
+        return (Map<String, Map<String, Object>>) vectorService.getPartitionStats().get("partitions");
+    }
+
+    private static TextEmbeddingDTO text(String id, String text) {
+        return TextEmbeddingDTO.builder().id(id).text(text).build();
+    }
+
+    private static Item item(Long id, String description, int type) {
+        return Item.builder()
+                .id(id)
+                .type(type)
+                .description(description)
+                .status(ItemStatus.ACTIVE.getCode())
+                .build();
+    }
+}